@@ -1,6 +1,8 @@
 package com.gmail.tikrai.books;
 
+import com.gmail.tikrai.books.cache.BooksCache;
 import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
 import com.jayway.restassured.RestAssured;
 import com.jayway.restassured.http.ContentType;
 import com.jayway.restassured.specification.RequestSpecification;
@@ -21,16 +23,20 @@ public class IntegrationTestCase {
   @Autowired
   private JdbcOperations db;
 
+  @Autowired
+  private BooksCache booksCache;
+
   @BeforeEach
   public void setup() {
     RestAssured.port = port;
-    flushTables(BooksRepository.TABLE);
+    flushTables(BooksRepository.TABLE, InventorySummaryRepository.TABLE);
+    booksCache.invalidateAll();
   }
 
   private void flushTables(String... tables) {
-    String joinedTableNames = String.join(", ", tables);
-    String sql = String.format("DELETE FROM %s", joinedTableNames);
-    db.update(sql);
+    for (String table : tables) {
+      db.update(String.format("DELETE FROM %s", table));
+    }
   }
 
   protected RequestSpecification given() {
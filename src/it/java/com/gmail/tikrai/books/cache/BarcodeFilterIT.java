@@ -0,0 +1,104 @@
+package com.gmail.tikrai.books.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.exception.ResourceNotFoundException;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.service.BooksService;
+import com.gmail.tikrai.books.util.RestUtil.Endpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.StringReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DirtiesContext
+@TestPropertySource(properties = "books.barcode-filter.enabled=true")
+class BarcodeFilterIT extends IntegrationTestCase {
+
+  private static final long TIMEOUT_MILLIS = 10_000;
+
+  @Autowired
+  BarcodeFilter barcodeFilter;
+
+  @Autowired
+  BooksService booksService;
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  MeterRegistry registry;
+
+  private final Book book = Fixture.book().build();
+
+  @BeforeEach
+  void rebuild() {
+    barcodeFilter.invalidate();
+    barcodeFilter.refresh();
+  }
+
+  @Test
+  void shouldAnswerMissingBarcodeWithoutQueryingDatabase() {
+    Counter misses = registry.get("books.barcode.filter.misses").counter();
+    double missesBefore = misses.count();
+
+    given().get(String.format("%s/%s", Endpoint.BOOKS, book.barcode()))
+        .then().statusCode(HttpStatus.NOT_FOUND.value());
+
+    assertThat(misses.count() - missesBefore, equalTo(1.0));
+  }
+
+  @Test
+  void shouldFindCreatedBook() {
+    given().body(book).post(Endpoint.BOOKS).then().statusCode(HttpStatus.CREATED.value());
+
+    given().get(String.format("%s/%s", Endpoint.BOOKS, book.barcode()))
+        .then().statusCode(HttpStatus.OK.value());
+  }
+
+  @Test
+  void shouldFindBookCreatedByAnotherNode() throws InterruptedException {
+    booksRepository.create(book);
+
+    assertThat(awaitBook(), equalTo(book));
+  }
+
+  @Test
+  void shouldFindBooksImportedByAnotherNode() throws InterruptedException {
+    new TransactionTemplate(transactionManager).execute(status -> booksRepository.importRows(
+        new StringReader(String.format(
+            "1,\"%s\",\"Book Name\",\"Book Author\",2,1110,,\n", book.barcode()
+        ))
+    ));
+
+    assertThat(awaitBook(), equalTo(book));
+  }
+
+  private Book awaitBook() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (true) {
+      try {
+        return booksService.findByBarcode(book.barcode());
+      } catch (ResourceNotFoundException e) {
+        if (System.currentTimeMillis() > deadline) {
+          throw e;
+        }
+        Thread.sleep(10);
+      }
+    }
+  }
+}
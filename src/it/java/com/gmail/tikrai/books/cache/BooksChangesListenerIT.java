@@ -0,0 +1,86 @@
+package com.gmail.tikrai.books.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.service.BooksService;
+import java.io.StringReader;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class BooksChangesListenerIT extends IntegrationTestCase {
+
+  private static final long TIMEOUT_MILLIS = 10_000;
+
+  @Autowired
+  BooksService booksService;
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  JdbcTemplate db;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  private final Book book = Fixture.book().build();
+  private final Book changed = Fixture.book().author("Changed Author").build();
+
+  @Test
+  void shouldEvictBookUpdatedByAnotherNode() throws InterruptedException {
+    booksRepository.create(book);
+    assertThat(booksService.findByBarcode(book.barcode()), equalTo(book));
+
+    booksRepository.update(changed, Optional.empty());
+
+    assertThat(awaitChange(), equalTo(changed));
+  }
+
+  @Test
+  void shouldFlushCacheWhenAnotherNodeImportsBooks() throws InterruptedException {
+    booksRepository.create(book);
+    assertThat(booksService.findByBarcode(book.barcode()), equalTo(book));
+
+    new TransactionTemplate(transactionManager).execute(status -> booksRepository.importRows(
+        new StringReader(String.format(
+            "1,\"%s\",\"Book Name\",\"Changed Author\",2,1110,,\n", book.barcode()
+        ))
+    ));
+
+    assertThat(awaitChange(), equalTo(changed));
+  }
+
+  @Test
+  void shouldFlushCacheWhenListenerReconnects() throws InterruptedException {
+    booksRepository.create(book);
+    assertThat(booksService.findByBarcode(book.barcode()), equalTo(book));
+
+    db.update("UPDATE books SET author = 'Changed Author'");
+    db.query(
+        "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = ?",
+        rs -> null,
+        BooksChangesListener.APPLICATION_NAME
+    );
+
+    assertThat(awaitChange(), equalTo(changed));
+  }
+
+  private Book awaitChange() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    Book found = booksService.findByBarcode(book.barcode());
+    while (found.equals(book) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      found = booksService.findByBarcode(book.barcode());
+    }
+    return found;
+  }
+}
@@ -2,25 +2,63 @@ package com.gmail.tikrai.books.controller;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.gmail.tikrai.books.IntegrationTestCase;
 import com.gmail.tikrai.books.domain.Book;
 import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
 import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.response.BatchItemResponse;
+import com.gmail.tikrai.books.response.BooksLookupResponse;
+import com.gmail.tikrai.books.response.BooksPageResponse;
+import com.gmail.tikrai.books.response.CategorySummaryResponse;
+import com.gmail.tikrai.books.response.InventorySummaryResponse;
 import com.gmail.tikrai.books.response.TotalPriceResponse;
+import com.gmail.tikrai.books.response.TotalPricesLookupResponse;
 import com.gmail.tikrai.books.util.RestUtil.Endpoint;
+import com.jayway.restassured.RestAssured;
 import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 class BooksControllerIT extends IntegrationTestCase {
 
+  private static final int EXPORTED_BOOKS = 1000;
+
   @Autowired
   BooksRepository booksRepository;
 
+  @Autowired
+  JdbcTemplate db;
+
+  @Autowired
+  PricingEngine pricingEngine;
+
+  @Value("${local.server.port}")
+  int port;
+
   private final Book book = Fixture.book().build();
   private final String barcodePath = String.format("%s/%s", Endpoint.BOOKS, book.barcode());
 
@@ -30,10 +68,32 @@ class BooksControllerIT extends IntegrationTestCase {
 
     Response response = given().get(barcodePath);
 
-    response.then().statusCode(HttpStatus.OK.value());
+    response.then().statusCode(HttpStatus.OK.value()).header(HttpHeaders.ETAG, "\"1\"");
     assertThat(response.as(Book.class), equalTo(book));
   }
 
+  @Test
+  void shouldNotReturnBookIfNotModified() {
+    booksRepository.create(book);
+
+    Response response = given().header(HttpHeaders.IF_NONE_MATCH, "\"1\"").get(barcodePath);
+
+    response.then().statusCode(HttpStatus.NOT_MODIFIED.value()).header(HttpHeaders.ETAG, "\"1\"");
+    assertThat(response.asString(), equalTo(""));
+  }
+
+  @Test
+  void shouldReturnBookModifiedSinceKnownVersion() {
+    booksRepository.create(book);
+    Book updated = Fixture.book().author("new author").build();
+    given().body(updated).put(barcodePath).then().statusCode(HttpStatus.OK.value());
+
+    Response response = given().header(HttpHeaders.IF_NONE_MATCH, "\"1\"").get(barcodePath);
+
+    response.then().statusCode(HttpStatus.OK.value()).header(HttpHeaders.ETAG, "\"2\"");
+    assertThat(response.as(Book.class), equalTo(updated));
+  }
+
   @Test
   void shouldFailToGetBookByBarcodeIfBarcodeIsInvalid() {
     String barcodePath = String.format("%s/%s", Endpoint.BOOKS, "b");
@@ -67,10 +127,90 @@ class BooksControllerIT extends IntegrationTestCase {
     Response response = given().get(barcodePath.concat("/total-price"));
 
     response.then().statusCode(HttpStatus.OK.value());
-    TotalPriceResponse expected = new TotalPriceResponse(book.totalPrice());
+    TotalPriceResponse expected = new TotalPriceResponse(pricingEngine.totalPrice(book));
     assertThat(response.as(TotalPriceResponse.class), equalTo(expected));
   }
 
+  @Test
+  void shouldGetBooksByBarcodesInRequestedOrder() {
+    Book other = Fixture.book().barcode("5678").build();
+    booksRepository.create(book);
+    booksRepository.create(other);
+
+    Response response = given()
+        .queryParam("barcode", "5678", "missing", "1234")
+        .get(Endpoint.BOOKS);
+
+    response.then().statusCode(HttpStatus.OK.value());
+    BooksLookupResponse expected = new BooksLookupResponse(
+        Arrays.asList(other, book), Collections.singletonList("missing")
+    );
+    assertThat(response.as(BooksLookupResponse.class), equalTo(expected));
+  }
+
+  @Test
+  void shouldLookUpBooksByBarcodes() {
+    booksRepository.create(book);
+
+    Response response = given()
+        .body(Arrays.asList("missing", "1234"))
+        .post(Endpoint.BOOKS.concat("/lookup"));
+
+    response.then().statusCode(HttpStatus.OK.value());
+    BooksLookupResponse expected = new BooksLookupResponse(
+        Collections.singletonList(book), Collections.singletonList("missing")
+    );
+    assertThat(response.as(BooksLookupResponse.class), equalTo(expected));
+  }
+
+  @Test
+  void shouldGetTotalPricesByBarcodes() throws JsonProcessingException {
+    Book other = Fixture.book().barcode("5678").antiqueReleaseYear(1900).build();
+    booksRepository.create(book);
+    booksRepository.create(other);
+
+    Response response = given()
+        .queryParam("barcode", "5678", "1234", "missing")
+        .get(Endpoint.BOOKS.concat("/total-price"));
+
+    response.then().statusCode(HttpStatus.OK.value());
+    Map<String, BigDecimal> totalPrices = new LinkedHashMap<>();
+    totalPrices.put("5678", pricingEngine.totalPrice(other));
+    totalPrices.put("1234", pricingEngine.totalPrice(book));
+    TotalPricesLookupResponse expected =
+        new TotalPricesLookupResponse(totalPrices, Collections.singletonList("missing"));
+    assertThat(response.asString(), equalTo(Fixture.mapper().writeValueAsString(expected)));
+    Response lookup = given()
+        .body(Arrays.asList("5678", "1234", "missing"))
+        .post(Endpoint.BOOKS.concat("/total-price/lookup"));
+    assertThat(lookup.as(TotalPricesLookupResponse.class), equalTo(expected));
+  }
+
+  @Test
+  void shouldFailToGetBooksByTooManyBarcodes() {
+    List<String> barcodes = new ArrayList<>();
+    for (int i = 0; i <= 1000; i++) {
+      barcodes.add(String.format("bc%06d", i));
+    }
+
+    Response response = given().body(barcodes).post(Endpoint.BOOKS.concat("/lookup"));
+
+    response.then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .body("message", equalTo("'Number of barcodes' must be between 1 and 1000"));
+  }
+
+  @Test
+  void shouldNotReturnTotalBookPriceIfNotModified() {
+    booksRepository.create(book);
+    String eTag = given().get(barcodePath.concat("/total-price")).header(HttpHeaders.ETAG);
+
+    Response response = given().header(HttpHeaders.IF_NONE_MATCH, eTag)
+        .get(barcodePath.concat("/total-price"));
+
+    response.then().statusCode(HttpStatus.NOT_MODIFIED.value()).header(HttpHeaders.ETAG, eTag);
+  }
+
   @Test
   void shouldFailToGetTotalBookPriceByBarcodeIfBarcodeIsInvalid() {
     String barcodePath = String.format("%s/%s/%s", Endpoint.BOOKS, "b", "total-price");
@@ -98,6 +238,38 @@ class BooksControllerIT extends IntegrationTestCase {
         .body("path", equalTo(barcodePath.concat("/total-price")));
   }
 
+  @Test
+  void shouldGetInventoryTotalPriceOfFilteredBooks() {
+    Book antique = Fixture.book().barcode("5678").antiqueReleaseYear(1900).build();
+    Book science = Fixture.book().barcode("9012").scienceIndex(5).build();
+    Book otherAuthor = Fixture.book().barcode("3456").author("Other Author").build();
+    booksRepository.createAll(Arrays.asList(book, antique, science, otherAuthor));
+
+    Response response = given()
+        .queryParam("author", book.author())
+        .queryParam("type", "antique")
+        .queryParam("minPrice", "11.10")
+        .get(Endpoint.BOOKS.concat("/total-price"));
+
+    response.then().statusCode(HttpStatus.OK.value());
+    TotalPriceResponse expected = new TotalPriceResponse(pricingEngine.totalPrice(antique));
+    assertThat(response.as(TotalPriceResponse.class), equalTo(expected));
+  }
+
+  @Test
+  void shouldFailToGetInventoryTotalPriceOfUnknownType() {
+    String path = Endpoint.BOOKS.concat("/total-price");
+    Response response = given().queryParam("type", "comic").get(path);
+
+    response.then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .body("status", equalTo(400))
+        .body("message", equalTo(
+            "'Query parameter type' must be one of regular, antique, science"
+        ))
+        .body("path", equalTo(path));
+  }
+
   @Test
   void shouldCreateBook() {
     Response response = given().body(book).post(Endpoint.BOOKS);
@@ -122,6 +294,18 @@ class BooksControllerIT extends IntegrationTestCase {
     assertThat(booksRepository.findAll(), equalTo(Collections.emptyList()));
   }
 
+  @Test
+  void shouldFailToCreateBookIfPriceDoesNotFitInCents() {
+    Book newBook = Fixture.book().price(21_474_836.48).build();
+
+    Response response = given().body(newBook).post(Endpoint.BOOKS);
+
+    response.then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .body("message", equalTo("'price' must be less than or equal to 21474836.47"));
+    assertThat(booksRepository.findAll(), equalTo(Collections.emptyList()));
+  }
+
   @Test
   void shouldFailToCreateBookIfBarcodeExists() {
     booksRepository.create(book);
@@ -139,6 +323,238 @@ class BooksControllerIT extends IntegrationTestCase {
     assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(book)));
   }
 
+  @Test
+  void shouldCreateBooksInBatch() {
+    booksRepository.create(book);
+    Book first = Fixture.book().barcode("b1").build();
+    Book second = Fixture.book().barcode("b2").scienceIndex(3).build();
+    Book third = Fixture.book().barcode("b3").antiqueReleaseYear(1800).build();
+    List<Book> requests = Arrays.asList(
+        first,
+        Fixture.book().barcode("b9").name("a").build(),
+        book,
+        second,
+        third,
+        first
+    );
+
+    Response response = given().body(requests).post(Endpoint.BOOKS.concat("/batch"));
+
+    response.then().statusCode(HttpStatus.OK.value());
+    List<BatchItemResponse> expected = Arrays.asList(
+        BatchItemResponse.created("b1"),
+        BatchItemResponse.rejected(
+            "b9", HttpStatus.BAD_REQUEST, "'name' length must be between 2 and 255"),
+        BatchItemResponse.rejected(
+            book.barcode(), HttpStatus.CONFLICT,
+            String.format("Book with barcode '%s' already exists", book.barcode())),
+        BatchItemResponse.created("b2"),
+        BatchItemResponse.created("b3"),
+        BatchItemResponse.rejected(
+            "b1", HttpStatus.CONFLICT, "Book with barcode 'b1' already exists")
+    );
+    assertThat(Arrays.asList(response.as(BatchItemResponse[].class)), equalTo(expected));
+    assertThat(
+        new HashSet<>(booksRepository.findAll()),
+        equalTo(new HashSet<>(Arrays.asList(book, first, second, third)))
+    );
+  }
+
+  @Test
+  void shouldImportBooksFromCsv() {
+    booksRepository.create(book);
+    Book updated = Fixture.book().author("Imported Author").build();
+    Book science = Fixture.book().barcode("b2").name("Say \"hi\", O'Neil").scienceIndex(3).build();
+    String csv = "barcode,name,author,quantity,price,antiqueReleaseYear,scienceIndex\n"
+        + "b1,First name,Book Author,2,11.10,,\n"
+        + "b9,a,Book Author,2,11.10,,\n"
+        + String.format("%s,Book Name,Imported Author,2,11.10,,\n", book.barcode())
+        + "b2,\"Say \"\"hi\"\", O'Neil\",Book Author,2,11.10,,3\n"
+        + "b1,Book Name,Book Author,2,11.10,,\n";
+
+    Response response = RestAssured.given()
+        .contentType("text/csv")
+        .body(csv)
+        .post(Endpoint.BOOKS.concat("/import"));
+
+    response.then()
+        .statusCode(HttpStatus.OK.value())
+        .body("imported", equalTo(3))
+        .body("rejected", equalTo(1))
+        .body("errors[0].line", equalTo(3))
+        .body("errors[0].message", equalTo("'name' length must be between 2 and 255"));
+    assertThat(
+        new HashSet<>(booksRepository.findAll()),
+        equalTo(new HashSet<>(Arrays.asList(
+            updated, science, Fixture.book().barcode("b1").build()
+        )))
+    );
+  }
+
+  @Test
+  void shouldGetImportedBookInsteadOfCachedOne() {
+    booksRepository.create(book);
+    given().get(barcodePath).then().statusCode(HttpStatus.OK.value());
+    String csv = "barcode,name,author,quantity,price,antiqueReleaseYear,scienceIndex\n"
+        + String.format("%s,Book Name,Imported Author,2,11.10,,\n", book.barcode());
+
+    RestAssured.given()
+        .contentType("text/csv")
+        .body(csv)
+        .post(Endpoint.BOOKS.concat("/import"))
+        .then()
+        .statusCode(HttpStatus.OK.value());
+    Response response = given().get(barcodePath);
+
+    response.then().statusCode(HttpStatus.OK.value());
+    assertThat(response.as(Book.class), equalTo(Fixture.book().author("Imported Author").build()));
+  }
+
+  @Test
+  void shouldGetInventorySummaryOfImportedBooks() {
+    Book antique = Fixture.book().barcode("b3").antiqueReleaseYear(1900).build();
+    String csv = "barcode,name,author,quantity,price,antiqueReleaseYear,scienceIndex\n"
+        + "b1,Book Name,Book Author,2,11.10,,\n"
+        + "b2,Book Name,Book Author,2,11.10,,3\n"
+        + "b3,Book Name,Book Author,2,11.10,1900,\n";
+    RestAssured.given()
+        .contentType("text/csv")
+        .body(csv)
+        .post(Endpoint.BOOKS.concat("/import"))
+        .then()
+        .statusCode(HttpStatus.OK.value());
+
+    Response response = given().get(Endpoint.BOOKS.concat("/summary"));
+
+    response.then().statusCode(HttpStatus.OK.value());
+    InventorySummaryResponse expected = new InventorySummaryResponse(
+        new CategorySummaryResponse(1, 2, new BigDecimal("22.20")),
+        new CategorySummaryResponse(1, 2, pricingEngine.totalPrice(antique)),
+        new CategorySummaryResponse(1, 2, new BigDecimal("66.60"))
+    );
+    assertThat(response.as(InventorySummaryResponse.class), equalTo(expected));
+  }
+
+  @Test
+  void shouldExposeBookCacheMetrics() {
+    booksRepository.create(book);
+    given().get(barcodePath).then().statusCode(HttpStatus.OK.value());
+    given().get(barcodePath).then().statusCode(HttpStatus.OK.value());
+
+    given().get("/metrics/cache.gets?tag=cache:books&tag=result:hit")
+        .then()
+        .statusCode(HttpStatus.OK.value())
+        .body("measurements[0].value", greaterThanOrEqualTo(1.0f));
+  }
+
+  @Test
+  void shouldImportBooksFromNdjson() {
+    Book antique = Fixture.book().barcode("b3").antiqueReleaseYear(1800).build();
+    String ndjson = "{\"barcode\":\"b3\",\"name\":\"Book Name\",\"author\":\"Book Author\","
+        + "\"quantity\":2,\"price\":11.10,\"antiqueReleaseYear\":1800}\n"
+        + "{\"barcode\":\"b4\",\"name\":\n";
+
+    Response response = RestAssured.given()
+        .contentType("application/x-ndjson")
+        .body(ndjson.getBytes(StandardCharsets.UTF_8))
+        .post(Endpoint.BOOKS.concat("/import"));
+
+    response.then()
+        .statusCode(HttpStatus.OK.value())
+        .body("imported", equalTo(1))
+        .body("rejected", equalTo(1))
+        .body("errors[0].line", equalTo(2))
+        .body("errors[0].message", equalTo("Incorrect JSON format"));
+    assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(antique)));
+  }
+
+  @Test
+  void shouldWalkAllBooksPageByPage() {
+    List<Book> books = new ArrayList<>();
+    for (int i = 5; i > 0; i--) {
+      Book created = Fixture.book().barcode("b" + i).build();
+      booksRepository.create(created);
+      books.add(0, created);
+    }
+
+    List<Book> walked = new ArrayList<>();
+    String next = null;
+    int pages = 0;
+    do {
+      RequestSpecification request = given().queryParam("limit", 2);
+      if (next != null) {
+        request.queryParam("after", next);
+      }
+      Response response = request.get(Endpoint.BOOKS);
+
+      response.then().statusCode(HttpStatus.OK.value());
+      BooksPageResponse page = response.as(BooksPageResponse.class);
+      walked.addAll(page.books());
+      next = page.next().orElse(null);
+      pages++;
+    } while (next != null);
+
+    assertThat(pages, equalTo(3));
+    assertThat(walked, equalTo(books));
+  }
+
+  @Test
+  void shouldFailToFindPageIfLimitIsTooLarge() {
+    Response response = given().queryParam("limit", 1001).get(Endpoint.BOOKS);
+
+    response.then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .body("message", equalTo("'Query parameter limit' must be between 1 and 1000"));
+  }
+
+  @Test
+  void shouldExportBooksAsNdjson() throws IOException {
+    Book science = Fixture.book().barcode("b2").scienceIndex(3).build();
+    booksRepository.create(science);
+    booksRepository.create(book);
+
+    Response response = given()
+        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+        .get(Endpoint.BOOKS.concat("/export"));
+
+    response.then()
+        .statusCode(HttpStatus.OK.value())
+        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .contentType("application/x-ndjson");
+    String[] lines = response.asString().split("\n");
+    assertThat(lines.length, equalTo(2));
+    assertThat(Fixture.mapper().readValue(lines[0], Book.class), equalTo(book));
+    assertThat(Fixture.mapper().readValue(lines[1], Book.class), equalTo(science));
+  }
+
+  @Test
+  void shouldExportBooksFromOneSnapshot() throws IOException {
+    db.update(String.format(
+        "INSERT INTO books (barcode, name, author, quantity, price) "
+            + "SELECT 'bc' || i, 'Book Name', 'Book Author', 2, 1110 "
+            + "FROM generate_series(1, %s) i",
+        EXPORTED_BOOKS
+    ));
+    URL url = new URL(String.format("http://localhost:%s%s/export", port, Endpoint.BOOKS));
+
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    long lines = 0;
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+      assertThat(connection.getResponseCode(), equalTo(HttpStatus.OK.value()));
+      assertThat(reader.readLine(), equalTo(
+          "{\"barcode\":\"bc1\",\"name\":\"Book Name\",\"author\":\"Book Author\","
+              + "\"quantity\":2,\"price\":11.10}"
+      ));
+      db.update("DELETE FROM books");
+      for (lines = 1; reader.readLine() != null; lines++) {
+        assertThat(lines < EXPORTED_BOOKS, equalTo(true));
+      }
+    }
+    assertThat(lines, equalTo((long) EXPORTED_BOOKS));
+  }
+
   @Test
   void shouldUpdateBook() {
     booksRepository.create(book);
@@ -151,6 +567,40 @@ class BooksControllerIT extends IntegrationTestCase {
     assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(updated)));
   }
 
+  @Test
+  void shouldUpdateBookIfMatchingVersion() {
+    booksRepository.create(book);
+    Book updated = Fixture.book().author("new author").build();
+
+    Response response = given().header(HttpHeaders.IF_MATCH, "\"1\"").body(updated)
+        .put(barcodePath);
+
+    response.then().statusCode(HttpStatus.OK.value()).header(HttpHeaders.ETAG, "\"2\"");
+    assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(updated)));
+  }
+
+  @Test
+  void shouldFailToUpdateBookIfVersionIsStale() {
+    booksRepository.create(book);
+    Book updated = Fixture.book().author("new author").build();
+    given().body(updated).put(barcodePath).then().statusCode(HttpStatus.OK.value());
+
+    Response response = given().header(HttpHeaders.IF_MATCH, "\"1\"")
+        .body(Fixture.book().author("stale author").build())
+        .put(barcodePath);
+
+    String expectedMessage = String.format(
+        "Book with barcode '%s' has changed since version 1", book.barcode()
+    );
+    response.then()
+        .statusCode(HttpStatus.PRECONDITION_FAILED.value())
+        .body("status", equalTo(412))
+        .body("error", equalTo("Precondition Failed"))
+        .body("message", equalTo(expectedMessage))
+        .body("path", equalTo(barcodePath));
+    assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(updated)));
+  }
+
   @Test
   void shouldFailToUpdateBookIfRequestIsInvalid() {
     booksRepository.create(book);
@@ -219,6 +669,30 @@ class BooksControllerIT extends IntegrationTestCase {
     assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(updated)));
   }
 
+  @Test
+  void shouldUpdateBookFieldsIfMatchingVersion() {
+    booksRepository.create(book);
+
+    Response response = given().header(HttpHeaders.IF_MATCH, "\"1\"")
+        .body(Collections.singletonMap("quantity", 3))
+        .patch(barcodePath);
+
+    response.then().statusCode(HttpStatus.OK.value()).header(HttpHeaders.ETAG, "\"2\"");
+    assertThat(response.as(Book.class), equalTo(Fixture.book().quantity(3).build()));
+  }
+
+  @Test
+  void shouldFailToUpdateBookFieldsIfVersionIsStale() {
+    booksRepository.create(book);
+
+    Response response = given().header(HttpHeaders.IF_MATCH, "\"2\"")
+        .body(Collections.singletonMap("quantity", 3))
+        .patch(barcodePath);
+
+    response.then().statusCode(HttpStatus.PRECONDITION_FAILED.value());
+    assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(book)));
+  }
+
   @Test
   void shouldUpdateBookPriceWithIntegerValue() {
     booksRepository.create(book);
@@ -258,6 +732,20 @@ class BooksControllerIT extends IntegrationTestCase {
     assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(book)));
   }
 
+  @Test
+  void shouldFailToMakeAntiqueBookScienceJournal() {
+    Book antique = Fixture.book().antiqueReleaseYear(1800).build();
+    booksRepository.create(antique);
+
+    Response response = given().body(Collections.singletonMap("scienceIndex", 5))
+        .patch(barcodePath);
+
+    response.then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .body("message", equalTo("Book cannot be both antique and science journal"));
+    assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(antique)));
+  }
+
   @Test
   void shouldFailToUpdateBookFieldsIfBarcodeDoNotExist() {
     String newName = "new name";
@@ -280,4 +768,90 @@ class BooksControllerIT extends IntegrationTestCase {
         .body("path", equalTo(barcodePath));
     assertThat(booksRepository.findAll(), equalTo(Collections.emptyList()));
   }
+
+  @Test
+  void shouldAdjustBookQuantity() {
+    booksRepository.create(book);
+
+    Response response = given().body(Collections.singletonMap("delta", -2))
+        .post(barcodePath.concat("/quantity:adjust"));
+
+    response.then().statusCode(HttpStatus.OK.value()).header(HttpHeaders.ETAG, "\"2\"");
+    assertThat(response.as(Book.class), equalTo(Fixture.book().quantity(0).build()));
+  }
+
+  @Test
+  void shouldNotAdjustQuantitiesIfAnyWouldGoBelowZero() {
+    Book other = Fixture.book().barcode("5678").build();
+    booksRepository.create(book);
+    booksRepository.create(other);
+    List<HashMap<String, Object>> adjustments = Arrays.asList(
+        adjustment(book.barcode(), 5),
+        adjustment(other.barcode(), -3)
+    );
+
+    Response response = given().body(adjustments)
+        .post(String.format("%s/quantity:adjust", Endpoint.BOOKS));
+
+    response.then()
+        .statusCode(HttpStatus.CONFLICT.value())
+        .body("message", equalTo("Quantity of books with barcodes [5678] cannot go below zero"));
+    assertThat(
+        new HashSet<>(booksRepository.findAll()), equalTo(new HashSet<>(Arrays.asList(book, other)))
+    );
+  }
+
+  @Test
+  void shouldServeTotalQuantityOfBookSpreadAcrossSlots() {
+    booksRepository.create(book);
+
+    given().body(Collections.singletonMap("slots", 4))
+        .put(barcodePath.concat("/quantity-slots"))
+        .then().statusCode(HttpStatus.OK.value()).header(HttpHeaders.ETAG, "\"2\"");
+    given().body(Collections.singletonMap("delta", 5))
+        .post(barcodePath.concat("/quantity:adjust"))
+        .then().statusCode(HttpStatus.OK.value());
+
+    Response response = given().header(HttpHeaders.IF_NONE_MATCH, "\"2\"").get(barcodePath);
+
+    response.then().statusCode(HttpStatus.OK.value()).header(HttpHeaders.ETAG, "\"3\"");
+    assertThat(response.as(Book.class), equalTo(Fixture.book().quantity(7).version(3).build()));
+    Integer slotted = db.queryForObject(
+        "SELECT SUM(quantity)::integer FROM books_quantity_slots WHERE barcode = ?",
+        Integer.class, book.barcode()
+    );
+    assertThat(slotted, equalTo(7));
+  }
+
+  @Test
+  void shouldReplaceQuantityOfBookSpreadAcrossSlots() {
+    booksRepository.create(book);
+    given().body(Collections.singletonMap("slots", 4))
+        .put(barcodePath.concat("/quantity-slots"));
+
+    Response response = given().body(Fixture.book().quantity(9).build()).put(barcodePath);
+
+    response.then().statusCode(HttpStatus.OK.value()).header(HttpHeaders.ETAG, "\"3\"");
+    Book expected = Fixture.book().quantity(9).version(3).build();
+    assertThat(response.as(Book.class), equalTo(expected));
+    assertThat(booksRepository.findByBarcode(book.barcode()).get(), equalTo(expected));
+  }
+
+  @Test
+  void shouldFailToConfigureTooManyQuantitySlots() {
+    booksRepository.create(book);
+
+    given().body(Collections.singletonMap("slots", 65))
+        .put(barcodePath.concat("/quantity-slots"))
+        .then()
+        .statusCode(HttpStatus.BAD_REQUEST.value())
+        .body("message", equalTo("'slots' must be between 0 and 64"));
+  }
+
+  private HashMap<String, Object> adjustment(String barcode, int delta) {
+    HashMap<String, Object> adjustment = new HashMap<>();
+    adjustment.put("barcode", barcode);
+    adjustment.put("delta", delta);
+    return adjustment;
+  }
 }
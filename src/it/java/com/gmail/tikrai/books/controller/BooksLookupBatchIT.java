@@ -0,0 +1,72 @@
+package com.gmail.tikrai.books.controller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.util.RestUtil.Endpoint;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+@DirtiesContext
+@TestPropertySource(properties = "books.lookup.batch.window=50ms")
+class BooksLookupBatchIT extends IntegrationTestCase {
+
+  private static final int THREADS = 8;
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  MeterRegistry registry;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldFindConcurrentlyRequestedBooksInBatches() throws Exception {
+    List<Book> books = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      Book book = Fixture.book().barcode(String.format("bc%06d", i)).build();
+      booksRepository.create(book);
+      books.add(book);
+    }
+    DistributionSummary batchSize = registry.get("books.lookup.batch.size").summary();
+    final long batchesBefore = batchSize.count();
+    final double lookupsBefore = batchSize.totalAmount();
+
+    List<Future<Book>> found = new ArrayList<>();
+    for (Book book : books) {
+      found.add(executor.submit(() -> given()
+          .get(String.format("%s/%s", Endpoint.BOOKS, book.barcode()))
+          .then().statusCode(HttpStatus.OK.value())
+          .extract().as(Book.class)
+      ));
+    }
+    for (int i = 0; i < THREADS; i++) {
+      assertThat(found.get(i).get(), equalTo(books.get(i)));
+    }
+
+    assertThat(batchSize.totalAmount() - lookupsBefore, equalTo((double) THREADS));
+    assertThat(batchSize.count() - batchesBefore, lessThan((long) THREADS));
+  }
+}
@@ -0,0 +1,145 @@
+package com.gmail.tikrai.books.controller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
+import com.gmail.tikrai.books.request.QuantitySlots;
+import com.gmail.tikrai.books.service.QuantitySlotsService;
+import com.gmail.tikrai.books.util.RestUtil.Endpoint;
+import com.jayway.restassured.response.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+@DirtiesContext
+@TestPropertySource(properties = {
+    "books.write-behind.enabled=true",
+    "books.write-behind.flush-interval=20ms"
+})
+class BooksWriteBehindIT extends IntegrationTestCase {
+
+  private static final int THREADS = 8;
+  private static final int WRITES = 5;
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  InventorySummaryRepository summaryRepository;
+
+  @Autowired
+  QuantitySlotsService quantitySlotsService;
+
+  @Autowired
+  MeterRegistry registry;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+  private final Book book = Fixture.book().build();
+  private final String barcodePath = String.format("%s/%s", Endpoint.BOOKS, book.barcode());
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldCommitConcurrentCreatesTogether() throws Exception {
+    long flushesBefore = registry.get("books.write.behind.flush.latency").timer().count();
+    List<Future<Integer>> statuses = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      int first = thread * WRITES;
+      statuses.add(executor.submit(() -> {
+        int created = 0;
+        for (int i = first; i < first + WRITES; i++) {
+          Book requested = Fixture.book().barcode(String.format("bc%06d", i)).build();
+          Response response = given().body(requested).post(Endpoint.BOOKS);
+          response.then()
+              .statusCode(HttpStatus.CREATED.value())
+              .header(HttpHeaders.ETAG, "\"1\"");
+          created++;
+        }
+        return created;
+      }));
+    }
+    int created = 0;
+    for (Future<Integer> status : statuses) {
+      created += status.get();
+    }
+
+    long flushes =
+        registry.get("books.write.behind.flush.latency").timer().count() - flushesBefore;
+    assertThat(created, equalTo(THREADS * WRITES));
+    assertThat(booksRepository.findAll().size(), equalTo(THREADS * WRITES));
+    assertThat(flushes, lessThan((long) THREADS * WRITES));
+    Map<BookType, CategorySummary> summary = summaryRepository.findAll();
+    assertThat(summary.get(BookType.REGULAR).books(), equalTo((long) THREADS * WRITES));
+  }
+
+  @Test
+  void shouldReplaceBookAndClearItsQuantitySlots() {
+    booksRepository.create(book);
+    quantitySlotsService.configure(book.barcode(), new QuantitySlots(4));
+    Book replaced = Fixture.book().quantity(7).author("new author").build();
+
+    Response response = given().body(replaced).put(barcodePath);
+
+    response.then().statusCode(HttpStatus.OK.value()).header(HttpHeaders.ETAG, "\"3\"");
+    assertThat(response.as(Book.class), equalTo(replaced));
+    assertThat(booksRepository.findByBarcode(book.barcode()), equalTo(Optional.of(
+        Fixture.book().quantity(7).author("new author").version(3).build()
+    )));
+  }
+
+  @Test
+  void shouldFailToCreateExistingBook() {
+    booksRepository.create(book);
+    Book created = Fixture.book().quantity(7).build();
+
+    given().body(created).post(Endpoint.BOOKS).then()
+        .statusCode(HttpStatus.CONFLICT.value())
+        .body("message", equalTo("Book with barcode '1234' already exists"));
+
+    assertThat(booksRepository.findByBarcode(book.barcode()), equalTo(
+        Optional.of(Fixture.book().version(1).build())
+    ));
+  }
+
+  @Test
+  void shouldFailToReplaceMissingBook() {
+    given().body(book).put(barcodePath).then()
+        .statusCode(HttpStatus.NOT_FOUND.value())
+        .body("message", equalTo("Book with barcode '1234' was not found"));
+
+    assertThat(booksRepository.findByBarcode(book.barcode()), equalTo(Optional.empty()));
+  }
+
+  @Test
+  void shouldUpdateConditionallyWithoutWritingBehind() {
+    booksRepository.create(book);
+
+    Response response =
+        given().header(HttpHeaders.IF_MATCH, "\"5\"").body(book).put(barcodePath);
+
+    response.then().statusCode(HttpStatus.PRECONDITION_FAILED.value());
+  }
+}
@@ -0,0 +1,111 @@
+package com.gmail.tikrai.books.controller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.util.RestUtil.Endpoint;
+import com.jayway.restassured.RestAssured;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
+
+class CachedLookupBenchmarkIT extends IntegrationTestCase {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CachedLookupBenchmarkIT.class);
+  private static final int THREADS = 8;
+  private static final int REQUESTS = 200;
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  MeterRegistry registry;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldAnswerLookupsFromCacheAndFromDatabase() throws Exception {
+    List<Book> books = new ArrayList<>();
+    for (int i = 0; i < THREADS * REQUESTS; i++) {
+      books.add(Fixture.book().barcode(String.format("cached-%04d", i)).build());
+    }
+    booksRepository.createAll(books);
+    double hitsBefore = hits();
+
+    // Every book is read once while the cache is cold and once more while it holds them all
+    long missedNanos = run();
+    long hitNanos = run();
+
+    LOG.info(
+        "Looked up {} books with {} threads: cache misses {} requests/s, cache hits {} requests/s",
+        THREADS * REQUESTS, THREADS, perSecond(missedNanos), perSecond(hitNanos)
+    );
+    assertThat(hits() - hitsBefore, equalTo((double) THREADS * REQUESTS));
+  }
+
+  private long run() throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      int first = i * REQUESTS;
+      results.add(executor.submit(() -> {
+        start.await();
+        for (int request = first; request < first + REQUESTS; request++) {
+          String path = String.format("%s/cached-%04d", Endpoint.BOOKS, request);
+          assertThat(get(path), equalTo(HttpStatus.OK.value()));
+        }
+        return null;
+      }));
+    }
+    long started = System.nanoTime();
+    start.countDown();
+    for (Future<?> result : results) {
+      result.get(60, TimeUnit.SECONDS);
+    }
+    return System.nanoTime() - started;
+  }
+
+  private int get(String path) throws IOException {
+    URL url = new URL("http", "localhost", RestAssured.port, path);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    int status = connection.getResponseCode();
+    try (InputStream body = connection.getInputStream()) {
+      StreamUtils.drain(body);
+    }
+    return status;
+  }
+
+  private double hits() {
+    return registry.get("cache.gets").tag("cache", "books").tag("result", "hit")
+        .functionCounter().count();
+  }
+
+  private long perSecond(long nanos) {
+    return THREADS * REQUESTS * TimeUnit.SECONDS.toNanos(1) / nanos;
+  }
+}
@@ -0,0 +1,70 @@
+package com.gmail.tikrai.books.controller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.util.RestUtil.Endpoint;
+import com.jayway.restassured.RestAssured;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Runs only in the export-benchmark profile, which limits the heap to show that the export
+ * streams millions of books without holding them in memory.
+ */
+class ExportBenchmarkIT extends IntegrationTestCase {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExportBenchmarkIT.class);
+  private static final int EXPORTED_BOOKS = 2_000_000;
+
+  @Autowired
+  JdbcTemplate db;
+
+  @Test
+  void shouldExportMillionsOfBooksFromOneSnapshot() throws IOException {
+    db.update(String.format(
+        "INSERT INTO books (barcode, name, author, quantity, price) "
+            + "SELECT 'bc' || i, 'Book Name', 'Book Author', 2, 1110 "
+            + "FROM generate_series(1, %s) i",
+        EXPORTED_BOOKS
+    ));
+    URL url = new URL("http", "localhost", RestAssured.port, Endpoint.BOOKS + "/export");
+
+    long started = System.nanoTime();
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    long lines = 0;
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+      assertThat(connection.getResponseCode(), equalTo(HttpStatus.OK.value()));
+      assertThat(reader.readLine(), equalTo(
+          "{\"barcode\":\"bc1\",\"name\":\"Book Name\",\"author\":\"Book Author\","
+              + "\"quantity\":2,\"price\":11.10}"
+      ));
+      db.update("DELETE FROM books");
+      for (lines = 1; reader.readLine() != null; lines++) {
+        assertThat(lines < EXPORTED_BOOKS, equalTo(true));
+      }
+    }
+    long nanos = System.nanoTime() - started;
+
+    LOG.info(
+        "Exported {} books in {} ms, {} books/s, with {} MiB of heap",
+        lines, TimeUnit.NANOSECONDS.toMillis(nanos),
+        lines * TimeUnit.SECONDS.toNanos(1) / nanos,
+        Runtime.getRuntime().maxMemory() / (1024 * 1024)
+    );
+    assertThat(lines, equalTo((long) EXPORTED_BOOKS));
+  }
+}
@@ -0,0 +1,113 @@
+package com.gmail.tikrai.books.controller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.cache.BarcodeFilter;
+import com.gmail.tikrai.books.util.RestUtil.Endpoint;
+import com.jayway.restassured.RestAssured;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.StreamUtils;
+
+@DirtiesContext
+@TestPropertySource(properties = "books.barcode-filter.enabled=true")
+class NotFoundBenchmarkIT extends IntegrationTestCase {
+
+  private static final Logger LOG = LoggerFactory.getLogger(NotFoundBenchmarkIT.class);
+  private static final int THREADS = 8;
+  private static final int REQUESTS = 200;
+
+  @Autowired
+  BarcodeFilter barcodeFilter;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldAnswerNotFoundWithoutErrorDispatch() throws Exception {
+    barcodeFilter.invalidate();
+    barcodeFilter.refresh();
+    String missingBook = String.format("%s/%s", Endpoint.BOOKS, "1234");
+    String unmappedPath = String.format("%s/%s/cover", Endpoint.BOOKS, "1234");
+    notFound(missingBook);
+    notFound(unmappedPath);
+    run(missingBook);
+    run(unmappedPath);
+
+    long directNanos = run(missingBook);
+    long dispatchedNanos = run(unmappedPath);
+
+    LOG.info(
+        "Answered {} not found requests with {} threads: direct {} requests/s, "
+            + "through /error {} requests/s",
+        THREADS * REQUESTS, THREADS, perSecond(directNanos), perSecond(dispatchedNanos)
+    );
+  }
+
+  private long run(String path) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      results.add(executor.submit(() -> {
+        start.await();
+        for (int request = 0; request < REQUESTS; request++) {
+          assertThat(get(path), equalTo(HttpStatus.NOT_FOUND.value()));
+        }
+        return null;
+      }));
+    }
+    long started = System.nanoTime();
+    start.countDown();
+    for (Future<?> result : results) {
+      result.get(60, TimeUnit.SECONDS);
+    }
+    return System.nanoTime() - started;
+  }
+
+  private int get(String path) throws IOException {
+    URL url = new URL("http", "localhost", RestAssured.port, path);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    int status = connection.getResponseCode();
+    try (InputStream body = connection.getErrorStream()) {
+      StreamUtils.drain(body);
+    }
+    return status;
+  }
+
+  private void notFound(String path) {
+    given().get(path).then()
+        .statusCode(HttpStatus.NOT_FOUND.value())
+        .body("timestamp", notNullValue())
+        .body("status", equalTo(404))
+        .body("error", equalTo("Not Found"))
+        .body("path", equalTo(path));
+  }
+
+  private long perSecond(long nanos) {
+    return THREADS * REQUESTS * TimeUnit.SECONDS.toNanos(1) / nanos;
+  }
+}
@@ -0,0 +1,87 @@
+package com.gmail.tikrai.books.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReplicaReadsIT extends IntegrationTestCase {
+
+  private static final String REPLICA = "books-replica";
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  JdbcTemplate db;
+
+  private ReplicaReads replicaReads;
+
+  @BeforeEach
+  void createReplicaReads() {
+    replicaReads = new ReplicaReads(transactionManager, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void shouldReadOnReplica() {
+    assertThat(replicaReads.read(this::applicationName), equalTo(REPLICA));
+    assertThat(replicaReads.read("1234", this::applicationName), equalTo(REPLICA));
+  }
+
+  @Test
+  void shouldReadInReadOnlyTransactionOnReplica() {
+    TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+
+    assertThat(readOnly.execute(status -> applicationName()), equalTo(REPLICA));
+  }
+
+  @Test
+  void shouldWriteOnPrimary() {
+    assertThat(applicationName(), not(equalTo(REPLICA)));
+    assertThat(
+        new TransactionTemplate(transactionManager).execute(status -> applicationName()),
+        not(equalTo(REPLICA))
+    );
+  }
+
+  @Test
+  void shouldReadRecentlyWrittenBookOnPrimary() {
+    booksRepository.create(Fixture.book().build());
+    replicaReads.written("1234");
+
+    assertThat(replicaReads.read("1234", this::applicationName), not(equalTo(REPLICA)));
+    assertThat(replicaReads.read("5678", this::applicationName), equalTo(REPLICA));
+  }
+
+  @Test
+  void shouldPrepareStatementsOnReplicaLikeOnPrimary() {
+    assertThat(replicaReads.read(this::prepareThreshold), equalTo(1));
+    assertThat(prepareThreshold(), equalTo(1));
+  }
+
+  private int prepareThreshold() {
+    return db.execute((ConnectionCallback<Integer>) connection ->
+        connection.unwrap(PGConnection.class).getPrepareThreshold()
+    );
+  }
+
+  private String applicationName() {
+    return db.queryForObject("SELECT current_setting('application_name')", String.class);
+  }
+}
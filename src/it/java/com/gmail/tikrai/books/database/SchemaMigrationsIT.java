@@ -0,0 +1,175 @@
+package com.gmail.tikrai.books.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcOperations;
+
+class SchemaMigrationsIT extends IntegrationTestCase {
+
+  private static final int THREADS = 4;
+
+  @Autowired
+  DataSource dataSource;
+
+  @Autowired
+  JdbcOperations db;
+
+  @TempDir
+  Path migrations;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @BeforeEach
+  @AfterEach
+  void cleanup() {
+    db.execute("DROP TABLE IF EXISTS migrated_first, migrated_second");
+    db.update("DELETE FROM schema_migrations WHERE version >= 9000");
+  }
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldApplyPendingMigrationsInOrderOnce() throws Exception {
+    write("V9002__create_second.sql", "CREATE TABLE migrated_second (id INTEGER);\n"
+        + "INSERT INTO migrated_second SELECT id FROM migrated_first;");
+    write("V9001__create_first.sql", "CREATE TABLE migrated_first (id INTEGER);\n"
+        + "INSERT INTO migrated_first VALUES (1);");
+
+    assertThat(migrations().migrate(), equalTo(2));
+    assertThat(migrations().migrate(), equalTo(0));
+    assertThat(db.queryForObject("SELECT id FROM migrated_second", Integer.class), equalTo(1));
+    assertThat(
+        db.queryForList(
+            "SELECT description FROM schema_migrations WHERE version >= 9000 ORDER BY version",
+            String.class
+        ),
+        equalTo(Arrays.asList("create first", "create second"))
+    );
+  }
+
+  @Test
+  void shouldApplyMigrationsOnceWhenNodesStartConcurrently() throws Exception {
+    write("V9001__create_first.sql", "CREATE TABLE migrated_first (id INTEGER);");
+    write("V9002__index_first.sql", "-- no-transaction\n"
+        + "CREATE INDEX CONCURRENTLY migrated_first_id_idx ON migrated_first (id);\n");
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      results.add(executor.submit(() -> {
+        start.await();
+        return migrations().migrate();
+      }));
+    }
+    start.countDown();
+
+    int applied = 0;
+    for (Future<Integer> result : results) {
+      applied += result.get(30, TimeUnit.SECONDS);
+    }
+    assertThat(applied, equalTo(2));
+    assertThat(indexValid("migrated_first_id_idx"), equalTo(true));
+  }
+
+  @Test
+  void shouldCreateIndexConcurrentlyOutsideTransaction() throws Exception {
+    write("V9001__create_first.sql", "CREATE TABLE migrated_first (id INTEGER);");
+    write("V9002__index_first.sql", "-- no-transaction\n"
+        + "CREATE INDEX CONCURRENTLY migrated_first_id_idx ON migrated_first (id);\n");
+
+    assertThat(migrations().migrate(), equalTo(2));
+    assertThat(
+        db.queryForObject(
+            "SELECT count(*) FROM pg_indexes WHERE indexname = 'migrated_first_id_idx'",
+            Integer.class
+        ),
+        equalTo(1)
+    );
+  }
+
+  @Test
+  void shouldRecreateIndexLeftInvalidByFailedMigration() throws Exception {
+    write("V9001__create_first.sql", "CREATE TABLE migrated_first (id INTEGER);\n"
+        + "INSERT INTO migrated_first VALUES (1), (1);");
+    write("V9002__index_first.sql", "-- no-transaction\n"
+        + "CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS migrated_first_id_idx "
+        + "ON migrated_first (id);\n");
+    assertThrows(Exception.class, () -> migrations().migrate());
+    assertThat(indexValid("migrated_first_id_idx"), equalTo(false));
+
+    db.update("DELETE FROM migrated_first");
+
+    assertThat(migrations().migrate(), equalTo(1));
+    assertThat(indexValid("migrated_first_id_idx"), equalTo(true));
+  }
+
+  @Test
+  void shouldRollBackFailedMigration() throws Exception {
+    write("V9001__create_first.sql", "CREATE TABLE migrated_first (id INTEGER);\n"
+        + "INSERT INTO missing_table VALUES (1);");
+
+    assertThrows(Exception.class, () -> migrations().migrate());
+
+    assertThat(
+        db.queryForObject("SELECT to_regclass('migrated_first') IS NULL", Boolean.class),
+        equalTo(true)
+    );
+    assertThat(
+        db.queryForObject(
+            "SELECT count(*) FROM schema_migrations WHERE version >= 9000", Integer.class
+        ),
+        equalTo(0)
+    );
+  }
+
+  @Test
+  void shouldRefuseToStartIfAppliedMigrationChanged() throws Exception {
+    write("V9001__create_first.sql", "CREATE TABLE migrated_first (id INTEGER);");
+    migrations().migrate();
+    write("V9001__create_first.sql", "CREATE TABLE migrated_first (id BIGINT);");
+
+    String message = assertThrows(
+        IllegalStateException.class,
+        () -> migrations().migrate()
+    ).getMessage();
+
+    assertThat(message, equalTo("Migration V9001 create first was changed after it was applied"));
+  }
+
+  private boolean indexValid(String index) {
+    return db.queryForObject(
+        "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)", Boolean.class, index
+    );
+  }
+
+  private SchemaMigrations migrations() {
+    return new SchemaMigrations(dataSource, migrations.toUri() + "*.sql");
+  }
+
+  private void write(String fileName, String sql) throws IOException {
+    Files.write(migrations.resolve(fileName), sql.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,114 @@
+package com.gmail.tikrai.books.pricing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class PricingEngineBenchmarkIT {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PricingEngineBenchmarkIT.class);
+  private static final int BOOKS = 100_000;
+  private static final int ROUNDS = 20;
+  private static final int CURRENT_YEAR = 2020;
+
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final PricingEngine engine = new PricingEngine(
+      Fixture.pricingRules(), Collections.emptyList(), Integer.MAX_VALUE, () -> CURRENT_YEAR
+  );
+  private final PricingEngine parallelEngine = new PricingEngine(
+      Fixture.pricingRules(), Collections.emptyList(), 0, () -> CURRENT_YEAR
+  );
+  private final Book[] books = books(new Random(42));
+  private final BookColumns columns = engine.columns(books);
+  private final long[] mills = new long[BOOKS];
+  private long sink;
+
+  @Test
+  void shouldPriceColumnsFasterAndWithFewerAllocationsThanSingleBooks() {
+    Result single = measure(this::pricePerBook);
+    Result engineBatch = measure(() -> priceInBatch(engine));
+    Result parallelBatch = measure(() -> priceInBatch(parallelEngine));
+
+    LOG.info(
+        "Priced {} books: one by one {} books/s, {} bytes/book; "
+            + "fixed-point columns {} books/s, {} bytes/book; in parallel {} books/s",
+        BOOKS, single.booksPerSecond, single.bytesPerBook,
+        engineBatch.booksPerSecond, engineBatch.bytesPerBook, parallelBatch.booksPerSecond
+    );
+    assertThat(engineBatch.bytesPerBook, lessThan(single.bytesPerBook));
+  }
+
+  private void pricePerBook() {
+    for (Book book : books) {
+      BigDecimal totalPrice = engine.totalPrice(book, CURRENT_YEAR);
+      sink += totalPrice.signum();
+    }
+  }
+
+  private void priceInBatch(PricingEngine pricing) {
+    pricing.totalMills(columns, CURRENT_YEAR, mills);
+    for (long totalMills : mills) {
+      sink += Long.signum(totalMills);
+    }
+  }
+
+  private Result measure(Runnable pricing) {
+    for (int round = 0; round < ROUNDS; round++) {
+      pricing.run();
+    }
+    long thread = Thread.currentThread().getId();
+    long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+    long started = System.nanoTime();
+    for (int round = 0; round < ROUNDS; round++) {
+      pricing.run();
+    }
+    long nanos = System.nanoTime() - started;
+    long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+    long priced = (long) BOOKS * ROUNDS;
+    return new Result(
+        priced * TimeUnit.SECONDS.toNanos(1) / nanos,
+        (double) allocated / priced
+    );
+  }
+
+  private static Book[] books(Random random) {
+    Book[] books = new Book[BOOKS];
+    for (int i = 0; i < BOOKS; i++) {
+      int quantity = 1 + random.nextInt(1000);
+      BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+      switch (i % 3) {
+        case 0:
+          books[i] = new Book("1234", "Name", "Author", quantity, price, 1600 + i % 300, null);
+          break;
+        case 1:
+          books[i] = new Book("1234", "Name", "Author", quantity, price, null, 1 + i % 10);
+          break;
+        default:
+          books[i] = new Book("1234", "Name", "Author", quantity, price, null, null);
+      }
+    }
+    return books;
+  }
+
+  private static final class Result {
+
+    private final long booksPerSecond;
+    private final double bytesPerBook;
+
+    Result(long booksPerSecond, double bytesPerBook) {
+      this.booksPerSecond = booksPerSecond;
+      this.bytesPerBook = bytesPerBook;
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.gmail.tikrai.books.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookChange;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.BooksFilter;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.response.TotalPriceResponse;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcOperations;
+
+class BooksRepositoryIT extends IntegrationTestCase {
+
+  private static final String[] AUTHORS = {"Author A", "Author B", "Author C"};
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  DataSource dataSource;
+
+  @Autowired
+  JdbcOperations db;
+
+  @Autowired
+  PricingEngine pricingEngine;
+
+  @Test
+  void shouldUseServerSidePreparedStatementsFromFirstExecution() throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(connection.unwrap(PGConnection.class).getPrepareThreshold(), equalTo(1));
+    }
+  }
+
+  @Test
+  void shouldStoreValuesContainingQuotesVerbatim() {
+    Book book = Fixture.book()
+        .barcode("1234' OR '1' = '1")
+        .name("O'Reilly's Guide")
+        .author("Robert'); DROP TABLE books; --")
+        .build();
+
+    booksRepository.create(book);
+    booksRepository.update(book, Optional.empty());
+
+    assertThat(booksRepository.findByBarcode(book.barcode()), equalTo(Optional.of(book)));
+    assertThat(booksRepository.findByBarcode("1234"), equalTo(Optional.empty()));
+    assertThat(booksRepository.findAll(), equalTo(Collections.singletonList(book)));
+  }
+
+  @Test
+  void shouldUpdateBookOnlyIfVersionMatches() {
+    Book book = Fixture.book().build();
+    Book changed = Fixture.book().quantity(5).build();
+    booksRepository.create(book);
+
+    Optional<BookChange> stale = booksRepository.update(changed, Optional.of(2L));
+    Optional<BookChange> matching = booksRepository.update(changed, Optional.of(1L));
+
+    assertThat(stale, equalTo(Optional.of(new BookChange(book, null))));
+    assertThat(matching, equalTo(Optional.of(new BookChange(book, changed))));
+    assertThat(matching.get().previous().version(), equalTo(1L));
+    assertThat(booksRepository.findByBarcode(book.barcode()).get().version(), equalTo(2L));
+  }
+
+  @Test
+  void shouldReturnOnlyBooksCreatedInBatch() {
+    Book existing = Fixture.book().build();
+    booksRepository.create(existing);
+    List<Book> books = Arrays.asList(
+        Fixture.book().barcode("b1").build(),
+        Fixture.book().name("New name").build(),
+        Fixture.book().barcode("b2").build()
+    );
+
+    List<Book> created = booksRepository.createAll(books);
+
+    assertThat(
+        created.stream().map(Book::barcode).collect(Collectors.toList()),
+        equalTo(Arrays.asList("b1", "b2"))
+    );
+    assertThat(booksRepository.findByBarcode(existing.barcode()), equalTo(Optional.of(existing)));
+  }
+
+  @Test
+  void shouldSumSameTotalPriceAsBooksForRandomInventories() {
+    int currentYear = 2020;
+    for (long seed = 1; seed <= 20; seed++) {
+      Random random = new Random(seed);
+      flushBooks();
+      List<Book> books = randomBooks(random, 1 + random.nextInt(200));
+      booksRepository.createAll(books);
+
+      for (int i = 0; i < 10; i++) {
+        BooksFilter filter = randomFilter(random);
+        List<Book> matching =
+            books.stream().filter(filter::matches).collect(Collectors.toList());
+        BigDecimal expected =
+            pricingEngine.totalPrice(pricingEngine.columns(matching), currentYear);
+
+        BigDecimal actual = booksRepository.totalPrice(filter, currentYear);
+
+        assertThat(
+            String.format("seed %d, filter %d", seed, i),
+            new TotalPriceResponse(actual),
+            equalTo(new TotalPriceResponse(expected))
+        );
+      }
+    }
+  }
+
+  private void flushBooks() {
+    db.update(String.format("DELETE FROM %s", BooksRepository.TABLE));
+  }
+
+  private List<Book> randomBooks(Random random, int count) {
+    List<Book> books = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      int type = random.nextInt(3);
+      books.add(Fixture.book()
+          .barcode("barcode-" + i)
+          .author(AUTHORS[random.nextInt(AUTHORS.length)])
+          .quantity(1 + random.nextInt(Integer.MAX_VALUE))
+          .price(random.nextInt(1_000_000) / 100.0)
+          .antiqueReleaseYear(type == 1 ? 1900 - random.nextInt(5000) : null)
+          .scienceIndex(type == 2 ? 1 + random.nextInt(10) : null)
+          .build());
+    }
+    return books;
+  }
+
+  private BooksFilter randomFilter(Random random) {
+    BigDecimal minPrice = random.nextBoolean() ? randomPrice(random) : null;
+    BigDecimal maxPrice = random.nextBoolean() ? randomPrice(random) : null;
+    return new BooksFilter(
+        random.nextBoolean() ? AUTHORS[random.nextInt(AUTHORS.length)] : null,
+        random.nextBoolean() ? BookType.values()[random.nextInt(3)] : null,
+        minPrice,
+        maxPrice
+    );
+  }
+
+  private BigDecimal randomPrice(Random random) {
+    return BigDecimal.valueOf(random.nextInt(1_000_000), 2);
+  }
+}
@@ -0,0 +1,91 @@
+package com.gmail.tikrai.books.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.rowmappers.BooksMapper;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcOperations;
+
+class PreparedStatementsBenchmarkIT extends IntegrationTestCase {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PreparedStatementsBenchmarkIT.class);
+  private static final int BOOKS = 100;
+  private static final int LOOKUPS = 5000;
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  JdbcOperations db;
+
+  @Test
+  void shouldLookUpBooksWithPreparedAndLiteralStatements() {
+    for (int i = 0; i < BOOKS; i++) {
+      booksRepository.create(Fixture.book().barcode(barcode(i)).build());
+    }
+    lookUp(booksRepository::findByBarcode);
+    lookUp(this::findByLiteralBarcode);
+
+    long[] prepared = lookUp(booksRepository::findByBarcode);
+    long[] literal = lookUp(this::findByLiteralBarcode);
+
+    LOG.info(
+        "Looked up {} books: prepared statements {} lookups/s, p50 {} us, p99 {} us; "
+            + "literal statements {} lookups/s, p50 {} us, p99 {} us",
+        LOOKUPS,
+        perSecond(prepared), percentile(prepared, 50), percentile(prepared, 99),
+        perSecond(literal), percentile(literal, 50), percentile(literal, 99)
+    );
+    assertThat(
+        booksRepository.findByBarcode(barcode(0)),
+        equalTo(findByLiteralBarcode(barcode(0)))
+    );
+  }
+
+  // How lookups were built before they were bound, each one parsed and planned by postgres
+  private Optional<Book> findByLiteralBarcode(String barcode) {
+    String sql = String.format(
+        "SELECT * FROM %s WHERE barcode = '%s'", BooksRepository.STOCK, barcode
+    );
+    List<Book> books = db.query(sql, new BooksMapper());
+    return books.stream().findFirst();
+  }
+
+  private long[] lookUp(Function<String, Optional<Book>> lookup) {
+    long[] nanos = new long[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      String barcode = barcode(i % BOOKS);
+      long started = System.nanoTime();
+      Optional<Book> book = lookup.apply(barcode);
+      nanos[i] = System.nanoTime() - started;
+      assertThat(book.isPresent(), equalTo(true));
+    }
+    return nanos;
+  }
+
+  private static String barcode(int i) {
+    return String.format("prepared-%03d", i);
+  }
+
+  private static long perSecond(long[] nanos) {
+    return LOOKUPS * TimeUnit.SECONDS.toNanos(1) / Arrays.stream(nanos).sum();
+  }
+
+  private static long percentile(long[] nanos, int percentile) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    return TimeUnit.NANOSECONDS.toMicros(sorted[sorted.length * percentile / 100]);
+  }
+}
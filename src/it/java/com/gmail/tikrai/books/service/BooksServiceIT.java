@@ -0,0 +1,263 @@
+package com.gmail.tikrai.books.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.exception.InsufficientQuantityException;
+import com.gmail.tikrai.books.exception.PreconditionFailedException;
+import com.gmail.tikrai.books.exception.UniqueIdentifierException;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.request.QuantityAdjustment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class BooksServiceIT extends IntegrationTestCase {
+
+  private static final int THREADS = 16;
+  private static final int ROUNDS = 20;
+  private static final int BASKET_ROUNDS = 5;
+  private static final int VERSIONED_ROUNDS = 5;
+
+  @Autowired
+  BooksService booksService;
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldCreateBookOnlyOnceWhenCreatesRace() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      Book book = Fixture.book().barcode("race-" + round).build();
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          try {
+            booksService.create(book);
+            return true;
+          } catch (UniqueIdentifierException e) {
+            return false;
+          }
+        }));
+      }
+      start.countDown();
+
+      int created = 0;
+      for (Future<Boolean> result : results) {
+        created += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+      }
+      assertThat(created, equalTo(1));
+    }
+    assertThat(booksRepository.findAll().size(), equalTo(ROUNDS));
+  }
+
+  @Test
+  void shouldNotLoseConcurrentReadModifyWriteUpdates() throws Exception {
+    Book book = Fixture.book().quantity(1).build();
+    booksRepository.create(book);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      results.add(executor.submit(() -> {
+        start.await();
+        for (int round = 0; round < VERSIONED_ROUNDS; round++) {
+          incrementQuantity(book.barcode());
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+
+    for (Future<?> result : results) {
+      // every conflict has a winner, so the writers always finish
+      result.get();
+    }
+    Book actual = booksRepository.findByBarcode(book.barcode()).get();
+    assertThat(actual.quantity(), equalTo(1 + THREADS * VERSIONED_ROUNDS));
+    assertThat(actual.version(), equalTo(1L + THREADS * VERSIONED_ROUNDS));
+  }
+
+  @Test
+  void shouldKeepConcurrentUpdatesOfDifferentFields() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      Book book = Fixture.book().barcode("fields-" + round).build();
+      booksRepository.create(book);
+      CountDownLatch start = new CountDownLatch(1);
+      Future<Book> name = executor.submit(() -> {
+        start.await();
+        return booksService.updateFields(
+            book.barcode(), Collections.singletonMap("name", "New Name"), Optional.empty()
+        );
+      });
+      Future<Book> author = executor.submit(() -> {
+        start.await();
+        return booksService.updateFields(
+            book.barcode(), Collections.singletonMap("author", "New Author"), Optional.empty()
+        );
+      });
+      start.countDown();
+      name.get(10, TimeUnit.SECONDS);
+      author.get(10, TimeUnit.SECONDS);
+
+      Book expected = Fixture.book().barcode(book.barcode())
+          .name("New Name").author("New Author").build();
+      assertThat(booksRepository.findByBarcode(book.barcode()), equalTo(Optional.of(expected)));
+    }
+  }
+
+  @Test
+  void shouldNeverAdjustQuantityBelowZero() throws Exception {
+    Book book = Fixture.book().quantity(THREADS * ROUNDS / 2).build();
+    booksRepository.create(book);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      results.add(executor.submit(() -> {
+        start.await();
+        int sold = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+          try {
+            booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), -1));
+            sold++;
+          } catch (InsufficientQuantityException e) {
+            // sold out
+          }
+        }
+        return sold;
+      }));
+    }
+    start.countDown();
+
+    int sold = 0;
+    for (Future<Integer> result : results) {
+      sold += result.get(30, TimeUnit.SECONDS);
+    }
+    assertThat(sold, equalTo(book.quantity()));
+    assertThat(booksRepository.findByBarcode(book.barcode()).get().quantity(), equalTo(0));
+  }
+
+  @Test
+  void shouldAdjustQuantitiesListedInAnyOrderWithoutDeadlocks() throws Exception {
+    List<String> barcodes = Arrays.asList("basket-a", "basket-b", "basket-c");
+    barcodes.forEach(barcode -> booksRepository.create(Fixture.book().barcode(barcode).build()));
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      List<QuantityAdjustment> basket = new ArrayList<>();
+      barcodes.forEach(barcode -> basket.add(new QuantityAdjustment(barcode, 1)));
+      Collections.rotate(basket, i);
+      results.add(executor.submit(() -> {
+        start.await();
+        for (int round = 0; round < BASKET_ROUNDS; round++) {
+          booksService.adjustQuantities(basket);
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+
+    for (Future<?> result : results) {
+      // postgres aborts one side of a deadlock, so a deadlock fails here instead of hanging
+      result.get();
+    }
+    int expected = Fixture.book().build().quantity() + THREADS * BASKET_ROUNDS;
+    for (String barcode : barcodes) {
+      Book actual = booksRepository.findByBarcode(barcode).get();
+      assertThat(actual.quantity(), equalTo(expected));
+    }
+  }
+
+  @Test
+  void shouldNeverAdjustSlottedQuantityBelowZero() throws Exception {
+    Book book = Fixture.book().quantity(THREADS * ROUNDS / 2).build();
+    booksRepository.create(book);
+    booksRepository.spreadQuantity(book.barcode(), Optional.of(4), 0);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      results.add(executor.submit(() -> {
+        start.await();
+        int sold = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+          try {
+            booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), -1));
+            sold++;
+          } catch (InsufficientQuantityException e) {
+            // sold out
+          }
+        }
+        return sold;
+      }));
+    }
+    start.countDown();
+
+    int sold = 0;
+    for (Future<Integer> result : results) {
+      sold += result.get(30, TimeUnit.SECONDS);
+    }
+    assertThat(sold, equalTo(book.quantity()));
+    assertThat(booksRepository.findByBarcode(book.barcode()).get().quantity(), equalTo(0));
+  }
+
+  @Test
+  void shouldSpreadSlottedQuantityIfNoSingleSlotHasEnough() {
+    Book book = Fixture.book().quantity(8).build();
+    booksRepository.create(book);
+    booksRepository.spreadQuantity(book.barcode(), Optional.of(4), 0);
+
+    Book actual = booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), -7));
+
+    assertThat(actual.quantity(), equalTo(1));
+    assertThat(booksRepository.findByBarcode(book.barcode()), equalTo(Optional.of(actual)));
+  }
+
+  @Test
+  void shouldFoldSlotsBackWhenDisabled() {
+    Book book = Fixture.book().quantity(8).build();
+    booksRepository.create(book);
+    booksRepository.spreadQuantity(book.barcode(), Optional.of(4), 0);
+    booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), -1));
+
+    Book actual = booksRepository.spreadQuantity(book.barcode(), Optional.of(0), 0).get();
+
+    assertThat(actual.quantity(), equalTo(7));
+    assertThat(booksRepository.findByBarcode(book.barcode()), equalTo(Optional.of(actual)));
+    booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), -7));
+    assertThat(booksRepository.findByBarcode(book.barcode()).get().quantity(), equalTo(0));
+  }
+
+  private void incrementQuantity(String barcode) {
+    while (true) {
+      Book current = booksRepository.findByBarcode(barcode).get();
+      Book incremented = Fixture.book().barcode(barcode).quantity(current.quantity() + 1).build();
+      try {
+        booksService.update(incremented, Optional.of(current.version()));
+        return;
+      } catch (PreconditionFailedException e) {
+        // another writer got there first, read the book again
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.gmail.tikrai.books.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
+import com.gmail.tikrai.books.request.QuantityAdjustment;
+import com.gmail.tikrai.books.response.InventorySummaryResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcOperations;
+
+class InventorySummaryServiceIT extends IntegrationTestCase {
+
+  private static final int THREADS = 8;
+
+  @Autowired
+  InventorySummaryService summaryService;
+
+  @Autowired
+  InventorySummaryRepository summaryRepository;
+
+  @Autowired
+  BooksService booksService;
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  PricingEngine pricingEngine;
+
+  @Autowired
+  JdbcOperations db;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldKeepSummaryInSyncWithWrites() {
+    booksService.create(Fixture.book().barcode("regular").build());
+    booksService.create(Fixture.book().barcode("antique").antiqueReleaseYear(1750).build());
+    booksService.createAll(Arrays.asList(
+        Fixture.bookRequest().barcode("science").scienceIndex(4).build(),
+        Fixture.bookRequest().barcode("regular").build()
+    ));
+    booksService.update(Fixture.book().barcode("regular").quantity(9).scienceIndex(2).build());
+    booksService.update(Fixture.book().barcode("antique").price(1.01).build());
+
+    assertThat(summaryService.getSummary(), equalTo(recalculated()));
+    Map<BookType, CategorySummary> before = summaryRepository.findAll();
+    summaryService.reconcile();
+    assertThat(summaryRepository.findAll(), equalTo(before));
+  }
+
+  @Test
+  void shouldKeepSummaryInSyncWithConcurrentWrites() throws Exception {
+    List<Future<?>> results = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      String prefix = "thread-" + thread + "-";
+      results.add(executor.submit(() -> {
+        for (int i = 0; i < 10; i++) {
+          booksService.create(Fixture.book().barcode(prefix + i).antiqueReleaseYear(1900).build());
+          booksService.update(Fixture.book().barcode(prefix + i).quantity(i + 1).build());
+        }
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+
+    assertThat(summaryService.getSummary(), equalTo(recalculated()));
+  }
+
+  @Test
+  void shouldKeepSummaryInSyncWithSlottedQuantities() {
+    booksService.create(Fixture.book().barcode("slotted").quantity(10).build());
+    booksRepository.spreadQuantity("slotted", Optional.of(4), 0);
+    for (int i = 0; i < 5; i++) {
+      booksService.adjustQuantity(new QuantityAdjustment("slotted", -2));
+      booksService.adjustQuantity(new QuantityAdjustment("slotted", 1));
+    }
+    booksService.updateFields("slotted", Collections.singletonMap("price", 2), Optional.empty());
+
+    assertThat(summaryService.getSummary(), equalTo(recalculated()));
+    Map<BookType, CategorySummary> before = summaryRepository.findAll();
+    summaryService.reconcile();
+    assertThat(summaryRepository.findAll(), equalTo(before));
+  }
+
+  @Test
+  void shouldReconcileSummarySpreadAcrossSlots() {
+    booksService.create(Fixture.book().build());
+    db.update("INSERT INTO books_summary "
+        + "(type, slot, books, quantity, value_per_year, value_fixed) "
+        + "VALUES ('REGULAR', 7, 1, 1, 0, 1) ON CONFLICT (type, slot) DO UPDATE SET "
+        + "books = books_summary.books + 1, value_fixed = books_summary.value_fixed + 1");
+
+    summaryService.reconcile();
+
+    assertThat(summaryService.getSummary(), equalTo(recalculated()));
+  }
+
+  @Test
+  void shouldReconcileDriftWhileBooksAreWritten() throws Exception {
+    booksService.create(Fixture.book().build());
+    db.update("UPDATE books_summary SET books = books + 5, value_fixed = value_fixed * 2");
+    List<Future<?>> results = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      String prefix = "reconciled-" + thread + "-";
+      results.add(executor.submit(() -> {
+        for (int i = 0; i < 10; i++) {
+          booksService.create(Fixture.book().barcode(prefix + i).build());
+          booksService.update(Fixture.book().barcode(prefix + i).quantity(i + 1).build());
+        }
+      }));
+    }
+
+    summaryService.reconcile();
+    for (Future<?> result : results) {
+      result.get();
+    }
+
+    assertThat(summaryService.getSummary(), equalTo(recalculated()));
+  }
+
+  @Test
+  void shouldReconcileDriftedSummary() {
+    booksService.create(Fixture.book().build());
+    db.update("UPDATE books_summary SET books = books + 5, value_fixed = value_fixed * 2");
+
+    summaryService.reconcile();
+
+    assertThat(summaryService.getSummary(), equalTo(recalculated()));
+  }
+
+  @Test
+  void shouldReconcileMissingSummary() {
+    booksService.create(Fixture.book().build());
+    db.update("DELETE FROM books_summary");
+
+    summaryService.reconcile();
+
+    assertThat(summaryService.getSummary(), equalTo(recalculated()));
+  }
+
+  private InventorySummaryResponse recalculated() {
+    Map<BookType, CategorySummary> summaries = new EnumMap<>(BookType.class);
+    for (BookType type : BookType.values()) {
+      summaries.put(type, CategorySummary.empty(type));
+    }
+    for (Book book : booksRepository.findAll()) {
+      summaries.merge(book.type(), pricingEngine.summary(book), CategorySummary::plus);
+    }
+    return InventorySummaryResponse.of(summaries, Calendar.getInstance().get(Calendar.YEAR));
+  }
+}
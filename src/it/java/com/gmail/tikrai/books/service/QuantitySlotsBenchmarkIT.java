@@ -0,0 +1,101 @@
+package com.gmail.tikrai.books.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.gmail.tikrai.books.IntegrationTestCase;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
+import com.gmail.tikrai.books.request.QuantityAdjustment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class QuantitySlotsBenchmarkIT extends IntegrationTestCase {
+
+  private static final Logger LOG = LoggerFactory.getLogger(QuantitySlotsBenchmarkIT.class);
+  private static final int THREADS = 16;
+  private static final int ADJUSTMENTS = 50;
+  private static final int SLOTS = 16;
+
+  @Autowired
+  BooksService booksService;
+
+  @Autowired
+  BooksRepository booksRepository;
+
+  @Autowired
+  InventorySummaryRepository summaryRepository;
+
+  @Autowired
+  InventorySummaryService summaryService;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldSellHotBookFromSingleRowAndFromSlots() throws Exception {
+    Book single = Fixture.book().barcode("hot-single").quantity(THREADS * ADJUSTMENTS).build();
+    Book slotted = Fixture.book().barcode("hot-slotted").quantity(THREADS * ADJUSTMENTS).build();
+    booksService.create(single);
+    booksService.create(slotted);
+    booksRepository.spreadQuantity(slotted.barcode(), Optional.of(SLOTS), 0);
+
+    long singleNanos = sellOut(single.barcode());
+    long slottedNanos = sellOut(slotted.barcode());
+
+    LOG.info(
+        "Sold {} books with {} threads: single row {} adjustments/s, {} slots {} adjustments/s",
+        THREADS * ADJUSTMENTS, THREADS,
+        perSecond(singleNanos), SLOTS, perSecond(slottedNanos)
+    );
+    assertThat(booksRepository.findByBarcode(single.barcode()).get().quantity(), equalTo(0));
+    assertThat(booksRepository.findByBarcode(slotted.barcode()).get().quantity(), equalTo(0));
+    Map<BookType, CategorySummary> summary = summaryRepository.findAll();
+    summaryService.reconcile();
+    assertThat(summaryRepository.findAll(), equalTo(summary));
+  }
+
+  private long sellOut(String barcode) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      results.add(executor.submit(() -> {
+        start.await();
+        for (int adjustment = 0; adjustment < ADJUSTMENTS; adjustment++) {
+          booksService.adjustQuantity(new QuantityAdjustment(barcode, -1));
+        }
+        return null;
+      }));
+    }
+    long started = System.nanoTime();
+    start.countDown();
+    for (Future<?> result : results) {
+      result.get(60, TimeUnit.SECONDS);
+    }
+    return System.nanoTime() - started;
+  }
+
+  private long perSecond(long nanos) {
+    return THREADS * ADJUSTMENTS * TimeUnit.SECONDS.toNanos(1) / nanos;
+  }
+}
@@ -0,0 +1,274 @@
+package com.gmail.tikrai.books.cache;
+
+import com.gmail.tikrai.books.config.ScheduledDelays;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToDoubleFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+public class BarcodeFilter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BarcodeFilter.class);
+  private static final String METRICS_PREFIX = "books.barcode.filter";
+  private static final int GROWTH = 2;
+
+  private final BooksRepository booksRepository;
+  private final TransactionTemplate transaction;
+  private final boolean enabled;
+  private final double falsePositiveRate;
+  private final long minimumCapacity;
+  private final long rebuildIntervalNanos;
+  private final LongSupplier clock;
+  private final Counter misses;
+  private final Timer rebuildLatency;
+  private final AtomicLong generation = new AtomicLong();
+  private volatile Bits current;
+  private volatile Bits building;
+  private volatile boolean stale = true;
+  private volatile long builtAt;
+
+  @Autowired
+  public BarcodeFilter(
+      BooksRepository booksRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry registry,
+      @Value("${books.barcode-filter.enabled}") boolean enabled,
+      @Value("${books.barcode-filter.false-positive-rate}") double falsePositiveRate,
+      @Value("${books.barcode-filter.minimum-capacity}") long minimumCapacity,
+      @Value("${books.barcode-filter.rebuild-interval}") Duration rebuildInterval
+  ) {
+    this(
+        booksRepository,
+        transactionManager,
+        registry,
+        enabled,
+        falsePositiveRate,
+        minimumCapacity,
+        rebuildInterval,
+        System::nanoTime
+    );
+  }
+
+  BarcodeFilter(
+      BooksRepository booksRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry registry,
+      boolean enabled,
+      double falsePositiveRate,
+      long minimumCapacity,
+      Duration rebuildInterval,
+      LongSupplier clock
+  ) {
+    this.booksRepository = booksRepository;
+    this.transaction = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.falsePositiveRate = falsePositiveRate;
+    this.minimumCapacity = minimumCapacity;
+    this.rebuildIntervalNanos = rebuildInterval.toNanos();
+    this.clock = clock;
+    this.misses = registry.counter(METRICS_PREFIX + ".misses");
+    this.rebuildLatency = registry.timer(METRICS_PREFIX + ".rebuild.latency");
+    registry.gauge(METRICS_PREFIX + ".bytes", this, filter -> filter.stat(Bits::bytes));
+    registry.gauge(
+        METRICS_PREFIX + ".false.positive.rate",
+        this,
+        filter -> filter.stat(Bits::falsePositiveRate)
+    );
+  }
+
+  public boolean mightContain(String barcode) {
+    Bits bits = current;
+    if (!enabled || bits == null || bits.mightContain(barcode)) {
+      return true;
+    }
+    misses.increment();
+    return false;
+  }
+
+  public void add(String barcode) {
+    if (!enabled) {
+      return;
+    }
+    put(barcode);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          put(barcode);
+        }
+      });
+    }
+  }
+
+  public void invalidate() {
+    generation.incrementAndGet();
+    current = null;
+    stale = true;
+  }
+
+  public void invalidateAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidate();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        invalidate();
+      }
+    });
+  }
+
+  @Scheduled(
+      fixedDelayString =
+          ScheduledDelays.MILLIS_OF + "${books.barcode-filter.check-interval}" + ScheduledDelays.END
+  )
+  public void refresh() {
+    if (!enabled) {
+      return;
+    }
+    Bits bits = current;
+    boolean expired = clock.getAsLong() - builtAt >= rebuildIntervalNanos;
+    if (bits == null || stale || expired || bits.isFull()) {
+      rebuild();
+    }
+  }
+
+  private void rebuild() {
+    long started = clock.getAsLong();
+    long expected = generation.get();
+    stale = false;
+    long capacity = Math.max(booksRepository.countAll() * GROWTH, minimumCapacity);
+    Bits next = new Bits(capacity, falsePositiveRate);
+    building = next;
+    try {
+      transaction.execute(status -> {
+        booksRepository.streamBarcodes(next::put);
+        return null;
+      });
+      if (generation.get() == expected) {
+        current = next;
+        builtAt = clock.getAsLong();
+      } else {
+        stale = true;
+      }
+    } catch (RuntimeException e) {
+      LOG.warn("Rebuilding barcode filter failed", e);
+      stale = true;
+    } finally {
+      building = null;
+      rebuildLatency.record(clock.getAsLong() - started, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void put(String barcode) {
+    Bits next = building;
+    Bits bits = current;
+    if (next != null) {
+      next.put(barcode);
+    }
+    if (bits != null) {
+      bits.put(barcode);
+    }
+  }
+
+  private double stat(ToDoubleFunction<Bits> stat) {
+    Bits bits = current;
+    return bits == null ? 0 : stat.applyAsDouble(bits);
+  }
+
+  private static final class Bits {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long size;
+    private final int hashes;
+    private final long capacity;
+    private final LongAdder added = new LongAdder();
+
+    Bits(long capacity, double falsePositiveRate) {
+      double ln2 = Math.log(2);
+      long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+      int words = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (bits + 63) / 64));
+      this.words = new AtomicLongArray(words);
+      this.size = words * 64L;
+      this.hashes = Math.max(1, (int) Math.round((double) size / capacity * ln2));
+      this.capacity = capacity;
+    }
+
+    void put(String barcode) {
+      long hash = hash(barcode);
+      long increment = mix(hash) | 1;
+      for (int i = 0; i < hashes; i++) {
+        long index = Long.remainderUnsigned(hash + i * increment, size);
+        long mask = 1L << index;
+        words.accumulateAndGet((int) (index >>> 6), mask, (word, bit) -> word | bit);
+      }
+      added.increment();
+    }
+
+    boolean mightContain(String barcode) {
+      long hash = hash(barcode);
+      long increment = mix(hash) | 1;
+      for (int i = 0; i < hashes; i++) {
+        long index = Long.remainderUnsigned(hash + i * increment, size);
+        if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    boolean isFull() {
+      return added.sum() > capacity;
+    }
+
+    double bytes() {
+      return words.length() * (double) Long.BYTES;
+    }
+
+    double falsePositiveRate() {
+      long set = 0;
+      for (int i = 0; i < words.length(); i++) {
+        set += Long.bitCount(words.get(i));
+      }
+      return Math.pow((double) set / size, hashes);
+    }
+
+    private static long hash(String barcode) {
+      long hash = FNV_OFFSET;
+      for (byte b : barcode.getBytes(StandardCharsets.UTF_8)) {
+        hash ^= b;
+        hash *= FNV_PRIME;
+      }
+      return mix(hash);
+    }
+
+    private static long mix(long hash) {
+      long mixed = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+      mixed = (mixed ^ (mixed >>> 33)) * 0xc4ceb9fe1a85ec53L;
+      return mixed ^ (mixed >>> 33);
+    }
+  }
+}
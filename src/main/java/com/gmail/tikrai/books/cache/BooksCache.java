@@ -0,0 +1,117 @@
+package com.gmail.tikrai.books.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gmail.tikrai.books.domain.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class BooksCache {
+
+  public static final String NAME = "books";
+
+  private final boolean enabled;
+  private final Cache<String, Book> cache;
+
+  @Autowired
+  public BooksCache(
+      @Value("${books.cache.enabled}") boolean enabled,
+      @Value("${books.cache.maximum-size}") long maximumSize,
+      @Value("${books.cache.expire-after-write}") Duration expireAfterWrite,
+      MeterRegistry registry
+  ) {
+    this.enabled = enabled;
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats();
+    if (!expireAfterWrite.isZero()) {
+      builder.expireAfterWrite(expireAfterWrite);
+    }
+    this.cache = CaffeineCacheMetrics.monitor(registry, builder.build(), NAME);
+  }
+
+  // Loads outside of the cache's compute, so that a slow loader never blocks other keys
+  public Optional<Book> get(String barcode, Function<String, Optional<Book>> loader) {
+    if (!enabled) {
+      return loader.apply(barcode);
+    }
+    Book cached = cache.getIfPresent(barcode);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    Optional<Book> loaded = loader.apply(barcode);
+    loaded.ifPresent(book -> cache.asMap().merge(barcode, book, BooksCache::newer));
+    return loaded;
+  }
+
+  public Optional<Book> getIfPresent(String barcode) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(cache.getIfPresent(barcode));
+  }
+
+  public Map<String, Book> getAllPresent(Collection<String> barcodes) {
+    if (!enabled) {
+      return Collections.emptyMap();
+    }
+    return cache.getAllPresent(barcodes);
+  }
+
+  public void put(Book book) {
+    if (enabled) {
+      cache.put(book.barcode(), book);
+    }
+  }
+
+  public void putAfterCommit(Book book) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      put(book);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        put(book);
+      }
+    });
+  }
+
+  public void invalidate(String barcode) {
+    cache.invalidate(barcode);
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public void invalidateAllAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidateAll();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        invalidateAll();
+      }
+    });
+  }
+
+  // A book written while it was being loaded must not be replaced by the loaded older version
+  private static Book newer(Book cached, Book loaded) {
+    return loaded.version() > cached.version() ? loaded : cached;
+  }
+}
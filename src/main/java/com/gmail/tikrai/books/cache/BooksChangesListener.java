@@ -0,0 +1,172 @@
+package com.gmail.tikrai.books.cache;
+
+import com.gmail.tikrai.books.database.ReplicaReads;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.postgresql.PGProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BooksChangesListener implements SmartLifecycle {
+
+  public static final String APPLICATION_NAME = "books-changes-listener";
+  private static final Logger LOG = LoggerFactory.getLogger(BooksChangesListener.class);
+  private static final String LISTEN = "LISTEN " + BooksRepository.CHANGES_CHANNEL;
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  private final BooksCache booksCache;
+  private final BarcodeFilter barcodeFilter;
+  private final ReplicaReads replicaReads;
+  private final ConnectionFactory connectionFactory;
+  private final boolean enabled;
+  private final int pollTimeoutMillis;
+  private final long reconnectDelayMillis;
+  private volatile boolean running;
+  private boolean listenedBefore;
+  private Thread thread;
+
+  @Autowired
+  public BooksChangesListener(
+      BooksCache booksCache,
+      BarcodeFilter barcodeFilter,
+      ReplicaReads replicaReads,
+      DataSourceProperties dataSource,
+      @Value("${books.cache.changes.enabled}") boolean enabled,
+      @Value("${books.cache.changes.poll-timeout}") Duration pollTimeout,
+      @Value("${books.cache.changes.reconnect-delay}") Duration reconnectDelay
+  ) {
+    this(
+        booksCache,
+        barcodeFilter,
+        replicaReads,
+        () -> connect(dataSource),
+        enabled,
+        pollTimeout,
+        reconnectDelay
+    );
+  }
+
+  BooksChangesListener(
+      BooksCache booksCache,
+      BarcodeFilter barcodeFilter,
+      ReplicaReads replicaReads,
+      ConnectionFactory connectionFactory,
+      boolean enabled,
+      Duration pollTimeout,
+      Duration reconnectDelay
+  ) {
+    this.booksCache = booksCache;
+    this.barcodeFilter = barcodeFilter;
+    this.replicaReads = replicaReads;
+    this.connectionFactory = connectionFactory;
+    this.enabled = enabled;
+    this.pollTimeoutMillis = (int) pollTimeout.toMillis();
+    this.reconnectDelayMillis = reconnectDelay.toMillis();
+  }
+
+  @Override
+  public synchronized void start() {
+    if (!enabled || running) {
+      return;
+    }
+    running = true;
+    thread = new Thread(this::run, APPLICATION_NAME);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public synchronized void stop() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+      thread = null;
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        listen();
+      } catch (SQLException e) {
+        LOG.warn("Listening to book changes failed, reconnecting", e);
+      }
+      try {
+        Thread.sleep(reconnectDelayMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  void listen() throws SQLException {
+    try (Connection connection = connectionFactory.connect()) {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute(LISTEN);
+      }
+      if (listenedBefore) {
+        replicaReads.allWritten();
+      }
+      listenedBefore = true;
+      booksCache.invalidateAll();
+      barcodeFilter.invalidate();
+      PGConnection pgConnection = connection.unwrap(PGConnection.class);
+      while (running) {
+        PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+        if (notifications == null || notifications.length == 0) {
+          if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+            throw new SQLException("Listener connection is no longer valid");
+          }
+          continue;
+        }
+        for (PGNotification notification : notifications) {
+          evict(notification.getParameter());
+        }
+      }
+    }
+  }
+
+  private void evict(String barcode) {
+    if (BooksRepository.ALL_CHANGED.equals(barcode)) {
+      replicaReads.allWritten();
+      booksCache.invalidateAll();
+      barcodeFilter.invalidate();
+    } else {
+      replicaReads.written(barcode);
+      barcodeFilter.add(barcode);
+      booksCache.invalidate(barcode);
+    }
+  }
+
+  private static Connection connect(DataSourceProperties dataSource) throws SQLException {
+    Properties properties = new Properties();
+    PGProperty.USER.set(properties, dataSource.determineUsername());
+    PGProperty.PASSWORD.set(properties, dataSource.determinePassword());
+    PGProperty.APPLICATION_NAME.set(properties, APPLICATION_NAME);
+    return DriverManager.getConnection(dataSource.determineUrl(), properties);
+  }
+
+  interface ConnectionFactory {
+
+    Connection connect() throws SQLException;
+  }
+}
@@ -0,0 +1,65 @@
+package com.gmail.tikrai.books.config;
+
+import com.gmail.tikrai.books.database.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import java.util.Optional;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+@Configuration
+public class DataSourceConfiguration {
+
+  private static final long REPLICA_CONNECTION_TIMEOUT_MILLIS = 1000;
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  @ConditionalOnProperty("books.replica.pool.jdbc-url")
+  @ConfigurationProperties("books.replica.pool")
+  public HikariConfig replicaPoolConfig() {
+    HikariConfig config = new HikariConfig();
+    config.setPoolName("replica");
+    config.setReadOnly(true);
+    config.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT_MILLIS);
+    config.setInitializationFailTimeout(-1);
+    return config;
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource routingDataSource(
+      HikariDataSource primaryDataSource,
+      Optional<HikariConfig> replicaPoolConfig,
+      @Value("${books.replica.retry-delay}") Duration retryDelay
+  ) {
+    DataSource replica = replicaPoolConfig
+        .map(config -> replicaDataSource(config, primaryDataSource))
+        .orElse(null);
+    return new ReplicaRoutingDataSource(primaryDataSource, replica, retryDelay);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+
+  // Replica reads run the same statements, so driver settings such as the server-side prepare
+  // threshold and statement cache default to the primary ones unless the replica pool sets them
+  private static HikariDataSource replicaDataSource(HikariConfig config, HikariDataSource primary) {
+    primary.getDataSourceProperties().forEach(config.getDataSourceProperties()::putIfAbsent);
+    return new HikariDataSource(config);
+  }
+}
@@ -0,0 +1,16 @@
+package com.gmail.tikrai.books.config;
+
+/**
+ * Wraps a duration placeholder of a {@code @Scheduled} delay, which Spring only reads in
+ * milliseconds or ISO-8601, so that it accepts the simple format of every other duration in
+ * application.yml, such as {@code 10m}.
+ */
+public final class ScheduledDelays {
+
+  public static final String MILLIS_OF =
+      "#{T(org.springframework.boot.convert.DurationStyle).detectAndParse('";
+  public static final String END = "').toMillis()}";
+
+  private ScheduledDelays() {
+  }
+}
@@ -1,13 +1,39 @@
 package com.gmail.tikrai.books.controller;
 
 import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.BooksFilter;
+import com.gmail.tikrai.books.exception.PreconditionFailedException;
 import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.pricing.PricingEngine;
 import com.gmail.tikrai.books.request.BookRequest;
+import com.gmail.tikrai.books.request.QuantityAdjustment;
+import com.gmail.tikrai.books.request.QuantitySlots;
+import com.gmail.tikrai.books.response.BatchItemResponse;
+import com.gmail.tikrai.books.response.BooksLookupResponse;
+import com.gmail.tikrai.books.response.BooksPageResponse;
+import com.gmail.tikrai.books.response.ImportResponse;
+import com.gmail.tikrai.books.response.InventorySummaryResponse;
 import com.gmail.tikrai.books.response.TotalPriceResponse;
+import com.gmail.tikrai.books.response.TotalPricesLookupResponse;
+import com.gmail.tikrai.books.service.BooksExportService;
+import com.gmail.tikrai.books.service.BooksImportService;
 import com.gmail.tikrai.books.service.BooksService;
+import com.gmail.tikrai.books.service.InventorySummaryService;
+import com.gmail.tikrai.books.service.QuantitySlotsService;
+import com.gmail.tikrai.books.service.WriteBehindService;
 import com.gmail.tikrai.books.util.RestUtil.Endpoint;
 import com.gmail.tikrai.books.validation.validators.SizeValidator;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -17,34 +43,160 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping(Endpoint.BOOKS)
 public class BooksController {
 
+  private static final Pattern STRONG_ETAG = Pattern.compile("\"(\\d{1,18})\"");
+  private static final Pattern QUALITY = Pattern.compile("[qQ]\\s*=\\s*([01](\\.\\d{0,3})?)");
+
   private final BooksService booksService;
+  private final BooksImportService booksImportService;
+  private final BooksExportService booksExportService;
+  private final InventorySummaryService inventorySummaryService;
+  private final QuantitySlotsService quantitySlotsService;
+  private final WriteBehindService writeBehindService;
+  private final PricingEngine pricingEngine;
 
-  public BooksController(BooksService booksService) {
+  public BooksController(
+      BooksService booksService,
+      BooksImportService booksImportService,
+      BooksExportService booksExportService,
+      InventorySummaryService inventorySummaryService,
+      QuantitySlotsService quantitySlotsService,
+      WriteBehindService writeBehindService,
+      PricingEngine pricingEngine
+  ) {
     this.booksService = booksService;
+    this.booksImportService = booksImportService;
+    this.booksExportService = booksExportService;
+    this.inventorySummaryService = inventorySummaryService;
+    this.quantitySlotsService = quantitySlotsService;
+    this.writeBehindService = writeBehindService;
+    this.pricingEngine = pricingEngine;
+  }
+
+  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<BooksPageResponse> findPage(
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "100") int limit
+  ) {
+    return new ResponseEntity<>(booksService.findPage(after, limit), HttpStatus.OK);
+  }
+
+  @GetMapping(params = "barcode", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<BooksLookupResponse> findByBarcodes(
+      @RequestParam("barcode") List<String> barcodes
+  ) {
+    return new ResponseEntity<>(booksService.findByBarcodes(barcodes), HttpStatus.OK);
+  }
+
+  @PostMapping(
+      value = "/lookup",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public ResponseEntity<BooksLookupResponse> lookup(@RequestBody List<String> barcodes) {
+    return new ResponseEntity<>(booksService.findByBarcodes(barcodes), HttpStatus.OK);
+  }
+
+  @GetMapping(
+      value = "/total-price",
+      params = "barcode",
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public ResponseEntity<TotalPricesLookupResponse> getTotalPrices(
+      @RequestParam("barcode") List<String> barcodes
+  ) {
+    return new ResponseEntity<>(booksService.getTotalPrices(barcodes), HttpStatus.OK);
+  }
+
+  @PostMapping(
+      value = "/total-price/lookup",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public ResponseEntity<TotalPricesLookupResponse> lookupTotalPrices(
+      @RequestBody List<String> barcodes
+  ) {
+    return new ResponseEntity<>(booksService.getTotalPrices(barcodes), HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/total-price", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<TotalPriceResponse> getInventoryTotalPrice(
+      @RequestParam(required = false) String author,
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false) BigDecimal minPrice,
+      @RequestParam(required = false) BigDecimal maxPrice
+  ) {
+    BooksFilter filter = new BooksFilter(
+        author,
+        type == null ? null : BookType.of("Query parameter type", type),
+        minPrice,
+        maxPrice
+    );
+    TotalPriceResponse response = new TotalPriceResponse(booksService.getTotalPrice(filter));
+    return new ResponseEntity<>(response, HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/export", produces = BooksImportService.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportBooks(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+  ) {
+    boolean gzip = acceptEncoding != null && acceptsGzip(acceptEncoding);
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.valueOf(BooksImportService.APPLICATION_NDJSON_VALUE));
+    headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT_ENCODING));
+    if (gzip) {
+      headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    StreamingResponseBody body = out -> booksExportService.exportBooks(out, gzip);
+    return new ResponseEntity<>(body, headers, HttpStatus.OK);
   }
 
   @GetMapping(value = "/{barcode}", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<Book> findByBarcode(
-      @PathVariable String barcode
+      @PathVariable String barcode,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
   ) {
     SizeValidator.range("Path variable barcode", barcode, 2, 255).validate();
-    return new ResponseEntity<>(booksService.findByBarcode(barcode), HttpStatus.OK);
+    if (ifNoneMatch != null) {
+      String eTag = eTag(booksService.findVersion(barcode));
+      if (matchesAny(ifNoneMatch, eTag)) {
+        return notModified(eTag);
+      }
+    }
+    return versioned(booksService.findByBarcode(barcode), HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/summary", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<InventorySummaryResponse> getInventorySummary() {
+    return new ResponseEntity<>(inventorySummaryService.getSummary(), HttpStatus.OK);
   }
 
   @GetMapping(value = "/{barcode}/total-price", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<TotalPriceResponse> getTotalPrice(
-      @PathVariable String barcode
+      @PathVariable String barcode,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
   ) {
     SizeValidator.range("Path variable barcode", barcode, 2, 255).validate();
-    TotalPriceResponse response = new TotalPriceResponse(booksService.getTotalPrice(barcode));
-    return new ResponseEntity<>(response, HttpStatus.OK);
+    int currentYear = pricingEngine.currentYear();
+    if (ifNoneMatch != null) {
+      String eTag = totalPriceETag(booksService.findVersion(barcode), currentYear);
+      if (matchesAny(ifNoneMatch, eTag)) {
+        return notModified(eTag);
+      }
+    }
+    Book book = booksService.findByBarcode(barcode);
+    return ResponseEntity.ok()
+        .eTag(totalPriceETag(book.version(), currentYear))
+        .body(new TotalPriceResponse(pricingEngine.totalPrice(book, currentYear)));
   }
 
   @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -52,12 +204,74 @@ public class BooksController {
       @RequestBody BookRequest request
   ) {
     request.validate();
-    return new ResponseEntity<>(booksService.create(request.toDomain()), HttpStatus.CREATED);
+    if (writeBehindService.isEnabled()) {
+      Book book = request.toDomain();
+      return writtenBehind(book, writeBehindService.create(book), HttpStatus.CREATED);
+    }
+    return versioned(booksService.create(request.toDomain()), HttpStatus.CREATED);
+  }
+
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<BatchItemResponse>> createAll(
+      @RequestBody List<BookRequest> requests
+  ) {
+    return new ResponseEntity<>(booksService.createAll(requests), HttpStatus.OK);
+  }
+
+  @PostMapping(
+      value = "/{barcode}/quantity:adjust",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public ResponseEntity<Book> adjustQuantity(
+      @PathVariable String barcode,
+      @RequestBody QuantityAdjustment request
+  ) {
+    SizeValidator.range("Path variable barcode", barcode, 2, 255).validate();
+    return versioned(booksService.adjustQuantity(request.withBarcode(barcode)), HttpStatus.OK);
+  }
+
+  @PostMapping(
+      value = "/quantity:adjust",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public ResponseEntity<List<Book>> adjustQuantities(
+      @RequestBody List<QuantityAdjustment> requests
+  ) {
+    return new ResponseEntity<>(booksService.adjustQuantities(requests), HttpStatus.OK);
+  }
+
+  @PutMapping(
+      value = "/{barcode}/quantity-slots",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public ResponseEntity<Book> configureQuantitySlots(
+      @PathVariable String barcode,
+      @RequestBody QuantitySlots request
+  ) {
+    SizeValidator.range("Path variable barcode", barcode, 2, 255).validate();
+    return versioned(quantitySlotsService.configure(barcode, request), HttpStatus.OK);
+  }
+
+  @PostMapping(
+      value = "/import",
+      consumes = {BooksImportService.TEXT_CSV_VALUE, BooksImportService.APPLICATION_NDJSON_VALUE},
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  public ResponseEntity<ImportResponse> importBooks(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+      InputStream body
+  ) {
+    ImportResponse response = booksImportService.importBooks(body, MediaType.valueOf(contentType));
+    return new ResponseEntity<>(response, HttpStatus.OK);
   }
 
   @PutMapping(value = "/{barcode}", consumes = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<Book> update(
       @PathVariable String barcode,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody BookRequest request
   ) {
     SizeValidator.range("Path variable barcode", barcode, 2, 255).validate();
@@ -66,16 +280,92 @@ public class BooksController {
     if (!book.barcode().equals(barcode)) {
       throw new ValidationException("Modification of 'barcode' field is not allowed");
     }
-    return new ResponseEntity<>(booksService.update(book), HttpStatus.OK);
+    if (writeBehindService.isEnabled() && ifMatch == null) {
+      return writtenBehind(book, writeBehindService.update(book), HttpStatus.OK);
+    }
+    return versioned(booksService.update(book, expectedVersion(ifMatch)), HttpStatus.OK);
   }
 
   @PatchMapping(value = "/{barcode}", consumes = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<Book> updateField(
       @PathVariable("barcode") String barcode,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody Map<String, Object> updates
   ) {
     SizeValidator.range("Path variable barcode", barcode, 2, 255).validate();
-    BookRequest request = booksService.updateRequest(barcode, updates);
-    return update(barcode, request);
+    Book updated = booksService.updateFields(barcode, updates, expectedVersion(ifMatch));
+    return versioned(updated, HttpStatus.OK);
+  }
+
+  private ResponseEntity<Book> writtenBehind(
+      Book book,
+      Optional<Book> stored,
+      HttpStatus status
+  ) {
+    return stored
+        .map(written -> versioned(written, status))
+        .orElseGet(() -> ResponseEntity.status(HttpStatus.ACCEPTED).body(book));
+  }
+
+  private static ResponseEntity<Book> versioned(Book book, HttpStatus status) {
+    return ResponseEntity.status(status).eTag(eTag(book.version())).body(book);
+  }
+
+  private static <T> ResponseEntity<T> notModified(String eTag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+  }
+
+  private static String eTag(long version) {
+    return String.format("\"%d\"", version);
+  }
+
+  private static String totalPriceETag(long version, int currentYear) {
+    return String.format("\"%d-%d\"", version, currentYear);
+  }
+
+  private static boolean matchesAny(String ifNoneMatch, String eTag) {
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if ("*".equals(tag) || eTag.equals(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // An explicit gzip entry overrides "*", a quality of zero rejects the coding
+  private static boolean acceptsGzip(String acceptEncoding) {
+    double gzip = -1;
+    double any = -1;
+    for (String entry : acceptEncoding.split(",")) {
+      String[] parts = entry.split(";");
+      String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+      double quality = 1;
+      for (int i = 1; i < parts.length; i++) {
+        Matcher matcher = QUALITY.matcher(parts[i].trim());
+        if (matcher.matches()) {
+          quality = Double.parseDouble(matcher.group(1));
+        }
+      }
+      if ("gzip".equals(coding) || "x-gzip".equals(coding)) {
+        gzip = quality;
+      } else if ("*".equals(coding)) {
+        any = quality;
+      }
+    }
+    return (gzip >= 0 ? gzip : any) > 0;
+  }
+
+  private static Optional<Long> expectedVersion(String ifMatch) {
+    if (ifMatch == null || "*".equals(ifMatch.trim())) {
+      return Optional.empty();
+    }
+    Matcher matcher = STRONG_ETAG.matcher(ifMatch.trim());
+    if (!matcher.matches()) {
+      throw new PreconditionFailedException(
+          String.format("If-Match '%s' does not match any book version", ifMatch)
+      );
+    }
+    return Optional.of(Long.parseLong(matcher.group(1)));
   }
 }
@@ -0,0 +1,79 @@
+package com.gmail.tikrai.books.controller;
+
+import com.gmail.tikrai.books.exception.InsufficientQuantityException;
+import com.gmail.tikrai.books.exception.PreconditionFailedException;
+import com.gmail.tikrai.books.exception.ResourceNotFoundException;
+import com.gmail.tikrai.books.exception.TooManyRequestsException;
+import com.gmail.tikrai.books.exception.UniqueIdentifierException;
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.response.ErrorResponse;
+import java.time.Instant;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class BooksExceptionHandler {
+
+  @ExceptionHandler(ResourceNotFoundException.class)
+  public ResponseEntity<ErrorResponse> handle(
+      ResourceNotFoundException e,
+      HttpServletRequest request
+  ) {
+    return error(HttpStatus.NOT_FOUND, e, request);
+  }
+
+  @ExceptionHandler(ValidationException.class)
+  public ResponseEntity<ErrorResponse> handle(ValidationException e, HttpServletRequest request) {
+    return error(HttpStatus.BAD_REQUEST, e, request);
+  }
+
+  @ExceptionHandler(InsufficientQuantityException.class)
+  public ResponseEntity<ErrorResponse> handle(
+      InsufficientQuantityException e,
+      HttpServletRequest request
+  ) {
+    return error(HttpStatus.CONFLICT, e, request);
+  }
+
+  @ExceptionHandler(UniqueIdentifierException.class)
+  public ResponseEntity<ErrorResponse> handle(
+      UniqueIdentifierException e,
+      HttpServletRequest request
+  ) {
+    return error(HttpStatus.CONFLICT, e, request);
+  }
+
+  @ExceptionHandler(PreconditionFailedException.class)
+  public ResponseEntity<ErrorResponse> handle(
+      PreconditionFailedException e,
+      HttpServletRequest request
+  ) {
+    return error(HttpStatus.PRECONDITION_FAILED, e, request);
+  }
+
+  @ExceptionHandler(TooManyRequestsException.class)
+  public ResponseEntity<ErrorResponse> handle(
+      TooManyRequestsException e,
+      HttpServletRequest request
+  ) {
+    return error(HttpStatus.TOO_MANY_REQUESTS, e, request);
+  }
+
+  private static ResponseEntity<ErrorResponse> error(
+      HttpStatus status,
+      RuntimeException e,
+      HttpServletRequest request
+  ) {
+    ErrorResponse body = new ErrorResponse(
+        Instant.now(),
+        status.value(),
+        status.getReasonPhrase(),
+        e.getMessage(),
+        request.getRequestURI()
+    );
+    return ResponseEntity.status(status).body(body);
+  }
+}
@@ -0,0 +1,92 @@
+package com.gmail.tikrai.books.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+public class Migration {
+
+  public static final String NO_TRANSACTION = "-- no-transaction";
+
+  private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+  private static final Pattern STATEMENT_END = Pattern.compile(";\\s*(\\r?\\n|$)");
+
+  private final int version;
+  private final String description;
+  private final String sql;
+
+  public Migration(int version, String description, String sql) {
+    this.version = version;
+    this.description = description;
+    this.sql = sql;
+  }
+
+  public static Migration of(Resource resource) {
+    String fileName = String.valueOf(resource.getFilename());
+    Matcher matcher = FILE_NAME.matcher(fileName);
+    if (!matcher.matches()) {
+      throw new IllegalStateException(String.format(
+          "Migration '%s' must be named V<version>__<description>.sql", fileName
+      ));
+    }
+    try (InputStream in = resource.getInputStream()) {
+      return new Migration(
+          Integer.parseInt(matcher.group(1)),
+          matcher.group(2).replace('_', ' '),
+          StreamUtils.copyToString(in, StandardCharsets.UTF_8)
+      );
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public int version() {
+    return version;
+  }
+
+  public String description() {
+    return description;
+  }
+
+  public String sql() {
+    return sql;
+  }
+
+  public boolean transactional() {
+    return !sql.trim().startsWith(NO_TRANSACTION);
+  }
+
+  public List<String> statements() {
+    return Arrays.stream(STATEMENT_END.split(sql))
+        .map(Migration::withoutComments)
+        .filter(statement -> !statement.isEmpty())
+        .collect(Collectors.toList());
+  }
+
+  public int checksum() {
+    CRC32 crc = new CRC32();
+    crc.update(sql.getBytes(StandardCharsets.UTF_8));
+    return (int) crc.getValue();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("V%d %s", version, description);
+  }
+
+  private static String withoutComments(String statement) {
+    return Arrays.stream(statement.split("\\r?\\n"))
+        .filter(line -> !line.trim().startsWith("--"))
+        .collect(Collectors.joining("\n"))
+        .trim();
+  }
+}
@@ -0,0 +1,82 @@
+package com.gmail.tikrai.books.database;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+public class ReplicaReads {
+
+  private static final long MAX_RECENT_WRITES = 100_000;
+
+  private final TransactionTemplate readOnly;
+  private final long stickyPrimaryNanos;
+  private final LongSupplier clock;
+  private final Cache<String, Boolean> recentWrites;
+  private volatile long allWrittenAt;
+  private volatile boolean allWritten;
+
+  @Autowired
+  public ReplicaReads(
+      PlatformTransactionManager transactionManager,
+      @Value("${books.replica.sticky-primary}") Duration stickyPrimary
+  ) {
+    this(transactionManager, stickyPrimary, System::nanoTime);
+  }
+
+  ReplicaReads(
+      PlatformTransactionManager transactionManager,
+      Duration stickyPrimary,
+      LongSupplier clock
+  ) {
+    this.readOnly = new TransactionTemplate(transactionManager);
+    this.readOnly.setReadOnly(true);
+    this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_SUPPORTS);
+    this.stickyPrimaryNanos = stickyPrimary.toNanos();
+    this.clock = clock;
+    this.recentWrites = Caffeine.newBuilder()
+        .maximumSize(MAX_RECENT_WRITES)
+        .expireAfterWrite(stickyPrimary)
+        .ticker(clock::getAsLong)
+        .build();
+  }
+
+  public <T> T read(Supplier<T> query) {
+    return isAllRecentlyWritten() ? query.get() : readOnly.execute(status -> query.get());
+  }
+
+  public <T> T read(String barcode, Supplier<T> query) {
+    return recentWrites.getIfPresent(barcode) != null ? query.get() : read(query);
+  }
+
+  public <T> T read(Collection<String> barcodes, Supplier<T> query) {
+    boolean recentlyWritten = !recentWrites.getAllPresent(barcodes).isEmpty();
+    return recentlyWritten ? query.get() : read(query);
+  }
+
+  public void written(String barcode) {
+    if (stickyPrimaryNanos > 0) {
+      recentWrites.put(barcode, Boolean.TRUE);
+    }
+  }
+
+  public void allWritten() {
+    if (stickyPrimaryNanos > 0) {
+      allWrittenAt = clock.getAsLong();
+      allWritten = true;
+    }
+  }
+
+  private boolean isAllRecentlyWritten() {
+    return allWritten && clock.getAsLong() - allWrittenAt < stickyPrimaryNanos;
+  }
+}
@@ -0,0 +1,75 @@
+package com.gmail.tikrai.books.database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+  private final DataSource primary;
+  private final DataSource replica;
+  private final long retryDelayNanos;
+  private final LongSupplier clock;
+  private volatile long replicaDownUntil;
+  private volatile boolean replicaDown;
+
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration retryDelay) {
+    this(primary, replica, retryDelay, System::nanoTime);
+  }
+
+  ReplicaRoutingDataSource(
+      DataSource primary,
+      DataSource replica,
+      Duration retryDelay,
+      LongSupplier clock
+  ) {
+    this.primary = primary;
+    this.replica = replica;
+    this.retryDelayNanos = retryDelay.toNanos();
+    this.clock = clock;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (useReplica()) {
+      try {
+        Connection connection = replica.getConnection();
+        replicaDown = false;
+        return connection;
+      } catch (SQLException e) {
+        LOG.warn("Replica is unavailable, reading from primary", e);
+        replicaDownUntil = clock.getAsLong() + retryDelayNanos;
+        replicaDown = true;
+      }
+    }
+    return primary.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return primary.getConnection(username, password);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (replica instanceof Closeable) {
+      ((Closeable) replica).close();
+    }
+  }
+
+  private boolean useReplica() {
+    return replica != null
+        && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        && (!replicaDown || clock.getAsLong() - replicaDownUntil >= 0);
+  }
+}
@@ -0,0 +1,211 @@
+package com.gmail.tikrai.books.database;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SchemaMigrations implements InitializingBean {
+
+  public static final String TABLE = "schema_migrations";
+  private static final Logger LOG = LoggerFactory.getLogger(SchemaMigrations.class);
+  private static final long LOCK_KEY = 0x626f6f6b73L;
+  private static final long LOCK_POLL_MILLIS = 100;
+  private static final Pattern CREATE_INDEX_CONCURRENTLY = Pattern.compile(
+      "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+CONCURRENTLY\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?(\\w+)",
+      Pattern.CASE_INSENSITIVE
+  );
+
+  private static final String TABLE_EXISTS = String.format("SELECT to_regclass('%s')", TABLE);
+  private static final String CREATE_TABLE = String.format(
+      "CREATE TABLE IF NOT EXISTS %s("
+          + "   version INTEGER PRIMARY KEY,"
+          + "   description VARCHAR (255) NOT NULL,"
+          + "   checksum INTEGER NOT NULL,"
+          + "   execution_millis BIGINT NOT NULL,"
+          + "   applied_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()"
+          + ");",
+      TABLE);
+  private static final String FIND_APPLIED =
+      String.format("SELECT version, checksum FROM %s", TABLE);
+  private static final String INSERT_APPLIED = String.format(
+      "INSERT INTO %s (version, description, checksum, execution_millis) VALUES (?, ?, ?, ?)",
+      TABLE);
+  private static final String INDEX_INVALID =
+      "SELECT NOT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)";
+  private static final String TRY_LOCK =
+      String.format("SELECT pg_try_advisory_lock(%d)", LOCK_KEY);
+  private static final String UNLOCK = String.format("SELECT pg_advisory_unlock(%d)", LOCK_KEY);
+
+  private final DataSource dataSource;
+  private final String locations;
+
+  @Autowired
+  public SchemaMigrations(
+      DataSource dataSource,
+      @Value("${books.migration.locations}") String locations
+  ) {
+    this.dataSource = dataSource;
+    this.locations = locations;
+  }
+
+  @Override
+  public void afterPropertiesSet() throws SQLException {
+    migrate();
+  }
+
+  public int migrate() throws SQLException {
+    List<Migration> migrations = load();
+    try (Connection connection = dataSource.getConnection()) {
+      JdbcTemplate db = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+      if (pending(migrations, applied(db)).isEmpty()) {
+        LOG.info("Schema is up to date with {} migrations", migrations.size());
+        return 0;
+      }
+      lock(db);
+      try {
+        db.execute(CREATE_TABLE);
+        List<Migration> pending = pending(migrations, applied(db));
+        for (Migration migration : pending) {
+          apply(connection, db, migration);
+        }
+        return pending.size();
+      } finally {
+        db.execute(UNLOCK);
+      }
+    }
+  }
+
+  /**
+   * Polls for the migration lock instead of blocking in {@code pg_advisory_lock}, whose waiting
+   * statement holds a snapshot that {@code CREATE INDEX CONCURRENTLY} of the lock owner would
+   * wait for in turn.
+   */
+  private void lock(JdbcTemplate db) {
+    while (!Boolean.TRUE.equals(db.queryForObject(TRY_LOCK, Boolean.class))) {
+      try {
+        Thread.sleep(LOCK_POLL_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for the migration lock", e);
+      }
+    }
+  }
+
+  private List<Migration> load() {
+    try {
+      List<Migration> migrations = Arrays
+          .stream(new PathMatchingResourcePatternResolver().getResources(locations))
+          .map(Migration::of)
+          .sorted(Comparator.comparingInt(Migration::version))
+          .collect(Collectors.toList());
+      for (int i = 1; i < migrations.size(); i++) {
+        if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+          throw new IllegalStateException(String.format(
+              "Migration version %d is not unique", migrations.get(i).version()
+          ));
+        }
+      }
+      return migrations;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Map<Integer, Integer> applied(JdbcTemplate db) {
+    Map<Integer, Integer> applied = new HashMap<>();
+    if (db.queryForObject(TABLE_EXISTS, String.class) != null) {
+      db.query(FIND_APPLIED, rs -> {
+        applied.put(rs.getInt("version"), rs.getInt("checksum"));
+      });
+    }
+    return applied;
+  }
+
+  private List<Migration> pending(List<Migration> migrations, Map<Integer, Integer> applied) {
+    for (Migration migration : migrations) {
+      Integer checksum = applied.get(migration.version());
+      if (checksum != null && checksum != migration.checksum()) {
+        throw new IllegalStateException(
+            String.format("Migration %s was changed after it was applied", migration)
+        );
+      }
+    }
+    return migrations.stream()
+        .filter(migration -> !applied.containsKey(migration.version()))
+        .collect(Collectors.toList());
+  }
+
+  private void apply(Connection connection, JdbcTemplate db, Migration migration)
+      throws SQLException {
+    long started = System.nanoTime();
+    if (migration.transactional()) {
+      connection.setAutoCommit(false);
+      try (Statement statement = connection.createStatement()) {
+        statement.execute(migration.sql());
+        record(db, migration, started);
+        connection.commit();
+      } catch (SQLException | RuntimeException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } else {
+      for (String sql : migration.statements()) {
+        dropInvalidIndex(db, sql);
+        db.execute(sql);
+      }
+      record(db, migration, started);
+    }
+    LOG.info("Applied migration {} in {} ms", migration, millisSince(started));
+  }
+
+  /**
+   * A failed {@code CREATE INDEX CONCURRENTLY} leaves an INVALID index behind, which a retried
+   * {@code IF NOT EXISTS} would silently keep.
+   */
+  private void dropInvalidIndex(JdbcTemplate db, String sql) {
+    Matcher matcher = CREATE_INDEX_CONCURRENTLY.matcher(sql);
+    if (!matcher.lookingAt()) {
+      return;
+    }
+    String index = matcher.group(1);
+    List<Boolean> invalid = db.queryForList(INDEX_INVALID, Boolean.class, index);
+    if (invalid.contains(Boolean.TRUE)) {
+      LOG.warn("Dropping invalid index {} left by an earlier failed migration", index);
+      db.execute(String.format("DROP INDEX CONCURRENTLY IF EXISTS %s", index));
+    }
+  }
+
+  private void record(JdbcTemplate db, Migration migration, long started) {
+    db.update(
+        INSERT_APPLIED,
+        migration.version(), migration.description(), migration.checksum(), millisSince(started)
+    );
+  }
+
+  private static long millisSince(long started) {
+    return (System.nanoTime() - started) / 1_000_000;
+  }
+}
@@ -4,18 +4,23 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.gmail.tikrai.books.util.Generated;
 import java.math.BigDecimal;
-import java.util.Calendar;
+import java.math.BigInteger;
 import java.util.Objects;
 import java.util.Optional;
 
 public class Book {
+  public static final BigDecimal MAX_PRICE = BigDecimal.valueOf(Integer.MAX_VALUE, 2);
+  private static final long UNREPRESENTABLE_CENTS = Long.MIN_VALUE;
+
   private final String barcode;
   private final String name;
   private final String author;
   private final int quantity;
   private final BigDecimal price;
+  private final long priceCents;
   private final Integer antiqueReleaseYear;
   private final Integer scienceIndex;
+  private final long version;
 
   @JsonCreator
   public Book(
@@ -26,34 +31,43 @@ public class Book {
       BigDecimal price,
       Integer antiqueReleaseYear,
       Integer scienceIndex
+  ) {
+    this(barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex, 0);
+  }
+
+  public Book(
+      String barcode,
+      String name,
+      String author,
+      int quantity,
+      BigDecimal price,
+      Integer antiqueReleaseYear,
+      Integer scienceIndex,
+      long version
   ) {
     this.barcode = barcode;
     this.name = name;
     this.author = author;
     this.quantity = quantity;
     this.price = price.setScale(2, BigDecimal.ROUND_HALF_UP);
+    BigInteger cents = this.price.unscaledValue();
+    this.priceCents = cents.bitLength() < Long.SIZE ? cents.longValue() : UNREPRESENTABLE_CENTS;
     this.antiqueReleaseYear = antiqueReleaseYear;
     this.scienceIndex = scienceIndex;
+    this.version = version;
   }
 
-  public BigDecimal totalPrice() {
-    return totalAntiquePrice().map(Optional::of)
-        .orElseGet(this::totalScienceJournalPrice)
-        .orElseGet(this::totalRegularPrice);
+  public Book withQuantity(int quantity) {
+    return new Book(
+        barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex, version
+    );
   }
 
-  private Optional<BigDecimal> totalAntiquePrice() {
-    int currentYear = Calendar.getInstance().get(Calendar.YEAR);
-    return antiqueReleaseYear()
-        .map(year -> price.multiply(BigDecimal.valueOf(quantity * (currentYear - year) / 10.0)));
-  }
-
-  private Optional<BigDecimal> totalScienceJournalPrice() {
-    return scienceIndex().map(index -> price.multiply(BigDecimal.valueOf(quantity * index)));
-  }
-
-  private BigDecimal totalRegularPrice() {
-    return price.multiply(BigDecimal.valueOf(quantity));
+  public BookType type() {
+    if (antiqueReleaseYear != null) {
+      return BookType.ANTIQUE;
+    }
+    return scienceIndex == null ? BookType.REGULAR : BookType.SCIENCE;
   }
 
   @JsonProperty("barcode")
@@ -81,6 +95,13 @@ public class Book {
     return price;
   }
 
+  public long priceCents() {
+    if (priceCents == UNREPRESENTABLE_CENTS) {
+      throw new ArithmeticException(String.format("Price %s does not fit into cents", price));
+    }
+    return priceCents;
+  }
+
   @JsonProperty("antiqueReleaseYear")
   public Optional<Integer> antiqueReleaseYear() {
     return Optional.ofNullable(antiqueReleaseYear);
@@ -91,6 +112,10 @@ public class Book {
     return Optional.ofNullable(scienceIndex);
   }
 
+  public long version() {
+    return version;
+  }
+
   @Override
   @Generated
   public boolean equals(Object o) {
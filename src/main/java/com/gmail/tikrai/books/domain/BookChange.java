@@ -0,0 +1,43 @@
+package com.gmail.tikrai.books.domain;
+
+import com.gmail.tikrai.books.util.Generated;
+import java.util.Objects;
+import java.util.Optional;
+
+public class BookChange {
+
+  private final Book previous;
+  private final Book current;
+
+  public BookChange(Book previous, Book current) {
+    this.previous = previous;
+    this.current = current;
+  }
+
+  public Book previous() {
+    return previous;
+  }
+
+  public Optional<Book> current() {
+    return Optional.ofNullable(current);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    BookChange that = (BookChange) o;
+    return Objects.equals(previous, that.previous) && Objects.equals(current, that.current);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(previous, current);
+  }
+}
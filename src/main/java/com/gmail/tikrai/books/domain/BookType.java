@@ -0,0 +1,26 @@
+package com.gmail.tikrai.books.domain;
+
+import com.gmail.tikrai.books.exception.ValidationException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+public enum BookType {
+  REGULAR,
+  ANTIQUE,
+  SCIENCE;
+
+  public static BookType of(String field, String value) {
+    try {
+      return valueOf(value.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new ValidationException(String.format("'%s' must be one of %s", field, names()));
+    }
+  }
+
+  private static String names() {
+    return Arrays.stream(values())
+        .map(type -> type.name().toLowerCase(Locale.ROOT))
+        .collect(Collectors.joining(", "));
+  }
+}
@@ -0,0 +1,70 @@
+package com.gmail.tikrai.books.domain;
+
+import com.gmail.tikrai.books.util.Generated;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.Optional;
+
+public class BooksFilter {
+
+  private final String author;
+  private final BookType type;
+  private final BigDecimal minPrice;
+  private final BigDecimal maxPrice;
+
+  public BooksFilter(String author, BookType type, BigDecimal minPrice, BigDecimal maxPrice) {
+    this.author = author;
+    this.type = type;
+    this.minPrice = minPrice;
+    this.maxPrice = maxPrice;
+  }
+
+  public static BooksFilter all() {
+    return new BooksFilter(null, null, null, null);
+  }
+
+  public Optional<String> author() {
+    return Optional.ofNullable(author);
+  }
+
+  public Optional<BookType> type() {
+    return Optional.ofNullable(type);
+  }
+
+  public Optional<BigDecimal> minPrice() {
+    return Optional.ofNullable(minPrice);
+  }
+
+  public Optional<BigDecimal> maxPrice() {
+    return Optional.ofNullable(maxPrice);
+  }
+
+  public boolean matches(Book book) {
+    return author().map(book.author()::equals).orElse(true)
+        && type().map(bookType -> bookType == book.type()).orElse(true)
+        && minPrice().map(min -> book.price().compareTo(min) >= 0).orElse(true)
+        && maxPrice().map(max -> book.price().compareTo(max) <= 0).orElse(true);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    BooksFilter that = (BooksFilter) o;
+    return Objects.equals(author, that.author)
+        && type == that.type
+        && Objects.equals(minPrice, that.minPrice)
+        && Objects.equals(maxPrice, that.maxPrice);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(author, type, minPrice, maxPrice);
+  }
+}
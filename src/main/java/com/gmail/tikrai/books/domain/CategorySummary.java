@@ -0,0 +1,102 @@
+package com.gmail.tikrai.books.domain;
+
+import com.gmail.tikrai.books.util.Generated;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+public class CategorySummary {
+
+  public static final int VALUE_SCALE = 3;
+
+  private final BookType type;
+  private final long books;
+  private final long quantity;
+  private final BigDecimal valuePerYear;
+  private final BigDecimal valueFixed;
+
+  public CategorySummary(
+      BookType type,
+      long books,
+      long quantity,
+      BigDecimal valuePerYear,
+      BigDecimal valueFixed
+  ) {
+    this.type = type;
+    this.books = books;
+    this.quantity = quantity;
+    this.valuePerYear = valuePerYear;
+    this.valueFixed = valueFixed;
+  }
+
+  public static CategorySummary empty(BookType type) {
+    return new CategorySummary(type, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+  }
+
+  public CategorySummary plus(CategorySummary other) {
+    return new CategorySummary(
+        type,
+        books + other.books,
+        quantity + other.quantity,
+        valuePerYear.add(other.valuePerYear),
+        valueFixed.add(other.valueFixed)
+    );
+  }
+
+  public CategorySummary negate() {
+    return new CategorySummary(
+        type, -books, -quantity, valuePerYear.negate(), valueFixed.negate()
+    );
+  }
+
+  public BigDecimal totalPrice(int currentYear) {
+    return valuePerYear.multiply(BigDecimal.valueOf(currentYear))
+        .add(valueFixed)
+        .movePointLeft(VALUE_SCALE)
+        .setScale(VALUE_SCALE, RoundingMode.HALF_UP);
+  }
+
+  public BookType type() {
+    return type;
+  }
+
+  public long books() {
+    return books;
+  }
+
+  public long quantity() {
+    return quantity;
+  }
+
+  public BigDecimal valuePerYear() {
+    return valuePerYear;
+  }
+
+  public BigDecimal valueFixed() {
+    return valueFixed;
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    CategorySummary that = (CategorySummary) o;
+    return books == that.books
+        && quantity == that.quantity
+        && type == that.type
+        && valuePerYear.compareTo(that.valuePerYear) == 0
+        && valueFixed.compareTo(that.valueFixed) == 0;
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(type, books, quantity, valuePerYear.stripTrailingZeros(),
+        valueFixed.stripTrailingZeros());
+  }
+}
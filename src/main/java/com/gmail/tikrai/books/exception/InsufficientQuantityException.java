@@ -0,0 +1,12 @@
+package com.gmail.tikrai.books.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class InsufficientQuantityException extends RuntimeException {
+
+  public InsufficientQuantityException(String message) {
+    super(message, null, false, false);
+  }
+}
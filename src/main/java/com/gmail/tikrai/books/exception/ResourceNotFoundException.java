@@ -7,6 +7,6 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 public class ResourceNotFoundException extends RuntimeException {
 
   public ResourceNotFoundException(String message) {
-    super(message);
+    super(message, null, false, false);
   }
 }
@@ -7,6 +7,6 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 public class UniqueIdentifierException extends RuntimeException {
 
   public UniqueIdentifierException(String message) {
-    super(message);
+    super(message, null, false, false);
   }
 }
@@ -0,0 +1,8 @@
+package com.gmail.tikrai.books.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface BookSource extends Closeable {
+  SourceRow next() throws IOException;
+}
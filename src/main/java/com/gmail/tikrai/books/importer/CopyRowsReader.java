@@ -0,0 +1,83 @@
+package com.gmail.tikrai.books.importer;
+
+import com.gmail.tikrai.books.domain.Book;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Optional;
+
+public class CopyRowsReader extends Reader {
+
+  private final BookSource source;
+  private final ImportReport report;
+  private final StringBuilder row = new StringBuilder();
+  private int position;
+
+  public CopyRowsReader(BookSource source, ImportReport report) {
+    this.source = source;
+    this.report = report;
+  }
+
+  @Override
+  public int read(char[] buffer, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    if (position == row.length() && !nextRow()) {
+      return -1;
+    }
+    int count = Math.min(length, row.length() - position);
+    row.getChars(position, position + count, buffer, offset);
+    position += count;
+    return count;
+  }
+
+  private boolean nextRow() throws IOException {
+    SourceRow sourceRow;
+    while ((sourceRow = source.next()) != null) {
+      report.read();
+      Optional<String> error = sourceRow.valid();
+      if (error.isPresent()) {
+        report.reject(sourceRow.line(), error.get());
+      } else {
+        row.setLength(0);
+        position = 0;
+        appendRow(sourceRow.line(), sourceRow.request().toDomain());
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void appendRow(long line, Book book) {
+    row.append(line).append(',');
+    appendQuoted(book.barcode());
+    row.append(',');
+    appendQuoted(book.name());
+    row.append(',');
+    appendQuoted(book.author());
+    row.append(',')
+        .append(book.quantity()).append(',')
+        .append(book.price().unscaledValue()).append(',');
+    book.antiqueReleaseYear().ifPresent(row::append);
+    row.append(',');
+    book.scienceIndex().ifPresent(row::append);
+    row.append('\n');
+  }
+
+  private void appendQuoted(String value) {
+    row.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"') {
+        row.append('"');
+      }
+      row.append(c);
+    }
+    row.append('"');
+  }
+
+  @Override
+  public void close() throws IOException {
+    source.close();
+  }
+}
@@ -0,0 +1,164 @@
+package com.gmail.tikrai.books.importer;
+
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.request.BookRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+public class CsvBookSource implements BookSource {
+
+  static final int MAX_RECORD_LENGTH = 65536;
+  private static final List<String> FIELDS = Arrays.asList(
+      "barcode", "name", "author", "quantity", "price", "antiqueReleaseYear", "scienceIndex"
+  );
+
+  private final Reader reader;
+  private final int[] fieldIndexes;
+  private final StringBuilder field = new StringBuilder();
+  private long line = 1;
+  private String recordError;
+  private int recordLength;
+
+  public CsvBookSource(Reader reader) throws IOException {
+    this.reader = new BufferedReader(reader);
+    List<String> header = readRecord();
+    if (header == null || recordError != null) {
+      throw new ValidationException("CSV header is missing or malformed");
+    }
+    fieldIndexes = new int[header.size()];
+    for (int i = 0; i < header.size(); i++) {
+      String name = header.get(i).trim();
+      fieldIndexes[i] = FIELDS.indexOf(name);
+      if (fieldIndexes[i] < 0) {
+        throw new ValidationException(String.format("Book has no field '%s'", name));
+      }
+    }
+  }
+
+  @Override
+  public SourceRow next() throws IOException {
+    List<String> record;
+    long start;
+    do {
+      start = line;
+      record = readRecord();
+    } while (record != null && recordError == null && isBlank(record));
+
+    if (record == null) {
+      return null;
+    }
+    if (recordError != null) {
+      return SourceRow.rejected(start, recordError);
+    }
+    if (record.size() != fieldIndexes.length) {
+      String message = String.format(
+          "Expected %s fields but found %s", fieldIndexes.length, record.size()
+      );
+      return SourceRow.rejected(start, message);
+    }
+    return toRow(start, record);
+  }
+
+  private SourceRow toRow(long line, List<String> record) {
+    String[] values = new String[FIELDS.size()];
+    for (int i = 0; i < record.size(); i++) {
+      String value = record.get(i);
+      values[fieldIndexes[i]] = value.isEmpty() ? null : value;
+    }
+
+    try {
+      BookRequest request = new BookRequest(
+          values[0],
+          values[1],
+          values[2],
+          parse("quantity", values[3], Integer::valueOf),
+          parse("price", values[4], BigDecimal::new),
+          parse("antiqueReleaseYear", values[5], Integer::valueOf),
+          parse("scienceIndex", values[6], Integer::valueOf)
+      );
+      return SourceRow.of(line, request);
+    } catch (ValidationException e) {
+      return SourceRow.rejected(line, e.getMessage());
+    }
+  }
+
+  private static <T> T parse(String fieldName, String value, Function<String, T> parser) {
+    try {
+      return value == null ? null : parser.apply(value.trim());
+    } catch (NumberFormatException e) {
+      throw new ValidationException(String.format("Incorrect format not '%s' field", fieldName));
+    }
+  }
+
+  private boolean isBlank(List<String> record) {
+    return record.size() == 1 && record.get(0).trim().isEmpty();
+  }
+
+  private List<String> readRecord() throws IOException {
+    List<String> record = new ArrayList<>();
+    field.setLength(0);
+    recordError = null;
+    recordLength = 0;
+    boolean quoted = false;
+    boolean empty = true;
+    int c;
+    while ((c = reader.read()) != -1) {
+      empty = false;
+      if (quoted) {
+        if (c == '"') {
+          reader.mark(1);
+          if (reader.read() == '"') {
+            append('"');
+          } else {
+            reader.reset();
+            quoted = false;
+          }
+        } else {
+          if (c == '\n') {
+            line++;
+          }
+          append((char) c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        record.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\n') {
+        line++;
+        break;
+      } else if (c != '\r') {
+        append((char) c);
+      }
+    }
+
+    if (empty) {
+      return null;
+    }
+    if (quoted) {
+      recordError = "Unterminated quoted field";
+    }
+    record.add(field.toString());
+    field.setLength(0);
+    return record;
+  }
+
+  private void append(char c) {
+    if (++recordLength > MAX_RECORD_LENGTH) {
+      recordError = String.format("Row is longer than %s characters", MAX_RECORD_LENGTH);
+      return;
+    }
+    field.append(c);
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
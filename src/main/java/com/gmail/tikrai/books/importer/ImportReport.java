@@ -0,0 +1,63 @@
+package com.gmail.tikrai.books.importer;
+
+import com.gmail.tikrai.books.response.ImportResponse;
+import com.gmail.tikrai.books.response.RejectedRowResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class ImportReport {
+
+  private static final int HEAP_SAMPLE_INTERVAL = 1024;
+
+  private final int maxReportedErrors;
+  private final LongSupplier clock;
+  private final LongSupplier heapUsage;
+  private final long startedAt;
+  private final List<RejectedRowResponse> errors = new ArrayList<>();
+  private long rows;
+  private long rejected;
+  private long heapHighWaterMark;
+
+  public ImportReport(int maxReportedErrors) {
+    this(maxReportedErrors, System::nanoTime, ImportReport::usedHeap);
+  }
+
+  ImportReport(int maxReportedErrors, LongSupplier clock, LongSupplier heapUsage) {
+    this.maxReportedErrors = maxReportedErrors;
+    this.clock = clock;
+    this.heapUsage = heapUsage;
+    this.startedAt = clock.getAsLong();
+    this.heapHighWaterMark = heapUsage.getAsLong();
+  }
+
+  public void read() {
+    if (++rows % HEAP_SAMPLE_INTERVAL == 0) {
+      sampleHeap();
+    }
+  }
+
+  public void reject(long line, String message) {
+    rejected++;
+    if (errors.size() < maxReportedErrors) {
+      errors.add(new RejectedRowResponse(line, message));
+    }
+  }
+
+  public ImportResponse toResponse(long imported) {
+    sampleHeap();
+    long elapsedNanos = Math.max(clock.getAsLong() - startedAt, 1);
+    long rowsPerSecond = rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    return new ImportResponse(imported, rejected, errors, rowsPerSecond, heapHighWaterMark);
+  }
+
+  private void sampleHeap() {
+    heapHighWaterMark = Math.max(heapHighWaterMark, heapUsage.getAsLong());
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,71 @@
+package com.gmail.tikrai.books.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmail.tikrai.books.request.BookRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+public class NdjsonBookSource implements BookSource {
+
+  private final Reader reader;
+  private final ObjectMapper mapper;
+  private final StringBuilder buffer = new StringBuilder();
+  private long line;
+  private boolean tooLong;
+
+  public NdjsonBookSource(Reader reader, ObjectMapper mapper) {
+    this.reader = new BufferedReader(reader);
+    this.mapper = mapper;
+  }
+
+  @Override
+  public SourceRow next() throws IOException {
+    String json;
+    do {
+      json = readLine();
+    } while (json != null && !tooLong && json.trim().isEmpty());
+
+    if (json == null) {
+      return null;
+    }
+    if (tooLong) {
+      String message =
+          String.format("Row is longer than %s characters", CsvBookSource.MAX_RECORD_LENGTH);
+      return SourceRow.rejected(line, message);
+    }
+    try {
+      BookRequest request = mapper.readValue(json, BookRequest.class);
+      return request == null
+          ? SourceRow.rejected(line, "Book cannot be null")
+          : SourceRow.of(line, request);
+    } catch (JsonProcessingException e) {
+      return SourceRow.rejected(line, "Incorrect JSON format");
+    }
+  }
+
+  private String readLine() throws IOException {
+    buffer.setLength(0);
+    tooLong = false;
+    int c = reader.read();
+    if (c == -1) {
+      return null;
+    }
+    line++;
+    while (c != -1 && c != '\n') {
+      if (buffer.length() < CsvBookSource.MAX_RECORD_LENGTH) {
+        buffer.append((char) c);
+      } else {
+        tooLong = true;
+      }
+      c = reader.read();
+    }
+    return buffer.toString();
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
@@ -0,0 +1,37 @@
+package com.gmail.tikrai.books.importer;
+
+import com.gmail.tikrai.books.request.BookRequest;
+import java.util.Optional;
+
+public class SourceRow {
+
+  private final long line;
+  private final BookRequest request;
+  private final String error;
+
+  private SourceRow(long line, BookRequest request, String error) {
+    this.line = line;
+    this.request = request;
+    this.error = error;
+  }
+
+  public static SourceRow of(long line, BookRequest request) {
+    return new SourceRow(line, request, null);
+  }
+
+  public static SourceRow rejected(long line, String error) {
+    return new SourceRow(line, null, error);
+  }
+
+  public long line() {
+    return line;
+  }
+
+  public BookRequest request() {
+    return request;
+  }
+
+  public Optional<String> valid() {
+    return error == null ? request.valid() : Optional.of(error);
+  }
+}
@@ -0,0 +1,38 @@
+package com.gmail.tikrai.books.pricing;
+
+import com.gmail.tikrai.books.domain.Book;
+
+public final class BookColumns {
+
+  final Book[] books;
+  final int[] rules;
+  final long[] priceCents;
+  final int[] quantities;
+  final int[] parameters;
+  final boolean fitsInCents;
+
+  BookColumns(Book[] books, PricingRule[] table) {
+    this.books = books;
+    this.rules = new int[books.length];
+    this.priceCents = new long[books.length];
+    this.quantities = new int[books.length];
+    this.parameters = new int[books.length];
+    boolean fitsInCents = true;
+    for (int i = 0; i < books.length; i++) {
+      Book book = books[i];
+      rules[i] = book.type().ordinal();
+      quantities[i] = book.quantity();
+      parameters[i] = table[rules[i]].parameter(book);
+      try {
+        priceCents[i] = book.priceCents();
+      } catch (ArithmeticException e) {
+        fitsInCents = false;
+      }
+    }
+    this.fitsInCents = fitsInCents;
+  }
+
+  public int size() {
+    return books.length;
+  }
+}
@@ -0,0 +1,241 @@
+package com.gmail.tikrai.books.pricing;
+
+import com.gmail.tikrai.books.config.ScheduledDelays;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PricingEngine {
+
+  public static final int CENTS_SCALE = 2;
+  public static final int MILLS_SCALE = 3;
+  public static final long MILLS_PER_CENT = 10;
+  private static final int CHUNK_SIZE = 4096;
+
+  private final PricingRule[] rules;
+  private final PricingModifier[][] modifiers;
+  private final int parallelThreshold;
+  private final IntSupplier yearSource;
+  private volatile int currentYear;
+
+  @Autowired
+  public PricingEngine(
+      List<PricingRule> rules,
+      List<PricingModifier> modifiers,
+      @Value("${books.pricing.parallel-threshold}") int parallelThreshold
+  ) {
+    this(rules, modifiers, parallelThreshold, () -> Calendar.getInstance().get(Calendar.YEAR));
+  }
+
+  PricingEngine(
+      List<PricingRule> rules,
+      List<PricingModifier> modifiers,
+      int parallelThreshold,
+      IntSupplier yearSource
+  ) {
+    this.rules = compile(rules);
+    this.modifiers = compileModifiers(modifiers);
+    this.parallelThreshold = parallelThreshold;
+    this.yearSource = yearSource;
+    this.currentYear = yearSource.getAsInt();
+  }
+
+  @Scheduled(
+      fixedDelayString =
+          ScheduledDelays.MILLIS_OF + "${books.pricing.year-refresh-interval}" + ScheduledDelays.END
+  )
+  public void refreshYear() {
+    currentYear = yearSource.getAsInt();
+  }
+
+  public int currentYear() {
+    return currentYear;
+  }
+
+  public BigDecimal totalPrice(Book book) {
+    return totalPrice(book, currentYear);
+  }
+
+  public BigDecimal totalPrice(Book book, int currentYear) {
+    int type = book.type().ordinal();
+    int parameter = rules[type].parameter(book);
+    try {
+      long mills = bookMills(type, book.priceCents(), book.quantity(), parameter, currentYear);
+      return price(mills).setScale(rules[type].scale(), RoundingMode.UNNECESSARY);
+    } catch (ArithmeticException e) {
+      return exactTotalPrice(type, book.price(), book.quantity(), parameter, currentYear);
+    }
+  }
+
+  public BigDecimal totalPrice(BookColumns columns) {
+    return totalPrice(columns, currentYear);
+  }
+
+  public BigDecimal totalPrice(BookColumns columns, int currentYear) {
+    long[] mills = new long[columns.size()];
+    try {
+      totalMills(columns, currentYear, mills);
+      long total = 0;
+      for (long bookMills : mills) {
+        total = Math.addExact(total, bookMills);
+      }
+      return price(total);
+    } catch (ArithmeticException e) {
+      BigDecimal total = BigDecimal.ZERO;
+      for (Book book : columns.books) {
+        total = total.add(totalPrice(book, currentYear));
+      }
+      return total;
+    }
+  }
+
+  public List<BigDecimal> totalPrices(List<Book> books, int currentYear) {
+    BookColumns columns = columns(books);
+    BigDecimal[] prices = new BigDecimal[columns.size()];
+    try {
+      long[] mills = new long[columns.size()];
+      totalMills(columns, currentYear, mills);
+      for (int i = 0; i < prices.length; i++) {
+        int scale = rules[columns.rules[i]].scale();
+        prices[i] = price(mills[i]).setScale(scale, RoundingMode.UNNECESSARY);
+      }
+    } catch (ArithmeticException e) {
+      for (int i = 0; i < prices.length; i++) {
+        prices[i] = totalPrice(columns.books[i], currentYear);
+      }
+    }
+    return Arrays.asList(prices);
+  }
+
+  /**
+   * Splits the total price of a book into a part per current year and a fixed part, which the
+   * inventory summary sums without knowing the rules. Rules must be linear in the current year.
+   */
+  public CategorySummary summary(Book book) {
+    int type = book.type().ordinal();
+    int parameter = rules[type].parameter(book);
+    BigDecimal fixed = exactTotalPrice(type, book.price(), book.quantity(), parameter, 0)
+        .movePointRight(MILLS_SCALE);
+    BigDecimal perYear = exactTotalPrice(type, book.price(), book.quantity(), parameter, 1)
+        .movePointRight(MILLS_SCALE)
+        .subtract(fixed);
+    return new CategorySummary(book.type(), 1, book.quantity(), perYear, fixed);
+  }
+
+  public String totalMillsSql(BookType type, String currentYear) {
+    String sql = rules[type.ordinal()].totalMillsSql(currentYear);
+    for (PricingModifier modifier : modifiers[type.ordinal()]) {
+      sql = modifier.adjustSql(sql);
+    }
+    return sql;
+  }
+
+  public BookColumns columns(List<Book> books) {
+    return columns(books.toArray(new Book[0]));
+  }
+
+  public BookColumns columns(Book[] books) {
+    return new BookColumns(books, rules);
+  }
+
+  public long[] totalMills(BookColumns columns) {
+    long[] mills = new long[columns.size()];
+    totalMills(columns, currentYear, mills);
+    return mills;
+  }
+
+  public void totalMills(BookColumns columns, int currentYear, long[] mills) {
+    if (!columns.fitsInCents) {
+      throw new ArithmeticException("Prices of some books do not fit into cents");
+    }
+    int size = columns.size();
+    if (size < parallelThreshold) {
+      evaluate(columns, currentYear, mills, 0, size);
+      return;
+    }
+    IntStream.range(0, (size + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel().forEach(chunk -> {
+      int from = chunk * CHUNK_SIZE;
+      evaluate(columns, currentYear, mills, from, Math.min(from + CHUNK_SIZE, size));
+    });
+  }
+
+  public static BigDecimal price(long mills) {
+    return BigDecimal.valueOf(mills, MILLS_SCALE);
+  }
+
+  private void evaluate(BookColumns columns, int currentYear, long[] mills, int from, int to) {
+    for (int i = from; i < to; i++) {
+      mills[i] = bookMills(
+          columns.rules[i],
+          columns.priceCents[i],
+          columns.quantities[i],
+          columns.parameters[i],
+          currentYear
+      );
+    }
+  }
+
+  private long bookMills(int type, long priceCents, int quantity, int parameter, int year) {
+    long mills = rules[type].totalMills(priceCents, quantity, parameter, year);
+    for (PricingModifier modifier : modifiers[type]) {
+      mills = modifier.adjustMills(mills);
+    }
+    return mills;
+  }
+
+  private BigDecimal exactTotalPrice(
+      int type,
+      BigDecimal price,
+      int quantity,
+      int parameter,
+      int year
+  ) {
+    BigDecimal total = rules[type].totalPrice(price, quantity, parameter, year);
+    for (PricingModifier modifier : modifiers[type]) {
+      total = modifier.adjust(total);
+    }
+    return total;
+  }
+
+  private static PricingRule[] compile(List<PricingRule> rules) {
+    PricingRule[] table = new PricingRule[BookType.values().length];
+    for (PricingRule rule : rules) {
+      int slot = rule.type().ordinal();
+      if (table[slot] != null) {
+        throw new IllegalStateException(String.format(
+            "Both %s and %s price %s books, adjust prices with a PricingModifier instead",
+            table[slot].getClass().getSimpleName(), rule.getClass().getSimpleName(), rule.type()
+        ));
+      }
+      table[slot] = rule;
+    }
+    for (BookType type : BookType.values()) {
+      if (table[type.ordinal()] == null) {
+        throw new IllegalStateException(String.format("No pricing rule for %s books", type));
+      }
+    }
+    return table;
+  }
+
+  private static PricingModifier[][] compileModifiers(List<PricingModifier> modifiers) {
+    PricingModifier[][] table = new PricingModifier[BookType.values().length][];
+    for (BookType type : BookType.values()) {
+      table[type.ordinal()] = modifiers.stream()
+          .filter(modifier -> modifier.type() == type)
+          .toArray(PricingModifier[]::new);
+    }
+    return table;
+  }
+}
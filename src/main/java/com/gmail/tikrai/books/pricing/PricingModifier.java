@@ -0,0 +1,21 @@
+package com.gmail.tikrai.books.pricing;
+
+import com.gmail.tikrai.books.domain.BookType;
+import java.math.BigDecimal;
+
+/**
+ * Adjusts the total price of one type of books after its {@link PricingRule}, such as a
+ * discount. Modifiers of the same type apply in their {@link org.springframework.core.Ordered}
+ * order. {@link #adjustMills} must either match {@link #adjust} exactly or throw
+ * {@link ArithmeticException}, and totals must stay linear in the current year.
+ */
+public interface PricingModifier {
+
+  BookType type();
+
+  long adjustMills(long totalMills);
+
+  BigDecimal adjust(BigDecimal totalPrice);
+
+  String adjustSql(String totalMills);
+}
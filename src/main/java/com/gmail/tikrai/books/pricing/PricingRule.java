@@ -0,0 +1,24 @@
+package com.gmail.tikrai.books.pricing;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import java.math.BigDecimal;
+
+public interface PricingRule {
+
+  BookType type();
+
+  int scale();
+
+  int parameter(Book book);
+
+  long totalMills(long priceCents, int quantity, int parameter, int currentYear);
+
+  BigDecimal totalPrice(BigDecimal price, int quantity, int parameter, int currentYear);
+
+  /**
+   * SQL expression of {@link #totalMills} over the columns of a books row, for valuations that
+   * aggregate in the database.
+   */
+  String totalMillsSql(String currentYear);
+}
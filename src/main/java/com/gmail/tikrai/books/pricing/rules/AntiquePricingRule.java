@@ -0,0 +1,44 @@
+package com.gmail.tikrai.books.pricing.rules;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.pricing.PricingRule;
+import java.math.BigDecimal;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AntiquePricingRule implements PricingRule {
+
+  @Override
+  public BookType type() {
+    return BookType.ANTIQUE;
+  }
+
+  @Override
+  public int scale() {
+    return PricingEngine.MILLS_SCALE;
+  }
+
+  @Override
+  public int parameter(Book book) {
+    return book.antiqueReleaseYear().orElse(0);
+  }
+
+  @Override
+  public long totalMills(long priceCents, int quantity, int releaseYear, int currentYear) {
+    return Math.multiplyExact(priceCents, (long) quantity * ((long) currentYear - releaseYear));
+  }
+
+  @Override
+  public BigDecimal totalPrice(BigDecimal price, int quantity, int releaseYear, int currentYear) {
+    return price.multiply(
+        BigDecimal.valueOf((long) quantity * ((long) currentYear - releaseYear), 1)
+    );
+  }
+
+  @Override
+  public String totalMillsSql(String currentYear) {
+    return String.format("price::numeric * quantity * (%s - antique_release_year)", currentYear);
+  }
+}
@@ -0,0 +1,42 @@
+package com.gmail.tikrai.books.pricing.rules;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.pricing.PricingRule;
+import java.math.BigDecimal;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RegularPricingRule implements PricingRule {
+
+  @Override
+  public BookType type() {
+    return BookType.REGULAR;
+  }
+
+  @Override
+  public int scale() {
+    return PricingEngine.CENTS_SCALE;
+  }
+
+  @Override
+  public int parameter(Book book) {
+    return 0;
+  }
+
+  @Override
+  public long totalMills(long priceCents, int quantity, int parameter, int currentYear) {
+    return Math.multiplyExact(priceCents, quantity * PricingEngine.MILLS_PER_CENT);
+  }
+
+  @Override
+  public BigDecimal totalPrice(BigDecimal price, int quantity, int parameter, int currentYear) {
+    return price.multiply(BigDecimal.valueOf(quantity));
+  }
+
+  @Override
+  public String totalMillsSql(String currentYear) {
+    return String.format("price::numeric * quantity * %d", PricingEngine.MILLS_PER_CENT);
+  }
+}
@@ -0,0 +1,45 @@
+package com.gmail.tikrai.books.pricing.rules;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.pricing.PricingRule;
+import java.math.BigDecimal;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ScienceJournalPricingRule implements PricingRule {
+
+  @Override
+  public BookType type() {
+    return BookType.SCIENCE;
+  }
+
+  @Override
+  public int scale() {
+    return PricingEngine.CENTS_SCALE;
+  }
+
+  @Override
+  public int parameter(Book book) {
+    return book.scienceIndex().orElse(0);
+  }
+
+  @Override
+  public long totalMills(long priceCents, int quantity, int scienceIndex, int currentYear) {
+    long copies = (long) quantity * scienceIndex;
+    return Math.multiplyExact(Math.multiplyExact(priceCents, copies), PricingEngine.MILLS_PER_CENT);
+  }
+
+  @Override
+  public BigDecimal totalPrice(BigDecimal price, int quantity, int scienceIndex, int currentYear) {
+    return price.multiply(BigDecimal.valueOf((long) quantity * scienceIndex));
+  }
+
+  @Override
+  public String totalMillsSql(String currentYear) {
+    return String.format(
+        "price::numeric * quantity * science_index * %d", PricingEngine.MILLS_PER_CENT
+    );
+  }
+}
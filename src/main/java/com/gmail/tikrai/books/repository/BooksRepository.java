@@ -1,73 +1,535 @@
 package com.gmail.tikrai.books.repository;
 
 import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookChange;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.BooksFilter;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.repository.rowmappers.BookChangeMapper;
 import com.gmail.tikrai.books.repository.rowmappers.BooksMapper;
+import com.gmail.tikrai.books.request.BookPatch;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlParameterValue;
 import org.springframework.stereotype.Service;
 
 @Service
 public class BooksRepository {
 
   public static final String TABLE = "books";
+  public static final String STOCK = "books_stock";
+  public static final String SLOTS_TABLE = "books_quantity_slots";
+  public static final String CHANGES_CHANNEL = "books_changed";
+  public static final String ALL_CHANGED = "*";
+  private static final String BARCODE = "barcode";
   private static final String NAME = "name";
   private static final String AUTHOR = "author";
   private static final String QUANTITY = "quantity";
   private static final String PRICE = "price";
   private static final String ANTIQUE_RELEASE_YEAR = "antique_release_year";
   private static final String SCIENCE_INDEX = "science_index";
+  private static final String VERSION = "version";
+  private static final String QUANTITY_SLOTS = "quantity_slots";
   private static final String DATA_FIELDS = String.join(", ",
       NAME, AUTHOR, QUANTITY, PRICE, ANTIQUE_RELEASE_YEAR, SCIENCE_INDEX);
+  private static final String ALL_FIELDS = String.join(", ", BARCODE, DATA_FIELDS);
+  private static final String EXCLUDED_DATA_FIELDS =
+      "EXCLUDED." + DATA_FIELDS.replace(", ", ", EXCLUDED.");
+
+  private static final String FIND_ALL = String.format("SELECT * FROM %s", STOCK);
+  private static final String FIND_ALL_ORDERED =
+      String.format("SELECT * FROM %s ORDER BY %s", STOCK, BARCODE);
+  private static final String COUNT_ALL = String.format("SELECT count(*) FROM %s", TABLE);
+  private static final String FIND_ALL_BARCODES =
+      String.format("SELECT %s FROM %s", BARCODE, TABLE);
+  private static final String FIND_FIRST_PAGE =
+      String.format("SELECT * FROM %s ORDER BY %s LIMIT ?", STOCK, BARCODE);
+  private static final String FIND_PAGE_AFTER = String.format(
+      "SELECT * FROM %s WHERE %s > ? ORDER BY %s LIMIT ?", STOCK, BARCODE, BARCODE);
+  private static final String FIND_BY_BARCODE =
+      String.format("SELECT * FROM %s WHERE %s = ?", STOCK, BARCODE);
+  private static final String FIND_BY_BARCODES =
+      String.format("SELECT * FROM %s WHERE %s = ANY(?)", STOCK, BARCODE);
+  private static final String FIND_VERSION_BY_BARCODE =
+      String.format("SELECT %s FROM %s WHERE %s = ?", VERSION, STOCK, BARCODE);
+  private static final String INSERT = String.format(
+      "WITH created AS ("
+          + "INSERT INTO %s (%s) VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (%s) DO NOTHING "
+          + "RETURNING *"
+          + ") SELECT created.* FROM created, pg_notify('%s', created.%s)",
+      TABLE, ALL_FIELDS, BARCODE, CHANGES_CHANNEL, BARCODE);
+  private static final String NOTIFY_ALL_CHANGED =
+      String.format("NOTIFY %s, '%s'", CHANGES_CHANNEL, ALL_CHANGED);
+  private static final String LOCK_BY_BARCODES = String.format(
+      "SELECT %1$s FROM %2$s WHERE %1$s = ANY(?) ORDER BY %1$s FOR UPDATE", BARCODE, TABLE);
+  private static final String ADJUST_QUANTITY = String.format(
+      "WITH adjusted AS ("
+          + "UPDATE %1$s SET (%2$s, %3$s) = (%2$s + ?, %3$s + 1) "
+          + "WHERE %4$s = ? AND %7$s = 0 AND %2$s + ?::bigint BETWEEN 0 AND %5$d RETURNING *"
+          + ") SELECT adjusted.* FROM adjusted, pg_notify('%6$s', adjusted.%4$s)",
+      TABLE, QUANTITY, VERSION, BARCODE, Integer.MAX_VALUE, CHANGES_CHANNEL, QUANTITY_SLOTS);
+  private static final String ADJUST_QUANTITIES = String.format(
+      "WITH adjusted AS ("
+          + "UPDATE %1$s SET (%2$s, %3$s) = (%1$s.%2$s + requested.delta, %1$s.%3$s + 1) "
+          + "FROM unnest(?::varchar[], ?::bigint[]) AS requested(%4$s, delta) "
+          + "WHERE %1$s.%4$s = requested.%4$s AND %1$s.%7$s = 0 "
+          + "AND %1$s.%2$s + requested.delta BETWEEN 0 AND %5$d RETURNING %1$s.*"
+          + ") SELECT adjusted.* FROM adjusted, pg_notify('%6$s', adjusted.%4$s)",
+      TABLE, QUANTITY, VERSION, BARCODE, Integer.MAX_VALUE, CHANGES_CHANNEL, QUANTITY_SLOTS);
+  private static final String ADJUST_SLOT = String.format(
+      "WITH target AS ("
+          + "SELECT %2$s, slot FROM %1$s WHERE %2$s = ? AND %3$s + ?::bigint BETWEEN 0 AND %5$d "
+          + "ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED"
+          + "), adjusted AS ("
+          + "UPDATE %1$s slots SET (%3$s, %4$s) = (slots.%3$s + ?, slots.%4$s + 1) FROM target "
+          + "WHERE slots.%2$s = target.%2$s AND slots.slot = target.slot RETURNING slots.%2$s"
+          + ") SELECT %7$s FROM adjusted JOIN %6$s stock ON stock.%2$s = adjusted.%2$s, "
+          + "pg_notify('%8$s', adjusted.%2$s)",
+      SLOTS_TABLE, BARCODE, QUANTITY, VERSION, Integer.MAX_VALUE, STOCK,
+      String.join(", ",
+          "stock." + BARCODE, "stock." + NAME, "stock." + AUTHOR,
+          "stock." + QUANTITY + " + ? AS " + QUANTITY,
+          "stock." + PRICE, "stock." + ANTIQUE_RELEASE_YEAR, "stock." + SCIENCE_INDEX,
+          "stock." + VERSION + " + 1 AS " + VERSION),
+      CHANGES_CHANNEL);
+  private static final String SPREAD_QUANTITY = String.format(
+      "WITH book AS (SELECT * FROM %1$s WHERE %3$s = ? FOR UPDATE), "
+          + "locked AS (SELECT slots.%4$s, slots.%5$s FROM %2$s slots, book "
+          + "WHERE slots.%3$s = book.%3$s ORDER BY slots.slot FOR UPDATE OF slots), "
+          + "spread AS (SELECT * FROM (SELECT book.%3$s, "
+          + "COALESCE(?::integer, book.%6$s) AS slots, "
+          + "book.%4$s + COALESCE((SELECT SUM(%4$s) FROM locked), 0) + ?::bigint AS %4$s, "
+          + "COALESCE((SELECT SUM(%5$s) FROM locked), 0) AS %5$s FROM book"
+          + ") total WHERE %4$s BETWEEN 0 AND %7$d), "
+          + "base AS (UPDATE %1$s SET (%4$s, %6$s, %5$s) = ("
+          + "CASE WHEN spread.slots = 0 THEN spread.%4$s ELSE 0 END, "
+          + "spread.slots, %1$s.%5$s + spread.%5$s + 1"
+          + ") FROM spread WHERE %1$s.%3$s = spread.%3$s RETURNING %1$s.*), "
+          + "removed AS (DELETE FROM %2$s slots USING spread "
+          + "WHERE slots.%3$s = spread.%3$s AND slots.slot >= spread.slots), "
+          + "spread_slots AS (INSERT INTO %2$s (%3$s, slot, %4$s, %5$s) "
+          + "SELECT spread.%3$s, slot, spread.%4$s / spread.slots "
+          + "+ CASE WHEN slot < spread.%4$s %% spread.slots THEN 1 ELSE 0 END, 0 "
+          + "FROM spread, generate_series(0, spread.slots - 1) slot "
+          + "ON CONFLICT (%3$s, slot) DO UPDATE SET (%4$s, %5$s) = (EXCLUDED.%4$s, 0)) "
+          + "SELECT %8$s FROM base, spread, pg_notify('%9$s', base.%3$s)",
+      TABLE, SLOTS_TABLE, BARCODE, QUANTITY, VERSION, QUANTITY_SLOTS, Integer.MAX_VALUE,
+      String.join(", ",
+          "base." + BARCODE, "base." + NAME, "base." + AUTHOR, "spread." + QUANTITY,
+          "base." + PRICE, "base." + ANTIQUE_RELEASE_YEAR, "base." + SCIENCE_INDEX,
+          "base." + VERSION),
+      CHANGES_CHANNEL);
+  private static final String FIND_UNBALANCED_SLOTS = String.format(
+      "SELECT %1$s.%3$s FROM %1$s LEFT JOIN %2$s slots ON slots.%3$s = %1$s.%3$s "
+          + "WHERE %1$s.%5$s > 0 GROUP BY %1$s.%3$s "
+          + "HAVING %1$s.%4$s > 0 OR COUNT(slots.slot) <> %1$s.%5$s "
+          + "OR MAX(slots.%4$s) - MIN(slots.%4$s) > 1",
+      TABLE, SLOTS_TABLE, BARCODE, QUANTITY, QUANTITY_SLOTS);
+  private static final String IMPORT_TABLE = "books_import";
+  private static final String CREATE_IMPORT_TABLE = String.format(
+      "CREATE TEMPORARY TABLE %s ("
+          + "line BIGINT NOT NULL, "
+          + "barcode VARCHAR(255), "
+          + "name VARCHAR(255), "
+          + "author VARCHAR(255), "
+          + "quantity INTEGER, "
+          + "price INTEGER, "
+          + "antique_release_year INTEGER, "
+          + "science_index INTEGER"
+          + ") ON COMMIT DROP",
+      IMPORT_TABLE);
+  private static final String COPY_IMPORT = String.format(
+      "COPY %s (line, %s) FROM STDIN WITH (FORMAT csv)", IMPORT_TABLE, ALL_FIELDS);
+  private static final String MERGE_IMPORT = String.format(
+      "INSERT INTO %s (%s) SELECT DISTINCT ON (%s) %s FROM %s ORDER BY %s, line DESC "
+          + "ON CONFLICT (%s) DO UPDATE SET (%s, %s) = (%s, %s.%s + 1)",
+      TABLE, ALL_FIELDS, BARCODE, ALL_FIELDS, IMPORT_TABLE, BARCODE,
+      BARCODE, DATA_FIELDS, VERSION, EXCLUDED_DATA_FIELDS, TABLE, VERSION);
+  private static final String CLEAR_IMPORTED_SLOTS = String.format(
+      "UPDATE %1$s slots SET %3$s = 0 FROM %2$s imported "
+          + "WHERE slots.%4$s = imported.%4$s AND slots.%3$s <> 0",
+      SLOTS_TABLE, IMPORT_TABLE, QUANTITY, BARCODE);
+  private static final String REQUESTED_BOOKS = String.format(
+      "SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], "
+          + "?::integer[], ?::integer[], ?::integer[], ?::integer[]) AS requested(%s)",
+      ALL_FIELDS);
+  private static final String CREATE_ABSENT = String.format(
+      "WITH created AS ("
+          + "INSERT INTO %s (%s) %s ORDER BY %s ON CONFLICT (%s) DO NOTHING RETURNING *"
+          + ") SELECT created.* FROM created, pg_notify('%s', created.%s)",
+      TABLE, ALL_FIELDS, REQUESTED_BOOKS, BARCODE, BARCODE, CHANGES_CHANNEL, BARCODE);
+  private static final String UPDATE_ALL = String.format(
+      "WITH requested AS (%1$s), "
+          + "previous AS (SELECT * FROM %2$s WHERE %3$s IN (SELECT %3$s FROM requested) "
+          + "ORDER BY %3$s FOR UPDATE), "
+          + "previous_slots AS (SELECT previous.%3$s, COALESCE(SUM(locked.%4$s), 0) AS %4$s, "
+          + "COALESCE(SUM(locked.%5$s), 0) AS %5$s FROM previous LEFT JOIN ("
+          + "SELECT slots.%3$s, slots.%4$s, slots.%5$s FROM %6$s slots, previous "
+          + "WHERE slots.%3$s = previous.%3$s ORDER BY slots.%3$s, slots.slot FOR UPDATE OF slots"
+          + ") locked ON locked.%3$s = previous.%3$s GROUP BY previous.%3$s), "
+          + "updated AS (UPDATE %2$s SET (%7$s, %5$s) = (%8$s, previous.%5$s + 1) "
+          + "FROM requested, previous WHERE %2$s.%3$s = requested.%3$s "
+          + "AND previous.%3$s = requested.%3$s RETURNING %2$s.*), "
+          + "cleared AS (UPDATE %6$s slots SET %4$s = 0 FROM updated "
+          + "WHERE slots.%3$s = updated.%3$s AND slots.%4$s <> 0) "
+          + "SELECT %9$s, %10$s FROM previous "
+          + "JOIN previous_slots ON previous_slots.%3$s = previous.%3$s "
+          + "JOIN updated ON updated.%3$s = previous.%3$s, pg_notify('%11$s', updated.%3$s)",
+      REQUESTED_BOOKS, TABLE, BARCODE, QUANTITY, VERSION, SLOTS_TABLE, DATA_FIELDS,
+      "requested." + DATA_FIELDS.replace(", ", ", requested."),
+      stockFields("previous", BookChangeMapper.PREVIOUS, true),
+      stockFields("updated", "", false), CHANGES_CHANNEL);
+  private static final String COMMIT_ASYNCHRONOUSLY =
+      "SELECT set_config('synchronous_commit', 'off', true)";
+  private static final String UPDATE = change(String.format(
+      "(%s, %s) = (?, ?, ?, ?, ?, ?, previous.%s + 1)", DATA_FIELDS, VERSION, VERSION
+  ), "", true);
+
+  private static final int[] INSERT_TYPES = {
+      Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+      Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER
+  };
+  private static final int[] UPDATE_TYPES = {
+      Types.VARCHAR,
+      Types.VARCHAR, Types.VARCHAR,
+      Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER,
+      Types.BIGINT
+  };
+
   private final JdbcTemplate db;
+  private final String totalPrice;
+  private final int batchSize;
+  private final int fetchSize;
 
   @Autowired
-  public BooksRepository(JdbcTemplate db) {
+  public BooksRepository(
+      JdbcTemplate db,
+      PricingEngine pricingEngine,
+      @Value("${books.batch.size}") int batchSize,
+      @Value("${books.export.fetch-size}") int fetchSize
+  ) {
     this.db = db;
+    this.totalPrice = String.format(
+        "SELECT COALESCE(SUM(%s), 0) FROM %s, (SELECT ?::numeric AS current_year) params",
+        totalMillsSql(pricingEngine, "params.current_year"), STOCK);
+    this.batchSize = batchSize;
+    this.fetchSize = fetchSize;
   }
 
   public List<Book> findAll() {
-    String sql = String.format("SELECT * FROM %s", TABLE);
-    return db.query(sql, new BooksMapper());
+    return db.query(FIND_ALL, new BooksMapper());
+  }
+
+  public List<Book> findPage(Optional<String> after, int limit) {
+    return after
+        .map(barcode -> db.query(FIND_PAGE_AFTER, new BooksMapper(), barcode, limit))
+        .orElseGet(() -> db.query(FIND_FIRST_PAGE, new BooksMapper(), limit));
+  }
+
+  public BigDecimal totalPrice(BooksFilter filter, int currentYear) {
+    List<String> conditions = new ArrayList<>();
+    List<Object> args = new ArrayList<>();
+    args.add(currentYear);
+    filter.author().ifPresent(author -> {
+      conditions.add(AUTHOR + " = ?");
+      args.add(author);
+    });
+    filter.type().ifPresent(type -> conditions.add(typeCondition(type)));
+    filter.minPrice().ifPresent(min -> {
+      conditions.add(PRICE + " >= ?");
+      args.add(min.movePointRight(2));
+    });
+    filter.maxPrice().ifPresent(max -> {
+      conditions.add(PRICE + " <= ?");
+      args.add(max.movePointRight(2));
+    });
+    String sql = conditions.isEmpty()
+        ? totalPrice
+        : totalPrice + " WHERE " + String.join(" AND ", conditions);
+    BigDecimal thousandths = db.queryForObject(sql, BigDecimal.class, args.toArray());
+    return thousandths.movePointLeft(PricingEngine.MILLS_SCALE);
+  }
+
+  public void streamAll(Consumer<Book> consumer) {
+    BooksMapper mapper = new BooksMapper();
+    db.query(
+        FIND_ALL_ORDERED,
+        ps -> ps.setFetchSize(fetchSize),
+        (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rs.getRow()))
+    );
+  }
+
+  public long countAll() {
+    return db.queryForObject(COUNT_ALL, Long.class);
+  }
+
+  public void streamBarcodes(Consumer<String> consumer) {
+    db.query(
+        FIND_ALL_BARCODES,
+        ps -> ps.setFetchSize(fetchSize),
+        (RowCallbackHandler) rs -> consumer.accept(rs.getString(BARCODE))
+    );
   }
 
   public Optional<Book> findByBarcode(String barcode) {
-    String sql = String.format("SELECT * FROM %s WHERE barcode = '%s'", TABLE, barcode);
-    return db.query(sql, new BooksMapper()).stream().filter(Objects::nonNull).findFirst();
+    return db.query(FIND_BY_BARCODE, new BooksMapper(), barcode)
+        .stream().filter(Objects::nonNull).findFirst();
+  }
+
+  public List<Book> findByBarcodes(Collection<String> barcodes) {
+    return db.query(
+        FIND_BY_BARCODES,
+        ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", barcodes.toArray())),
+        new BooksMapper()
+    );
+  }
+
+  public Optional<Long> findVersion(String barcode) {
+    return db.queryForList(FIND_VERSION_BY_BARCODE, Long.class, barcode).stream().findFirst();
   }
 
-  public Book create(Book book) {
-    String sql = String.format(
-        "INSERT INTO %s VALUES ('%s', '%s', '%s', %s, %s, %s, %s)",
-        TABLE,
+  public Optional<Book> create(Book book) {
+    Object[] args = {
         book.barcode(),
         book.name(),
         book.author(),
         book.quantity(),
-        book.price().unscaledValue(),
+        cents(book.price()),
         book.antiqueReleaseYear().orElse(null),
         book.scienceIndex().orElse(null)
+    };
+    return db.query(INSERT, args, INSERT_TYPES, new BooksMapper()).stream().findFirst();
+  }
+
+  public Set<String> lockAll(Collection<String> barcodes) {
+    return new HashSet<>(db.query(
+        LOCK_BY_BARCODES,
+        ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", barcodes.toArray())),
+        (rs, rowNum) -> rs.getString(BARCODE)
+    ));
+  }
+
+  public Optional<Book> adjustQuantity(String barcode, int delta) {
+    return db.query(ADJUST_QUANTITY, new BooksMapper(), delta, barcode, delta)
+        .stream().findFirst();
+  }
+
+  public Optional<Book> adjustSlot(String barcode, long delta) {
+    return db.query(ADJUST_SLOT, new BooksMapper(), barcode, delta, delta, delta)
+        .stream().findFirst();
+  }
+
+  public Optional<Book> spreadQuantity(String barcode, Optional<Integer> slots, long delta) {
+    return db.query(SPREAD_QUANTITY, new BooksMapper(), barcode, slots.orElse(null), delta)
+        .stream().findFirst();
+  }
+
+  public List<String> findUnbalancedSlots() {
+    return db.queryForList(FIND_UNBALANCED_SLOTS, String.class);
+  }
+
+  public List<Book> adjustQuantities(Map<String, Long> deltas) {
+    return db.query(
+        ADJUST_QUANTITIES,
+        ps -> {
+          ps.setArray(1, ps.getConnection().createArrayOf("varchar", deltas.keySet().toArray()));
+          ps.setArray(2, ps.getConnection().createArrayOf("bigint", deltas.values().toArray()));
+        },
+        new BooksMapper()
     );
-    db.update(sql);
-    return book;
   }
 
-  public Book update(Book book) {
-    String sql = String.format(
-        "UPDATE %s SET (%s) = ('%s', '%s', %d, %d, %d, %d) WHERE barcode = '%s'",
-        TABLE,
-        DATA_FIELDS,
+  public List<Book> createAll(List<Book> books) {
+    List<Book> created = new ArrayList<>();
+    for (int from = 0; from < books.size(); from += batchSize) {
+      created.addAll(createAbsent(books.subList(from, Math.min(from + batchSize, books.size()))));
+    }
+    return created;
+  }
+
+  public long importRows(Reader rows) {
+    db.execute(CREATE_IMPORT_TABLE);
+    db.execute((ConnectionCallback<Long>) connection -> {
+      try {
+        return new CopyManager(connection.unwrap(BaseConnection.class)).copyIn(COPY_IMPORT, rows);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    int imported = db.update(MERGE_IMPORT);
+    db.update(CLEAR_IMPORTED_SLOTS);
+    db.execute(NOTIFY_ALL_CHANGED);
+    return imported;
+  }
+
+  public Optional<BookChange> update(Book book, Optional<Long> expectedVersion) {
+    Object[] args = {
+        book.barcode(),
         book.name(),
         book.author(),
         book.quantity(),
-        book.price().unscaledValue(),
+        cents(book.price()),
         book.antiqueReleaseYear().orElse(null),
         book.scienceIndex().orElse(null),
-        book.barcode()
-    );
-    db.update(sql);
-    return book;
+        expectedVersion.orElse(null)
+    };
+    return db.query(UPDATE, args, UPDATE_TYPES, new BookChangeMapper()).stream().findFirst();
+  }
+
+  public List<Book> createAbsent(List<Book> books) {
+    return db.query(CREATE_ABSENT, ps -> setBookArrays(ps, books), new BooksMapper());
+  }
+
+  public List<BookChange> updateAll(List<Book> books) {
+    return db.query(UPDATE_ALL, ps -> setBookArrays(ps, books), new BookChangeMapper());
+  }
+
+  public void commitAsynchronously() {
+    db.execute(COMMIT_ASYNCHRONOUSLY);
+  }
+
+  public Optional<BookChange> patch(
+      String barcode,
+      BookPatch patch,
+      Optional<Long> expectedVersion
+  ) {
+    List<String> assignments = new ArrayList<>();
+    List<Object> args = new ArrayList<>();
+    args.add(barcode);
+    patch.name().ifPresent(name -> assign(assignments, args, NAME, name));
+    patch.author().ifPresent(author -> assign(assignments, args, AUTHOR, author));
+    patch.quantity().ifPresent(quantity -> assign(assignments, args, QUANTITY, quantity));
+    patch.price().ifPresent(price -> assign(assignments, args, PRICE, cents(price)));
+    patch.antiqueReleaseYear()
+        .ifPresent(year -> assign(assignments, args, ANTIQUE_RELEASE_YEAR, year));
+    patch.scienceIndex().ifPresent(index -> assign(assignments, args, SCIENCE_INDEX, index));
+    assignments.add(String.format("%s = previous.%s + 1", VERSION, VERSION));
+    args.add(new SqlParameterValue(Types.BIGINT, expectedVersion.orElse(null)));
+
+    String guard = "";
+    if (patch.antiqueReleaseYear().isPresent()) {
+      guard = String.format(" AND previous.%s IS NULL", SCIENCE_INDEX);
+    } else if (patch.scienceIndex().isPresent()) {
+      guard = String.format(" AND previous.%s IS NULL", ANTIQUE_RELEASE_YEAR);
+    }
+    String sql = change(String.join(", ", assignments), guard, patch.quantity().isPresent());
+    return db.query(sql, args.toArray(), new BookChangeMapper()).stream().findFirst();
+  }
+
+  private static void assign(
+      List<String> assignments,
+      List<Object> args,
+      String column,
+      Object value
+  ) {
+    assignments.add(column + " = ?");
+    args.add(value);
+  }
+
+  private static String change(String assignments, String guard, boolean assignsQuantity) {
+    String cleared = assignsQuantity
+        ? String.format(
+            ", cleared AS (UPDATE %1$s slots SET %2$s = 0 FROM updated "
+                + "WHERE slots.%3$s = updated.%3$s AND slots.%2$s <> 0)",
+            SLOTS_TABLE, QUANTITY, BARCODE)
+        : "";
+    return String.format(
+        "WITH previous AS (SELECT * FROM %1$s WHERE %2$s = ? FOR UPDATE), "
+            + "previous_slots AS (SELECT COALESCE(SUM(%3$s), 0) AS %3$s, "
+            + "COALESCE(SUM(%4$s), 0) AS %4$s FROM (SELECT slots.%3$s, slots.%4$s FROM %5$s slots, "
+            + "previous WHERE slots.%2$s = previous.%2$s ORDER BY slots.slot FOR UPDATE OF slots"
+            + ") locked), "
+            + "updated AS ("
+            + "UPDATE %1$s SET %6$s FROM previous, previous_slots "
+            + "WHERE %1$s.%2$s = previous.%2$s AND %7$s = COALESCE(?, %7$s)%8$s "
+            + "RETURNING %1$s.*"
+            + ")%9$s SELECT %10$s, %11$s FROM previous, previous_slots LEFT JOIN ("
+            + "SELECT updated.* FROM updated, pg_notify('%12$s', updated.%2$s)"
+            + ") changed ON true",
+        TABLE, BARCODE, QUANTITY, VERSION, SLOTS_TABLE, assignments,
+        "previous." + VERSION + " + previous_slots." + VERSION, guard, cleared,
+        stockFields("previous", BookChangeMapper.PREVIOUS, true),
+        stockFields("changed", "", !assignsQuantity), CHANGES_CHANNEL);
+  }
+
+  private static String stockFields(String source, String prefix, boolean withSlotQuantity) {
+    return Arrays.stream((ALL_FIELDS + ", " + VERSION).split(", "))
+        .map(field -> {
+          boolean slotted = VERSION.equals(field) || QUANTITY.equals(field) && withSlotQuantity;
+          return String.format(
+              "%s.%s%s AS %s%s",
+              source, field, slotted ? " + previous_slots." + field : "", prefix, field
+          );
+        })
+        .collect(Collectors.joining(", "));
+  }
+
+  static String totalMillsSql(PricingEngine pricingEngine, String currentYear) {
+    return Arrays.stream(BookType.values())
+        .map(type -> String.format(
+            "WHEN %s THEN %s", typeCondition(type), pricingEngine.totalMillsSql(type, currentYear)
+        ))
+        .collect(Collectors.joining(" ", "CASE ", " END"));
+  }
+
+  private static void setBookArrays(PreparedStatement ps, List<Book> books) throws SQLException {
+    Connection connection = ps.getConnection();
+    ps.setArray(1, connection.createArrayOf("varchar", column(books, Book::barcode)));
+    ps.setArray(2, connection.createArrayOf("varchar", column(books, Book::name)));
+    ps.setArray(3, connection.createArrayOf("varchar", column(books, Book::author)));
+    ps.setArray(4, connection.createArrayOf("integer", column(books, Book::quantity)));
+    ps.setArray(5, connection.createArrayOf(
+        "integer", column(books, book -> cents(book.price()))
+    ));
+    ps.setArray(6, connection.createArrayOf(
+        "integer", column(books, book -> book.antiqueReleaseYear().orElse(null))
+    ));
+    ps.setArray(7, connection.createArrayOf(
+        "integer", column(books, book -> book.scienceIndex().orElse(null))
+    ));
+  }
+
+  private static int cents(BigDecimal price) {
+    return price.unscaledValue().intValueExact();
+  }
+
+  private static Object[] column(List<Book> books, Function<Book, Object> field) {
+    return books.stream().map(field).toArray();
+  }
+
+  private static String typeCondition(BookType type) {
+    switch (type) {
+      case ANTIQUE:
+        return ANTIQUE_RELEASE_YEAR + " IS NOT NULL";
+      case SCIENCE:
+        return String.format("%s IS NULL AND %s IS NOT NULL", ANTIQUE_RELEASE_YEAR, SCIENCE_INDEX);
+      default:
+        return String.format("%s IS NULL AND %s IS NULL", ANTIQUE_RELEASE_YEAR, SCIENCE_INDEX);
+    }
   }
 }
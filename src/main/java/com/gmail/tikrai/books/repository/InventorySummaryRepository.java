@@ -0,0 +1,121 @@
+package com.gmail.tikrai.books.repository;
+
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.repository.rowmappers.CategorySummaryMapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class InventorySummaryRepository {
+
+  public static final String TABLE = "books_summary";
+  private static final String FIELDS = "type, slot, books, quantity, value_per_year, value_fixed";
+  private static final String DATA_FIELDS = "books, quantity, value_per_year, value_fixed";
+
+  private static final String FIND_ALL = String.format(
+      "SELECT type, SUM(books) books, SUM(quantity) quantity, "
+          + "SUM(value_per_year) value_per_year, SUM(value_fixed) value_fixed "
+          + "FROM %s GROUP BY type",
+      TABLE);
+  private static final String ADD = String.format(
+      "INSERT INTO %1$s (%2$s) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (type, slot) DO UPDATE SET "
+          + "books = %1$s.books + EXCLUDED.books, "
+          + "quantity = %1$s.quantity + EXCLUDED.quantity, "
+          + "value_per_year = %1$s.value_per_year + EXCLUDED.value_per_year, "
+          + "value_fixed = %1$s.value_fixed + EXCLUDED.value_fixed",
+      TABLE, FIELDS);
+  private static final String RECALCULATED = String.format(
+      "SELECT types.type, "
+          + "COUNT(books.barcode) books, "
+          + "COALESCE(SUM(books.quantity), 0) quantity, "
+          + "COALESCE(SUM(%%s), 0) value_per_year, "
+          + "COALESCE(SUM(%%s), 0) value_fixed "
+          + "FROM unnest(ARRAY['REGULAR', 'ANTIQUE', 'SCIENCE']) types(type) "
+          + "LEFT JOIN %s books ON types.type = CASE "
+          + "WHEN books.antique_release_year IS NOT NULL THEN 'ANTIQUE' "
+          + "WHEN books.science_index IS NOT NULL THEN 'SCIENCE' "
+          + "ELSE 'REGULAR' END "
+          + "GROUP BY types.type",
+      BooksRepository.STOCK);
+  private static final String DRIFT = String.format(
+      "WITH recalculated AS (%%s), summed AS (%1$s) "
+          + "SELECT recalculated.type, %2$s FROM recalculated "
+          + "LEFT JOIN summed ON summed.type = recalculated.type "
+          + "WHERE (%3$s) IS DISTINCT FROM (%4$s)",
+      FIND_ALL,
+      "recalculated.books - COALESCE(summed.books, 0) books, "
+          + "recalculated.quantity - COALESCE(summed.quantity, 0) quantity, "
+          + "recalculated.value_per_year - COALESCE(summed.value_per_year, 0) value_per_year, "
+          + "recalculated.value_fixed - COALESCE(summed.value_fixed, 0) value_fixed",
+      "summed." + DATA_FIELDS.replace(", ", ", summed."),
+      "recalculated." + DATA_FIELDS.replace(", ", ", recalculated."));
+
+  private final JdbcTemplate db;
+  private final String drift;
+  private final int slots;
+
+  @Autowired
+  public InventorySummaryRepository(
+      JdbcTemplate db,
+      PricingEngine pricingEngine,
+      @Value("${books.summary.slots}") int slots
+  ) {
+    this.db = db;
+    String fixed = BooksRepository.totalMillsSql(pricingEngine, "0");
+    String perYear = String.format(
+        "(%s) - (%s)", BooksRepository.totalMillsSql(pricingEngine, "1"), fixed
+    );
+    this.drift = String.format(DRIFT, String.format(RECALCULATED, perYear, fixed));
+    this.slots = slots;
+  }
+
+  public Map<BookType, CategorySummary> findAll() {
+    Map<BookType, CategorySummary> summaries = new EnumMap<>(BookType.class);
+    for (BookType type : BookType.values()) {
+      summaries.put(type, CategorySummary.empty(type));
+    }
+    db.query(FIND_ALL, new CategorySummaryMapper())
+        .forEach(summary -> summaries.put(summary.type(), summary));
+    return summaries;
+  }
+
+  public void add(Collection<CategorySummary> deltas) {
+    Map<BookType, CategorySummary> byType = new EnumMap<>(BookType.class);
+    deltas.forEach(delta -> byType.merge(delta.type(), delta, CategorySummary::plus));
+    List<CategorySummary> changed = new ArrayList<>();
+    byType.forEach((type, delta) -> {
+      if (!delta.equals(CategorySummary.empty(type))) {
+        changed.add(delta);
+      }
+    });
+    if (!changed.isEmpty()) {
+      int slot = ThreadLocalRandom.current().nextInt(slots);
+      db.batchUpdate(ADD, changed, changed.size(), (ps, delta) -> {
+        ps.setString(1, delta.type().name());
+        ps.setInt(2, slot);
+        ps.setLong(3, delta.books());
+        ps.setLong(4, delta.quantity());
+        ps.setBigDecimal(5, delta.valuePerYear());
+        ps.setBigDecimal(6, delta.valueFixed());
+      });
+    }
+  }
+
+  /**
+   * Difference between the summary recalculated from books and the summed slots. Both are read from
+   * one snapshot, so the difference can be added later on top of writes committed meanwhile.
+   */
+  public List<CategorySummary> findDrift() {
+    return db.query(drift, new CategorySummaryMapper());
+  }
+}
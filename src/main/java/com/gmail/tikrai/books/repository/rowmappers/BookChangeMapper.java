@@ -0,0 +1,22 @@
+package com.gmail.tikrai.books.repository.rowmappers;
+
+import com.gmail.tikrai.books.domain.BookChange;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.springframework.jdbc.core.RowMapper;
+
+public class BookChangeMapper implements RowMapper<BookChange> {
+
+  public static final String PREVIOUS = "previous_";
+
+  private final BooksMapper previous = new BooksMapper(PREVIOUS);
+  private final BooksMapper current = new BooksMapper();
+
+  @Override
+  public BookChange mapRow(ResultSet rs, int rowNum) throws SQLException {
+    return new BookChange(
+        previous.mapRow(rs, rowNum),
+        rs.getString("barcode") == null ? null : current.mapRow(rs, rowNum)
+    );
+  }
+}
@@ -8,16 +8,27 @@ import org.springframework.jdbc.core.RowMapper;
 
 public class BooksMapper implements RowMapper<Book> {
 
+  private final String prefix;
+
+  public BooksMapper() {
+    this("");
+  }
+
+  public BooksMapper(String prefix) {
+    this.prefix = prefix;
+  }
+
   @Override
   public Book mapRow(ResultSet rs, int rowNum) throws SQLException {
     return new Book(
-        rs.getString("barcode"),
-        rs.getString("name"),
-        rs.getString("author"),
-        rs.getInt("quantity"),
-        BigDecimal.valueOf(rs.getInt("price"), 2),
-        getInteger(rs, "antique_release_year"),
-        getInteger(rs, "science_index")
+        rs.getString(prefix + "barcode"),
+        rs.getString(prefix + "name"),
+        rs.getString(prefix + "author"),
+        rs.getInt(prefix + "quantity"),
+        BigDecimal.valueOf(rs.getInt(prefix + "price"), 2),
+        getInteger(rs, prefix + "antique_release_year"),
+        getInteger(rs, prefix + "science_index"),
+        rs.getLong(prefix + "version")
     );
   }
 
@@ -0,0 +1,21 @@
+package com.gmail.tikrai.books.repository.rowmappers;
+
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.springframework.jdbc.core.RowMapper;
+
+public class CategorySummaryMapper implements RowMapper<CategorySummary> {
+
+  @Override
+  public CategorySummary mapRow(ResultSet rs, int rowNum) throws SQLException {
+    return new CategorySummary(
+        BookType.valueOf(rs.getString("type")),
+        rs.getLong("books"),
+        rs.getLong("quantity"),
+        rs.getBigDecimal("value_per_year"),
+        rs.getBigDecimal("value_fixed")
+    );
+  }
+}
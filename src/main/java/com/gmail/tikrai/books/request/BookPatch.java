@@ -0,0 +1,158 @@
+package com.gmail.tikrai.books.request;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.util.Generated;
+import com.gmail.tikrai.books.validation.Validator;
+import com.gmail.tikrai.books.validation.ValidatorGroup;
+import com.gmail.tikrai.books.validation.validators.NullValidator;
+import com.gmail.tikrai.books.validation.validators.SizeValidator;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+public class BookPatch implements Validator {
+  private final String name;
+  private final String author;
+  private final Integer quantity;
+  private final BigDecimal price;
+  private final Integer antiqueReleaseYear;
+  private final Integer scienceIndex;
+
+  public BookPatch(
+      String name,
+      String author,
+      Integer quantity,
+      BigDecimal price,
+      Integer antiqueReleaseYear,
+      Integer scienceIndex
+  ) {
+    this.name = name;
+    this.author = author;
+    this.quantity = quantity;
+    this.price = price == null ? null : price.setScale(2, RoundingMode.HALF_UP);
+    this.antiqueReleaseYear = antiqueReleaseYear;
+    this.scienceIndex = scienceIndex;
+  }
+
+  public static BookPatch of(Map<String, Object> updates) {
+    String name = null;
+    String author = null;
+    Integer quantity = null;
+    BigDecimal price = null;
+    Integer antiqueReleaseYear = null;
+    Integer scienceIndex = null;
+
+    for (Map.Entry<String, Object> update : updates.entrySet()) {
+      String fieldName = update.getKey();
+      Object value = update.getValue();
+      if (value == null && !"barcode".equals(fieldName)) {
+        throw new ValidationException(String.format("'%s' cannot be null", fieldName));
+      }
+      try {
+        switch (fieldName) {
+          case "barcode":
+            throw new ValidationException("Barcode can not be updated");
+          case "name":
+            name = (String) value;
+            break;
+          case "author":
+            author = (String) value;
+            break;
+          case "quantity":
+            quantity = (Integer) value;
+            break;
+          case "price":
+            price = bigDecimalOf(value);
+            break;
+          case "antiqueReleaseYear":
+            antiqueReleaseYear = (Integer) value;
+            break;
+          case "scienceIndex":
+            scienceIndex = (Integer) value;
+            break;
+          default:
+            throw new ValidationException(String.format("Book has no field '%s'", fieldName));
+        }
+      } catch (ClassCastException e) {
+        throw new ValidationException(String.format("Incorrect format not '%s' field", fieldName));
+      }
+    }
+    return new BookPatch(name, author, quantity, price, antiqueReleaseYear, scienceIndex);
+  }
+
+  private static BigDecimal bigDecimalOf(Object o) {
+    if (o instanceof Integer) {
+      return BigDecimal.valueOf((int) o);
+    }
+    return BigDecimal.valueOf((double) o);
+  }
+
+  public Optional<String> name() {
+    return Optional.ofNullable(name);
+  }
+
+  public Optional<String> author() {
+    return Optional.ofNullable(author);
+  }
+
+  public Optional<Integer> quantity() {
+    return Optional.ofNullable(quantity);
+  }
+
+  public Optional<BigDecimal> price() {
+    return Optional.ofNullable(price);
+  }
+
+  public Optional<Integer> antiqueReleaseYear() {
+    return Optional.ofNullable(antiqueReleaseYear);
+  }
+
+  public Optional<Integer> scienceIndex() {
+    return Optional.ofNullable(scienceIndex);
+  }
+
+  @Override
+  public Optional<String> valid() {
+    return ValidatorGroup.of(
+        SizeValidator.range("name", name, 2, 255),
+        SizeValidator.range("author", author, 2, 255),
+        SizeValidator.min("quantity", quantity, 1),
+        SizeValidator.min("price", price, BigDecimal.valueOf(1)),
+        SizeValidator.max("price", price, Book.MAX_PRICE),
+        SizeValidator.max("antiqueReleaseYear", antiqueReleaseYear, 1900),
+        SizeValidator.range("scienceIndex", scienceIndex, 1, 10),
+        NullValidator.min(
+            new Object[]{antiqueReleaseYear, scienceIndex},
+            1,
+            BookRequest.ANTIQUE_AND_SCIENCE
+        )
+    ).valid();
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    BookPatch patch = (BookPatch) o;
+    return Objects.equals(name, patch.name)
+        && Objects.equals(author, patch.author)
+        && Objects.equals(quantity, patch.quantity)
+        && Objects.equals(price, patch.price)
+        && Objects.equals(antiqueReleaseYear, patch.antiqueReleaseYear)
+        && Objects.equals(scienceIndex, patch.scienceIndex);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(name, author, quantity, price, antiqueReleaseYear, scienceIndex);
+  }
+}
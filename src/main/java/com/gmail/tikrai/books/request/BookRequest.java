@@ -2,18 +2,19 @@ package com.gmail.tikrai.books.request;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.gmail.tikrai.books.domain.Book;
-import com.gmail.tikrai.books.exception.ValidationException;
 import com.gmail.tikrai.books.util.Generated;
 import com.gmail.tikrai.books.validation.Validator;
 import com.gmail.tikrai.books.validation.ValidatorGroup;
 import com.gmail.tikrai.books.validation.validators.NullValidator;
 import com.gmail.tikrai.books.validation.validators.SizeValidator;
 import java.math.BigDecimal;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 public class BookRequest implements Validator {
+  public static final String ANTIQUE_AND_SCIENCE =
+      "Book cannot be both antique and science journal";
+
   private final String barcode;
   private final String name;
   private final String author;
@@ -41,104 +42,8 @@ public class BookRequest implements Validator {
     this.scienceIndex = scienceIndex;
   }
 
-  public static BookRequest of(Book book) {
-    return new BookRequest(
-        book.barcode(),
-        book.name(),
-        book.author(),
-        book.quantity(),
-        book.price(),
-        book.antiqueReleaseYear().orElse(null),
-        book.scienceIndex().orElse(null)
-    );
-  }
-
-  public BookRequest withUpdatedFields(Map<String, Object> updates) {
-    BookRequest bookRequest = this;
-    for (Map.Entry<String, Object> update: updates.entrySet()) {
-      bookRequest = bookRequest.withUpdatedField(update.getKey(), update.getValue());
-    }
-    return bookRequest;
-  }
-
-  private BookRequest withUpdatedField(String fieldName, Object value) {
-    BookRequest bookRequest;
-
-    try {
-      switch (fieldName) {
-        case "barcode":
-          throw new ValidationException("Barcode can not be updated");
-        case "name":
-          bookRequest = withName((String) value);
-          break;
-        case "author":
-          bookRequest = withAuthor((String) value);
-          break;
-        case "quantity":
-          bookRequest = withQuantity((int) value);
-          break;
-        case "price":
-          bookRequest = withPrice(bigDecimalOf(value));
-          break;
-        case "antiqueReleaseYear":
-          bookRequest = withAntiqueReleaseYear((int) value);
-          break;
-        case "scienceIndex":
-          bookRequest = withScienceIndex((int) value);
-          break;
-        default:
-          throw new ValidationException(String.format("Book has no field '%s'", fieldName));
-      }
-    } catch (ClassCastException e) {
-      throw new ValidationException(String.format("Incorrect format not '%s' field", fieldName));
-    }
-    return bookRequest;
-  }
-
-  private BigDecimal bigDecimalOf(Object o) {
-    double doubleValue;
-    try {
-      doubleValue = (double) o;
-    } catch (ClassCastException e) {
-      doubleValue = (int) o;
-    }
-    return BigDecimal.valueOf(doubleValue);
-  }
-
-  private BookRequest withName(String name) {
-    return new BookRequest(
-        barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex
-    );
-  }
-
-  private BookRequest withAuthor(String author) {
-    return new BookRequest(
-        barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex
-    );
-  }
-
-  private BookRequest withQuantity(int quantity) {
-    return new BookRequest(
-        barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex
-    );
-  }
-
-  private BookRequest withPrice(BigDecimal price) {
-    return new BookRequest(
-        barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex
-    );
-  }
-
-  private BookRequest withAntiqueReleaseYear(int antiqueReleaseYear) {
-    return new BookRequest(
-        barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex
-    );
-  }
-
-  private BookRequest withScienceIndex(int scienceIndex) {
-    return new BookRequest(
-        barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex
-    );
+  public String barcode() {
+    return barcode;
   }
 
   public Book toDomain() {
@@ -166,14 +71,15 @@ public class BookRequest implements Validator {
         ),
         ValidatorGroup.of(
             NullValidator.not("price", price),
-            SizeValidator.min("price", price, BigDecimal.valueOf(1))
+            SizeValidator.min("price", price, BigDecimal.valueOf(1)),
+            SizeValidator.max("price", price, Book.MAX_PRICE)
         ),
         SizeValidator.max("antiqueReleaseYear", antiqueReleaseYear, 1900),
         SizeValidator.range("scienceIndex", scienceIndex, 1, 10),
         NullValidator.min(
             new Object[]{antiqueReleaseYear, scienceIndex},
             1,
-            "Book cannot be both antique and science journal"
+            ANTIQUE_AND_SCIENCE
         )
     ).valid();
   }
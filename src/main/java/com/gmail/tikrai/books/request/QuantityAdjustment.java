@@ -0,0 +1,63 @@
+package com.gmail.tikrai.books.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.gmail.tikrai.books.util.Generated;
+import com.gmail.tikrai.books.validation.Validator;
+import com.gmail.tikrai.books.validation.ValidatorGroup;
+import com.gmail.tikrai.books.validation.validators.NullValidator;
+import com.gmail.tikrai.books.validation.validators.SizeValidator;
+import java.util.Objects;
+import java.util.Optional;
+
+public class QuantityAdjustment implements Validator {
+  private final String barcode;
+  private final Integer delta;
+
+  @JsonCreator
+  public QuantityAdjustment(String barcode, Integer delta) {
+    this.barcode = barcode;
+    this.delta = delta;
+  }
+
+  public QuantityAdjustment withBarcode(String barcode) {
+    return new QuantityAdjustment(barcode, delta);
+  }
+
+  public String barcode() {
+    return barcode;
+  }
+
+  public int delta() {
+    return delta;
+  }
+
+  @Override
+  public Optional<String> valid() {
+    return ValidatorGroup.of(
+        ValidatorGroup.of(
+            NullValidator.not("barcode", barcode),
+            SizeValidator.range("barcode", barcode, 2, 255)
+        ),
+        NullValidator.not("delta", delta)
+    ).valid();
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    QuantityAdjustment that = (QuantityAdjustment) o;
+    return Objects.equals(barcode, that.barcode) && Objects.equals(delta, that.delta);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(barcode, delta);
+  }
+}
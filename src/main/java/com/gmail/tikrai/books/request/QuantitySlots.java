@@ -0,0 +1,52 @@
+package com.gmail.tikrai.books.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.gmail.tikrai.books.util.Generated;
+import com.gmail.tikrai.books.validation.Validator;
+import com.gmail.tikrai.books.validation.ValidatorGroup;
+import com.gmail.tikrai.books.validation.validators.NullValidator;
+import com.gmail.tikrai.books.validation.validators.SizeValidator;
+import java.util.Objects;
+import java.util.Optional;
+
+public class QuantitySlots implements Validator {
+  public static final int MAX_SLOTS = 64;
+
+  private final Integer slots;
+
+  @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
+  public QuantitySlots(Integer slots) {
+    this.slots = slots;
+  }
+
+  public int slots() {
+    return slots;
+  }
+
+  @Override
+  public Optional<String> valid() {
+    return ValidatorGroup.of(
+        NullValidator.not("slots", slots),
+        SizeValidator.range("slots", slots, 0, MAX_SLOTS)
+    ).valid();
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    QuantitySlots that = (QuantitySlots) o;
+    return Objects.equals(slots, that.slots);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(slots);
+  }
+}
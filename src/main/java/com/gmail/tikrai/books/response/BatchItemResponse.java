@@ -0,0 +1,66 @@
+package com.gmail.tikrai.books.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gmail.tikrai.books.util.Generated;
+import java.util.Objects;
+import java.util.Optional;
+import org.springframework.http.HttpStatus;
+
+public class BatchItemResponse {
+
+  private final String barcode;
+  private final int status;
+  private final String message;
+
+  @JsonCreator
+  public BatchItemResponse(String barcode, int status, String message) {
+    this.barcode = barcode;
+    this.status = status;
+    this.message = message;
+  }
+
+  public static BatchItemResponse created(String barcode) {
+    return new BatchItemResponse(barcode, HttpStatus.CREATED.value(), null);
+  }
+
+  public static BatchItemResponse rejected(String barcode, HttpStatus status, String message) {
+    return new BatchItemResponse(barcode, status.value(), message);
+  }
+
+  @JsonProperty("barcode")
+  public String barcode() {
+    return barcode;
+  }
+
+  @JsonProperty("status")
+  public int status() {
+    return status;
+  }
+
+  @JsonProperty("message")
+  public Optional<String> message() {
+    return Optional.ofNullable(message);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    BatchItemResponse that = (BatchItemResponse) o;
+    return status == that.status
+        && Objects.equals(barcode, that.barcode)
+        && Objects.equals(message, that.message);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(barcode, status, message);
+  }
+}
@@ -0,0 +1,50 @@
+package com.gmail.tikrai.books.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.util.Generated;
+import java.util.List;
+import java.util.Objects;
+
+public class BooksLookupResponse {
+
+  private final List<Book> books;
+  private final List<String> missing;
+
+  @JsonCreator
+  public BooksLookupResponse(List<Book> books, List<String> missing) {
+    this.books = books;
+    this.missing = missing;
+  }
+
+  @JsonProperty("books")
+  public List<Book> books() {
+    return books;
+  }
+
+  @JsonProperty("missing")
+  public List<String> missing() {
+    return missing;
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    BooksLookupResponse that = (BooksLookupResponse) o;
+    return Objects.equals(books, that.books)
+        && Objects.equals(missing, that.missing);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(books, missing);
+  }
+}
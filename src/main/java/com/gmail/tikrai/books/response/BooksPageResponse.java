@@ -0,0 +1,51 @@
+package com.gmail.tikrai.books.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.util.Generated;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+public class BooksPageResponse {
+
+  private final List<Book> books;
+  private final String next;
+
+  @JsonCreator
+  public BooksPageResponse(List<Book> books, String next) {
+    this.books = books;
+    this.next = next;
+  }
+
+  @JsonProperty("books")
+  public List<Book> books() {
+    return books;
+  }
+
+  @JsonProperty("next")
+  public Optional<String> next() {
+    return Optional.ofNullable(next);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    BooksPageResponse that = (BooksPageResponse) o;
+    return Objects.equals(books, that.books)
+        && Objects.equals(next, that.next);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(books, next);
+  }
+}
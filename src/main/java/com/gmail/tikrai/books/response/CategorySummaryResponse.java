@@ -0,0 +1,58 @@
+package com.gmail.tikrai.books.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gmail.tikrai.books.util.Generated;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+public class CategorySummaryResponse {
+
+  private final long books;
+  private final long quantity;
+  private final BigDecimal totalPrice;
+
+  @JsonCreator
+  public CategorySummaryResponse(long books, long quantity, BigDecimal totalPrice) {
+    this.books = books;
+    this.quantity = quantity;
+    this.totalPrice = totalPrice.setScale(2, RoundingMode.HALF_UP);
+  }
+
+  @JsonProperty("books")
+  public long books() {
+    return books;
+  }
+
+  @JsonProperty("quantity")
+  public long quantity() {
+    return quantity;
+  }
+
+  @JsonProperty("totalPrice")
+  public BigDecimal totalPrice() {
+    return totalPrice;
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    CategorySummaryResponse that = (CategorySummaryResponse) o;
+    return books == that.books
+        && quantity == that.quantity
+        && Objects.equals(totalPrice, that.totalPrice);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(books, quantity, totalPrice);
+  }
+}
@@ -0,0 +1,73 @@
+package com.gmail.tikrai.books.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gmail.tikrai.books.util.Generated;
+import java.time.Instant;
+import java.util.Objects;
+
+public class ErrorResponse {
+
+  private final Instant timestamp;
+  private final int status;
+  private final String error;
+  private final String message;
+  private final String path;
+
+  @JsonCreator
+  public ErrorResponse(Instant timestamp, int status, String error, String message, String path) {
+    this.timestamp = timestamp;
+    this.status = status;
+    this.error = error;
+    this.message = message;
+    this.path = path;
+  }
+
+  @JsonProperty("timestamp")
+  public Instant timestamp() {
+    return timestamp;
+  }
+
+  @JsonProperty("status")
+  public int status() {
+    return status;
+  }
+
+  @JsonProperty("error")
+  public String error() {
+    return error;
+  }
+
+  @JsonProperty("message")
+  public String message() {
+    return message;
+  }
+
+  @JsonProperty("path")
+  public String path() {
+    return path;
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ErrorResponse that = (ErrorResponse) o;
+    return status == that.status
+        && Objects.equals(timestamp, that.timestamp)
+        && Objects.equals(error, that.error)
+        && Objects.equals(message, that.message)
+        && Objects.equals(path, that.path);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(timestamp, status, error, message, path);
+  }
+}
@@ -0,0 +1,79 @@
+package com.gmail.tikrai.books.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gmail.tikrai.books.util.Generated;
+import java.util.List;
+import java.util.Objects;
+
+public class ImportResponse {
+
+  private final long imported;
+  private final long rejected;
+  private final List<RejectedRowResponse> errors;
+  private final long rowsPerSecond;
+  private final long heapHighWaterMark;
+
+  @JsonCreator
+  public ImportResponse(
+      long imported,
+      long rejected,
+      List<RejectedRowResponse> errors,
+      long rowsPerSecond,
+      long heapHighWaterMark
+  ) {
+    this.imported = imported;
+    this.rejected = rejected;
+    this.errors = errors;
+    this.rowsPerSecond = rowsPerSecond;
+    this.heapHighWaterMark = heapHighWaterMark;
+  }
+
+  @JsonProperty("imported")
+  public long imported() {
+    return imported;
+  }
+
+  @JsonProperty("rejected")
+  public long rejected() {
+    return rejected;
+  }
+
+  @JsonProperty("errors")
+  public List<RejectedRowResponse> errors() {
+    return errors;
+  }
+
+  @JsonProperty("rowsPerSecond")
+  public long rowsPerSecond() {
+    return rowsPerSecond;
+  }
+
+  @JsonProperty("heapHighWaterMark")
+  public long heapHighWaterMark() {
+    return heapHighWaterMark;
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ImportResponse that = (ImportResponse) o;
+    return imported == that.imported
+        && rejected == that.rejected
+        && rowsPerSecond == that.rowsPerSecond
+        && heapHighWaterMark == that.heapHighWaterMark
+        && Objects.equals(errors, that.errors);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(imported, rejected, errors, rowsPerSecond, heapHighWaterMark);
+  }
+}
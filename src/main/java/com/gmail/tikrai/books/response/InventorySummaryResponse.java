@@ -0,0 +1,80 @@
+package com.gmail.tikrai.books.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.util.Generated;
+import java.util.Map;
+import java.util.Objects;
+
+public class InventorySummaryResponse {
+
+  private final CategorySummaryResponse regular;
+  private final CategorySummaryResponse antique;
+  private final CategorySummaryResponse science;
+
+  @JsonCreator
+  public InventorySummaryResponse(
+      CategorySummaryResponse regular,
+      CategorySummaryResponse antique,
+      CategorySummaryResponse science
+  ) {
+    this.regular = regular;
+    this.antique = antique;
+    this.science = science;
+  }
+
+  public static InventorySummaryResponse of(
+      Map<BookType, CategorySummary> summaries,
+      int currentYear
+  ) {
+    return new InventorySummaryResponse(
+        category(summaries.get(BookType.REGULAR), currentYear),
+        category(summaries.get(BookType.ANTIQUE), currentYear),
+        category(summaries.get(BookType.SCIENCE), currentYear)
+    );
+  }
+
+  private static CategorySummaryResponse category(CategorySummary summary, int currentYear) {
+    return new CategorySummaryResponse(
+        summary.books(), summary.quantity(), summary.totalPrice(currentYear)
+    );
+  }
+
+  @JsonProperty("regular")
+  public CategorySummaryResponse regular() {
+    return regular;
+  }
+
+  @JsonProperty("antique")
+  public CategorySummaryResponse antique() {
+    return antique;
+  }
+
+  @JsonProperty("science")
+  public CategorySummaryResponse science() {
+    return science;
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    InventorySummaryResponse that = (InventorySummaryResponse) o;
+    return Objects.equals(regular, that.regular)
+        && Objects.equals(antique, that.antique)
+        && Objects.equals(science, that.science);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(regular, antique, science);
+  }
+}
@@ -0,0 +1,47 @@
+package com.gmail.tikrai.books.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gmail.tikrai.books.util.Generated;
+import java.util.Objects;
+
+public class RejectedRowResponse {
+
+  private final long line;
+  private final String message;
+
+  @JsonCreator
+  public RejectedRowResponse(long line, String message) {
+    this.line = line;
+    this.message = message;
+  }
+
+  @JsonProperty("line")
+  public long line() {
+    return line;
+  }
+
+  @JsonProperty("message")
+  public String message() {
+    return message;
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    RejectedRowResponse that = (RejectedRowResponse) o;
+    return line == that.line && Objects.equals(message, that.message);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(line, message);
+  }
+}
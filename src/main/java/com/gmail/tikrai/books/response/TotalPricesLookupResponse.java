@@ -0,0 +1,56 @@
+package com.gmail.tikrai.books.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gmail.tikrai.books.util.Generated;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class TotalPricesLookupResponse {
+
+  private final Map<String, BigDecimal> totalPrices;
+  private final List<String> missing;
+
+  @JsonCreator
+  public TotalPricesLookupResponse(Map<String, BigDecimal> totalPrices, List<String> missing) {
+    this.totalPrices = new LinkedHashMap<>();
+    totalPrices.forEach((barcode, totalPrice) ->
+        this.totalPrices.put(barcode, totalPrice.setScale(2, RoundingMode.HALF_UP))
+    );
+    this.missing = missing;
+  }
+
+  @JsonProperty("totalPrices")
+  public Map<String, BigDecimal> totalPrices() {
+    return totalPrices;
+  }
+
+  @JsonProperty("missing")
+  public List<String> missing() {
+    return missing;
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TotalPricesLookupResponse that = (TotalPricesLookupResponse) o;
+    return Objects.equals(totalPrices, that.totalPrices)
+        && Objects.equals(missing, that.missing);
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(totalPrices, missing);
+  }
+}
@@ -0,0 +1,143 @@
+package com.gmail.tikrai.books.service;
+
+import com.gmail.tikrai.books.database.ReplicaReads;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class BookLookupBatcher {
+
+  private static final String METRICS_PREFIX = "books.lookup";
+
+  private final BooksRepository booksRepository;
+  private final ReplicaReads replicaReads;
+  private final long windowNanos;
+  private final int maxSize;
+  private final DistributionSummary batchSize;
+  private final Timer batchWait;
+  private final Counter coalesced;
+  private final Object lock = new Object();
+  private Batch collecting;
+
+  @Autowired
+  public BookLookupBatcher(
+      BooksRepository booksRepository,
+      ReplicaReads replicaReads,
+      MeterRegistry registry,
+      @Value("${books.lookup.batch.window}") Duration window,
+      @Value("${books.lookup.batch.max-size}") int maxSize
+  ) {
+    this.booksRepository = booksRepository;
+    this.replicaReads = replicaReads;
+    this.windowNanos = window.toNanos();
+    this.maxSize = maxSize;
+    this.batchSize = registry.summary(METRICS_PREFIX + ".batch.size");
+    this.batchWait = registry.timer(METRICS_PREFIX + ".batch.wait");
+    this.coalesced = registry.counter(METRICS_PREFIX + ".coalesced");
+  }
+
+  /**
+   * Lookups of the same barcode within one batch window share one result, without a window every
+   * lookup queries on its own.
+   */
+  public Optional<Book> load(String barcode) {
+    if (windowNanos == 0 || maxSize <= 1) {
+      return replicaReads.read(barcode, () -> booksRepository.findByBarcode(barcode));
+    }
+    long started = System.nanoTime();
+    Batch batch;
+    boolean leader;
+    CompletableFuture<Optional<Book>> found;
+    synchronized (lock) {
+      leader = collecting == null;
+      if (leader) {
+        collecting = new Batch();
+      }
+      batch = collecting;
+      found = batch.lookups.get(barcode);
+      if (found == null) {
+        found = new CompletableFuture<>();
+        batch.lookups.put(barcode, found);
+      } else {
+        coalesced.increment();
+      }
+      if (batch.size() >= maxSize) {
+        collecting = null;
+        batch.full.countDown();
+      }
+    }
+    if (leader) {
+      dispatch(batch);
+    }
+    try {
+      return join(found);
+    } finally {
+      batchWait.record(batch.dispatchedAt - started, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private Optional<Book> join(CompletableFuture<Optional<Book>> found) {
+    try {
+      return found.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private void dispatch(Batch batch) {
+    try {
+      batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (lock) {
+      if (collecting == batch) {
+        collecting = null;
+      }
+    }
+    batch.dispatchedAt = System.nanoTime();
+    batchSize.record(batch.size());
+    List<String> barcodes = new ArrayList<>(batch.lookups.keySet());
+    try {
+      Map<String, Book> books = new HashMap<>();
+      replicaReads.read(barcodes, () -> booksRepository.findByBarcodes(barcodes))
+          .forEach(book -> books.put(book.barcode(), book));
+      batch.lookups.forEach((barcode, lookup) ->
+          lookup.complete(Optional.ofNullable(books.get(barcode)))
+      );
+    } catch (RuntimeException e) {
+      batch.lookups.values().forEach(lookup -> lookup.completeExceptionally(e));
+    }
+  }
+
+  private static class Batch {
+
+    private final Map<String, CompletableFuture<Optional<Book>>> lookups = new HashMap<>();
+    private final CountDownLatch full = new CountDownLatch(1);
+    private volatile long dispatchedAt;
+
+    int size() {
+      return lookups.size();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.gmail.tikrai.books.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class BooksExportService {
+
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+  private final BooksRepository booksRepository;
+  private final ObjectWriter writer;
+
+  @Autowired
+  public BooksExportService(BooksRepository booksRepository, ObjectMapper mapper) {
+    this.booksRepository = booksRepository;
+    this.writer = mapper.writerFor(Book.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+  public void exportBooks(OutputStream out, boolean gzip) throws IOException {
+    GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE) : null;
+    JsonGenerator generator = writer.getFactory().createGenerator(gzip ? compressed : out);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.setRootValueSeparator(null);
+    try {
+      booksRepository.streamAll(book -> write(generator, book));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    generator.close();
+    if (compressed != null) {
+      compressed.finish();
+    }
+  }
+
+  private void write(JsonGenerator generator, Book book) {
+    try {
+      writer.writeValue(generator, book);
+      generator.writeRaw('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.gmail.tikrai.books.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmail.tikrai.books.cache.BarcodeFilter;
+import com.gmail.tikrai.books.cache.BooksCache;
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.importer.BookSource;
+import com.gmail.tikrai.books.importer.CopyRowsReader;
+import com.gmail.tikrai.books.importer.CsvBookSource;
+import com.gmail.tikrai.books.importer.ImportReport;
+import com.gmail.tikrai.books.importer.NdjsonBookSource;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.response.ImportResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class BooksImportService {
+
+  public static final String TEXT_CSV_VALUE = "text/csv";
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+  private final BooksRepository booksRepository;
+  private final InventorySummaryService summaryService;
+  private final BooksCache booksCache;
+  private final BarcodeFilter barcodeFilter;
+  private final ObjectMapper mapper;
+  private final int maxReportedErrors;
+
+  @Autowired
+  public BooksImportService(
+      BooksRepository booksRepository,
+      InventorySummaryService summaryService,
+      BooksCache booksCache,
+      BarcodeFilter barcodeFilter,
+      ObjectMapper mapper,
+      @Value("${books.import.max-reported-errors}") int maxReportedErrors
+  ) {
+    this.booksRepository = booksRepository;
+    this.summaryService = summaryService;
+    this.booksCache = booksCache;
+    this.barcodeFilter = barcodeFilter;
+    this.mapper = mapper;
+    this.maxReportedErrors = maxReportedErrors;
+  }
+
+  @Transactional
+  public ImportResponse importBooks(InputStream body, MediaType contentType) {
+    ImportReport report = new ImportReport(maxReportedErrors);
+    try (CopyRowsReader rows = new CopyRowsReader(sourceOf(body, contentType), report)) {
+      final long imported = booksRepository.importRows(rows);
+      summaryService.reconcileAfterCommit();
+      booksCache.invalidateAllAfterCommit();
+      barcodeFilter.invalidateAfterCommit();
+      return report.toResponse(imported);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private BookSource sourceOf(InputStream body, MediaType contentType) throws IOException {
+    Charset charset = contentType.getCharset() == null
+        ? StandardCharsets.UTF_8
+        : contentType.getCharset();
+    Reader reader = new InputStreamReader(body, charset);
+    if (contentType.isCompatibleWith(MediaType.valueOf(TEXT_CSV_VALUE))) {
+      return new CsvBookSource(reader);
+    }
+    if (contentType.isCompatibleWith(MediaType.valueOf(APPLICATION_NDJSON_VALUE))) {
+      return new NdjsonBookSource(reader, mapper);
+    }
+    throw new ValidationException(String.format("Unsupported content type '%s'", contentType));
+  }
+}
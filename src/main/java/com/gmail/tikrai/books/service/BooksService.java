@@ -1,50 +1,404 @@
 package com.gmail.tikrai.books.service;
 
+import com.gmail.tikrai.books.cache.BarcodeFilter;
+import com.gmail.tikrai.books.cache.BooksCache;
+import com.gmail.tikrai.books.database.ReplicaReads;
 import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookChange;
+import com.gmail.tikrai.books.domain.BooksFilter;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.exception.InsufficientQuantityException;
+import com.gmail.tikrai.books.exception.PreconditionFailedException;
 import com.gmail.tikrai.books.exception.ResourceNotFoundException;
 import com.gmail.tikrai.books.exception.UniqueIdentifierException;
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.pricing.PricingEngine;
 import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
+import com.gmail.tikrai.books.request.BookPatch;
 import com.gmail.tikrai.books.request.BookRequest;
+import com.gmail.tikrai.books.request.QuantityAdjustment;
+import com.gmail.tikrai.books.response.BatchItemResponse;
+import com.gmail.tikrai.books.response.BooksLookupResponse;
+import com.gmail.tikrai.books.response.BooksPageResponse;
+import com.gmail.tikrai.books.response.TotalPricesLookupResponse;
+import com.gmail.tikrai.books.validation.validators.SizeValidator;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class BooksService {
+
   private final BooksRepository booksRepository;
+  private final InventorySummaryRepository summaryRepository;
+  private final BooksCache booksCache;
+  private final ReplicaReads replicaReads;
+  private final QuantitySlotsService quantitySlots;
+  private final BookLookupBatcher lookupBatcher;
+  private final BarcodeFilter barcodeFilter;
+  private final PricingEngine pricingEngine;
+  private final int maxPageSize;
 
   @Autowired
-  public BooksService(BooksRepository booksRepository) {
+  public BooksService(
+      BooksRepository booksRepository,
+      InventorySummaryRepository summaryRepository,
+      BooksCache booksCache,
+      ReplicaReads replicaReads,
+      QuantitySlotsService quantitySlots,
+      BookLookupBatcher lookupBatcher,
+      BarcodeFilter barcodeFilter,
+      PricingEngine pricingEngine,
+      @Value("${books.page.max-size}") int maxPageSize
+  ) {
     this.booksRepository = booksRepository;
+    this.summaryRepository = summaryRepository;
+    this.booksCache = booksCache;
+    this.replicaReads = replicaReads;
+    this.quantitySlots = quantitySlots;
+    this.lookupBatcher = lookupBatcher;
+    this.barcodeFilter = barcodeFilter;
+    this.pricingEngine = pricingEngine;
+    this.maxPageSize = maxPageSize;
+  }
+
+  public BooksPageResponse findPage(String cursor, int limit) {
+    SizeValidator.range("Query parameter limit", limit, 1, maxPageSize).validate();
+    Optional<String> after = Optional.ofNullable(cursor).map(this::decodeCursor);
+    List<Book> books = replicaReads.read(() -> booksRepository.findPage(after, limit + 1));
+    if (books.size() <= limit) {
+      return new BooksPageResponse(books, null);
+    }
+    List<Book> page = books.subList(0, limit);
+    return new BooksPageResponse(page, encodeCursor(page.get(limit - 1).barcode()));
   }
 
   public Book findByBarcode(String barcode) {
-    return booksRepository.findByBarcode(barcode)
-        .orElseThrow(() -> new ResourceNotFoundException(
-            String.format("Book with barcode '%s' was not found", barcode)
-        ));
+    if (!barcodeFilter.mightContain(barcode)) {
+      throw notFound(barcode);
+    }
+    return booksCache.get(barcode, lookupBatcher::load).orElseThrow(() -> notFound(barcode));
+  }
+
+  public BooksLookupResponse findByBarcodes(List<String> barcodes) {
+    return lookup(barcodes);
+  }
+
+  public TotalPricesLookupResponse getTotalPrices(List<String> barcodes) {
+    int currentYear = pricingEngine.currentYear();
+    BooksLookupResponse found = lookup(barcodes);
+    List<Book> books = found.books();
+    List<BigDecimal> prices = pricingEngine.totalPrices(books, currentYear);
+    Map<String, BigDecimal> totalPrices = new LinkedHashMap<>();
+    for (int i = 0; i < books.size(); i++) {
+      totalPrices.put(books.get(i).barcode(), prices.get(i));
+    }
+    return new TotalPricesLookupResponse(totalPrices, found.missing());
+  }
+
+  public long findVersion(String barcode) {
+    Optional<Long> cached = booksCache.getIfPresent(barcode).map(Book::version);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+    if (!barcodeFilter.mightContain(barcode)) {
+      throw notFound(barcode);
+    }
+    return replicaReads.read(barcode, () -> booksRepository.findVersion(barcode))
+        .orElseThrow(() -> notFound(barcode));
   }
 
-  public BigDecimal getTotalPrice(String barcode) {
-    return findByBarcode(barcode).totalPrice();
+  public BigDecimal getTotalPrice(BooksFilter filter) {
+    int currentYear = pricingEngine.currentYear();
+    return replicaReads.read(() -> booksRepository.totalPrice(filter, currentYear));
   }
 
+  @Transactional
   public Book create(Book book) {
-    if (booksRepository.findByBarcode(book.barcode()).isPresent()) {
-      throw new UniqueIdentifierException(
-          String.format("Book with barcode '%s' already exists", book.barcode())
-      );
+    Book created = booksRepository.create(book).orElseThrow(() -> new UniqueIdentifierException(
+        alreadyExistsMessage(book.barcode())
+    ));
+    summaryRepository.add(Collections.singletonList(pricingEngine.summary(created)));
+    replicaReads.written(created.barcode());
+    barcodeFilter.add(created.barcode());
+    booksCache.putAfterCommit(created);
+    return created;
+  }
+
+  @Transactional
+  public List<BatchItemResponse> createAll(List<BookRequest> requests) {
+    BatchItemResponse[] results = new BatchItemResponse[requests.size()];
+    Map<String, Integer> accepted = new LinkedHashMap<>();
+    for (int i = 0; i < requests.size(); i++) {
+      BookRequest request = requests.get(i);
+      Optional<String> error = request == null
+          ? Optional.of("Book cannot be null")
+          : request.valid();
+      if (error.isPresent()) {
+        String barcode = request == null ? null : request.barcode();
+        results[i] = BatchItemResponse.rejected(barcode, HttpStatus.BAD_REQUEST, error.get());
+      } else if (accepted.putIfAbsent(request.barcode(), i) != null) {
+        results[i] = alreadyExists(request.barcode());
+      }
+    }
+
+    if (!accepted.isEmpty()) {
+      List<Book> books = new ArrayList<>();
+      List<Integer> indexes = new ArrayList<>();
+      accepted.forEach((barcode, index) -> {
+        books.add(requests.get(index).toDomain());
+        indexes.add(index);
+      });
+
+      // Books missing from the inserted rows already existed
+      Map<String, Book> created = new HashMap<>();
+      booksRepository.createAll(books).forEach(book -> created.put(book.barcode(), book));
+      List<CategorySummary> summaries = new ArrayList<>();
+      for (int i = 0; i < books.size(); i++) {
+        String barcode = books.get(i).barcode();
+        Book book = created.get(barcode);
+        if (book == null) {
+          results[indexes.get(i)] = alreadyExists(barcode);
+        } else {
+          results[indexes.get(i)] = BatchItemResponse.created(barcode);
+          barcodeFilter.add(barcode);
+          summaries.add(pricingEngine.summary(book));
+        }
+      }
+      summaryRepository.add(summaries);
     }
-    return booksRepository.create(book);
+    return Arrays.asList(results);
   }
 
+  @Transactional
   public Book update(Book book) {
-    findByBarcode(book.barcode());
-    return booksRepository.update(book);
+    return update(book, Optional.empty());
+  }
+
+  @Transactional
+  public Book update(Book book, Optional<Long> expectedVersion) {
+    return applied(
+        book.barcode(), booksRepository.update(book, expectedVersion), expectedVersion
+    );
+  }
+
+  @Transactional
+  public Book updateFields(
+      String barcode,
+      Map<String, Object> updates,
+      Optional<Long> expectedVersion
+  ) {
+    BookPatch patch = BookPatch.of(updates);
+    patch.validate();
+    Optional<BookChange> change = booksRepository.patch(barcode, patch, expectedVersion);
+    return applied(barcode, change, expectedVersion);
+  }
+
+  @Transactional
+  public Book adjustQuantity(QuantityAdjustment adjustment) {
+    adjustment.validate();
+    String barcode = adjustment.barcode();
+    Optional<Book> adjusted = booksRepository.adjustQuantity(barcode, adjustment.delta());
+    replicaReads.written(barcode);
+    if (adjusted.isPresent()) {
+      quantitySlots.recordAdjustment(barcode);
+      booksCache.putAfterCommit(adjusted.get());
+    } else {
+      adjusted = adjustSlotted(barcode, adjustment.delta());
+    }
+    if (!adjusted.isPresent()) {
+      booksCache.invalidate(barcode);
+      booksRepository.findVersion(barcode).orElseThrow(() -> notFound(barcode));
+      throw insufficientQuantity(Collections.singleton(barcode));
+    }
+    Map<String, Long> deltas = Collections.singletonMap(barcode, (long) adjustment.delta());
+    return recordAdjusted(Collections.singletonList(adjusted.get()), deltas).get(0);
+  }
+
+  @Transactional
+  public List<Book> adjustQuantities(List<QuantityAdjustment> adjustments) {
+    Map<String, Long> deltas = new TreeMap<>();
+    for (QuantityAdjustment adjustment : adjustments) {
+      if (adjustment == null) {
+        throw new ValidationException("Quantity adjustment cannot be null");
+      }
+      adjustment.validate();
+      deltas.merge(adjustment.barcode(), (long) adjustment.delta(), Long::sum);
+    }
+    if (deltas.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Set<String> existing = booksRepository.lockAll(deltas.keySet());
+    deltas.keySet().stream()
+        .filter(barcode -> !existing.contains(barcode))
+        .findFirst()
+        .ifPresent(barcode -> {
+          throw notFound(barcode);
+        });
+    List<Book> adjusted = new ArrayList<>(booksRepository.adjustQuantities(deltas));
+    deltas.keySet().forEach(replicaReads::written);
+    adjusted.forEach(booksCache::putAfterCommit);
+    Set<String> remaining = new TreeSet<>(deltas.keySet());
+    adjusted.forEach(book -> remaining.remove(book.barcode()));
+    Set<String> insufficient = new TreeSet<>();
+    for (String barcode : remaining) {
+      Optional<Book> slotted = adjustSlotted(barcode, deltas.get(barcode));
+      if (slotted.isPresent()) {
+        adjusted.add(slotted.get());
+      } else {
+        insufficient.add(barcode);
+      }
+    }
+    if (!insufficient.isEmpty()) {
+      deltas.keySet().forEach(booksCache::invalidate);
+      throw insufficientQuantity(insufficient);
+    }
+    adjusted.sort(Comparator.comparing(Book::barcode));
+    return recordAdjusted(adjusted, deltas);
+  }
+
+  private Optional<Book> adjustSlotted(String barcode, long delta) {
+    Optional<Book> adjusted = booksRepository.adjustSlot(barcode, delta);
+    if (adjusted.isPresent()) {
+      booksCache.invalidate(barcode);
+      return adjusted;
+    }
+    adjusted = booksRepository.spreadQuantity(barcode, Optional.empty(), delta);
+    adjusted.ifPresent(booksCache::putAfterCommit);
+    return adjusted;
+  }
+
+  private List<Book> recordAdjusted(List<Book> books, Map<String, Long> deltas) {
+    List<CategorySummary> changes = new ArrayList<>();
+    for (Book book : books) {
+      int previousQuantity = (int) (book.quantity() - deltas.get(book.barcode()));
+      changes.add(pricingEngine.summary(book.withQuantity(previousQuantity)).negate());
+      changes.add(pricingEngine.summary(book));
+    }
+    summaryRepository.add(changes);
+    return books;
+  }
+
+  private Book applied(
+      String barcode,
+      Optional<BookChange> change,
+      Optional<Long> expectedVersion
+  ) {
+    replicaReads.written(barcode);
+    Optional<Book> updated = change.flatMap(BookChange::current);
+    if (!updated.isPresent()) {
+      booksCache.invalidate(barcode);
+      if (!change.isPresent()) {
+        throw notFound(barcode);
+      }
+      if (expectedVersion.isPresent()
+          && expectedVersion.get() != change.get().previous().version()) {
+        throw preconditionFailed(barcode, expectedVersion.get());
+      }
+      throw new ValidationException(BookRequest.ANTIQUE_AND_SCIENCE);
+    }
+    summaryRepository.add(Arrays.asList(
+        pricingEngine.summary(change.get().previous()).negate(),
+        pricingEngine.summary(updated.get())
+    ));
+    booksCache.putAfterCommit(updated.get());
+    return updated.get();
+  }
+
+  // Validates the barcodes, then reads the uncached ones in one query and splits found from missing
+  private BooksLookupResponse lookup(List<String> barcodes) {
+    if (barcodes == null) {
+      throw new ValidationException("Barcodes cannot be null");
+    }
+    Map<String, Book> found = new LinkedHashMap<>();
+    for (String barcode : barcodes) {
+      if (barcode == null) {
+        throw new ValidationException("Barcode cannot be null");
+      }
+      SizeValidator.range("barcode", barcode, 2, 255).validate();
+      found.put(barcode, null);
+    }
+    SizeValidator.range("Number of barcodes", found.size(), 1, maxPageSize).validate();
+    found.putAll(booksCache.getAllPresent(found.keySet()));
+    List<String> uncached = found.entrySet().stream()
+        .filter(entry -> entry.getValue() == null)
+        .map(Map.Entry::getKey)
+        .filter(barcodeFilter::mightContain)
+        .collect(Collectors.toList());
+    if (!uncached.isEmpty()) {
+      replicaReads.read(uncached, () -> booksRepository.findByBarcodes(uncached))
+          .forEach(book -> found.put(book.barcode(), book));
+    }
+    List<Book> books = new ArrayList<>();
+    List<String> missing = new ArrayList<>();
+    found.forEach((barcode, book) -> {
+      if (book == null) {
+        missing.add(barcode);
+      } else {
+        books.add(book);
+      }
+    });
+    return new BooksLookupResponse(books, missing);
+  }
+
+  private String encodeCursor(String barcode) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(barcode.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String decodeCursor(String cursor) {
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new ValidationException(
+          String.format("Query parameter after '%s' is not a valid cursor", cursor)
+      );
+    }
+  }
+
+  private BatchItemResponse alreadyExists(String barcode) {
+    return BatchItemResponse.rejected(barcode, HttpStatus.CONFLICT, alreadyExistsMessage(barcode));
+  }
+
+  private String alreadyExistsMessage(String barcode) {
+    return String.format("Book with barcode '%s' already exists", barcode);
+  }
+
+  private PreconditionFailedException preconditionFailed(String barcode, Long version) {
+    return new PreconditionFailedException(
+        String.format("Book with barcode '%s' has changed since version %d", barcode, version)
+    );
+  }
+
+  private InsufficientQuantityException insufficientQuantity(Set<String> barcodes) {
+    return new InsufficientQuantityException(String.format(
+        "Quantity of books with barcodes %s cannot go below zero", barcodes
+    ));
   }
 
-  public BookRequest updateRequest(String barcode, Map<String, Object> updates) {
-    return BookRequest.of(findByBarcode(barcode)).withUpdatedFields(updates);
+  private ResourceNotFoundException notFound(String barcode) {
+    return new ResourceNotFoundException(
+        String.format("Book with barcode '%s' was not found", barcode)
+    );
   }
 }
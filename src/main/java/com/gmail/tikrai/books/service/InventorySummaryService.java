@@ -0,0 +1,93 @@
+package com.gmail.tikrai.books.service;
+
+import com.gmail.tikrai.books.config.ScheduledDelays;
+import com.gmail.tikrai.books.database.ReplicaReads;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
+import com.gmail.tikrai.books.response.InventorySummaryResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class InventorySummaryService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(InventorySummaryService.class);
+
+  private final InventorySummaryRepository summaryRepository;
+  private final ReplicaReads replicaReads;
+  private final PricingEngine pricingEngine;
+  private final TransactionTemplate snapshot;
+  private final TransactionTemplate transaction;
+
+  @Autowired
+  public InventorySummaryService(
+      InventorySummaryRepository summaryRepository,
+      ReplicaReads replicaReads,
+      PricingEngine pricingEngine,
+      PlatformTransactionManager transactionManager
+  ) {
+    this.summaryRepository = summaryRepository;
+    this.replicaReads = replicaReads;
+    this.pricingEngine = pricingEngine;
+    this.snapshot = new TransactionTemplate(transactionManager);
+    this.snapshot.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.transaction = new TransactionTemplate(transactionManager);
+    this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  public InventorySummaryResponse getSummary() {
+    int currentYear = pricingEngine.currentYear();
+    Map<BookType, CategorySummary> summaries = replicaReads.read(summaryRepository::findAll);
+    return InventorySummaryResponse.of(summaries, currentYear);
+  }
+
+  /**
+   * Drift is read without locking the summary and added as a delta like any other write, so writes
+   * are never blocked by the reconciliation and those committed meanwhile are kept.
+   */
+  @Scheduled(
+      initialDelayString =
+          ScheduledDelays.MILLIS_OF + "${books.summary.reconcile-interval}" + ScheduledDelays.END,
+      fixedDelayString =
+          ScheduledDelays.MILLIS_OF + "${books.summary.reconcile-interval}" + ScheduledDelays.END
+  )
+  public void reconcile() {
+    List<CategorySummary> drift = snapshot.execute(status -> summaryRepository.findDrift());
+    if (drift == null || drift.isEmpty()) {
+      return;
+    }
+    transaction.execute(status -> {
+      summaryRepository.add(drift);
+      return null;
+    });
+    List<BookType> drifted = drift.stream().map(CategorySummary::type).collect(Collectors.toList());
+    LOG.warn("Inventory summary of {} drifted from books and was recalculated", drifted);
+  }
+
+  public void reconcileAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      reconcile();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        reconcile();
+      }
+    });
+  }
+}
@@ -0,0 +1,98 @@
+package com.gmail.tikrai.books.service;
+
+import com.gmail.tikrai.books.cache.BooksCache;
+import com.gmail.tikrai.books.config.ScheduledDelays;
+import com.gmail.tikrai.books.database.ReplicaReads;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.exception.ResourceNotFoundException;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.request.QuantitySlots;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class QuantitySlotsService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(QuantitySlotsService.class);
+
+  private final BooksRepository booksRepository;
+  private final BooksCache booksCache;
+  private final ReplicaReads replicaReads;
+  private final long autoThreshold;
+  private final int autoSlots;
+  private final Map<String, LongAdder> adjustments = new ConcurrentHashMap<>();
+
+  @Autowired
+  public QuantitySlotsService(
+      BooksRepository booksRepository,
+      BooksCache booksCache,
+      ReplicaReads replicaReads,
+      @Value("${books.quantity-slots.auto.threshold}") long autoThreshold,
+      @Value("${books.quantity-slots.auto.slots}") int autoSlots
+  ) {
+    this.booksRepository = booksRepository;
+    this.booksCache = booksCache;
+    this.replicaReads = replicaReads;
+    this.autoThreshold = autoThreshold;
+    this.autoSlots = autoSlots;
+  }
+
+  @Transactional
+  public Book configure(String barcode, QuantitySlots request) {
+    request.validate();
+    Book book = booksRepository.spreadQuantity(barcode, Optional.of(request.slots()), 0)
+        .orElseThrow(() -> new ResourceNotFoundException(
+            String.format("Book with barcode '%s' was not found", barcode)
+        ));
+    replicaReads.written(barcode);
+    booksCache.putAfterCommit(book);
+    return book;
+  }
+
+  public void recordAdjustment(String barcode) {
+    if (autoThreshold > 0) {
+      adjustments.computeIfAbsent(barcode, key -> new LongAdder()).increment();
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = ScheduledDelays.MILLIS_OF
+          + "${books.quantity-slots.rebalance-interval}" + ScheduledDelays.END,
+      fixedDelayString = ScheduledDelays.MILLIS_OF
+          + "${books.quantity-slots.rebalance-interval}" + ScheduledDelays.END
+  )
+  public void rebalance() {
+    List<String> hot = new ArrayList<>();
+    for (String barcode : adjustments.keySet()) {
+      LongAdder count = adjustments.remove(barcode);
+      if (count != null && count.sum() >= autoThreshold) {
+        hot.add(barcode);
+      }
+    }
+    hot.forEach(barcode -> spread(barcode, Optional.of(autoSlots)));
+    if (!hot.isEmpty()) {
+      LOG.info("Quantity of hot books {} was spread across {} slots", hot, autoSlots);
+    }
+    booksRepository.findUnbalancedSlots().forEach(barcode -> spread(barcode, Optional.empty()));
+  }
+
+  private void spread(String barcode, Optional<Integer> slots) {
+    Optional<Book> spread = booksRepository.spreadQuantity(barcode, slots, 0);
+    if (spread.isPresent()) {
+      booksCache.put(spread.get());
+    } else {
+      booksCache.invalidate(barcode);
+    }
+  }
+}
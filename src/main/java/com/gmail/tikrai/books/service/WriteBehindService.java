@@ -0,0 +1,390 @@
+package com.gmail.tikrai.books.service;
+
+import com.gmail.tikrai.books.cache.BarcodeFilter;
+import com.gmail.tikrai.books.cache.BooksCache;
+import com.gmail.tikrai.books.database.ReplicaReads;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookChange;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.exception.ResourceNotFoundException;
+import com.gmail.tikrai.books.exception.TooManyRequestsException;
+import com.gmail.tikrai.books.exception.UniqueIdentifierException;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class WriteBehindService implements SmartLifecycle {
+
+  public static final String THREAD_NAME = "books-write-behind";
+  private static final Logger LOG = LoggerFactory.getLogger(WriteBehindService.class);
+  private static final String METRICS_PREFIX = "books.write.behind";
+  // Stop after the web server so that writes accepted until then are still flushed
+  private static final int PHASE = Integer.MAX_VALUE - 2;
+
+  private final BooksRepository booksRepository;
+  private final InventorySummaryRepository summaryRepository;
+  private final BooksCache booksCache;
+  private final BarcodeFilter barcodeFilter;
+  private final ReplicaReads replicaReads;
+  private final PricingEngine pricingEngine;
+  private final TransactionTemplate transaction;
+  private final boolean enabled;
+  private final Durability durability;
+  private final BlockingQueue<Write> queue;
+  private final long flushIntervalNanos;
+  private final int flushSize;
+  private final long shutdownTimeoutMillis;
+  private final Timer flushLatency;
+  private final DistributionSummary flushedBooks;
+  private final Counter rejected;
+  private final Counter failed;
+  private final Counter lost;
+  private volatile boolean running;
+  private Thread thread;
+
+  @Autowired
+  public WriteBehindService(
+      BooksRepository booksRepository,
+      InventorySummaryRepository summaryRepository,
+      BooksCache booksCache,
+      BarcodeFilter barcodeFilter,
+      ReplicaReads replicaReads,
+      PricingEngine pricingEngine,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry registry,
+      @Value("${books.write-behind.enabled}") boolean enabled,
+      @Value("${books.write-behind.durability}") Durability durability,
+      @Value("${books.write-behind.queue-capacity}") int queueCapacity,
+      @Value("${books.write-behind.flush-interval}") Duration flushInterval,
+      @Value("${books.write-behind.flush-size}") int flushSize,
+      @Value("${books.write-behind.shutdown-timeout}") Duration shutdownTimeout
+  ) {
+    this.booksRepository = booksRepository;
+    this.summaryRepository = summaryRepository;
+    this.booksCache = booksCache;
+    this.barcodeFilter = barcodeFilter;
+    this.replicaReads = replicaReads;
+    this.pricingEngine = pricingEngine;
+    this.transaction = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.durability = durability;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.flushSize = flushSize;
+    this.shutdownTimeoutMillis = shutdownTimeout.toMillis();
+    registry.gauge(METRICS_PREFIX + ".queue.depth", queue, BlockingQueue::size);
+    this.flushLatency = registry.timer(METRICS_PREFIX + ".flush.latency");
+    this.flushedBooks = registry.summary(METRICS_PREFIX + ".flush.books");
+    this.rejected = registry.counter(METRICS_PREFIX + ".rejected");
+    this.failed = registry.counter(METRICS_PREFIX + ".failed");
+    this.lost = registry.counter(METRICS_PREFIX + ".lost");
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public Optional<Book> create(Book book) {
+    return write(new Write(Operation.CREATE, book));
+  }
+
+  public Optional<Book> update(Book book) {
+    return write(new Write(Operation.UPDATE, book));
+  }
+
+  private Optional<Book> write(Write write) {
+    if (!running) {
+      rejected.increment();
+      throw new TooManyRequestsException("Write-behind queue is not accepting writes");
+    }
+    if (!queue.offer(write)) {
+      rejected.increment();
+      throw new TooManyRequestsException("Write-behind queue is full, retry later");
+    }
+    if (durability == Durability.QUEUED) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(write.stored.join());
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public synchronized void start() {
+    if (!enabled || running) {
+      return;
+    }
+    running = true;
+    thread = new Thread(this::run, THREAD_NAME);
+    thread.start();
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (thread == null) {
+      return;
+    }
+    running = false;
+    try {
+      thread.join(shutdownTimeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    List<Write> unflushed = new ArrayList<>();
+    queue.drainTo(unflushed);
+    if (thread.isAlive() || !unflushed.isEmpty()) {
+      LOG.warn(
+          "Write-behind queue was not drained, {} writes were not flushed", unflushed.size()
+      );
+    }
+    unflushed.forEach(write -> write.stored.completeExceptionally(
+        new TooManyRequestsException("Write-behind queue was stopped before flushing the write")
+    ));
+    thread = null;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+
+  private void run() {
+    List<Write> batch = new ArrayList<>(flushSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        collect(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private void collect(List<Write> batch) throws InterruptedException {
+    Write first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+    if (first == null) {
+      return;
+    }
+    batch.add(first);
+    long deadline = System.nanoTime() + flushIntervalNanos;
+    while (batch.size() < flushSize) {
+      if (queue.drainTo(batch, flushSize - batch.size()) == 0) {
+        long remaining = deadline - System.nanoTime();
+        Write next = running && remaining > 0
+            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+            : null;
+        if (next == null) {
+          return;
+        }
+        batch.add(next);
+      }
+    }
+  }
+
+  private void flush(List<Write> batch) {
+    int books = (int) batch.stream().map(write -> write.book.barcode()).distinct().count();
+    long started = System.nanoTime();
+    try {
+      commit(batch);
+    } finally {
+      flushLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+      flushedBooks.record(books);
+    }
+  }
+
+  // A failed batch is split in halves until the writes that cannot be stored are alone
+  private void commit(List<Write> writes) {
+    List<Segment> segments = segments(writes);
+    try {
+      transaction.execute(status -> {
+        if (durability != Durability.COMMIT) {
+          booksRepository.commitAsynchronously();
+        }
+        segments.forEach(this::store);
+        return null;
+      });
+    } catch (RuntimeException e) {
+      if (writes.size() > 1) {
+        int half = writes.size() / 2;
+        commit(writes.subList(0, half));
+        commit(writes.subList(half, writes.size()));
+      } else {
+        fail(writes.get(0), e);
+      }
+      return;
+    }
+    segments.forEach(segment -> segment.stored.values().forEach(book -> {
+      replicaReads.written(book.barcode());
+      barcodeFilter.add(book.barcode());
+      booksCache.put(book);
+    }));
+    int rejected = segments.stream().mapToInt(Segment::complete).sum();
+    if (rejected > 0 && durability == Durability.QUEUED) {
+      lost.increment(rejected);
+      LOG.warn("{} queued writes created existing or updated missing books", rejected);
+    }
+  }
+
+  private void fail(Write write, RuntimeException e) {
+    failed.increment();
+    if (durability == Durability.QUEUED) {
+      lost.increment();
+    }
+    LOG.error("Flushing written-behind book '{}' failed", write.book.barcode(), e);
+    booksCache.invalidate(write.book.barcode());
+    write.stored.completeExceptionally(e);
+  }
+
+  // A book created and updated within one batch is stored in order, one segment per operation
+  private static List<Segment> segments(List<Write> batch) {
+    List<Segment> segments = new ArrayList<>();
+    Segment segment = new Segment();
+    for (Write write : batch) {
+      if (!segment.accepts(write)) {
+        segments.add(segment);
+        segment = new Segment();
+      }
+      segment.add(write);
+    }
+    segments.add(segment);
+    return segments;
+  }
+
+  private void store(Segment segment) {
+    List<CategorySummary> summaries = new ArrayList<>();
+    if (!segment.updates.isEmpty()) {
+      List<Book> updates = new ArrayList<>(segment.updates.values());
+      for (BookChange change : booksRepository.updateAll(updates)) {
+        change.current().ifPresent(current -> {
+          segment.stored.put(current.barcode(), current);
+          summaries.add(pricingEngine.summary(change.previous()).negate());
+          summaries.add(pricingEngine.summary(current));
+        });
+      }
+    }
+    if (!segment.creates.isEmpty()) {
+      List<Book> creates = new ArrayList<>(segment.creates.values());
+      for (Book created : booksRepository.createAbsent(creates)) {
+        segment.stored.put(created.barcode(), created);
+        summaries.add(pricingEngine.summary(created));
+      }
+    }
+    summaryRepository.add(summaries);
+  }
+
+  /**
+   * {@link #QUEUED} writes are acknowledged before they are stored, so a create of an existing
+   * book, an update of a missing one or a write that fails to store is lost: it is only logged
+   * when its batch is flushed and counted in {@code books.write.behind.lost}. The last queued
+   * write of a book wins among writes of the same operation, a create and an update of one book
+   * are stored in the order they were queued.
+   */
+  public enum Durability {
+    QUEUED,
+    ASYNC_COMMIT,
+    COMMIT
+  }
+
+  private enum Operation {
+    CREATE,
+    UPDATE
+  }
+
+  private static class Write {
+
+    private final Operation operation;
+    private final Book book;
+    private final CompletableFuture<Book> stored = new CompletableFuture<>();
+
+    Write(Operation operation, Book book) {
+      this.operation = operation;
+      this.book = book;
+    }
+  }
+
+  /**
+   * Consecutive writes with one operation per book. The last write of a book wins, so each of
+   * its writes completes with the same stored book.
+   */
+  private static class Segment {
+
+    private final List<Write> writes = new ArrayList<>();
+    private final Map<String, Operation> operations = new HashMap<>();
+    private final Map<String, Book> creates = new TreeMap<>();
+    private final Map<String, Book> updates = new TreeMap<>();
+    private final Map<String, Book> stored = new HashMap<>();
+
+    boolean accepts(Write write) {
+      Operation operation = operations.get(write.book.barcode());
+      return operation == null || operation == write.operation;
+    }
+
+    void add(Write write) {
+      writes.add(write);
+      operations.put(write.book.barcode(), write.operation);
+      Map<String, Book> books = write.operation == Operation.CREATE ? creates : updates;
+      books.put(write.book.barcode(), write.book);
+    }
+
+    int complete() {
+      int rejected = 0;
+      for (Write write : writes) {
+        Book book = stored.get(write.book.barcode());
+        if (book != null) {
+          write.stored.complete(book);
+          continue;
+        }
+        rejected++;
+        if (write.operation == Operation.CREATE) {
+          write.stored.completeExceptionally(new UniqueIdentifierException(String.format(
+              "Book with barcode '%s' already exists", write.book.barcode()
+          )));
+        } else {
+          write.stored.completeExceptionally(new ResourceNotFoundException(String.format(
+              "Book with barcode '%s' was not found", write.book.barcode()
+          )));
+        }
+      }
+      return rejected;
+    }
+  }
+}
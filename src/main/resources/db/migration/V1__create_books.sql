@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS books(
+   barcode VARCHAR (255) PRIMARY KEY,
+   name VARCHAR (255) NOT NULL,
+   author VARCHAR (255) NOT NULL,
+   quantity INTEGER NOT NULL,
+   price INTEGER NOT NULL,
+   antique_release_year INTEGER,
+   science_index INTEGER
+);
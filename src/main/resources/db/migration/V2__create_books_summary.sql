@@ -0,0 +1,26 @@
+CREATE TABLE IF NOT EXISTS books_summary(
+   type VARCHAR (16) PRIMARY KEY,
+   books BIGINT NOT NULL,
+   quantity BIGINT NOT NULL,
+   value_per_year NUMERIC NOT NULL,
+   value_fixed NUMERIC NOT NULL
+);
+
+INSERT INTO books_summary (type, books, quantity, value_per_year, value_fixed)
+SELECT types.type,
+   COUNT(books.barcode),
+   COALESCE(SUM(books.quantity), 0),
+   COALESCE(SUM(CASE types.type
+      WHEN 'ANTIQUE' THEN books.price::numeric * books.quantity
+      ELSE 0 END), 0),
+   COALESCE(SUM(CASE types.type
+      WHEN 'ANTIQUE' THEN -books.price::numeric * books.quantity * books.antique_release_year
+      WHEN 'SCIENCE' THEN books.price::numeric * books.quantity * books.science_index * 10
+      ELSE books.price::numeric * books.quantity * 10 END), 0)
+FROM unnest(ARRAY['REGULAR', 'ANTIQUE', 'SCIENCE']) types(type)
+LEFT JOIN books ON types.type = CASE
+   WHEN books.antique_release_year IS NOT NULL THEN 'ANTIQUE'
+   WHEN books.science_index IS NOT NULL THEN 'SCIENCE'
+   ELSE 'REGULAR' END
+GROUP BY types.type
+ON CONFLICT (type) DO NOTHING;
@@ -0,0 +1,32 @@
+ALTER TABLE books ADD COLUMN quantity_slots INTEGER NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS books_quantity_slots_idx ON books (barcode) WHERE quantity_slots > 0;
+
+CREATE TABLE IF NOT EXISTS books_quantity_slots(
+   barcode VARCHAR (255) NOT NULL REFERENCES books (barcode) ON DELETE CASCADE,
+   slot INTEGER NOT NULL,
+   quantity INTEGER NOT NULL CHECK (quantity >= 0),
+   version BIGINT NOT NULL DEFAULT 0,
+   PRIMARY KEY (barcode, slot)
+);
+
+CREATE OR REPLACE VIEW books_stock AS
+SELECT books.barcode,
+   books.name,
+   books.author,
+   CASE WHEN books.quantity_slots = 0 THEN books.quantity
+      ELSE (books.quantity + (SELECT COALESCE(SUM(slots.quantity), 0)
+         FROM books_quantity_slots slots WHERE slots.barcode = books.barcode))::integer
+      END AS quantity,
+   books.price,
+   books.antique_release_year,
+   books.science_index,
+   CASE WHEN books.quantity_slots = 0 THEN books.version
+      ELSE (books.version + (SELECT COALESCE(SUM(slots.version), 0)
+         FROM books_quantity_slots slots WHERE slots.barcode = books.barcode))::bigint
+      END AS version
+FROM books;
+
+ALTER TABLE books_summary ADD COLUMN slot INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE books_summary DROP CONSTRAINT books_summary_pkey;
+ALTER TABLE books_summary ADD PRIMARY KEY (type, slot);
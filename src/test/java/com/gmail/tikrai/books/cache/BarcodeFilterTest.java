@@ -0,0 +1,156 @@
+package com.gmail.tikrai.books.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.gmail.tikrai.books.repository.BooksRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class BarcodeFilterTest {
+
+  private final BooksRepository booksRepository = mock(BooksRepository.class);
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final AtomicLong clock = new AtomicLong();
+  private final BarcodeFilter filter = filter(true);
+
+  @BeforeEach
+  void setup() {
+    when(booksRepository.countAll()).thenReturn(2L);
+    streamBarcodes(consumer -> {
+      consumer.accept("1234");
+      consumer.accept("5678");
+    });
+  }
+
+  @Test
+  void shouldLetEveryBarcodeThroughUntilBuilt() {
+    assertThat(filter.mightContain("0000"), is(true));
+    verifyNoInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldRejectBarcodesMissingFromDatabase() {
+    filter.refresh();
+
+    assertThat(filter.mightContain("1234"), is(true));
+    assertThat(filter.mightContain("5678"), is(true));
+    assertThat(filter.mightContain("0000"), is(false));
+    assertThat(registry.get("books.barcode.filter.misses").counter().count(), is(1.0));
+    assertThat(registry.get("books.barcode.filter.bytes").gauge().value(), greaterThan(0.0));
+    double falsePositiveRate =
+        registry.get("books.barcode.filter.false.positive.rate").gauge().value();
+    assertThat(falsePositiveRate, greaterThan(0.0));
+    assertThat(falsePositiveRate, lessThan(0.01));
+  }
+
+  @Test
+  void shouldContainAddedBarcodes() {
+    filter.refresh();
+
+    filter.add("0000");
+
+    assertThat(filter.mightContain("0000"), is(true));
+  }
+
+  @Test
+  void shouldContainBarcodesAddedWhileRebuilding() {
+    streamBarcodes(consumer -> {
+      filter.add("0000");
+      consumer.accept("1234");
+    });
+
+    filter.refresh();
+
+    assertThat(filter.mightContain("0000"), is(true));
+  }
+
+  @Test
+  void shouldLetEveryBarcodeThroughAfterInvalidationUntilRebuilt() {
+    filter.refresh();
+
+    filter.invalidate();
+
+    assertThat(filter.mightContain("0000"), is(true));
+    filter.refresh();
+    assertThat(filter.mightContain("0000"), is(false));
+    verify(booksRepository, times(2)).countAll();
+  }
+
+  @Test
+  void shouldDiscardRebuildInvalidatedWhileStreaming() {
+    streamBarcodes(consumer -> filter.invalidate());
+
+    filter.refresh();
+
+    assertThat(filter.mightContain("0000"), is(true));
+  }
+
+  @Test
+  void shouldRebuildOnlyAfterRebuildInterval() {
+    filter.refresh();
+    filter.refresh();
+    clock.addAndGet(Duration.ofMinutes(1).toNanos());
+    filter.refresh();
+
+    verify(booksRepository, times(2)).countAll();
+  }
+
+  @Test
+  void shouldLetEveryBarcodeThroughIfRebuildFails() {
+    doThrow(new QueryTimeoutException("Query timed out"))
+        .when(booksRepository).streamBarcodes(any());
+
+    filter.refresh();
+
+    assertThat(filter.mightContain("0000"), is(true));
+  }
+
+  @Test
+  void shouldNotBuildIfDisabled() {
+    BarcodeFilter disabled = filter(false);
+
+    disabled.refresh();
+
+    assertThat(disabled.mightContain("0000"), is(true));
+    verifyNoInteractions(booksRepository);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void streamBarcodes(Consumer<Consumer<String>> barcodes) {
+    doAnswer(invocation -> {
+      barcodes.accept(invocation.getArgument(0));
+      return null;
+    }).when(booksRepository).streamBarcodes(any(Consumer.class));
+  }
+
+  private BarcodeFilter filter(boolean enabled) {
+    return new BarcodeFilter(
+        booksRepository,
+        mock(PlatformTransactionManager.class),
+        registry,
+        enabled,
+        0.01,
+        1000,
+        Duration.ofMinutes(1),
+        clock::get
+    );
+  }
+}
@@ -0,0 +1,149 @@
+package com.gmail.tikrai.books.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.fixture.Fixture;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class BooksCacheTest {
+
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final Book book = Fixture.book().build();
+  private final AtomicInteger loads = new AtomicInteger();
+  private final Function<String, Optional<Book>> loader = barcode -> {
+    loads.incrementAndGet();
+    return barcode.equals(book.barcode()) ? Optional.of(book) : Optional.empty();
+  };
+
+  @Test
+  void shouldLoadBookOnlyOnce() {
+    BooksCache cache = new BooksCache(true, 10, Duration.ZERO, registry);
+
+    cache.get(book.barcode(), loader);
+    Optional<Book> actual = cache.get(book.barcode(), loader);
+
+    assertThat(actual, is(Optional.of(book)));
+    assertThat(loads.get(), is(1));
+    assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count(), is(1.0));
+    assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count(), is(1.0));
+  }
+
+  @Test
+  void shouldGetOnlyCachedBooks() {
+    BooksCache cache = new BooksCache(true, 10, Duration.ZERO, registry);
+    cache.put(book);
+
+    Map<String, Book> actual = cache.getAllPresent(Arrays.asList(book.barcode(), "missing"));
+
+    assertThat(actual, is(Collections.singletonMap(book.barcode(), book)));
+    assertThat(loads.get(), is(0));
+  }
+
+  @Test
+  void shouldNotCacheMissingBook() {
+    BooksCache cache = new BooksCache(true, 10, Duration.ZERO, registry);
+
+    cache.get("missing", loader);
+    Optional<Book> actual = cache.get("missing", loader);
+
+    assertThat(actual, is(Optional.empty()));
+    assertThat(loads.get(), is(2));
+  }
+
+  @Test
+  void shouldReturnPutBookWithoutLoading() {
+    BooksCache cache = new BooksCache(true, 10, Duration.ZERO, registry);
+    Book updated = Fixture.book().author("New Author").build();
+
+    cache.get(book.barcode(), loader);
+    cache.put(updated);
+
+    assertThat(cache.get(book.barcode(), loader), is(Optional.of(updated)));
+    assertThat(loads.get(), is(1));
+  }
+
+  @Test
+  void shouldKeepBookPutWhileLoading() {
+    BooksCache cache = new BooksCache(true, 10, Duration.ZERO, registry);
+    Book updated = Fixture.book().author("New Author").version(2).build();
+
+    Optional<Book> actual = cache.get(book.barcode(), barcode -> {
+      cache.put(updated);
+      return Optional.of(book);
+    });
+
+    assertThat(actual, is(Optional.of(book)));
+    assertThat(cache.getIfPresent(book.barcode()), is(Optional.of(updated)));
+  }
+
+  @Test
+  void shouldGetBookIfPresentWithoutLoading() {
+    BooksCache cache = new BooksCache(true, 10, Duration.ZERO, registry);
+
+    Optional<Book> missing = cache.getIfPresent(book.barcode());
+    cache.put(book);
+
+    assertThat(missing, is(Optional.empty()));
+    assertThat(cache.getIfPresent(book.barcode()), is(Optional.of(book)));
+    assertThat(loads.get(), is(0));
+  }
+
+  @Test
+  void shouldPutBookOnlyAfterCommit() {
+    BooksCache cache = new BooksCache(true, 10, Duration.ZERO, registry);
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cache.putAfterCommit(book);
+
+      assertThat(cache.getIfPresent(book.barcode()), is(Optional.empty()));
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertThat(cache.getIfPresent(book.barcode()), is(Optional.of(book)));
+  }
+
+  @Test
+  void shouldLoadBookAgainAfterInvalidation() {
+    BooksCache cache = new BooksCache(true, 10, Duration.ZERO, registry);
+
+    cache.get(book.barcode(), loader);
+    cache.invalidate(book.barcode());
+    cache.get(book.barcode(), loader);
+    cache.invalidateAllAfterCommit();
+    cache.get(book.barcode(), loader);
+
+    assertThat(loads.get(), is(3));
+  }
+
+  @Test
+  void shouldAlwaysLoadBookIfDisabled() {
+    BooksCache cache = new BooksCache(false, 10, Duration.ZERO, registry);
+
+    cache.put(book);
+    cache.get(book.barcode(), loader);
+    cache.get(book.barcode(), loader);
+
+    assertThat(loads.get(), is(2));
+    assertThat(cache.getIfPresent(book.barcode()), is(Optional.empty()));
+    assertThat(
+        cache.getAllPresent(Collections.singletonList(book.barcode())),
+        is(Collections.emptyMap())
+    );
+  }
+}
@@ -0,0 +1,131 @@
+package com.gmail.tikrai.books.cache;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.gmail.tikrai.books.database.ReplicaReads;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+class BooksChangesListenerTest {
+
+  private final BooksCache booksCache = mock(BooksCache.class);
+  private final Connection connection = mock(Connection.class);
+  private final Statement statement = mock(Statement.class);
+  private final PGConnection pgConnection = mock(PGConnection.class);
+  private final BarcodeFilter barcodeFilter = mock(BarcodeFilter.class);
+  private final ReplicaReads replicaReads = mock(ReplicaReads.class);
+  private final BooksChangesListener listener = new BooksChangesListener(
+      booksCache,
+      barcodeFilter,
+      replicaReads,
+      () -> connection,
+      true,
+      Duration.ofMillis(10),
+      Duration.ofMillis(10)
+  );
+
+  @BeforeEach
+  void setup() throws SQLException {
+    when(connection.createStatement()).thenReturn(statement);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+  }
+
+  @AfterEach
+  void stop() {
+    listener.stop();
+  }
+
+  @Test
+  void shouldEvictNotifiedBarcodes() throws SQLException {
+    PGNotification[] notifications = {notification("1234"), notification("5678")};
+    when(pgConnection.getNotifications(anyInt())).thenReturn(notifications).thenReturn(null);
+    when(connection.isValid(anyInt())).thenReturn(true);
+
+    listener.start();
+
+    verify(statement, timeout(1000)).execute("LISTEN books_changed");
+    verify(booksCache, timeout(1000)).invalidate("1234");
+    verify(booksCache, timeout(1000)).invalidate("5678");
+    verify(booksCache).invalidateAll();
+    verify(replicaReads).written("1234");
+    verify(replicaReads).written("5678");
+    verify(barcodeFilter).add("1234");
+    verify(barcodeFilter).add("5678");
+    verify(barcodeFilter).invalidate();
+    verifyNoMoreInteractions(booksCache, replicaReads, barcodeFilter);
+  }
+
+  @Test
+  void shouldFlushWholeCacheWhenAllBooksChanged() throws SQLException {
+    PGNotification[] notifications = {notification("*")};
+    when(pgConnection.getNotifications(anyInt())).thenReturn(notifications).thenReturn(null);
+    when(connection.isValid(anyInt())).thenReturn(true);
+
+    listener.start();
+
+    verify(booksCache, timeout(1000).times(2)).invalidateAll();
+    verify(replicaReads).allWritten();
+    verify(barcodeFilter, timeout(1000).times(2)).invalidate();
+    verifyNoMoreInteractions(booksCache, replicaReads, barcodeFilter);
+  }
+
+  @Test
+  void shouldFlushWholeCacheAfterReconnect() throws SQLException {
+    when(pgConnection.getNotifications(anyInt()))
+        .thenThrow(new SQLException("An I/O error occurred while sending to the backend."))
+        .thenReturn(null);
+    when(connection.isValid(anyInt())).thenReturn(true);
+
+    listener.start();
+
+    verify(statement, timeout(1000).times(2)).execute("LISTEN books_changed");
+    verify(booksCache, timeout(1000).times(2)).invalidateAll();
+    verify(replicaReads).allWritten();
+    verify(barcodeFilter, timeout(1000).times(2)).invalidate();
+    verify(connection, atLeast(1)).close();
+  }
+
+  @Test
+  void shouldReconnectIfConnectionIsNoLongerValid() throws SQLException {
+    when(pgConnection.getNotifications(anyInt())).thenReturn(null);
+    when(connection.isValid(anyInt())).thenReturn(false).thenReturn(true);
+
+    listener.start();
+
+    verify(statement, timeout(1000).times(2)).execute("LISTEN books_changed");
+    verify(booksCache, timeout(1000).times(2)).invalidateAll();
+  }
+
+  @Test
+  void shouldNotListenIfDisabled() throws InterruptedException {
+    BooksChangesListener disabled = new BooksChangesListener(
+        booksCache, barcodeFilter, replicaReads, () -> connection, false, Duration.ofMillis(10),
+        Duration.ofMillis(10)
+    );
+
+    disabled.start();
+
+    Thread.sleep(50);
+    verifyNoMoreInteractions(booksCache, barcodeFilter, connection);
+  }
+
+  private PGNotification notification(String parameter) {
+    PGNotification notification = mock(PGNotification.class);
+    when(notification.getParameter()).thenReturn(parameter);
+    return notification;
+  }
+}
@@ -4,25 +4,73 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.BooksFilter;
+import com.gmail.tikrai.books.exception.PreconditionFailedException;
 import com.gmail.tikrai.books.exception.ValidationException;
 import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
 import com.gmail.tikrai.books.request.BookRequest;
+import com.gmail.tikrai.books.request.QuantityAdjustment;
+import com.gmail.tikrai.books.request.QuantitySlots;
+import com.gmail.tikrai.books.response.BatchItemResponse;
+import com.gmail.tikrai.books.response.BooksLookupResponse;
+import com.gmail.tikrai.books.response.BooksPageResponse;
+import com.gmail.tikrai.books.response.CategorySummaryResponse;
+import com.gmail.tikrai.books.response.ImportResponse;
+import com.gmail.tikrai.books.response.InventorySummaryResponse;
 import com.gmail.tikrai.books.response.TotalPriceResponse;
+import com.gmail.tikrai.books.response.TotalPricesLookupResponse;
+import com.gmail.tikrai.books.service.BooksExportService;
+import com.gmail.tikrai.books.service.BooksImportService;
 import com.gmail.tikrai.books.service.BooksService;
+import com.gmail.tikrai.books.service.InventorySummaryService;
+import com.gmail.tikrai.books.service.QuantitySlotsService;
+import com.gmail.tikrai.books.service.WriteBehindService;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 class BooksControllerTest {
 
   private final BooksService booksService = mock(BooksService.class);
-  private final BooksController booksController = new BooksController(booksService);
+  private final BooksImportService booksImportService = mock(BooksImportService.class);
+  private final BooksExportService booksExportService = mock(BooksExportService.class);
+  private final InventorySummaryService inventorySummaryService =
+      mock(InventorySummaryService.class);
+  private final QuantitySlotsService quantitySlotsService = mock(QuantitySlotsService.class);
+  private final WriteBehindService writeBehindService = mock(WriteBehindService.class);
+  private final PricingEngine pricingEngine = Fixture.pricingEngine();
+  private final BooksController booksController = new BooksController(
+      booksService,
+      booksImportService,
+      booksExportService,
+      inventorySummaryService,
+      quantitySlotsService,
+      writeBehindService,
+      pricingEngine
+  );
   private final BookRequest bookRequest = Fixture.bookRequest().build();
   private final Book book = bookRequest.toDomain();
 
@@ -30,9 +78,10 @@ class BooksControllerTest {
   void shouldFindByBarcode() {
     when(booksService.findByBarcode(book.barcode())).thenReturn(book);
 
-    ResponseEntity<Book> actual = booksController.findByBarcode(book.barcode());
+    ResponseEntity<Book> actual = booksController.findByBarcode(book.barcode(), null);
 
-    assertThat(actual, equalTo(new ResponseEntity<>(book, HttpStatus.OK)));
+    assertThat(actual, equalTo(versioned(book, HttpStatus.OK)));
+    assertThat(actual.getHeaders().getETag(), equalTo("\"0\""));
     verify(booksService).findByBarcode(book.barcode());
     verifyNoMoreInteractions(booksService);
   }
@@ -41,31 +90,115 @@ class BooksControllerTest {
   void shouldFailToFindByBarcodeIfRequestIsInvalid() {
     String message = assertThrows(
         ValidationException.class,
-        () -> booksController.findByBarcode("b")
+        () -> booksController.findByBarcode("b", null)
     ).getMessage();
 
     assertThat(message, equalTo("'Path variable barcode' length must be between 2 and 255"));
     verifyNoMoreInteractions(booksService);
   }
 
+  @Test
+  void shouldNotModifyBookMatchingVersion() {
+    when(booksService.findVersion(book.barcode())).thenReturn(3L);
+
+    ResponseEntity<Book> actual = booksController.findByBarcode(book.barcode(), "W/\"3\"");
+
+    assertThat(actual.getStatusCode(), equalTo(HttpStatus.NOT_MODIFIED));
+    assertThat(actual.getHeaders().getETag(), equalTo("\"3\""));
+    assertThat(actual.getBody(), equalTo(null));
+    verify(booksService).findVersion(book.barcode());
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldFindByBarcodeIfVersionChanged() {
+    when(booksService.findVersion(book.barcode())).thenReturn(4L);
+    when(booksService.findByBarcode(book.barcode())).thenReturn(book);
+
+    ResponseEntity<Book> actual = booksController.findByBarcode(book.barcode(), "\"2\", \"3\"");
+
+    assertThat(actual, equalTo(versioned(book, HttpStatus.OK)));
+    verify(booksService).findVersion(book.barcode());
+    verify(booksService).findByBarcode(book.barcode());
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldFindBooksByBarcodes() {
+    List<String> barcodes = Arrays.asList(book.barcode(), "5678");
+    BooksLookupResponse expected = new BooksLookupResponse(
+        Collections.singletonList(book), Collections.singletonList("5678")
+    );
+    when(booksService.findByBarcodes(barcodes)).thenReturn(expected);
+
+    assertThat(booksController.findByBarcodes(barcodes).getBody(), equalTo(expected));
+    assertThat(booksController.lookup(barcodes).getBody(), equalTo(expected));
+    verify(booksService, times(2)).findByBarcodes(barcodes);
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldGetTotalPricesByBarcodes() {
+    List<String> barcodes = Collections.singletonList(book.barcode());
+    TotalPricesLookupResponse expected = new TotalPricesLookupResponse(
+        Collections.singletonMap(book.barcode(), BigDecimal.TEN), Collections.emptyList()
+    );
+    when(booksService.getTotalPrices(barcodes)).thenReturn(expected);
+
+    assertThat(booksController.getTotalPrices(barcodes).getBody(), equalTo(expected));
+    assertThat(booksController.lookupTotalPrices(barcodes).getBody(), equalTo(expected));
+    verify(booksService, times(2)).getTotalPrices(barcodes);
+    verifyNoMoreInteractions(booksService);
+  }
+
   @Test
   void shouldGetTotalPrice() {
-    when(booksService.getTotalPrice(book.barcode())).thenReturn(book.totalPrice());
+    int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+    when(booksService.findByBarcode(book.barcode())).thenReturn(book);
 
-    ResponseEntity<TotalPriceResponse> actual = booksController.getTotalPrice(book.barcode());
+    ResponseEntity<TotalPriceResponse> actual = booksController.getTotalPrice(book.barcode(), null);
 
-    ResponseEntity<TotalPriceResponse> expected =
-        new ResponseEntity<>(new TotalPriceResponse(book.totalPrice()), HttpStatus.OK);
+    ResponseEntity<TotalPriceResponse> expected = ResponseEntity.ok()
+        .eTag(String.format("\"0-%d\"", currentYear))
+        .body(new TotalPriceResponse(pricingEngine.totalPrice(book)));
     assertThat(actual, equalTo(expected));
-    verify(booksService).getTotalPrice(book.barcode());
+    verify(booksService).findByBarcode(book.barcode());
     verifyNoMoreInteractions(booksService);
   }
 
+  @Test
+  void shouldNotModifyTotalPriceOfSameVersionAndYear() {
+    int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+    String eTag = String.format("\"3-%d\"", currentYear);
+    when(booksService.findVersion(book.barcode())).thenReturn(3L);
+
+    ResponseEntity<TotalPriceResponse> actual = booksController.getTotalPrice(book.barcode(), eTag);
+
+    assertThat(actual.getStatusCode(), equalTo(HttpStatus.NOT_MODIFIED));
+    assertThat(actual.getHeaders().getETag(), equalTo(eTag));
+    verify(booksService).findVersion(book.barcode());
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldGetTotalPriceIfYearChanged() {
+    int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+    when(booksService.findVersion(book.barcode())).thenReturn(0L);
+    when(booksService.findByBarcode(book.barcode())).thenReturn(book);
+
+    ResponseEntity<TotalPriceResponse> actual = booksController.getTotalPrice(
+        book.barcode(), String.format("\"0-%d\"", currentYear - 1)
+    );
+
+    assertThat(actual.getStatusCode(), equalTo(HttpStatus.OK));
+    assertThat(actual.getHeaders().getETag(), equalTo(String.format("\"0-%d\"", currentYear)));
+  }
+
   @Test
   void shouldFailToGetTotalPriceIfRequestIsInvalid() {
     String message = assertThrows(
         ValidationException.class,
-        () -> booksController.getTotalPrice("b")
+        () -> booksController.getTotalPrice("b", null)
     ).getMessage();
 
     assertThat(message, equalTo("'Path variable barcode' length must be between 2 and 255"));
@@ -78,11 +211,35 @@ class BooksControllerTest {
 
     ResponseEntity<Book> actual = booksController.create(bookRequest);
 
-    assertThat(actual, equalTo(new ResponseEntity<>(book, HttpStatus.CREATED)));
+    assertThat(actual, equalTo(versioned(book, HttpStatus.CREATED)));
     verify(booksService).create(book);
     verifyNoMoreInteractions(booksService);
   }
 
+  @Test
+  void shouldCreateBookWrittenBehind() {
+    when(writeBehindService.isEnabled()).thenReturn(true);
+    when(writeBehindService.create(book)).thenReturn(Optional.of(book));
+
+    ResponseEntity<Book> actual = booksController.create(bookRequest);
+
+    assertThat(actual, equalTo(versioned(book, HttpStatus.CREATED)));
+    verify(writeBehindService).create(book);
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldAcceptBookQueuedForWriting() {
+    when(writeBehindService.isEnabled()).thenReturn(true);
+    when(writeBehindService.create(book)).thenReturn(Optional.empty());
+
+    ResponseEntity<Book> actual = booksController.create(bookRequest);
+
+    assertThat(actual, equalTo(new ResponseEntity<>(book, HttpStatus.ACCEPTED)));
+    verify(writeBehindService).create(book);
+    verifyNoMoreInteractions(booksService);
+  }
+
   @Test
   void shouldFailToCreateBookIfRequestIsInvalid() {
     String message = assertThrows(
@@ -94,14 +251,196 @@ class BooksControllerTest {
     verifyNoMoreInteractions(booksService);
   }
 
+  @Test
+  void shouldCreateAllBooks() {
+    List<BookRequest> requests = Collections.singletonList(bookRequest);
+    List<BatchItemResponse> results =
+        Collections.singletonList(BatchItemResponse.created(book.barcode()));
+    when(booksService.createAll(requests)).thenReturn(results);
+
+    ResponseEntity<List<BatchItemResponse>> actual = booksController.createAll(requests);
+
+    assertThat(actual, equalTo(new ResponseEntity<>(results, HttpStatus.OK)));
+    verify(booksService).createAll(requests);
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldImportBooks() {
+    InputStream body = new ByteArrayInputStream(new byte[0]);
+    ImportResponse response = new ImportResponse(1, 0, Collections.emptyList(), 10, 1000);
+    when(booksImportService.importBooks(body, MediaType.valueOf("text/csv"))).thenReturn(response);
+
+    ResponseEntity<ImportResponse> actual = booksController.importBooks("text/csv", body);
+
+    assertThat(actual, equalTo(new ResponseEntity<>(response, HttpStatus.OK)));
+    verify(booksImportService).importBooks(body, MediaType.valueOf("text/csv"));
+    verifyNoMoreInteractions(booksService, booksImportService);
+  }
+
+  @Test
+  void shouldFindPage() {
+    BooksPageResponse page = new BooksPageResponse(Collections.singletonList(book), "MTIzNA");
+    when(booksService.findPage("MTAwMA", 1)).thenReturn(page);
+
+    ResponseEntity<BooksPageResponse> actual = booksController.findPage("MTAwMA", 1);
+
+    assertThat(actual, equalTo(new ResponseEntity<>(page, HttpStatus.OK)));
+    verify(booksService).findPage("MTAwMA", 1);
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldGetInventoryTotalPrice() {
+    BooksFilter filter = new BooksFilter(
+        "Book Author", BookType.ANTIQUE, BigDecimal.ONE, BigDecimal.TEN
+    );
+    when(booksService.getTotalPrice(filter)).thenReturn(new BigDecimal("12.345"));
+
+    ResponseEntity<TotalPriceResponse> actual = booksController.getInventoryTotalPrice(
+        "Book Author", "antique", BigDecimal.ONE, BigDecimal.TEN
+    );
+
+    TotalPriceResponse expected = new TotalPriceResponse(new BigDecimal("12.35"));
+    assertThat(actual, equalTo(new ResponseEntity<>(expected, HttpStatus.OK)));
+    verify(booksService).getTotalPrice(filter);
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldFailToGetInventoryTotalPriceOfUnknownType() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksController.getInventoryTotalPrice(null, "comic", null, null)
+    ).getMessage();
+
+    assertThat(message, equalTo(
+        "'Query parameter type' must be one of regular, antique, science"
+    ));
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldGetInventorySummary() {
+    CategorySummaryResponse category = new CategorySummaryResponse(1, 2, BigDecimal.TEN);
+    InventorySummaryResponse summary = new InventorySummaryResponse(category, category, category);
+    when(inventorySummaryService.getSummary()).thenReturn(summary);
+
+    ResponseEntity<InventorySummaryResponse> actual = booksController.getInventorySummary();
+
+    assertThat(actual, equalTo(new ResponseEntity<>(summary, HttpStatus.OK)));
+    verify(inventorySummaryService).getSummary();
+    verifyNoMoreInteractions(inventorySummaryService);
+  }
+
+  @Test
+  void shouldExportBooks() throws IOException {
+    OutputStream out = new ByteArrayOutputStream();
+
+    ResponseEntity<StreamingResponseBody> actual = booksController.exportBooks(null);
+    actual.getBody().writeTo(out);
+
+    assertThat(actual.getStatusCode(), equalTo(HttpStatus.OK));
+    assertThat(
+        actual.getHeaders().getContentType(), equalTo(MediaType.valueOf("application/x-ndjson"))
+    );
+    assertThat(actual.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING), equalTo(false));
+    verify(booksExportService).exportBooks(out, false);
+    verifyNoMoreInteractions(booksService, booksExportService);
+  }
+
+  @Test
+  void shouldExportBooksCompressedWhenClientAcceptsGzip() throws IOException {
+    OutputStream out = new ByteArrayOutputStream();
+
+    ResponseEntity<StreamingResponseBody> actual = booksController.exportBooks("gzip, deflate");
+    actual.getBody().writeTo(out);
+
+    assertThat(actual.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), equalTo("gzip"));
+    assertThat(actual.getHeaders().getVary(), equalTo(Arrays.asList(HttpHeaders.ACCEPT_ENCODING)));
+    verify(booksExportService).exportBooks(out, true);
+    verifyNoMoreInteractions(booksService, booksExportService);
+  }
+
+  @Test
+  void shouldExportBooksCompressedOnlyWhenGzipHasPositiveQuality() {
+    assertThat(exportedCompressed("deflate, gzip;q=0.5"), equalTo(true));
+    assertThat(exportedCompressed("*"), equalTo(true));
+    assertThat(exportedCompressed("GZIP; Q=1.0"), equalTo(true));
+    assertThat(exportedCompressed("gzip;q=0"), equalTo(false));
+    assertThat(exportedCompressed("gzip;q=0.000, *"), equalTo(false));
+    assertThat(exportedCompressed("*;q=0, gzip"), equalTo(true));
+    assertThat(exportedCompressed("*;q=0"), equalTo(false));
+    assertThat(exportedCompressed("identity, deflate"), equalTo(false));
+    assertThat(exportedCompressed("xgzip"), equalTo(false));
+  }
+
   @Test
   void shouldUpdateBook() {
-    when(booksService.update(book)).thenReturn(book);
+    when(booksService.update(book, Optional.empty())).thenReturn(book);
+
+    ResponseEntity<Book> actual = booksController.update(book.barcode(), null, bookRequest);
+
+    assertThat(actual, equalTo(versioned(book, HttpStatus.OK)));
+    verify(booksService).update(book, Optional.empty());
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldUpdateBookWrittenBehind() {
+    Book updated = Fixture.book().version(2).build();
+    when(writeBehindService.isEnabled()).thenReturn(true);
+    when(writeBehindService.update(book)).thenReturn(Optional.of(updated));
+
+    ResponseEntity<Book> actual = booksController.update(book.barcode(), null, bookRequest);
+
+    assertThat(actual, equalTo(versioned(updated, HttpStatus.OK)));
+    verify(writeBehindService).update(book);
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldUpdateBookImmediatelyIfMatchingVersionWhenWritingBehind() {
+    when(writeBehindService.isEnabled()).thenReturn(true);
+    when(booksService.update(book, Optional.of(7L))).thenReturn(book);
+
+    booksController.update(book.barcode(), "\"7\"", bookRequest);
+
+    verify(booksService).update(book, Optional.of(7L));
+    verify(writeBehindService).isEnabled();
+    verifyNoMoreInteractions(booksService, writeBehindService);
+  }
+
+  @Test
+  void shouldUpdateBookIfMatchingVersion() {
+    Book updated = Fixture.book().version(8).build();
+    when(booksService.update(book, Optional.of(7L))).thenReturn(updated);
+
+    ResponseEntity<Book> actual = booksController.update(book.barcode(), "\"7\"", bookRequest);
+
+    assertThat(actual.getHeaders().getETag(), equalTo("\"8\""));
+    verify(booksService).update(book, Optional.of(7L));
+    verifyNoMoreInteractions(booksService);
+  }
 
-    ResponseEntity<Book> actual = booksController.update(book.barcode(), bookRequest);
+  @Test
+  void shouldUpdateBookIfMatchingAnyVersion() {
+    when(booksService.update(book, Optional.empty())).thenReturn(book);
 
-    assertThat(actual, equalTo(new ResponseEntity<>(book, HttpStatus.OK)));
-    verify(booksService).update(book);
+    booksController.update(book.barcode(), "*", bookRequest);
+
+    verify(booksService).update(book, Optional.empty());
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldFailToUpdateBookIfMatchIsNotVersion() {
+    String message = assertThrows(
+        PreconditionFailedException.class,
+        () -> booksController.update(book.barcode(), "W/\"7\"", bookRequest)
+    ).getMessage();
+
+    assertThat(message, equalTo("If-Match 'W/\"7\"' does not match any book version"));
     verifyNoMoreInteractions(booksService);
   }
 
@@ -111,7 +450,7 @@ class BooksControllerTest {
         ValidationException.class,
         () -> {
           BookRequest bookRequest = Fixture.bookRequest().barcode("B").build();
-          booksController.update(book.barcode(), bookRequest);
+          booksController.update(book.barcode(), null, bookRequest);
         }
     ).getMessage();
 
@@ -125,7 +464,7 @@ class BooksControllerTest {
 
     String message = assertThrows(
         ValidationException.class,
-        () -> booksController.update(oldBarcode, bookRequest)
+        () -> booksController.update(oldBarcode, null, bookRequest)
     ).getMessage();
     assertThat(message, equalTo("Modification of 'barcode' field is not allowed"));
     verifyNoMoreInteractions(booksService);
@@ -134,14 +473,12 @@ class BooksControllerTest {
   @Test
   void shouldUpdateBookField() {
     HashMap<String, Object> updates = new HashMap<String, Object>() {};
-    when(booksService.updateRequest(book.barcode(), updates)).thenReturn(bookRequest);
-    when(booksService.update(book)).thenReturn(book);
+    when(booksService.updateFields(book.barcode(), updates, Optional.of(3L))).thenReturn(book);
 
-    ResponseEntity<Book> actual = booksController.updateField(book.barcode(), updates);
+    ResponseEntity<Book> actual = booksController.updateField(book.barcode(), "\"3\"", updates);
 
-    assertThat(actual, equalTo(new ResponseEntity<>(book, HttpStatus.OK)));
-    verify(booksService).updateRequest(book.barcode(), updates);
-    verify(booksService).update(book);
+    assertThat(actual, equalTo(versioned(book, HttpStatus.OK)));
+    verify(booksService).updateFields(book.barcode(), updates, Optional.of(3L));
     verifyNoMoreInteractions(booksService);
   }
 
@@ -149,10 +486,64 @@ class BooksControllerTest {
   void shouldFailToUpdateBookFieldIfRequestIsInvalid() {
     String message = assertThrows(
         ValidationException.class,
-        () -> booksController.updateField("b", new HashMap<String, Object>() {})
+        () -> booksController.updateField("b", null, new HashMap<String, Object>() {})
     ).getMessage();
 
     assertThat(message, equalTo("'Path variable barcode' length must be between 2 and 255"));
     verifyNoMoreInteractions(booksService);
   }
+
+  @Test
+  void shouldAdjustQuantity() {
+    Book adjusted = Fixture.book().quantity(5).version(2).build();
+    when(booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), 3)))
+        .thenReturn(adjusted);
+
+    ResponseEntity<Book> actual =
+        booksController.adjustQuantity(book.barcode(), new QuantityAdjustment(null, 3));
+
+    assertThat(actual, equalTo(versioned(adjusted, HttpStatus.OK)));
+    verify(booksService).adjustQuantity(new QuantityAdjustment(book.barcode(), 3));
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldAdjustQuantities() {
+    List<QuantityAdjustment> requests = Collections.singletonList(
+        new QuantityAdjustment(book.barcode(), -1)
+    );
+    when(booksService.adjustQuantities(requests)).thenReturn(Collections.singletonList(book));
+
+    ResponseEntity<List<Book>> actual = booksController.adjustQuantities(requests);
+
+    ResponseEntity<List<Book>> expected =
+        new ResponseEntity<>(Collections.singletonList(book), HttpStatus.OK);
+    assertThat(actual, equalTo(expected));
+    verify(booksService).adjustQuantities(requests);
+    verifyNoMoreInteractions(booksService);
+  }
+
+  @Test
+  void shouldConfigureQuantitySlots() {
+    Book spread = Fixture.book().version(4).build();
+    when(quantitySlotsService.configure(book.barcode(), new QuantitySlots(8))).thenReturn(spread);
+
+    ResponseEntity<Book> actual =
+        booksController.configureQuantitySlots(book.barcode(), new QuantitySlots(8));
+
+    assertThat(actual, equalTo(versioned(spread, HttpStatus.OK)));
+    verify(quantitySlotsService).configure(book.barcode(), new QuantitySlots(8));
+    verifyNoMoreInteractions(quantitySlotsService);
+  }
+
+  private boolean exportedCompressed(String acceptEncoding) {
+    ResponseEntity<StreamingResponseBody> actual = booksController.exportBooks(acceptEncoding);
+    return actual.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING);
+  }
+
+  private ResponseEntity<Book> versioned(Book book, HttpStatus status) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(String.format("\"%d\"", book.version()));
+    return new ResponseEntity<>(book, headers, status);
+  }
 }
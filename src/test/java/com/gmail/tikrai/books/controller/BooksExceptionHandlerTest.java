@@ -0,0 +1,62 @@
+package com.gmail.tikrai.books.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.gmail.tikrai.books.exception.ResourceNotFoundException;
+import com.gmail.tikrai.books.exception.TooManyRequestsException;
+import com.gmail.tikrai.books.exception.UniqueIdentifierException;
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.response.ErrorResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class BooksExceptionHandlerTest {
+
+  private final BooksExceptionHandler handler = new BooksExceptionHandler();
+  private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/1234");
+
+  @Test
+  void shouldWriteNotFoundBody() {
+    ResponseEntity<ErrorResponse> actual =
+        handler.handle(new ResourceNotFoundException("Book was not found"), request);
+
+    assertThat(actual.getStatusCode(), is(HttpStatus.NOT_FOUND));
+    ErrorResponse body = actual.getBody();
+    assertThat(body.timestamp(), notNullValue());
+    assertThat(body.status(), is(404));
+    assertThat(body.error(), is("Not Found"));
+    assertThat(body.message(), is("Book was not found"));
+    assertThat(body.path(), is("/books/1234"));
+  }
+
+  @Test
+  void shouldAnswerWithStatusOfException() {
+    ResponseEntity<ErrorResponse> validation =
+        handler.handle(new ValidationException("Invalid"), request);
+    ResponseEntity<ErrorResponse> tooMany =
+        handler.handle(new TooManyRequestsException("Retry later"), request);
+
+    assertThat(validation.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+    assertThat(validation.getBody().error(), is("Bad Request"));
+    assertThat(tooMany.getStatusCode(), is(HttpStatus.TOO_MANY_REQUESTS));
+  }
+
+  @Test
+  void shouldAnswerConflictForExistingIdentifier() {
+    ResponseEntity<ErrorResponse> actual =
+        handler.handle(new UniqueIdentifierException("Already exists"), request);
+
+    assertThat(actual.getStatusCode(), is(HttpStatus.CONFLICT));
+    assertThat(actual.getBody().error(), is("Conflict"));
+  }
+
+  @Test
+  void shouldNotFillStackTraceOfDomainExceptions() {
+    assertThat(new ResourceNotFoundException("Book was not found").getStackTrace().length, is(0));
+    assertThat(new ValidationException("Invalid").getStackTrace().length, is(0));
+  }
+}
@@ -0,0 +1,71 @@
+package com.gmail.tikrai.books.database;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+class MigrationTest {
+
+  @Test
+  void shouldParseVersionAndDescriptionFromFileName() {
+    Migration migration = Migration.of(resource("V12__create_books_table.sql", "SELECT 1;"));
+
+    assertThat(migration.version(), is(12));
+    assertThat(migration.description(), is("create books table"));
+    assertThat(migration.sql(), is("SELECT 1;"));
+    assertThat(migration.transactional(), is(true));
+    assertThat(migration.toString(), is("V12 create books table"));
+  }
+
+  @Test
+  void shouldRejectMisnamedMigration() {
+    String message = assertThrows(
+        IllegalStateException.class,
+        () -> Migration.of(resource("create_books.sql", "SELECT 1;"))
+    ).getMessage();
+
+    assertThat(message, is(
+        "Migration 'create_books.sql' must be named V<version>__<description>.sql"
+    ));
+  }
+
+  @Test
+  void shouldSplitNonTransactionalMigrationIntoStatements() {
+    Migration migration = new Migration(3, "index books", "-- no-transaction\n"
+        + "CREATE INDEX CONCURRENTLY a_idx ON books (author);\n"
+        + "\n"
+        + "-- second index\n"
+        + "CREATE INDEX CONCURRENTLY\n"
+        + "  b_idx ON books (name);\n");
+
+    assertThat(migration.transactional(), is(false));
+    assertThat(migration.statements(), is(Arrays.asList(
+        "CREATE INDEX CONCURRENTLY a_idx ON books (author)",
+        "CREATE INDEX CONCURRENTLY\n  b_idx ON books (name)"
+    )));
+  }
+
+  @Test
+  void shouldChangeChecksumWithSql() {
+    Migration migration = new Migration(1, "create", "SELECT 1;");
+
+    assertThat(migration.checksum(), is(new Migration(1, "other", "SELECT 1;").checksum()));
+    assertThat(migration.checksum(), not(new Migration(1, "create", "SELECT 2;").checksum()));
+  }
+
+  private Resource resource(String fileName, String sql) {
+    return new ByteArrayResource(sql.getBytes(StandardCharsets.UTF_8)) {
+      @Override
+      public String getFilename() {
+        return fileName;
+      }
+    };
+  }
+}
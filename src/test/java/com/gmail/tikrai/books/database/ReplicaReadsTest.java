@@ -0,0 +1,73 @@
+package com.gmail.tikrai.books.database;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaReadsTest {
+
+  private final PlatformTransactionManager transactionManager =
+      new DataSourceTransactionManager(mock(DataSource.class));
+  private final AtomicLong clock = new AtomicLong(1000);
+  private final ReplicaReads replicaReads = new ReplicaReads(
+      transactionManager, Duration.ofNanos(100), clock::get
+  );
+  private final Supplier<Boolean> readOnly =
+      TransactionSynchronizationManager::isCurrentTransactionReadOnly;
+
+  @Test
+  void shouldReadOnReplica() {
+    assertThat(replicaReads.read(readOnly), is(true));
+    assertThat(replicaReads.read("1234", readOnly), is(true));
+  }
+
+  @Test
+  void shouldReadRecentlyWrittenBookOnPrimary() {
+    replicaReads.written("1234");
+
+    assertThat(replicaReads.read("1234", readOnly), is(false));
+    assertThat(replicaReads.read("5678", readOnly), is(true));
+    clock.addAndGet(100);
+    assertThat(replicaReads.read("1234", readOnly), is(true));
+  }
+
+  @Test
+  void shouldReadBooksOnPrimaryIfAnyOfThemWasRecentlyWritten() {
+    replicaReads.written("1234");
+
+    assertThat(replicaReads.read(Arrays.asList("5678", "1234"), readOnly), is(false));
+    assertThat(replicaReads.read(Arrays.asList("5678", "9012"), readOnly), is(true));
+  }
+
+  @Test
+  void shouldReadEverythingOnPrimaryAfterAllBooksWereWritten() {
+    replicaReads.allWritten();
+
+    assertThat(replicaReads.read(readOnly), is(false));
+    assertThat(replicaReads.read("1234", readOnly), is(false));
+    clock.addAndGet(100);
+    assertThat(replicaReads.read(readOnly), is(true));
+  }
+
+  @Test
+  void shouldNotStickToPrimaryIfDisabled() {
+    ReplicaReads notSticky = new ReplicaReads(
+        transactionManager, Duration.ZERO, clock::get
+    );
+
+    notSticky.written("1234");
+    notSticky.allWritten();
+
+    assertThat(notSticky.read("1234", readOnly), is(true));
+  }
+}
@@ -0,0 +1,76 @@
+package com.gmail.tikrai.books.database;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+
+  private final DataSource primary = mock(DataSource.class);
+  private final DataSource replica = mock(DataSource.class);
+  private final Connection primaryConnection = mock(Connection.class);
+  private final Connection replicaConnection = mock(Connection.class);
+  private final AtomicLong clock = new AtomicLong();
+  private final ReplicaRoutingDataSource dataSource =
+      new ReplicaRoutingDataSource(primary, replica, Duration.ofNanos(100), clock::get);
+
+  @BeforeEach
+  void setup() throws SQLException {
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    when(replica.getConnection()).thenReturn(replicaConnection);
+  }
+
+  @AfterEach
+  void clearReadOnly() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+  }
+
+  @Test
+  void shouldUsePrimaryOutsideReadOnlyTransaction() throws SQLException {
+    assertThat(dataSource.getConnection(), is(primaryConnection));
+  }
+
+  @Test
+  void shouldUseReplicaInReadOnlyTransaction() throws SQLException {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertThat(dataSource.getConnection(), is(replicaConnection));
+  }
+
+  @Test
+  void shouldUsePrimaryIfReplicaIsNotConfigured() throws SQLException {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    ReplicaRoutingDataSource primaryOnly =
+        new ReplicaRoutingDataSource(primary, null, Duration.ofNanos(100), clock::get);
+
+    assertThat(primaryOnly.getConnection(), is(primaryConnection));
+  }
+
+  @Test
+  void shouldFailOverToPrimaryUntilRetryDelayPasses() throws SQLException {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    when(replica.getConnection())
+        .thenThrow(new SQLException("Connection is not available"))
+        .thenReturn(replicaConnection);
+
+    assertThat(dataSource.getConnection(), is(primaryConnection));
+    clock.set(99);
+    assertThat(dataSource.getConnection(), is(primaryConnection));
+    clock.set(100);
+    assertThat(dataSource.getConnection(), is(replicaConnection));
+    verify(replica, times(2)).getConnection();
+  }
+}
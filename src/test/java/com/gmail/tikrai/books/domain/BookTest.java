@@ -2,12 +2,12 @@ package com.gmail.tikrai.books.domain;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gmail.tikrai.books.fixture.Fixture;
 import java.math.BigDecimal;
-import java.util.Calendar;
 import org.junit.jupiter.api.Test;
 
 class BookTest {
@@ -47,26 +47,24 @@ class BookTest {
   }
 
   @Test
-  void shouldCalculateTotalPriceOfRegularBook() {
-    assertThat(book.totalPrice(), is(book.price().multiply(BigDecimal.valueOf(book.quantity()))));
+  void shouldExposePriceInCents() {
+    assertThat(book.priceCents(), is(1110L));
   }
 
   @Test
-  void shouldCalculateTotalPriceOfAntiqueBook() {
-    int currentYear = Calendar.getInstance().get(Calendar.YEAR);
-    Book book = Fixture.book().antiqueReleaseYear(releaseYear).build();
+  void shouldFailToExposePriceNotFittingIntoCents() {
+    Book book = new Book("1234", "Book Name", "Book Author", 2, new BigDecimal("1e17"), null, null);
 
-    BigDecimal expected = book.price()
-        .multiply(BigDecimal.valueOf(book.quantity() * (currentYear - releaseYear) / 10.0));
-    assertThat(book.totalPrice(), is(expected));
+    assertThrows(ArithmeticException.class, book::priceCents);
   }
 
   @Test
-  void shouldCalculateTotalPriceOfScienceJournal() {
-    int scienceIndex = 5;
-    Book book = Fixture.book().scienceIndex(scienceIndex).build();
+  void shouldCopyBookWithOtherQuantity() {
+    Book book = Fixture.book().antiqueReleaseYear(releaseYear).version(4).build();
+
+    Book actual = book.withQuantity(9);
 
-    BigDecimal expected = book.price().multiply(BigDecimal.valueOf(book.quantity() * scienceIndex));
-    assertThat(book.totalPrice(), is(expected));
+    assertThat(actual, is(Fixture.book().antiqueReleaseYear(releaseYear).quantity(9).build()));
+    assertThat(actual.version(), is(4L));
   }
 }
@@ -0,0 +1,66 @@
+package com.gmail.tikrai.books.domain;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class BooksFilterTest {
+
+  private final Book regular = Fixture.book().build();
+  private final Book antique = Fixture.book().antiqueReleaseYear(1800).build();
+  private final Book science = Fixture.book().scienceIndex(3).build();
+
+  @Test
+  void shouldMatchAllBooks() {
+    assertThat(BooksFilter.all().matches(regular), is(true));
+    assertThat(BooksFilter.all().matches(antique), is(true));
+    assertThat(BooksFilter.all().matches(science), is(true));
+  }
+
+  @Test
+  void shouldMatchBooksByAuthor() {
+    BooksFilter filter = new BooksFilter("Book Author", null, null, null);
+
+    assertThat(filter.matches(regular), is(true));
+    assertThat(filter.matches(Fixture.book().author("Other Author").build()), is(false));
+  }
+
+  @Test
+  void shouldMatchBooksByType() {
+    BooksFilter filter = new BooksFilter(null, BookType.SCIENCE, null, null);
+
+    assertThat(filter.matches(regular), is(false));
+    assertThat(filter.matches(antique), is(false));
+    assertThat(filter.matches(science), is(true));
+  }
+
+  @Test
+  void shouldMatchBooksByInclusivePriceRange() {
+    BooksFilter filter =
+        new BooksFilter(null, null, new BigDecimal("11.10"), new BigDecimal("11.1"));
+
+    assertThat(filter.matches(regular), is(true));
+    assertThat(filter.matches(Fixture.book().price(11.09).build()), is(false));
+    assertThat(filter.matches(Fixture.book().price(11.11).build()), is(false));
+  }
+
+  @Test
+  void shouldParseBookType() {
+    assertThat(BookType.of("type", "Antique"), is(BookType.ANTIQUE));
+  }
+
+  @Test
+  void shouldFailToParseUnknownBookType() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> BookType.of("type", "comic")
+    ).getMessage();
+
+    assertThat(message, is("'type' must be one of regular, antique, science"));
+  }
+}
@@ -0,0 +1,65 @@
+package com.gmail.tikrai.books.domain;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class CategorySummaryTest {
+
+  private final PricingEngine pricingEngine = Fixture.pricingEngine();
+
+  @Test
+  void shouldSummarizeRegularBook() {
+    Book book = Fixture.book().build();
+
+    CategorySummary summary = pricingEngine.summary(book);
+
+    assertThat(summary.type(), is(BookType.REGULAR));
+    assertThat(summary.books(), is(1L));
+    assertThat(summary.quantity(), is(2L));
+    assertThat(summary.totalPrice(2020), is(new BigDecimal("22.200")));
+  }
+
+  @Test
+  void shouldSummarizeScienceJournal() {
+    Book book = Fixture.book().scienceIndex(3).build();
+
+    assertThat(pricingEngine.summary(book).totalPrice(2020), is(new BigDecimal("66.600")));
+  }
+
+  @Test
+  void shouldRevalueAntiqueBooksInEveryYear() {
+    Book book = Fixture.book().antiqueReleaseYear(1600).build();
+
+    CategorySummary summary = pricingEngine.summary(book);
+
+    assertThat(summary.totalPrice(2000), is(pricingEngine.totalPrice(book, 2000).setScale(3)));
+    assertThat(summary.totalPrice(2001), is(pricingEngine.totalPrice(book, 2001).setScale(3)));
+  }
+
+  @Test
+  void shouldAddAndRemoveBooksOfSameType() {
+    Book first = Fixture.book().antiqueReleaseYear(1600).build();
+    Book second = Fixture.book().quantity(7).price(3.33).antiqueReleaseYear(1900).build();
+
+    CategorySummary summary = CategorySummary.empty(BookType.ANTIQUE)
+        .plus(pricingEngine.summary(first))
+        .plus(pricingEngine.summary(second));
+
+    assertThat(summary.books(), is(2L));
+    assertThat(summary.quantity(), is(9L));
+    assertThat(
+        summary.totalPrice(2020),
+        is(pricingEngine.totalPrice(pricingEngine.columns(Arrays.asList(first, second)), 2020))
+    );
+    assertThat(
+        summary.plus(pricingEngine.summary(second).negate()),
+        is(pricingEngine.summary(first))
+    );
+  }
+}
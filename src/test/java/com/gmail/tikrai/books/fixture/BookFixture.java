@@ -12,6 +12,7 @@ public class BookFixture {
   private BigDecimal price = BigDecimal.valueOf(11.10);
   private Integer antiqueReleaseYear = null;
   private Integer scienceIndex = null;
+  private long version = 1;
 
   public BookFixture barcode(String barcode) {
     this.barcode = barcode;
@@ -48,7 +49,14 @@ public class BookFixture {
     return this;
   }
 
+  public BookFixture version(long version) {
+    this.version = version;
+    return this;
+  }
+
   public Book build() {
-    return new Book(barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex);
+    return new Book(
+        barcode, name, author, quantity, price, antiqueReleaseYear, scienceIndex, version
+    );
   }
 }
@@ -3,6 +3,14 @@ package com.gmail.tikrai.books.fixture;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gmail.tikrai.books.config.ObjectMapperConfiguration;
 import com.gmail.tikrai.books.fixture.request.BookRequestFixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.pricing.PricingRule;
+import com.gmail.tikrai.books.pricing.rules.AntiquePricingRule;
+import com.gmail.tikrai.books.pricing.rules.RegularPricingRule;
+import com.gmail.tikrai.books.pricing.rules.ScienceJournalPricingRule;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public final class Fixture {
 
@@ -17,4 +25,14 @@ public final class Fixture {
   public static BookRequestFixture bookRequest() {
     return new BookRequestFixture();
   }
+
+  public static List<PricingRule> pricingRules() {
+    return Arrays.asList(
+        new RegularPricingRule(), new AntiquePricingRule(), new ScienceJournalPricingRule()
+    );
+  }
+
+  public static PricingEngine pricingEngine() {
+    return new PricingEngine(pricingRules(), Collections.emptyList(), 10_000);
+  }
 }
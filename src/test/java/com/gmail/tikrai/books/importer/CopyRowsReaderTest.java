@@ -0,0 +1,80 @@
+package com.gmail.tikrai.books.importer;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.gmail.tikrai.books.response.ImportResponse;
+import com.gmail.tikrai.books.response.RejectedRowResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class CopyRowsReaderTest {
+
+  private final String header =
+      "barcode,name,author,quantity,price,antiqueReleaseYear,scienceIndex\n";
+  private long now;
+  private long heap = 100;
+  private final ImportReport report = new ImportReport(1, () -> now, () -> heap);
+
+  @Test
+  void shouldWriteValidRowsAsCopyCsv() throws IOException {
+    String csv = header
+        + "1234,\"Book \"\"Name\"\"\",Book Author,2,11.10,,\n"
+        + "5678,Book Name,Book Author,3,1,1600,\n"
+        + "9012,Book Name,Book Author,4,5.5,,7\n";
+
+    String actual = readAll(csv);
+
+    assertThat(actual, equalTo(
+        "2,\"1234\",\"Book \"\"Name\"\"\",\"Book Author\",2,1110,,\n"
+            + "3,\"5678\",\"Book Name\",\"Book Author\",3,100,1600,\n"
+            + "4,\"9012\",\"Book Name\",\"Book Author\",4,550,,7\n"
+    ));
+  }
+
+  @Test
+  void shouldSkipAndReportRejectedRows() throws IOException {
+    String csv = header
+        + "1234,a,Book Author,2,11.10,,\n"
+        + "5678,Book Name,Book Author,3,1,1600,5\n"
+        + "9012,Book Name,Book Author,4,5.5,,7\n";
+    now = TimeUnit.MILLISECONDS.toNanos(500);
+    heap = 50;
+
+    String actual = readAll(csv);
+
+    assertThat(actual, equalTo("4,\"9012\",\"Book Name\",\"Book Author\",4,550,,7\n"));
+    ImportResponse expected = new ImportResponse(
+        1,
+        2,
+        Collections.singletonList(
+            new RejectedRowResponse(2, "'name' length must be between 2 and 255")
+        ),
+        6,
+        100
+    );
+    assertThat(report.toResponse(1), equalTo(expected));
+  }
+
+  @Test
+  void shouldReportEmptySource() throws IOException {
+    assertThat(readAll(header), equalTo(""));
+    assertThat(
+        report.toResponse(0),
+        equalTo(new ImportResponse(0, 0, Collections.emptyList(), 0, 100))
+    );
+  }
+
+  private String readAll(String csv) throws IOException {
+    try (BufferedReader reader = new BufferedReader(
+        new CopyRowsReader(new CsvBookSource(new StringReader(csv)), report), 7
+    )) {
+      return reader.lines().map(line -> line + "\n").collect(Collectors.joining());
+    }
+  }
+}
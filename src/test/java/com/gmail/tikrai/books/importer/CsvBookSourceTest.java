@@ -0,0 +1,132 @@
+package com.gmail.tikrai.books.importer;
+
+import static com.gmail.tikrai.books.utils.Matchers.isOptionalOf;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+class CsvBookSourceTest {
+
+  private final String header =
+      "barcode,name,author,quantity,price,antiqueReleaseYear,scienceIndex\n";
+
+  @Test
+  void shouldReadRegularBook() throws IOException {
+    BookSource source = sourceOf(header + "1234,Book Name,Book Author,2,11.10,,\n");
+
+    SourceRow row = source.next();
+
+    assertThat(row.line(), equalTo(2L));
+    assertThat(row.valid(), isOptionalOf(null));
+    assertThat(row.request(), equalTo(Fixture.bookRequest().build()));
+    assertThat(source.next(), nullValue());
+  }
+
+  @Test
+  void shouldReadColumnsInHeaderOrder() throws IOException {
+    BookSource source = sourceOf("scienceIndex,price,barcode,quantity,author,name\r\n"
+        + "5,11.1,1234,2,Book Author,Book Name\r\n");
+
+    SourceRow row = source.next();
+
+    assertThat(row.request(), equalTo(Fixture.bookRequest().scienceIndex(5).build()));
+  }
+
+  @Test
+  void shouldReadQuotedFields() throws IOException {
+    BookSource source = sourceOf(header
+        + "\"1234\",\"Book, \"\"Name\"\"\",\"Book\nAuthor\",2,11.10,1600,\n"
+        + "5678,Other,Other Author,1,1,,\n");
+
+    SourceRow row = source.next();
+
+    assertThat(row.line(), equalTo(2L));
+    assertThat(row.request(), equalTo(Fixture.bookRequest()
+        .name("Book, \"Name\"")
+        .author("Book\nAuthor")
+        .antiqueReleaseYear(1600)
+        .build()));
+    assertThat(source.next().line(), equalTo(4L));
+  }
+
+  @Test
+  void shouldSkipBlankLines() throws IOException {
+    BookSource source = sourceOf(header + "\n\n1234,Book Name,Book Author,2,11.10,,\n\n");
+
+    assertThat(source.next().line(), equalTo(4L));
+    assertThat(source.next(), nullValue());
+  }
+
+  @Test
+  void shouldRejectRowWithWrongNumberOfFields() throws IOException {
+    BookSource source = sourceOf(header + "1234,Book Name\n");
+
+    assertThat(source.next().valid(), isOptionalOf("Expected 7 fields but found 2"));
+  }
+
+  @Test
+  void shouldRejectRowWithMalformedNumber() throws IOException {
+    BookSource source = sourceOf(header + "1234,Book Name,Book Author,two,11.10,,\n");
+
+    assertThat(source.next().valid(), isOptionalOf("Incorrect format not 'quantity' field"));
+  }
+
+  @Test
+  void shouldRejectRowWithUnterminatedQuote() throws IOException {
+    BookSource source = sourceOf(header + "1234,\"Book Name,Book Author,2,11.10,,\n");
+
+    assertThat(source.next().valid(), isOptionalOf("Unterminated quoted field"));
+  }
+
+  @Test
+  void shouldRejectTooLongRowAndContinue() throws IOException {
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; i <= CsvBookSource.MAX_RECORD_LENGTH; i++) {
+      name.append('a');
+    }
+    BookSource source = sourceOf(header
+        + "1234," + name + ",Book Author,2,11.10,,\n"
+        + "1234,Book Name,Book Author,2,11.10,,\n");
+
+    assertThat(source.next().valid(), isOptionalOf("Row is longer than 65536 characters"));
+    assertThat(source.next().request(), equalTo(Fixture.bookRequest().build()));
+  }
+
+  @Test
+  void shouldValidateRowWithBookRequestRules() throws IOException {
+    BookSource source = sourceOf(header + "1234,a,Book Author,2,11.10,,\n");
+
+    assertThat(source.next().valid(), isOptionalOf("'name' length must be between 2 and 255"));
+  }
+
+  @Test
+  void shouldFailIfHeaderHasUnknownField() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> sourceOf("barcode,model\n")
+    ).getMessage();
+
+    assertThat(message, equalTo("Book has no field 'model'"));
+  }
+
+  @Test
+  void shouldFailIfHeaderIsMissing() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> sourceOf("")
+    ).getMessage();
+
+    assertThat(message, equalTo("CSV header is missing or malformed"));
+  }
+
+  private BookSource sourceOf(String csv) throws IOException {
+    return new CsvBookSource(new StringReader(csv));
+  }
+}
@@ -0,0 +1,59 @@
+package com.gmail.tikrai.books.importer;
+
+import static com.gmail.tikrai.books.utils.Matchers.isOptionalOf;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+class NdjsonBookSourceTest {
+
+  private final String bookJson = "{\"barcode\":\"1234\",\"name\":\"Book Name\","
+      + "\"author\":\"Book Author\",\"quantity\":2,\"price\":11.10}";
+
+  @Test
+  void shouldReadBooksLineByLine() throws IOException {
+    BookSource source = sourceOf(bookJson + "\n\n" + bookJson.replace("1234", "5678"));
+
+    SourceRow first = source.next();
+    SourceRow second = source.next();
+
+    assertThat(first.line(), equalTo(1L));
+    assertThat(first.request(), equalTo(Fixture.bookRequest().build()));
+    assertThat(second.line(), equalTo(3L));
+    assertThat(second.request(), equalTo(Fixture.bookRequest().barcode("5678").build()));
+    assertThat(source.next(), nullValue());
+  }
+
+  @Test
+  void shouldRejectMalformedJson() throws IOException {
+    BookSource source = sourceOf("{\"barcode\":\n" + bookJson + "\n");
+
+    assertThat(source.next().valid(), isOptionalOf("Incorrect JSON format"));
+    assertThat(source.next().request(), equalTo(Fixture.bookRequest().build()));
+  }
+
+  @Test
+  void shouldRejectNullBook() throws IOException {
+    BookSource source = sourceOf("null\n");
+
+    assertThat(source.next().valid(), isOptionalOf("Book cannot be null"));
+  }
+
+  @Test
+  void shouldValidateRowWithBookRequestRules() throws IOException {
+    BookSource source = sourceOf(bookJson.replace("\"quantity\":2", "\"quantity\":0"));
+
+    assertThat(
+        source.next().valid(), isOptionalOf("'quantity' must be greater than or equal to 1")
+    );
+  }
+
+  private BookSource sourceOf(String ndjson) {
+    return new NdjsonBookSource(new StringReader(ndjson), Fixture.mapper());
+  }
+}
@@ -0,0 +1,339 @@
+package com.gmail.tikrai.books.pricing;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.rules.AntiquePricingRule;
+import com.gmail.tikrai.books.pricing.rules.RegularPricingRule;
+import com.gmail.tikrai.books.pricing.rules.ScienceJournalPricingRule;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class PricingEngineTest {
+
+  private static final int SAMPLES = 100_000;
+  private static final int CURRENT_YEAR = 2020;
+  private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+  private final AtomicInteger year = new AtomicInteger(CURRENT_YEAR);
+  private final PricingEngine engine = engine(Fixture.pricingRules());
+  private final Random random = new Random(42);
+
+  @Test
+  void shouldPriceRegularBook() {
+    Book book = Fixture.book().build();
+
+    assertThat(engine.totalPrice(book), is(new BigDecimal("22.20")));
+  }
+
+  @Test
+  void shouldPriceAntiqueBook() {
+    Book book = Fixture.book().antiqueReleaseYear(1600).build();
+
+    assertThat(engine.totalPrice(book), is(new BigDecimal("932.400")));
+    assertThat(engine.totalPrice(book, 2000), is(new BigDecimal("888.000")));
+  }
+
+  @Test
+  void shouldPriceScienceJournal() {
+    Book book = Fixture.book().scienceIndex(5).build();
+
+    assertThat(engine.totalPrice(book), is(new BigDecimal("111.00")));
+  }
+
+  @Test
+  void shouldPriceWithoutIntegerOverflow() {
+    Book antique = Fixture.book().quantity(Integer.MAX_VALUE).antiqueReleaseYear(-1000).build();
+    Book science = Fixture.book().quantity(Integer.MAX_VALUE).scienceIndex(10).build();
+
+    assertThat(engine.totalPrice(antique, 2000), is(new BigDecimal("7151120544510.000")));
+    assertThat(engine.totalPrice(science, 2000), is(new BigDecimal("238370684817.00")));
+  }
+
+  @Test
+  void shouldMatchExactPricesOfRandomBooks() {
+    for (int i = 0; i < SAMPLES; i++) {
+      Book book = randomBook(Integer.MAX_VALUE);
+      int currentYear = 1900 + random.nextInt(200);
+
+      assertThat(engine.totalPrice(book, currentYear), is(exactPrice(book, currentYear)));
+    }
+  }
+
+  @Test
+  void shouldPriceColumnsInMillsMatchingExactPrices() {
+    Book[] books = randomBooks(SAMPLES);
+
+    long[] mills = engine.totalMills(engine.columns(books));
+
+    for (int i = 0; i < books.length; i++) {
+      BigDecimal expected = exactPrice(books[i], CURRENT_YEAR);
+      assertThat(PricingEngine.price(mills[i]).compareTo(expected), is(0));
+    }
+  }
+
+  @Test
+  void shouldPriceSmallColumnsSequentially() {
+    Book[] books = randomBooks(100);
+    PricingEngine sequential = new PricingEngine(
+        Fixture.pricingRules(), Collections.emptyList(), 1000, year::get
+    );
+
+    long[] expected = engine.totalMills(engine.columns(books));
+
+    assertThat(sequential.totalMills(sequential.columns(books)), is(expected));
+  }
+
+  @Test
+  void shouldValueColumnsInTotal() {
+    List<Book> books = Arrays.asList(
+        Fixture.book().build(),
+        Fixture.book().antiqueReleaseYear(1600).build(),
+        Fixture.book().scienceIndex(5).build()
+    );
+
+    BigDecimal actual = engine.totalPrice(engine.columns(books));
+
+    assertThat(actual, is(new BigDecimal("1065.600")));
+  }
+
+  @Test
+  void shouldPriceBooksInBatchLikeOneByOne() {
+    List<Book> books = Arrays.asList(randomBooks(1000));
+
+    List<BigDecimal> actual = engine.totalPrices(books, CURRENT_YEAR);
+
+    for (int i = 0; i < books.size(); i++) {
+      assertThat(actual.get(i), is(engine.totalPrice(books.get(i), CURRENT_YEAR)));
+    }
+  }
+
+  @Test
+  void shouldFallBackToExactPricesOnOverflow() {
+    Book book = new Book(
+        "1234", "Name", "Author", Integer.MAX_VALUE, new BigDecimal("1e17"), null, Integer.MAX_VALUE
+    );
+    BookColumns columns = engine.columns(new Book[]{book, book});
+
+    assertThat(engine.totalPrice(book), is(exactPrice(book, CURRENT_YEAR)));
+    assertThrows(ArithmeticException.class, () -> engine.totalMills(columns));
+    assertThat(engine.totalPrice(columns), is(exactPrice(book, CURRENT_YEAR).multiply(TWO)));
+    assertThat(
+        engine.totalPrices(Arrays.asList(Fixture.book().build(), book), CURRENT_YEAR),
+        is(Arrays.asList(new BigDecimal("22.20"), exactPrice(book, CURRENT_YEAR)))
+    );
+  }
+
+  @Test
+  void shouldPriceWithRegisteredRule() {
+    PricingEngine discounted = engine(Arrays.asList(
+        new AntiquePricingRule(), new ScienceJournalPricingRule(), new HalfPriceRule()
+    ));
+    Book book = Fixture.book().build();
+
+    assertThat(discounted.totalPrice(book), is(new BigDecimal("11.10")));
+    assertThat(discounted.totalMills(discounted.columns(new Book[]{book}))[0], is(11100L));
+  }
+
+  @Test
+  void shouldApplyModifiersOfBookTypeInOrder() {
+    PricingEngine halvedFirst = engine(
+        Fixture.pricingRules(), new Discount(50), new Handling(1000), new Handling(-1000)
+    );
+    PricingEngine handledFirst =
+        engine(Fixture.pricingRules(), new Handling(1000), new Discount(50));
+    Book book = Fixture.book().build();
+    Book science = Fixture.book().scienceIndex(5).build();
+
+    assertThat(halvedFirst.totalPrice(book), is(new BigDecimal("11.10")));
+    assertThat(handledFirst.totalPrice(book), is(new BigDecimal("11.60")));
+    assertThat(handledFirst.totalPrice(science), is(engine.totalPrice(science)));
+    assertThat(handledFirst.totalMills(handledFirst.columns(new Book[]{book}))[0], is(11600L));
+    assertThat(
+        handledFirst.totalMillsSql(BookType.REGULAR, "2020"),
+        is("((price::numeric * quantity * 10) + 1000) * 50 / 100")
+    );
+    assertThat(handledFirst.summary(book).totalPrice(2020), is(new BigDecimal("11.600")));
+  }
+
+  @Test
+  void shouldKeepFractionsOfCentLeftByModifiers() {
+    PricingEngine discounted = engine(Fixture.pricingRules(), new Discount(10));
+    Book book = Fixture.book().quantity(1).price(0.01).build();
+
+    assertThat(discounted.totalPrice(book), is(new BigDecimal("0.0090")));
+  }
+
+  @Test
+  void shouldFailToCompileRulesPricingSameType() {
+    List<PricingRule> rules = new ArrayList<>(Fixture.pricingRules());
+    rules.add(new HalfPriceRule());
+
+    IllegalStateException exception =
+        assertThrows(IllegalStateException.class, () -> engine(rules));
+
+    assertThat(
+        exception.getMessage(),
+        is("Both RegularPricingRule and HalfPriceRule price REGULAR books, "
+            + "adjust prices with a PricingModifier instead")
+    );
+  }
+
+  @Test
+  void shouldFailToCompileRulesMissingType() {
+    List<PricingRule> rules = Arrays.asList(new RegularPricingRule(), new AntiquePricingRule());
+
+    IllegalStateException exception =
+        assertThrows(IllegalStateException.class, () -> engine(rules));
+
+    assertThat(exception.getMessage(), is("No pricing rule for SCIENCE books"));
+  }
+
+  @Test
+  void shouldCacheCurrentYearUntilRefreshed() {
+    year.set(CURRENT_YEAR + 1);
+
+    assertThat(engine.currentYear(), is(CURRENT_YEAR));
+    engine.refreshYear();
+    assertThat(engine.currentYear(), is(CURRENT_YEAR + 1));
+  }
+
+  private PricingEngine engine(List<PricingRule> rules, PricingModifier... modifiers) {
+    return new PricingEngine(rules, Arrays.asList(modifiers), 0, year::get);
+  }
+
+  private BigDecimal exactPrice(Book book, int currentYear) {
+    for (PricingRule rule : Fixture.pricingRules()) {
+      if (rule.type() == book.type()) {
+        return rule.totalPrice(book.price(), book.quantity(), rule.parameter(book), currentYear);
+      }
+    }
+    throw new IllegalArgumentException(book.type().name());
+  }
+
+  private Book[] randomBooks(int size) {
+    Book[] books = new Book[size];
+    for (int i = 0; i < books.length; i++) {
+      books[i] = randomBook(1_000_000);
+    }
+    return books;
+  }
+
+  private Book randomBook(int maxQuantity) {
+    int quantity = random.nextInt(maxQuantity);
+    BigDecimal price = BigDecimal.valueOf(random.nextInt(Integer.MAX_VALUE), 2);
+    switch (random.nextInt(3)) {
+      case 0:
+        return new Book("1234", "Name", "Author", quantity, price, 1 + random.nextInt(1900), null);
+      case 1:
+        return new Book("1234", "Name", "Author", quantity, price, null, random.nextInt(11));
+      default:
+        return new Book("1234", "Name", "Author", quantity, price, null, null);
+    }
+  }
+
+  private static final class Discount implements PricingModifier {
+
+    private final int percent;
+
+    Discount(int percent) {
+      this.percent = percent;
+    }
+
+    @Override
+    public BookType type() {
+      return BookType.REGULAR;
+    }
+
+    @Override
+    public long adjustMills(long totalMills) {
+      long hundredths = Math.multiplyExact(totalMills, 100L - percent);
+      if (hundredths % 100 != 0) {
+        throw new ArithmeticException("Discount is not a whole number of mills");
+      }
+      return hundredths / 100;
+    }
+
+    @Override
+    public BigDecimal adjust(BigDecimal totalPrice) {
+      return totalPrice.multiply(BigDecimal.valueOf(100L - percent, 2));
+    }
+
+    @Override
+    public String adjustSql(String totalMills) {
+      return String.format("(%s) * %d / 100", totalMills, 100 - percent);
+    }
+  }
+
+  private static final class Handling implements PricingModifier {
+
+    private final long mills;
+
+    Handling(long mills) {
+      this.mills = mills;
+    }
+
+    @Override
+    public BookType type() {
+      return BookType.REGULAR;
+    }
+
+    @Override
+    public long adjustMills(long totalMills) {
+      return Math.addExact(totalMills, mills);
+    }
+
+    @Override
+    public BigDecimal adjust(BigDecimal totalPrice) {
+      return totalPrice.add(PricingEngine.price(mills));
+    }
+
+    @Override
+    public String adjustSql(String totalMills) {
+      return String.format("(%s) + %d", totalMills, mills);
+    }
+  }
+
+  private static final class HalfPriceRule implements PricingRule {
+
+    @Override
+    public BookType type() {
+      return BookType.REGULAR;
+    }
+
+    @Override
+    public int scale() {
+      return PricingEngine.CENTS_SCALE;
+    }
+
+    @Override
+    public int parameter(Book book) {
+      return 0;
+    }
+
+    @Override
+    public long totalMills(long priceCents, int quantity, int parameter, int currentYear) {
+      return Math.multiplyExact(priceCents, quantity * PricingEngine.MILLS_PER_CENT / 2);
+    }
+
+    @Override
+    public BigDecimal totalPrice(BigDecimal price, int quantity, int parameter, int currentYear) {
+      return price.multiply(BigDecimal.valueOf(quantity)).divide(TWO);
+    }
+
+    @Override
+    public String totalMillsSql(String currentYear) {
+      return "price::numeric * quantity * 5";
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.gmail.tikrai.books.pricing.rules;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class AntiquePricingRuleTest {
+
+  private final AntiquePricingRule rule = new AntiquePricingRule();
+
+  @Test
+  void shouldPriceAntiqueBooksByReleaseYear() {
+    assertThat(rule.type(), is(BookType.ANTIQUE));
+    assertThat(rule.parameter(Fixture.book().antiqueReleaseYear(1600).build()), is(1600));
+  }
+
+  @Test
+  void shouldCalculateTotalPrice() {
+    BigDecimal actual = rule.totalPrice(new BigDecimal("11.10"), 2, 1600, 2000);
+
+    assertThat(actual, is(new BigDecimal("888.000")));
+  }
+
+  @Test
+  void shouldCalculateTotalMills() {
+    assertThat(rule.totalMills(1110, 2, 1600, 2000), is(888000L));
+  }
+
+  @Test
+  void shouldFailToCalculateTotalMillsOnOverflow() {
+    assertThrows(
+        ArithmeticException.class,
+        () -> rule.totalMills(Long.MAX_VALUE / 2, Integer.MAX_VALUE, 1600, 2000)
+    );
+  }
+}
@@ -0,0 +1,30 @@
+package com.gmail.tikrai.books.pricing.rules;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class RegularPricingRuleTest {
+
+  private final RegularPricingRule rule = new RegularPricingRule();
+
+  @Test
+  void shouldPriceRegularBooks() {
+    assertThat(rule.type(), is(BookType.REGULAR));
+    assertThat(rule.parameter(Fixture.book().build()), is(0));
+  }
+
+  @Test
+  void shouldCalculateTotalPrice() {
+    assertThat(rule.totalPrice(new BigDecimal("11.10"), 2, 0, 2000), is(new BigDecimal("22.20")));
+  }
+
+  @Test
+  void shouldCalculateTotalMills() {
+    assertThat(rule.totalMills(1110, 2, 0, 2000), is(22200L));
+  }
+}
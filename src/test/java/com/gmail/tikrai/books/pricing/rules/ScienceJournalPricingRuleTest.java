@@ -0,0 +1,30 @@
+package com.gmail.tikrai.books.pricing.rules;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class ScienceJournalPricingRuleTest {
+
+  private final ScienceJournalPricingRule rule = new ScienceJournalPricingRule();
+
+  @Test
+  void shouldPriceScienceJournalsByIndex() {
+    assertThat(rule.type(), is(BookType.SCIENCE));
+    assertThat(rule.parameter(Fixture.book().scienceIndex(5).build()), is(5));
+  }
+
+  @Test
+  void shouldCalculateTotalPrice() {
+    assertThat(rule.totalPrice(new BigDecimal("11.10"), 2, 5, 2000), is(new BigDecimal("111.00")));
+  }
+
+  @Test
+  void shouldCalculateTotalMills() {
+    assertThat(rule.totalMills(1110, 2, 5, 2000), is(111000L));
+  }
+}
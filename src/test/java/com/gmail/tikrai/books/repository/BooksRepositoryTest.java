@@ -3,26 +3,85 @@ package com.gmail.tikrai.books.repository;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookChange;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.BooksFilter;
 import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.rowmappers.BookChangeMapper;
 import com.gmail.tikrai.books.repository.rowmappers.BooksMapper;
+import com.gmail.tikrai.books.request.BookPatch;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
 
 class BooksRepositoryTest {
 
+  private static final String TOTAL_PRICE = "SELECT COALESCE(SUM(CASE "
+      + "WHEN antique_release_year IS NULL AND science_index IS NULL "
+      + "THEN price::numeric * quantity * 10 "
+      + "WHEN antique_release_year IS NOT NULL "
+      + "THEN price::numeric * quantity * (params.current_year - antique_release_year) "
+      + "WHEN antique_release_year IS NULL AND science_index IS NOT NULL "
+      + "THEN price::numeric * quantity * science_index * 10 END), 0) "
+      + "FROM books_stock, (SELECT ?::numeric AS current_year) params";
+  private static final String PREVIOUS = "WITH previous AS "
+      + "(SELECT * FROM books WHERE barcode = ? FOR UPDATE), "
+      + "previous_slots AS (SELECT COALESCE(SUM(quantity), 0) AS quantity, "
+      + "COALESCE(SUM(version), 0) AS version FROM (SELECT slots.quantity, slots.version "
+      + "FROM books_quantity_slots slots, previous WHERE slots.barcode = previous.barcode "
+      + "ORDER BY slots.slot FOR UPDATE OF slots) locked), ";
+  private static final String CLEARED = "cleared AS (UPDATE books_quantity_slots slots "
+      + "SET quantity = 0 FROM updated "
+      + "WHERE slots.barcode = updated.barcode AND slots.quantity <> 0) ";
+  private static final String PREVIOUS_FIELDS = "previous.barcode AS previous_barcode, "
+      + "previous.name AS previous_name, previous.author AS previous_author, "
+      + "previous.quantity + previous_slots.quantity AS previous_quantity, "
+      + "previous.price AS previous_price, "
+      + "previous.antique_release_year AS previous_antique_release_year, "
+      + "previous.science_index AS previous_science_index, "
+      + "previous.version + previous_slots.version AS previous_version";
+  private static final String CHANGED_FIELDS = "changed.barcode AS barcode, "
+      + "changed.name AS name, changed.author AS author, changed.quantity AS quantity, "
+      + "changed.price AS price, changed.antique_release_year AS antique_release_year, "
+      + "changed.science_index AS science_index, "
+      + "changed.version + previous_slots.version AS version";
+
   private final JdbcTemplate db = mock(JdbcTemplate.class);
-  private final BooksRepository booksRepository = new BooksRepository(db);
+  private final BooksRepository booksRepository =
+      new BooksRepository(db, Fixture.pricingEngine(), 2, 100);
   private final Book book = Fixture.book().build();
 
   @Test
@@ -36,35 +95,583 @@ class BooksRepositoryTest {
     verifyNoMoreInteractions(db);
   }
 
+  @Test
+  void shouldFindVersionByBarcode() {
+    String expectedQuery = "SELECT version FROM books_stock WHERE barcode = ?";
+    when(db.queryForList(expectedQuery, Long.class, book.barcode()))
+        .thenReturn(Collections.singletonList(3L));
+
+    Optional<Long> actual = booksRepository.findVersion(book.barcode());
+
+    assertThat(actual, is(Optional.of(3L)));
+    verify(db).queryForList(expectedQuery, Long.class, book.barcode());
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldFindFirstPage() {
+    String expectedQuery = "SELECT * FROM books_stock ORDER BY barcode LIMIT ?";
+    when(db.query(eq(expectedQuery), any(BooksMapper.class), eq(3)))
+        .thenReturn(Collections.singletonList(book));
+
+    List<Book> actual = booksRepository.findPage(Optional.empty(), 3);
+
+    assertThat(actual, is(Collections.singletonList(book)));
+    verify(db).query(eq(expectedQuery), any(BooksMapper.class), eq(3));
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldFindPageAfterBarcode() {
+    String expectedQuery = "SELECT * FROM books_stock WHERE barcode > ? ORDER BY barcode LIMIT ?";
+    when(db.query(eq(expectedQuery), any(BooksMapper.class), eq("1000"), eq(3)))
+        .thenReturn(Collections.singletonList(book));
+
+    List<Book> actual = booksRepository.findPage(Optional.of("1000"), 3);
+
+    assertThat(actual, is(Collections.singletonList(book)));
+    verify(db).query(eq(expectedQuery), any(BooksMapper.class), eq("1000"), eq(3));
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldSumTotalPriceOfAllBooks() {
+    String expectedQuery = TOTAL_PRICE;
+    when(db.queryForObject(expectedQuery, BigDecimal.class, 2020))
+        .thenReturn(new BigDecimal("1234567"));
+
+    BigDecimal actual = booksRepository.totalPrice(BooksFilter.all(), 2020);
+
+    assertThat(actual, is(new BigDecimal("1234.567")));
+    verify(db).queryForObject(expectedQuery, BigDecimal.class, 2020);
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldSumTotalPriceOfFilteredBooks() {
+    String expectedQuery = TOTAL_PRICE + " WHERE author = ? "
+        + "AND antique_release_year IS NULL AND science_index IS NOT NULL "
+        + "AND price >= ? AND price <= ?";
+    BooksFilter filter = new BooksFilter(
+        "Book Author", BookType.SCIENCE, new BigDecimal("1.005"), new BigDecimal("20.00")
+    );
+    Object[] expectedArgs = {2020, "Book Author", new BigDecimal("100.5"), new BigDecimal("2000")};
+    when(db.queryForObject(expectedQuery, BigDecimal.class, expectedArgs))
+        .thenReturn(BigDecimal.ZERO);
+
+    BigDecimal actual = booksRepository.totalPrice(filter, 2020);
+
+    assertThat(actual, is(new BigDecimal("0.000")));
+    verify(db).queryForObject(expectedQuery, BigDecimal.class, expectedArgs);
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldStreamAllBooksWithFetchSize() throws SQLException {
+    ArgumentCaptor<PreparedStatementSetter> setter =
+        ArgumentCaptor.forClass(PreparedStatementSetter.class);
+    ArgumentCaptor<RowCallbackHandler> handler = ArgumentCaptor.forClass(RowCallbackHandler.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    List<Book> streamed = new ArrayList<>();
+
+    booksRepository.streamAll(streamed::add);
+
+    verify(db).query(
+        eq("SELECT * FROM books_stock ORDER BY barcode"), setter.capture(), handler.capture()
+    );
+    setter.getValue().setValues(ps);
+    verify(ps).setFetchSize(100);
+    handler.getValue().processRow(resultSetOf(book));
+    assertThat(streamed, is(Collections.singletonList(book)));
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldCountAllBooks() {
+    when(db.queryForObject("SELECT count(*) FROM books", Long.class)).thenReturn(3L);
+
+    long actual = booksRepository.countAll();
+
+    assertThat(actual, is(3L));
+  }
+
+  @Test
+  void shouldStreamAllBarcodesWithFetchSize() throws SQLException {
+    ArgumentCaptor<PreparedStatementSetter> setter =
+        ArgumentCaptor.forClass(PreparedStatementSetter.class);
+    ArgumentCaptor<RowCallbackHandler> handler = ArgumentCaptor.forClass(RowCallbackHandler.class);
+    final PreparedStatement ps = mock(PreparedStatement.class);
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getString("barcode")).thenReturn(book.barcode());
+    List<String> streamed = new ArrayList<>();
+
+    booksRepository.streamBarcodes(streamed::add);
+
+    verify(db).query(eq("SELECT barcode FROM books"), setter.capture(), handler.capture());
+    setter.getValue().setValues(ps);
+    verify(ps).setFetchSize(100);
+    handler.getValue().processRow(rs);
+    assertThat(streamed, is(Collections.singletonList(book.barcode())));
+    verifyNoMoreInteractions(db);
+  }
+
   @Test
   void shouldFindBookByBarcode() {
-    when(db.query(anyString(), any(BooksMapper.class))).thenReturn(Collections.singletonList(book));
+    String expectedQuery = "SELECT * FROM books_stock WHERE barcode = ?";
+    when(db.query(eq(expectedQuery), any(BooksMapper.class), eq("code123")))
+        .thenReturn(Collections.singletonList(book));
 
     Optional<Book> actual = booksRepository.findByBarcode("code123");
 
     assertThat(actual, is(Optional.of(book)));
-    verify(db).query(anyString(), any(BooksMapper.class));
+    verify(db).query(eq(expectedQuery), any(BooksMapper.class), eq("code123"));
     verifyNoMoreInteractions(db);
   }
 
+  @Test
+  void shouldFindBooksByBarcodesInOneQuery() throws SQLException {
+    String expectedQuery = "SELECT * FROM books_stock WHERE barcode = ANY(?)";
+    ArgumentCaptor<PreparedStatementSetter> setter =
+        ArgumentCaptor.forClass(PreparedStatementSetter.class);
+    when(db.query(eq(expectedQuery), setter.capture(), any(BooksMapper.class)))
+        .thenReturn(Collections.singletonList(book));
+
+    List<Book> actual = booksRepository.findByBarcodes(Arrays.asList("1234", "5678"));
+
+    assertThat(actual, is(Collections.singletonList(book)));
+    PreparedStatement ps = mock(PreparedStatement.class);
+    Connection connection = mock(Connection.class);
+    when(ps.getConnection()).thenReturn(connection);
+    setter.getValue().setValues(ps);
+    verify(connection).createArrayOf("varchar", new Object[]{"1234", "5678"});
+  }
+
   @Test
   void shouldCreateBook() {
-    booksRepository.create(book);
+    String expectedQuery = "WITH created AS (INSERT INTO books "
+        + "(barcode, name, author, quantity, price, antique_release_year, science_index) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (barcode) DO NOTHING RETURNING *) "
+        + "SELECT created.* FROM created, pg_notify('books_changed', created.barcode)";
+    Object[] expectedArgs = {"1234", "Book Name", "Book Author", 2, 1110, null, null};
+    int[] expectedTypes = {
+        Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+        Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER
+    };
+    when(db.query(
+        eq(expectedQuery), aryEq(expectedArgs), aryEq(expectedTypes), any(BooksMapper.class)
+    )).thenReturn(Collections.singletonList(book));
+
+    Optional<Book> actual = booksRepository.create(book);
+
+    assertThat(actual, is(Optional.of(book)));
+    verify(db).query(
+        eq(expectedQuery), aryEq(expectedArgs), aryEq(expectedTypes), any(BooksMapper.class)
+    );
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldNotCreateBookIfBarcodeAlreadyExists() {
+    when(db.query(anyString(), any(Object[].class), any(int[].class), any(BooksMapper.class)))
+        .thenReturn(Collections.emptyList());
+
+    Optional<Book> actual = booksRepository.create(book);
+
+    assertThat(actual, is(Optional.empty()));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldLockBooksInBarcodeOrder() {
+    String expectedQuery =
+        "SELECT barcode FROM books WHERE barcode = ANY(?) ORDER BY barcode FOR UPDATE";
+    when(db.query(eq(expectedQuery), any(PreparedStatementSetter.class), any(RowMapper.class)))
+        .thenReturn(Collections.singletonList("1234"));
+
+    Set<String> actual = booksRepository.lockAll(Arrays.asList("1234", "5678"));
+
+    assertThat(actual, is(Collections.singleton("1234")));
+    verify(db).query(eq(expectedQuery), any(PreparedStatementSetter.class), any(RowMapper.class));
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldAdjustQuantityUnlessItGoesBelowZero() {
+    String expectedQuery = "WITH adjusted AS ("
+        + "UPDATE books SET (quantity, version) = (quantity + ?, version + 1) "
+        + "WHERE barcode = ? AND quantity_slots = 0 "
+        + "AND quantity + ?::bigint BETWEEN 0 AND 2147483647 RETURNING *"
+        + ") SELECT adjusted.* FROM adjusted, pg_notify('books_changed', adjusted.barcode)";
+    when(db.query(eq(expectedQuery), any(BooksMapper.class), eq(-2), eq("1234"), eq(-2)))
+        .thenReturn(Collections.singletonList(book));
+
+    Optional<Book> actual = booksRepository.adjustQuantity("1234", -2);
+
+    assertThat(actual, is(Optional.of(book)));
+    verify(db).query(eq(expectedQuery), any(BooksMapper.class), eq(-2), eq("1234"), eq(-2));
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldAdjustQuantitiesInOneStatement() throws SQLException {
+    String expectedQuery = "WITH adjusted AS ("
+        + "UPDATE books SET (quantity, version) = "
+        + "(books.quantity + requested.delta, books.version + 1) "
+        + "FROM unnest(?::varchar[], ?::bigint[]) AS requested(barcode, delta) "
+        + "WHERE books.barcode = requested.barcode AND books.quantity_slots = 0 "
+        + "AND books.quantity + requested.delta BETWEEN 0 AND 2147483647 RETURNING books.*"
+        + ") SELECT adjusted.* FROM adjusted, pg_notify('books_changed', adjusted.barcode)";
+    Map<String, Long> deltas = new TreeMap<>();
+    deltas.put("1234", -1L);
+    deltas.put("5678", 3L);
+    ArgumentCaptor<PreparedStatementSetter> setter =
+        ArgumentCaptor.forClass(PreparedStatementSetter.class);
+    when(db.query(eq(expectedQuery), setter.capture(), any(BooksMapper.class)))
+        .thenReturn(Collections.singletonList(book));
+
+    List<Book> actual = booksRepository.adjustQuantities(deltas);
+
+    assertThat(actual, is(Collections.singletonList(book)));
+    PreparedStatement ps = mock(PreparedStatement.class);
+    Connection connection = mock(Connection.class);
+    when(ps.getConnection()).thenReturn(connection);
+    setter.getValue().setValues(ps);
+    verify(connection).createArrayOf("varchar", new Object[]{"1234", "5678"});
+    verify(connection).createArrayOf("bigint", new Object[]{-1L, 3L});
+  }
+
+  @Test
+  void shouldAdjustRandomUnlockedSlot() {
+    String expectedQuery = "WITH target AS (SELECT barcode, slot FROM books_quantity_slots "
+        + "WHERE barcode = ? AND quantity + ?::bigint BETWEEN 0 AND 2147483647 "
+        + "ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED), "
+        + "adjusted AS (UPDATE books_quantity_slots slots "
+        + "SET (quantity, version) = (slots.quantity + ?, slots.version + 1) FROM target "
+        + "WHERE slots.barcode = target.barcode AND slots.slot = target.slot "
+        + "RETURNING slots.barcode) "
+        + "SELECT stock.barcode, stock.name, stock.author, stock.quantity + ? AS quantity, "
+        + "stock.price, stock.antique_release_year, stock.science_index, "
+        + "stock.version + 1 AS version "
+        + "FROM adjusted JOIN books_stock stock ON stock.barcode = adjusted.barcode, "
+        + "pg_notify('books_changed', adjusted.barcode)";
+    when(db.query(eq(expectedQuery), any(BooksMapper.class), eq("1234"), eq(-2L), eq(-2L), eq(-2L)))
+        .thenReturn(Collections.singletonList(book));
+
+    Optional<Book> actual = booksRepository.adjustSlot("1234", -2);
+
+    assertThat(actual, is(Optional.of(book)));
+    verify(db)
+        .query(eq(expectedQuery), any(BooksMapper.class), eq("1234"), eq(-2L), eq(-2L), eq(-2L));
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldSpreadQuantityAcrossSlots() {
+    when(db.query(anyString(), any(BooksMapper.class), eq("1234"), eq(8), eq(-2L)))
+        .thenReturn(Collections.singletonList(book));
+
+    Optional<Book> actual = booksRepository.spreadQuantity("1234", Optional.of(8), -2);
+
+    assertThat(actual, is(Optional.of(book)));
+    ArgumentCaptor<String> query = ArgumentCaptor.forClass(String.class);
+    verify(db).query(query.capture(), any(BooksMapper.class), eq("1234"), eq(8), eq(-2L));
+    assertThat(query.getValue().startsWith(
+        "WITH book AS (SELECT * FROM books WHERE barcode = ? FOR UPDATE), "
+            + "locked AS (SELECT slots.quantity, slots.version FROM books_quantity_slots slots, "
+            + "book WHERE slots.barcode = book.barcode ORDER BY slots.slot FOR UPDATE OF slots)"
+    ), is(true));
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldSpreadQuantityAcrossConfiguredSlots() {
+    when(db.query(anyString(), any(BooksMapper.class), eq("1234"), eq(null), eq(0L)))
+        .thenReturn(Collections.emptyList());
+
+    Optional<Book> actual = booksRepository.spreadQuantity("1234", Optional.empty(), 0);
+
+    assertThat(actual, is(Optional.empty()));
+  }
+
+  @Test
+  void shouldFindBooksWithUnbalancedSlots() {
+    String expectedQuery = "SELECT books.barcode FROM books "
+        + "LEFT JOIN books_quantity_slots slots ON slots.barcode = books.barcode "
+        + "WHERE books.quantity_slots > 0 GROUP BY books.barcode "
+        + "HAVING books.quantity > 0 OR COUNT(slots.slot) <> books.quantity_slots "
+        + "OR MAX(slots.quantity) - MIN(slots.quantity) > 1";
+    when(db.queryForList(expectedQuery, String.class))
+        .thenReturn(Collections.singletonList("1234"));
+
+    List<String> actual = booksRepository.findUnbalancedSlots();
+
+    assertThat(actual, is(Collections.singletonList("1234")));
+  }
+
+  @Test
+  void shouldCreateAllBooksInBatchesReturningCreatedOnes() throws SQLException {
+    Book second = Fixture.book().barcode("5678").build();
+    Book third = Fixture.book().barcode("9012").build();
+    ArgumentCaptor<PreparedStatementSetter> setter =
+        ArgumentCaptor.forClass(PreparedStatementSetter.class);
+    when(db.query(anyString(), setter.capture(), any(BooksMapper.class)))
+        .thenReturn(Collections.singletonList(book), Collections.singletonList(third));
+
+    List<Book> actual = booksRepository.createAll(Arrays.asList(book, second, third));
+
+    assertThat(actual, is(Arrays.asList(book, third)));
+    verify(db, times(2))
+        .query(anyString(), any(PreparedStatementSetter.class), any(BooksMapper.class));
+    verifyNoMoreInteractions(db);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    Connection connection = mock(Connection.class);
+    when(ps.getConnection()).thenReturn(connection);
+    for (PreparedStatementSetter batch : setter.getAllValues()) {
+      batch.setValues(ps);
+    }
+    verify(connection).createArrayOf("varchar", new Object[]{"1234", "5678"});
+    verify(connection).createArrayOf("varchar", new Object[]{"9012"});
+  }
+
+  @Test
+  void shouldImportRowsThroughStagingTable() {
+    Reader rows = new StringReader("");
+    String expectedMerge = "INSERT INTO books "
+        + "(barcode, name, author, quantity, price, antique_release_year, science_index) "
+        + "SELECT DISTINCT ON (barcode) "
+        + "barcode, name, author, quantity, price, antique_release_year, science_index "
+        + "FROM books_import ORDER BY barcode, line DESC "
+        + "ON CONFLICT (barcode) DO UPDATE "
+        + "SET (name, author, quantity, price, antique_release_year, science_index, version) = "
+        + "(EXCLUDED.name, EXCLUDED.author, EXCLUDED.quantity, EXCLUDED.price, "
+        + "EXCLUDED.antique_release_year, EXCLUDED.science_index, books.version + 1)";
+    when(db.update(expectedMerge)).thenReturn(3);
+
+    long actual = booksRepository.importRows(rows);
+
+    assertThat(actual, is(3L));
+    verify(db).execute(
+        "CREATE TEMPORARY TABLE books_import (line BIGINT NOT NULL, barcode VARCHAR(255), "
+            + "name VARCHAR(255), author VARCHAR(255), quantity INTEGER, price INTEGER, "
+            + "antique_release_year INTEGER, science_index INTEGER) ON COMMIT DROP"
+    );
+    verify(db).execute(any(ConnectionCallback.class));
+    verify(db).update(expectedMerge);
+    verify(db).update("UPDATE books_quantity_slots slots SET quantity = 0 "
+        + "FROM books_import imported "
+        + "WHERE slots.barcode = imported.barcode AND slots.quantity <> 0");
+    verify(db).execute("NOTIFY books_changed, '*'");
+    verifyNoMoreInteractions(db);
+  }
 
-    String expectedQuery = "INSERT INTO books "
-        + "VALUES ('1234', 'Book Name', 'Book Author', 2, 1110, null, null)";
-    verify(db).update(expectedQuery);
+  @Test
+  void shouldUpdateBookOfExpectedVersion() {
+    String expectedQuery = PREVIOUS + "updated AS (UPDATE books "
+        + "SET (name, author, quantity, price, antique_release_year, science_index, version) = "
+        + "(?, ?, ?, ?, ?, ?, previous.version + 1) FROM previous, previous_slots "
+        + "WHERE books.barcode = previous.barcode AND previous.version + previous_slots.version "
+        + "= COALESCE(?, previous.version + previous_slots.version) RETURNING books.*), "
+        + CLEARED
+        + "SELECT " + PREVIOUS_FIELDS + ", " + CHANGED_FIELDS
+        + " FROM previous, previous_slots LEFT JOIN ("
+        + "SELECT updated.* FROM updated, pg_notify('books_changed', updated.barcode)"
+        + ") changed ON true";
+    Object[] expectedArgs = {"1234", "Book Name", "Book Author", 2, 1110, null, null, 3L};
+    int[] expectedTypes = {
+        Types.VARCHAR,
+        Types.VARCHAR, Types.VARCHAR,
+        Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER,
+        Types.BIGINT
+    };
+    BookChange change = new BookChange(book, book);
+    when(db.query(
+        eq(expectedQuery), aryEq(expectedArgs), aryEq(expectedTypes), any(BookChangeMapper.class)
+    )).thenReturn(Collections.singletonList(change));
+
+    Optional<BookChange> actual = booksRepository.update(book, Optional.of(3L));
+
+    assertThat(actual, is(Optional.of(change)));
+    verify(db).query(
+        eq(expectedQuery), aryEq(expectedArgs), aryEq(expectedTypes), any(BookChangeMapper.class)
+    );
     verifyNoMoreInteractions(db);
   }
 
   @Test
-  void shouldUpdateBook() {
-    booksRepository.update(book);
+  void shouldUpdateBookOfAnyVersion() {
+    Object[] expectedArgs = {"1234", "Book Name", "Book Author", 2, 1110, null, null, null};
+    when(db.query(
+        anyString(), aryEq(expectedArgs), any(int[].class), any(BookChangeMapper.class)
+    )).thenReturn(Collections.emptyList());
+
+    booksRepository.update(book, Optional.empty());
+
+    verify(db).query(
+        anyString(), aryEq(expectedArgs), any(int[].class), any(BookChangeMapper.class)
+    );
+  }
+
+  @Test
+  void shouldNotUpdateBookIfBarcodeDoesNotExist() {
+    when(db.query(anyString(), any(Object[].class), any(int[].class), any(BookChangeMapper.class)))
+        .thenReturn(Collections.emptyList());
+
+    Optional<BookChange> actual = booksRepository.update(book, Optional.empty());
+
+    assertThat(actual, is(Optional.empty()));
+  }
 
-    String expectedQuery = "UPDATE books "
-        + "SET (name, author, quantity, price, antique_release_year, science_index) = "
-        + "('Book Name', 'Book Author', 2, 1110, null, null) WHERE barcode = '1234'";
-    verify(db).update(expectedQuery);
+  @Test
+  void shouldCreateAbsentBooksInOneStatement() throws SQLException {
+    String expectedQuery = "WITH created AS (INSERT INTO books "
+        + "(barcode, name, author, quantity, price, antique_release_year, science_index) "
+        + "SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], "
+        + "?::integer[], ?::integer[], ?::integer[], ?::integer[]) AS requested(barcode, name, "
+        + "author, quantity, price, antique_release_year, science_index) ORDER BY barcode "
+        + "ON CONFLICT (barcode) DO NOTHING RETURNING *) "
+        + "SELECT created.* FROM created, pg_notify('books_changed', created.barcode)";
+    ArgumentCaptor<PreparedStatementSetter> setter =
+        ArgumentCaptor.forClass(PreparedStatementSetter.class);
+    when(db.query(eq(expectedQuery), setter.capture(), any(BooksMapper.class)))
+        .thenReturn(Collections.singletonList(book));
+
+    List<Book> actual = booksRepository.createAbsent(Collections.singletonList(book));
+
+    assertThat(actual, is(Collections.singletonList(book)));
+    PreparedStatement ps = mock(PreparedStatement.class);
+    Connection connection = mock(Connection.class);
+    when(ps.getConnection()).thenReturn(connection);
+    setter.getValue().setValues(ps);
+    verify(connection).createArrayOf("varchar", new Object[]{"1234"});
+    verify(connection).createArrayOf("integer", new Object[]{1110});
+  }
+
+  @Test
+  void shouldUpdateAllBooksInOneStatement() throws SQLException {
+    String expectedQuery = "WITH requested AS (SELECT * FROM unnest(?::varchar[], "
+        + "?::varchar[], ?::varchar[], ?::integer[], ?::integer[], ?::integer[], ?::integer[]) "
+        + "AS requested(barcode, name, author, quantity, price, antique_release_year, "
+        + "science_index)), previous AS (SELECT * FROM books "
+        + "WHERE barcode IN (SELECT barcode FROM requested) ORDER BY barcode FOR UPDATE), "
+        + "previous_slots AS (SELECT previous.barcode, "
+        + "COALESCE(SUM(locked.quantity), 0) AS quantity, "
+        + "COALESCE(SUM(locked.version), 0) AS version FROM previous LEFT JOIN ("
+        + "SELECT slots.barcode, slots.quantity, slots.version FROM books_quantity_slots slots, "
+        + "previous WHERE slots.barcode = previous.barcode "
+        + "ORDER BY slots.barcode, slots.slot FOR UPDATE OF slots"
+        + ") locked ON locked.barcode = previous.barcode GROUP BY previous.barcode), "
+        + "updated AS (UPDATE books "
+        + "SET (name, author, quantity, price, antique_release_year, science_index, version) = "
+        + "(requested.name, requested.author, requested.quantity, requested.price, "
+        + "requested.antique_release_year, requested.science_index, previous.version + 1) "
+        + "FROM requested, previous WHERE books.barcode = requested.barcode "
+        + "AND previous.barcode = requested.barcode RETURNING books.*), "
+        + CLEARED
+        + "SELECT " + PREVIOUS_FIELDS + ", " + CHANGED_FIELDS.replace("changed.", "updated.")
+        + " FROM previous JOIN previous_slots ON previous_slots.barcode = previous.barcode "
+        + "JOIN updated ON updated.barcode = previous.barcode, "
+        + "pg_notify('books_changed', updated.barcode)";
+    Book antique = Fixture.book().barcode("5678").antiqueReleaseYear(1800).build();
+    BookChange change = new BookChange(book, book);
+    ArgumentCaptor<PreparedStatementSetter> setter =
+        ArgumentCaptor.forClass(PreparedStatementSetter.class);
+    when(db.query(eq(expectedQuery), setter.capture(), any(BookChangeMapper.class)))
+        .thenReturn(Collections.singletonList(change));
+
+    List<BookChange> actual = booksRepository.updateAll(Arrays.asList(book, antique));
+
+    assertThat(actual, is(Collections.singletonList(change)));
+    PreparedStatement ps = mock(PreparedStatement.class);
+    Connection connection = mock(Connection.class);
+    when(ps.getConnection()).thenReturn(connection);
+    setter.getValue().setValues(ps);
+    verify(connection).createArrayOf("varchar", new Object[]{"1234", "5678"});
+    verify(connection).createArrayOf("varchar", new Object[]{"Book Name", "Book Name"});
+    verify(connection).createArrayOf("varchar", new Object[]{"Book Author", "Book Author"});
+    verify(connection).createArrayOf("integer", new Object[]{2, 2});
+    verify(connection).createArrayOf("integer", new Object[]{1110, 1110});
+    verify(connection).createArrayOf("integer", new Object[]{null, 1800});
+    verify(connection).createArrayOf("integer", new Object[]{null, null});
+  }
+
+  @Test
+  void shouldCommitAsynchronously() {
+    booksRepository.commitAsynchronously();
+
+    verify(db).execute("SELECT set_config('synchronous_commit', 'off', true)");
     verifyNoMoreInteractions(db);
   }
+
+  @Test
+  void shouldPatchOnlySuppliedColumns() {
+    String expectedQuery = PREVIOUS + "updated AS (UPDATE books "
+        + "SET quantity = ?, science_index = ?, version = previous.version + 1 "
+        + "FROM previous, previous_slots "
+        + "WHERE books.barcode = previous.barcode AND previous.version + previous_slots.version "
+        + "= COALESCE(?, previous.version + previous_slots.version) "
+        + "AND previous.antique_release_year IS NULL RETURNING books.*), "
+        + CLEARED
+        + "SELECT " + PREVIOUS_FIELDS + ", " + CHANGED_FIELDS
+        + " FROM previous, previous_slots LEFT JOIN ("
+        + "SELECT updated.* FROM updated, pg_notify('books_changed', updated.barcode)"
+        + ") changed ON true";
+    BookChange change = new BookChange(book, book);
+    ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+    when(db.query(eq(expectedQuery), args.capture(), any(BookChangeMapper.class)))
+        .thenReturn(Collections.singletonList(change));
+
+    Optional<BookChange> actual = booksRepository.patch(
+        book.barcode(), new BookPatch(null, null, 3, null, null, 4), Optional.empty()
+    );
+
+    assertThat(actual, is(Optional.of(change)));
+    assertThat(args.getValue().length, is(4));
+    assertThat(Arrays.asList(args.getValue()).subList(0, 3), is(Arrays.asList("1234", 3, 4)));
+    SqlParameterValue version = (SqlParameterValue) args.getValue()[3];
+    assertThat(version.getSqlType(), is(Types.BIGINT));
+    assertThat(version.getValue(), is((Object) null));
+  }
+
+  @Test
+  void shouldAddSlotQuantityUnlessPatchAssignsQuantity() {
+    ArgumentCaptor<String> query = ArgumentCaptor.forClass(String.class);
+    when(db.query(query.capture(), any(Object[].class), any(BookChangeMapper.class)))
+        .thenReturn(Collections.emptyList());
+
+    booksRepository.patch(
+        book.barcode(), new BookPatch("New Name", null, null, null, null, null), Optional.empty()
+    );
+
+    assertThat(query.getValue().contains("cleared AS"), is(false));
+    assertThat(
+        query.getValue().contains("changed.quantity + previous_slots.quantity AS quantity"),
+        is(true)
+    );
+  }
+
+  @Test
+  void shouldPatchPriceInCents() {
+    ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+    when(db.query(anyString(), args.capture(), any(BookChangeMapper.class)))
+        .thenReturn(Collections.emptyList());
+
+    booksRepository.patch(
+        book.barcode(), new BookPatch(null, null, null, new BigDecimal("12.5"), null, null),
+        Optional.of(2L)
+    );
+
+    assertThat(args.getValue()[1], is(1250));
+    assertThat(((SqlParameterValue) args.getValue()[2]).getValue(), is(2L));
+  }
+
+  private ResultSet resultSetOf(Book book) throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getString("barcode")).thenReturn(book.barcode());
+    when(rs.getString("name")).thenReturn(book.name());
+    when(rs.getString("author")).thenReturn(book.author());
+    when(rs.getInt("quantity")).thenReturn(book.quantity());
+    when(rs.getInt("price")).thenReturn(book.price().unscaledValue().intValue());
+    when(rs.wasNull()).thenReturn(true);
+    return rs;
+  }
 }
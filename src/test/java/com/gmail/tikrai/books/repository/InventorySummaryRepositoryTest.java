@@ -0,0 +1,125 @@
+package com.gmail.tikrai.books.repository;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.repository.rowmappers.CategorySummaryMapper;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+class InventorySummaryRepositoryTest {
+
+  private static final String ADD = "INSERT INTO books_summary "
+      + "(type, slot, books, quantity, value_per_year, value_fixed) VALUES (?, ?, ?, ?, ?, ?) "
+      + "ON CONFLICT (type, slot) DO UPDATE SET "
+      + "books = books_summary.books + EXCLUDED.books, "
+      + "quantity = books_summary.quantity + EXCLUDED.quantity, "
+      + "value_per_year = books_summary.value_per_year + EXCLUDED.value_per_year, "
+      + "value_fixed = books_summary.value_fixed + EXCLUDED.value_fixed";
+
+  private final JdbcTemplate db = mock(JdbcTemplate.class);
+  private final PricingEngine pricingEngine = Fixture.pricingEngine();
+  private final InventorySummaryRepository summaryRepository =
+      new InventorySummaryRepository(db, pricingEngine, 4);
+  private final Book book = Fixture.book().build();
+
+  @Test
+  void shouldFindAllCategoriesSummedOverSlotsDefaultingToEmpty() {
+    CategorySummary regular = pricingEngine.summary(book);
+    String expectedQuery = "SELECT type, SUM(books) books, SUM(quantity) quantity, "
+        + "SUM(value_per_year) value_per_year, SUM(value_fixed) value_fixed "
+        + "FROM books_summary GROUP BY type";
+    when(db.query(eq(expectedQuery), any(CategorySummaryMapper.class)))
+        .thenReturn(Collections.singletonList(regular));
+
+    Map<BookType, CategorySummary> actual = summaryRepository.findAll();
+
+    assertThat(actual.get(BookType.REGULAR), is(regular));
+    assertThat(actual.get(BookType.ANTIQUE), is(CategorySummary.empty(BookType.ANTIQUE)));
+    assertThat(actual.get(BookType.SCIENCE), is(CategorySummary.empty(BookType.SCIENCE)));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldAddDeltasMergedByType() {
+    Book other = Fixture.book().barcode("5678").quantity(3).build();
+    Book antique = Fixture.book().antiqueReleaseYear(1900).build();
+
+    summaryRepository.add(Arrays.asList(
+        pricingEngine.summary(book),
+        pricingEngine.summary(antique).negate(),
+        pricingEngine.summary(other),
+        pricingEngine.summary(antique)
+    ));
+
+    List<CategorySummary> expected = Collections.singletonList(
+        pricingEngine.summary(book).plus(pricingEngine.summary(other))
+    );
+    verify(db).batchUpdate(
+        eq(ADD), eq(expected), eq(1), any(ParameterizedPreparedStatementSetter.class)
+    );
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldAddDeltasToOneOfConfiguredSlots() throws SQLException {
+    ArgumentCaptor<ParameterizedPreparedStatementSetter<CategorySummary>> setter =
+        ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+
+    summaryRepository.add(Collections.singletonList(pricingEngine.summary(book)));
+
+    verify(db).batchUpdate(eq(ADD), any(List.class), eq(1), setter.capture());
+    setter.getValue().setValues(ps, pricingEngine.summary(book));
+    ArgumentCaptor<Integer> slot = ArgumentCaptor.forClass(Integer.class);
+    verify(ps).setString(1, "REGULAR");
+    verify(ps).setInt(eq(2), slot.capture());
+    assertThat(slot.getValue() >= 0 && slot.getValue() < 4, is(true));
+    verify(ps).setLong(3, 1);
+    verify(ps).setLong(4, book.quantity());
+  }
+
+  @Test
+  void shouldNotUpdateSummaryWithoutChanges() {
+    summaryRepository.add(Arrays.asList(
+        pricingEngine.summary(book),
+        pricingEngine.summary(book).negate()
+    ));
+
+    verifyNoMoreInteractions(db);
+  }
+
+  @Test
+  void shouldFindDriftWithoutLockingSummary() {
+    List<CategorySummary> drift =
+        Collections.singletonList(CategorySummary.empty(BookType.ANTIQUE));
+    when(db.query(anyString(), any(CategorySummaryMapper.class))).thenReturn(drift);
+
+    List<CategorySummary> actual = summaryRepository.findDrift();
+
+    assertThat(actual, is(drift));
+    verify(db).query(anyString(), any(CategorySummaryMapper.class));
+    verifyNoMoreInteractions(db);
+  }
+}
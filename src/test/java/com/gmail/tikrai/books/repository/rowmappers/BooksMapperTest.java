@@ -30,6 +30,7 @@ class BooksMapperTest {
     when(rs.getInt("quantity")).thenReturn(book.quantity());
     when(rs.getInt("price")).thenReturn(book.price().unscaledValue().intValue());
     when(rs.getInt("antique_release_year")).thenReturn(0);
+    when(rs.getLong("version")).thenReturn(3L);
   }
 
   @Test
@@ -40,6 +41,7 @@ class BooksMapperTest {
     Book actual = booksMapper.mapRow(rs, 0);
 
     assertThat(actual, is(book));
+    assertThat(actual.version(), is(3L));
   }
 
   @Test
@@ -63,6 +65,7 @@ class BooksMapperTest {
     verify(rs).getInt("price");
     verify(rs).getInt("antique_release_year");
     verify(rs).getInt("science_index");
+    verify(rs).getLong("version");
     verify(rs, times(2)).wasNull();
     verifyNoMoreInteractions(rs);
   }
@@ -0,0 +1,116 @@
+package com.gmail.tikrai.books.request;
+
+import static com.gmail.tikrai.books.utils.Matchers.isOptionalOf;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gmail.tikrai.books.exception.ValidationException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class BookPatchTest {
+
+  private final HashMap<String, Object> updates = new HashMap<>();
+
+  @Test
+  void shouldFailToUpdateBarcodeField() {
+    updates.put("barcode", "new barcode");
+    String message = assertThrows(
+        ValidationException.class,
+        () -> BookPatch.of(updates)
+    ).getMessage();
+    assertThat(message, equalTo("Barcode can not be updated"));
+  }
+
+  @Test
+  void shouldUpdateNameField() {
+    updates.put("name", "new name");
+    BookPatch actual = BookPatch.of(updates);
+    assertThat(actual, equalTo(new BookPatch("new name", null, null, null, null, null)));
+    assertThat(actual.author(), equalTo(Optional.empty()));
+  }
+
+  @Test
+  void shouldUpdatePriceFieldWithDoubleValue() {
+    updates.put("price", 16.0);
+    BookPatch actual = BookPatch.of(updates);
+    assertThat(actual.price(), equalTo(Optional.of(new BigDecimal("16.00"))));
+  }
+
+  @Test
+  void shouldUpdatePriceFieldWithIntegerValue() {
+    updates.put("price", 16);
+    BookPatch actual = BookPatch.of(updates);
+    assertThat(actual.price(), equalTo(Optional.of(new BigDecimal("16.00"))));
+  }
+
+  @Test
+  void shouldFailToUpdateNonExistingField() {
+    updates.put("model", "new model");
+    String message = assertThrows(
+        ValidationException.class,
+        () -> BookPatch.of(updates)
+    ).getMessage();
+    assertThat(message, equalTo("Book has no field 'model'"));
+  }
+
+  @Test
+  void shouldFailToUpdateProvidingDataOfWrongType() {
+    updates.put("price", "1.0");
+    String message = assertThrows(
+        ValidationException.class,
+        () -> BookPatch.of(updates)
+    ).getMessage();
+    assertThat(message, equalTo("Incorrect format not 'price' field"));
+  }
+
+  @Test
+  void shouldFailToUpdateFieldToNull() {
+    updates.put("antiqueReleaseYear", null);
+    String message = assertThrows(
+        ValidationException.class,
+        () -> BookPatch.of(updates)
+    ).getMessage();
+    assertThat(message, equalTo("'antiqueReleaseYear' cannot be null"));
+  }
+
+  @Test
+  void shouldUpdateNameAuthorQuantityPriceAndNewAntiqueReleaseYearFields() {
+    updates.put("name", "new name");
+    updates.put("author", "new author");
+    updates.put("quantity", 150);
+    updates.put("price", 16.0);
+    updates.put("antiqueReleaseYear", 150);
+
+    BookPatch actual = BookPatch.of(updates);
+
+    BookPatch expected = new BookPatch(
+        "new name", "new author", 150, BigDecimal.valueOf(16), 150, null
+    );
+    assertThat(actual, equalTo(expected));
+    assertThat(actual.valid(), isOptionalOf(null));
+  }
+
+  @Test
+  void shouldValidateOnlySuppliedFields() {
+    BookPatch patch = new BookPatch(null, null, 0, null, null, null);
+    assertThat(patch.valid(), isOptionalOf("'quantity' must be greater than or equal to 1"));
+  }
+
+  @Test
+  void shouldFailValidatingIfPriceDoesNotFitInCents() {
+    BookPatch patch = new BookPatch(null, null, null, new BigDecimal("21474836.48"), null, null);
+    String expected = "'price' must be less than or equal to 21474836.47";
+    assertThat(patch.valid(), isOptionalOf(expected));
+  }
+
+  @Test
+  void shouldFailValidatingIfBookIsMadeAntiqueAndScienceJournal() {
+    BookPatch patch = new BookPatch(null, null, null, null, 1600, 5);
+    String expected = "Book cannot be both antique and science journal";
+    assertThat(patch.valid(), isOptionalOf(expected));
+  }
+}
@@ -1,25 +1,14 @@
 package com.gmail.tikrai.books.request;
 
 import static com.gmail.tikrai.books.utils.Matchers.isOptionalOf;
-import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.junit.jupiter.api.Assertions.assertThrows;
 
-import com.gmail.tikrai.books.exception.ValidationException;
 import com.gmail.tikrai.books.fixture.Fixture;
-import java.util.HashMap;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 class BookRequestTest {
 
   private final BookRequest bookRequest = Fixture.bookRequest().build();
-  private final HashMap<String, Object> updates = new HashMap<>();
-
-  @BeforeEach
-  void setup()  {
-    updates.clear();
-  }
 
   @Test
   void shouldValidateRegularBookSuccessfully() {
@@ -86,6 +75,13 @@ class BookRequestTest {
     assertThat(bookRequest.valid(), isOptionalOf("'price' must be greater than or equal to 1"));
   }
 
+  @Test
+  void shouldFailValidatingIfPriceDoesNotFitInCents() {
+    BookRequest bookRequest = Fixture.bookRequest().price(21_474_836.48).build();
+    String expected = "'price' must be less than or equal to 21474836.47";
+    assertThat(bookRequest.valid(), isOptionalOf(expected));
+  }
+
   @Test
   void shouldFailValidatingAntiqueBookIfNotOldEnough() {
     BookRequest bookRequest = Fixture.bookRequest().antiqueReleaseYear(1999).build();
@@ -107,118 +103,4 @@ class BookRequestTest {
     String expected = "Book cannot be both antique and science journal";
     assertThat(bookRequest.valid(), isOptionalOf(expected));
   }
-
-  @Test
-  void shouldFailToUpdateBarcodeField() {
-    updates.put("barcode", "new barcode");
-    String message = assertThrows(
-        ValidationException.class,
-        () -> bookRequest.withUpdatedFields(updates)
-    ).getMessage();
-    assertThat(message, equalTo("Barcode can not be updated"));
-  }
-
-  @Test
-  void shouldUpdateNameField() {
-    String newName = "new name";
-    updates.put("name", newName);
-    BookRequest actual = bookRequest.withUpdatedFields(updates);
-    assertThat(actual, equalTo(Fixture.bookRequest().name(newName).build()));
-  }
-
-  @Test
-  void shouldUpdateAuthorField() {
-    String newAuthor = "new author";
-    updates.put("author", newAuthor);
-    BookRequest actual = bookRequest.withUpdatedFields(updates);
-    assertThat(actual, equalTo(Fixture.bookRequest().author(newAuthor).build()));
-  }
-
-  @Test
-  void shouldUpdateQuantityField() {
-    int newQuantity = 150;
-    updates.put("quantity", newQuantity);
-    BookRequest actual = bookRequest.withUpdatedFields(updates);
-    assertThat(actual, equalTo(Fixture.bookRequest().quantity(newQuantity).build()));
-  }
-
-  @Test
-  void shouldUpdatePriceFieldWithDoubleValue() {
-    double newPrice = 16.0;
-    updates.put("price", newPrice);
-    BookRequest actual = bookRequest.withUpdatedFields(updates);
-    assertThat(actual, equalTo(Fixture.bookRequest().price(newPrice).build()));
-  }
-
-  @Test
-  void shouldUpdatePriceFieldWithIntegerValue() {
-    int newPrice = 16;
-    updates.put("price", newPrice);
-    BookRequest actual = bookRequest.withUpdatedFields(updates);
-    assertThat(actual, equalTo(Fixture.bookRequest().price(16.0).build()));
-  }
-
-  @Test
-  void shouldUpdateAntiqueReleaseYearField() {
-    int newAntiqueReleaseYear = 150;
-    updates.put("antiqueReleaseYear", newAntiqueReleaseYear);
-
-    BookRequest actual = bookRequest.withUpdatedFields(updates);
-
-    BookRequest expected = Fixture.bookRequest().antiqueReleaseYear(newAntiqueReleaseYear).build();
-    assertThat(actual, equalTo(expected));
-  }
-
-  @Test
-  void shouldUpdateScienceIndexField() {
-    int newScienceIndex = 9;
-    updates.put("scienceIndex", newScienceIndex);
-    BookRequest actual = bookRequest.withUpdatedFields(updates);
-    assertThat(actual, equalTo(Fixture.bookRequest().scienceIndex(newScienceIndex).build()));
-  }
-
-  @Test
-  void shouldFailToUpdateNonExistingField() {
-    updates.put("model", "new model");
-    String message = assertThrows(
-        ValidationException.class,
-        () -> bookRequest.withUpdatedFields(updates)
-    ).getMessage();
-    assertThat(message, equalTo("Book has no field 'model'"));
-  }
-
-  @Test
-  void shouldFailToUpdateProvidingDataOfWrongType() {
-    updates.put("price", "1.0");
-    String message = assertThrows(
-        ValidationException.class,
-        () -> bookRequest.withUpdatedFields(updates)
-    ).getMessage();
-    assertThat(message, equalTo("Incorrect format not 'price' field"));
-  }
-
-  @Test
-  void shouldUpdateNameAuthorQuantityPriceAndNewAntiqueReleaseYearFields() {
-    String newName = "new name";
-    String newAuthor = "new author";
-    int newQuantity = 150;
-    double newPrice = 16.0;
-    int newAntiqueReleaseYear = 150;
-
-    updates.put("name", newName);
-    updates.put("author", newAuthor);
-    updates.put("quantity", newQuantity);
-    updates.put("price", newPrice);
-    updates.put("antiqueReleaseYear", newAntiqueReleaseYear);
-
-    BookRequest actual = bookRequest.withUpdatedFields(updates);
-    BookRequest expected = Fixture.bookRequest()
-        .name(newName)
-        .author(newAuthor)
-        .quantity(newQuantity)
-        .price(newPrice)
-        .antiqueReleaseYear(newAntiqueReleaseYear)
-        .build();
-    assertThat(actual, equalTo(expected));
-  }
 }
@@ -0,0 +1,37 @@
+package com.gmail.tikrai.books.request;
+
+import static com.gmail.tikrai.books.utils.Matchers.isOptionalOf;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class QuantityAdjustmentTest {
+
+  @Test
+  void shouldValidateAdjustmentSuccessfully() {
+    assertThat(new QuantityAdjustment("1234", -3).valid(), isOptionalOf(null));
+  }
+
+  @Test
+  void shouldFailValidatingIfBarcodeIsTooShort() {
+    assertThat(
+        new QuantityAdjustment("1", 2).valid(),
+        isOptionalOf("'barcode' length must be between 2 and 255")
+    );
+  }
+
+  @Test
+  void shouldFailValidatingIfDeltaIsNull() {
+    assertThat(
+        new QuantityAdjustment("1234", null).valid(), isOptionalOf("'delta' cannot be null")
+    );
+  }
+
+  @Test
+  void shouldReplaceBarcode() {
+    QuantityAdjustment actual = new QuantityAdjustment(null, 2).withBarcode("1234");
+
+    assertThat(actual, equalTo(new QuantityAdjustment("1234", 2)));
+  }
+}
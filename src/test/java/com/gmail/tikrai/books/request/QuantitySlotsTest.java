@@ -0,0 +1,29 @@
+package com.gmail.tikrai.books.request;
+
+import static com.gmail.tikrai.books.utils.Matchers.isOptionalOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class QuantitySlotsTest {
+
+  @Test
+  void shouldValidateSlotsSuccessfully() {
+    assertThat(new QuantitySlots(8).valid(), isOptionalOf(null));
+  }
+
+  @Test
+  void shouldValidateDisablingSlotsSuccessfully() {
+    assertThat(new QuantitySlots(0).valid(), isOptionalOf(null));
+  }
+
+  @Test
+  void shouldFailValidatingIfSlotsIsNull() {
+    assertThat(new QuantitySlots(null).valid(), isOptionalOf("'slots' cannot be null"));
+  }
+
+  @Test
+  void shouldFailValidatingIfSlotsIsOutOfRange() {
+    assertThat(new QuantitySlots(65).valid(), isOptionalOf("'slots' must be between 0 and 64"));
+  }
+}
@@ -0,0 +1,39 @@
+package com.gmail.tikrai.books.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmail.tikrai.books.fixture.Fixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+class BatchItemResponseTest {
+
+  private final ObjectMapper mapper = Fixture.mapper();
+  private final BatchItemResponse created = BatchItemResponse.created("1234");
+  private final BatchItemResponse rejected =
+      BatchItemResponse.rejected("1234", HttpStatus.CONFLICT, "exists");
+  private final String createdJson = "{\"barcode\":\"1234\",\"status\":201}";
+  private final String rejectedJson =
+      "{\"barcode\":\"1234\",\"status\":409,\"message\":\"exists\"}";
+
+  @Test
+  void shouldSerializeCreatedItem() throws JsonProcessingException {
+    String serialized = mapper.writeValueAsString(created);
+    assertThat(serialized, is(createdJson));
+  }
+
+  @Test
+  void shouldSerializeRejectedItem() throws JsonProcessingException {
+    String serialized = mapper.writeValueAsString(rejected);
+    assertThat(serialized, is(rejectedJson));
+  }
+
+  @Test
+  void shouldDeserializeRejectedItem() throws JsonProcessingException {
+    BatchItemResponse deserialized = mapper.readValue(rejectedJson, BatchItemResponse.class);
+    assertThat(deserialized, is(rejected));
+  }
+}
@@ -0,0 +1,32 @@
+package com.gmail.tikrai.books.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class BooksLookupResponseTest {
+
+  private final ObjectMapper mapper = Fixture.mapper();
+  private final BooksLookupResponse lookup = new BooksLookupResponse(
+      Collections.singletonList(Fixture.book().build()), Collections.singletonList("5678")
+  );
+  private final String lookupJson = "{\"books\":[{\"barcode\":\"1234\",\"name\":\"Book Name\","
+      + "\"author\":\"Book Author\",\"quantity\":2,\"price\":11.10}],\"missing\":[\"5678\"]}";
+
+  @Test
+  void shouldSerializeFoundAndMissingBooks() throws JsonProcessingException {
+    String serialized = mapper.writeValueAsString(lookup);
+    assertThat(serialized, is(lookupJson));
+  }
+
+  @Test
+  void shouldDeserializeFoundAndMissingBooks() throws JsonProcessingException {
+    BooksLookupResponse deserialized = mapper.readValue(lookupJson, BooksLookupResponse.class);
+    assertThat(deserialized, is(lookup));
+  }
+}
@@ -0,0 +1,36 @@
+package com.gmail.tikrai.books.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class BooksPageResponseTest {
+
+  private final ObjectMapper mapper = Fixture.mapper();
+  private final String bookJson = "{\"barcode\":\"1234\",\"name\":\"Book Name\","
+      + "\"author\":\"Book Author\",\"quantity\":2,\"price\":11.10}";
+
+  @Test
+  void shouldSerializePageWithNextCursor() throws JsonProcessingException {
+    BooksPageResponse page =
+        new BooksPageResponse(Collections.singletonList(Fixture.book().build()), "MTIzNA");
+
+    String serialized = mapper.writeValueAsString(page);
+
+    assertThat(serialized, is(String.format("{\"books\":[%s],\"next\":\"MTIzNA\"}", bookJson)));
+  }
+
+  @Test
+  void shouldSerializeLastPageWithoutNextCursor() throws JsonProcessingException {
+    BooksPageResponse page = new BooksPageResponse(Collections.emptyList(), null);
+
+    String serialized = mapper.writeValueAsString(page);
+
+    assertThat(serialized, is("{\"books\":[]}"));
+  }
+}
@@ -0,0 +1,37 @@
+package com.gmail.tikrai.books.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class ErrorResponseTest {
+
+  private final ObjectMapper mapper = Fixture.mapper();
+  private final ErrorResponse error = new ErrorResponse(
+      Instant.parse("2020-01-02T03:04:05Z"),
+      404,
+      "Not Found",
+      "Book with barcode '1234' was not found",
+      "/books/1234"
+  );
+  private final String errorJson = "{\"timestamp\":\"2020-01-02T03:04:05Z\",\"status\":404,"
+      + "\"error\":\"Not Found\",\"message\":\"Book with barcode '1234' was not found\","
+      + "\"path\":\"/books/1234\"}";
+
+  @Test
+  void shouldSerializeError() throws JsonProcessingException {
+    String serialized = mapper.writeValueAsString(error);
+    assertThat(serialized, is(errorJson));
+  }
+
+  @Test
+  void shouldDeserializeError() throws JsonProcessingException {
+    ErrorResponse deserialized = mapper.readValue(errorJson, ErrorResponse.class);
+    assertThat(deserialized, is(error));
+  }
+}
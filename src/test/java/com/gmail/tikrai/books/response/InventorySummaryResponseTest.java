@@ -0,0 +1,56 @@
+package com.gmail.tikrai.books.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class InventorySummaryResponseTest {
+
+  private final ObjectMapper mapper = Fixture.mapper();
+  private final InventorySummaryResponse summary = new InventorySummaryResponse(
+      new CategorySummaryResponse(1, 2, BigDecimal.valueOf(22.2)),
+      new CategorySummaryResponse(0, 0, BigDecimal.ZERO),
+      new CategorySummaryResponse(3, 4, BigDecimal.valueOf(1.005))
+  );
+  private final String summaryJson = "{"
+      + "\"regular\":{\"books\":1,\"quantity\":2,\"totalPrice\":22.20},"
+      + "\"antique\":{\"books\":0,\"quantity\":0,\"totalPrice\":0.00},"
+      + "\"science\":{\"books\":3,\"quantity\":4,\"totalPrice\":1.01}}";
+
+  @Test
+  void shouldSerializeSummary() throws JsonProcessingException {
+    String serialized = mapper.writeValueAsString(summary);
+    assertThat(serialized, is(summaryJson));
+  }
+
+  @Test
+  void shouldDeserializeSummary() throws JsonProcessingException {
+    InventorySummaryResponse deserialized =
+        mapper.readValue(summaryJson, InventorySummaryResponse.class);
+    assertThat(deserialized, is(summary));
+  }
+
+  @Test
+  void shouldValueAntiqueBooksInCurrentYear() {
+    Map<BookType, CategorySummary> summaries = new EnumMap<>(BookType.class);
+    summaries.put(BookType.REGULAR, CategorySummary.empty(BookType.REGULAR));
+    summaries.put(BookType.ANTIQUE, Fixture.pricingEngine().summary(
+        Fixture.book().antiqueReleaseYear(1900).build()
+    ));
+    summaries.put(BookType.SCIENCE, CategorySummary.empty(BookType.SCIENCE));
+
+    InventorySummaryResponse actual = InventorySummaryResponse.of(summaries, 2020);
+
+    assertThat(actual.antique(), is(new CategorySummaryResponse(1, 2, new BigDecimal("266.40"))));
+    assertThat(actual.regular(), is(new CategorySummaryResponse(0, 0, BigDecimal.ZERO)));
+  }
+}
@@ -0,0 +1,43 @@
+package com.gmail.tikrai.books.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmail.tikrai.books.fixture.Fixture;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TotalPricesLookupResponseTest {
+
+  private final ObjectMapper mapper = Fixture.mapper();
+  private final TotalPricesLookupResponse lookup = new TotalPricesLookupResponse(
+      totalPrices(), Collections.singletonList("9012")
+  );
+  private final String lookupJson =
+      "{\"totalPrices\":{\"5678\":1.00,\"1234\":22.20},\"missing\":[\"9012\"]}";
+
+  @Test
+  void shouldSerializeTotalPricesInRequestedOrder() throws JsonProcessingException {
+    String serialized = mapper.writeValueAsString(lookup);
+    assertThat(serialized, is(lookupJson));
+  }
+
+  @Test
+  void shouldDeserializeTotalPrices() throws JsonProcessingException {
+    TotalPricesLookupResponse deserialized =
+        mapper.readValue(lookupJson, TotalPricesLookupResponse.class);
+    assertThat(deserialized, is(lookup));
+  }
+
+  private static Map<String, BigDecimal> totalPrices() {
+    Map<String, BigDecimal> totalPrices = new LinkedHashMap<>();
+    totalPrices.put("5678", BigDecimal.valueOf(1));
+    totalPrices.put("1234", BigDecimal.valueOf(22.2));
+    return totalPrices;
+  }
+}
@@ -0,0 +1,141 @@
+package com.gmail.tikrai.books.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.gmail.tikrai.books.database.ReplicaReads;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class BookLookupBatcherTest {
+
+  private final BooksRepository booksRepository = mock(BooksRepository.class);
+  private final ReplicaReads replicaReads =
+      new ReplicaReads(mock(PlatformTransactionManager.class), Duration.ZERO);
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newFixedThreadPool(3);
+  private final Book book = Fixture.book().build();
+  private final Book other = Fixture.book().barcode("5678").build();
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldLoadDirectlyWithoutWindow() {
+    when(booksRepository.findByBarcode(book.barcode())).thenReturn(Optional.of(book));
+
+    Optional<Book> actual = batcher(Duration.ZERO, 100).load(book.barcode());
+
+    assertThat(actual, is(Optional.of(book)));
+    verify(booksRepository).findByBarcode(book.barcode());
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldLoadConcurrentLookupsInOneQuery() throws Exception {
+    when(booksRepository.findByBarcodes(anyCollection())).thenReturn(Arrays.asList(book, other));
+    BookLookupBatcher batcher = batcher(Duration.ofSeconds(5), 3);
+
+    List<Future<Optional<Book>>> lookups = new ArrayList<>();
+    for (String barcode : Arrays.asList(book.barcode(), other.barcode(), "9012")) {
+      lookups.add(executor.submit(() -> batcher.load(barcode)));
+    }
+
+    assertThat(lookups.get(0).get(), is(Optional.of(book)));
+    assertThat(lookups.get(1).get(), is(Optional.of(other)));
+    assertThat(lookups.get(2).get(), is(Optional.empty()));
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Collection<String>> barcodes = ArgumentCaptor.forClass(Collection.class);
+    verify(booksRepository).findByBarcodes(barcodes.capture());
+    verifyNoMoreInteractions(booksRepository);
+    assertThat(barcodes.getValue(), containsInAnyOrder(book.barcode(), other.barcode(), "9012"));
+    assertThat(registry.get("books.lookup.batch.size").summary().count(), is(1L));
+    assertThat(registry.get("books.lookup.batch.size").summary().totalAmount(), is(3.0));
+    assertThat(registry.get("books.lookup.batch.wait").timer().count(), is(3L));
+  }
+
+  @Test
+  void shouldLoadLoneLookupAfterWindow() {
+    when(booksRepository.findByBarcodes(Collections.singletonList(book.barcode())))
+        .thenReturn(Collections.singletonList(book));
+
+    Optional<Book> actual = batcher(Duration.ofMillis(1), 100).load(book.barcode());
+
+    assertThat(actual, is(Optional.of(book)));
+    assertThat(registry.get("books.lookup.batch.size").summary().totalAmount(), is(1.0));
+  }
+
+  @Test
+  void shouldFailAllLookupsOfFailedBatch() throws InterruptedException {
+    QueryTimeoutException failure = new QueryTimeoutException("Query timed out");
+    when(booksRepository.findByBarcodes(anyCollection())).thenThrow(failure);
+    BookLookupBatcher batcher = batcher(Duration.ofSeconds(5), 2);
+
+    Future<Optional<Book>> lookup = executor.submit(() -> batcher.load(other.barcode()));
+    QueryTimeoutException actual =
+        assertThrows(QueryTimeoutException.class, () -> batcher.load(book.barcode()));
+
+    assertThat(actual, is(failure));
+    ExecutionException concurrent = assertThrows(ExecutionException.class, lookup::get);
+    assertThat(concurrent.getCause(), is(failure));
+  }
+
+  @Test
+  void shouldShareLookupOfSameBarcodeInOneBatch() throws Exception {
+    when(booksRepository.findByBarcodes(anyCollection())).thenReturn(Arrays.asList(book, other));
+    BookLookupBatcher batcher = batcher(Duration.ofSeconds(5), 2);
+
+    Future<Optional<Book>> first = executor.submit(() -> batcher.load(book.barcode()));
+    Future<Optional<Book>> second = executor.submit(() -> batcher.load(book.barcode()));
+    awaitCoalesced();
+    Optional<Book> actual = batcher.load(other.barcode());
+
+    assertThat(first.get(), is(Optional.of(book)));
+    assertThat(second.get(), is(Optional.of(book)));
+    assertThat(actual, is(Optional.of(other)));
+    verify(booksRepository).findByBarcodes(anyCollection());
+    verifyNoMoreInteractions(booksRepository);
+    assertThat(registry.get("books.lookup.coalesced").counter().count(), is(1.0));
+  }
+
+  private void awaitCoalesced() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (registry.get("books.lookup.coalesced").counter().count() < 1
+        && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private BookLookupBatcher batcher(Duration window, int maxSize) {
+    return new BookLookupBatcher(booksRepository, replicaReads, registry, window, maxSize);
+  }
+}
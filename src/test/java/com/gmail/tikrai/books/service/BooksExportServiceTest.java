@@ -0,0 +1,70 @@
+package com.gmail.tikrai.books.service;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileCopyUtils;
+
+class BooksExportServiceTest {
+
+  private final BooksRepository booksRepository = mock(BooksRepository.class);
+  private final BooksExportService booksExportService =
+      new BooksExportService(booksRepository, Fixture.mapper());
+  private final Book book = Fixture.book().build();
+  private final Book science = Fixture.book().barcode("5678").scienceIndex(3).build();
+  private final String expected = String.join("\n",
+      "{\"barcode\":\"1234\",\"name\":\"Book Name\",\"author\":\"Book Author\","
+          + "\"quantity\":2,\"price\":11.10}",
+      "{\"barcode\":\"5678\",\"name\":\"Book Name\",\"author\":\"Book Author\","
+          + "\"quantity\":2,\"price\":11.10,\"scienceIndex\":3}",
+      ""
+  );
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void mockStream() {
+    doAnswer(invocation -> {
+      Consumer<Book> consumer = invocation.getArgument(0);
+      consumer.accept(book);
+      consumer.accept(science);
+      return null;
+    }).when(booksRepository).streamAll(any(Consumer.class));
+  }
+
+  @Test
+  void shouldExportBooksAsNdjson() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    booksExportService.exportBooks(out, false);
+
+    assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), equalTo(expected));
+  }
+
+  @Test
+  void shouldExportBooksAsGzippedNdjson() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    booksExportService.exportBooks(out, true);
+
+    Reader reader = new InputStreamReader(
+        new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())), StandardCharsets.UTF_8
+    );
+    assertThat(FileCopyUtils.copyToString(reader), equalTo(expected));
+  }
+}
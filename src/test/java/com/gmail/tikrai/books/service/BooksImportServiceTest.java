@@ -0,0 +1,103 @@
+package com.gmail.tikrai.books.service;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.gmail.tikrai.books.cache.BarcodeFilter;
+import com.gmail.tikrai.books.cache.BooksCache;
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.response.ImportResponse;
+import com.gmail.tikrai.books.response.RejectedRowResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+class BooksImportServiceTest {
+
+  private final BooksRepository booksRepository = mock(BooksRepository.class);
+  private final InventorySummaryService summaryService = mock(InventorySummaryService.class);
+  private final BarcodeFilter barcodeFilter = mock(BarcodeFilter.class);
+  private final BooksImportService booksImportService = new BooksImportService(
+      booksRepository,
+      summaryService,
+      mock(BooksCache.class),
+      barcodeFilter,
+      Fixture.mapper(),
+      10
+  );
+  private final AtomicReference<String> copied = new AtomicReference<>();
+
+  @Test
+  void shouldImportCsv() {
+    String csv = "barcode,name,author,quantity,price,antiqueReleaseYear,scienceIndex\n"
+        + "1234,Book Name,Book Author,2,11.10,,\n"
+        + "5678,a,Book Author,2,11.10,,\n";
+    mockImport(1);
+
+    final ImportResponse actual = booksImportService.importBooks(
+        bodyOf(csv), MediaType.valueOf("text/csv;charset=UTF-8")
+    );
+
+    assertThat(copied.get(), equalTo("2,\"1234\",\"Book Name\",\"Book Author\",2,1110,,"));
+    verify(summaryService).reconcileAfterCommit();
+    verify(barcodeFilter).invalidateAfterCommit();
+    assertThat(actual.imported(), equalTo(1L));
+    assertThat(actual.rejected(), equalTo(1L));
+    assertThat(actual.errors(), equalTo(Collections.singletonList(
+        new RejectedRowResponse(3, "'name' length must be between 2 and 255")
+    )));
+  }
+
+  @Test
+  void shouldImportNdjson() {
+    String ndjson = "{\"barcode\":\"1234\",\"name\":\"Book Name\","
+        + "\"author\":\"Book Author\",\"quantity\":2,\"price\":11.10,\"scienceIndex\":3}\n";
+    mockImport(1);
+
+    ImportResponse actual = booksImportService.importBooks(
+        bodyOf(ndjson), MediaType.valueOf("application/x-ndjson")
+    );
+
+    assertThat(copied.get(), equalTo("1,\"1234\",\"Book Name\",\"Book Author\",2,1110,,3"));
+    assertThat(actual.imported(), equalTo(1L));
+    assertThat(actual.rejected(), equalTo(0L));
+  }
+
+  @Test
+  void shouldFailToImportUnsupportedContentType() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksImportService.importBooks(bodyOf(""), MediaType.APPLICATION_XML)
+    ).getMessage();
+
+    assertThat(message, equalTo("Unsupported content type 'application/xml'"));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  private void mockImport(long imported) {
+    when(booksRepository.importRows(any(Reader.class))).thenAnswer(invocation -> {
+      BufferedReader reader = new BufferedReader(invocation.getArgument(0));
+      copied.set(reader.lines().collect(Collectors.joining("\n")));
+      return imported;
+    });
+  }
+
+  private InputStream bodyOf(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -3,32 +3,90 @@ package com.gmail.tikrai.books.service;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.gmail.tikrai.books.cache.BarcodeFilter;
+import com.gmail.tikrai.books.cache.BooksCache;
+import com.gmail.tikrai.books.database.ReplicaReads;
 import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookChange;
+import com.gmail.tikrai.books.domain.BooksFilter;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.exception.InsufficientQuantityException;
+import com.gmail.tikrai.books.exception.PreconditionFailedException;
 import com.gmail.tikrai.books.exception.ResourceNotFoundException;
 import com.gmail.tikrai.books.exception.UniqueIdentifierException;
+import com.gmail.tikrai.books.exception.ValidationException;
 import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
 import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
+import com.gmail.tikrai.books.request.BookPatch;
 import com.gmail.tikrai.books.request.BookRequest;
+import com.gmail.tikrai.books.request.QuantityAdjustment;
+import com.gmail.tikrai.books.response.BatchItemResponse;
+import com.gmail.tikrai.books.response.BooksLookupResponse;
+import com.gmail.tikrai.books.response.BooksPageResponse;
+import com.gmail.tikrai.books.response.TotalPricesLookupResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
 
 class BooksServiceTest {
 
   private final BooksRepository booksRepository = mock(BooksRepository.class);
-  private final BooksService booksService = new BooksService(booksRepository);
+  private final InventorySummaryRepository summaryRepository =
+      mock(InventorySummaryRepository.class);
+  private final BooksCache booksCache =
+      new BooksCache(true, 100, Duration.ZERO, new SimpleMeterRegistry());
+  private final ReplicaReads replicaReads =
+      new ReplicaReads(mock(PlatformTransactionManager.class), Duration.ZERO);
+  private final QuantitySlotsService quantitySlots = mock(QuantitySlotsService.class);
+  private final BookLookupBatcher lookupBatcher = new BookLookupBatcher(
+      booksRepository, replicaReads, new SimpleMeterRegistry(), Duration.ZERO, 100
+  );
+  private final BarcodeFilter barcodeFilter = mock(BarcodeFilter.class);
+  private final PricingEngine pricingEngine = Fixture.pricingEngine();
+  private final BooksService booksService = new BooksService(
+      booksRepository,
+      summaryRepository,
+      booksCache,
+      replicaReads,
+      quantitySlots,
+      lookupBatcher,
+      barcodeFilter,
+      pricingEngine,
+      2
+  );
   private final Book book = Fixture.book().build();
 
   @BeforeEach
   void setup() {
     when(booksRepository.findByBarcode(book.barcode())).thenReturn(Optional.of(book));
+    when(barcodeFilter.mightContain(anyString())).thenReturn(true);
   }
 
   @Test
@@ -40,6 +98,93 @@ class BooksServiceTest {
     verifyNoMoreInteractions(booksRepository);
   }
 
+  @Test
+  void shouldFindByBarcodeFromCacheOnRepeatedLookup() {
+    booksService.findByBarcode(book.barcode());
+    Book actual = booksService.findByBarcode(book.barcode());
+
+    assertThat(actual, is(book));
+    verify(booksRepository).findByBarcode(book.barcode());
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFindCreatedBookWithoutQueryingDatabase() {
+    Book created = Fixture.book().barcode("5678").build();
+    when(booksRepository.create(created)).thenReturn(Optional.of(created));
+
+    booksService.create(created);
+    Book actual = booksService.findByBarcode(created.barcode());
+
+    assertThat(actual, is(created));
+    verify(booksRepository).create(created);
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFindUpdatedBookInsteadOfCachedOne() {
+    Book updated = Fixture.book().author("New Author").build();
+    when(booksRepository.update(updated, Optional.empty()))
+        .thenReturn(Optional.of(new BookChange(book, updated)));
+
+    booksService.findByBarcode(book.barcode());
+    booksService.update(updated);
+    Book actual = booksService.findByBarcode(book.barcode());
+
+    assertThat(actual, is(updated));
+    verify(booksRepository).findByBarcode(book.barcode());
+    verify(booksRepository).update(updated, Optional.empty());
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFindFirstPageWithNextCursor() {
+    Book second = Fixture.book().barcode("5678").build();
+    Book third = Fixture.book().barcode("9012").build();
+    when(booksRepository.findPage(Optional.empty(), 3))
+        .thenReturn(Arrays.asList(book, second, third));
+
+    BooksPageResponse actual = booksService.findPage(null, 2);
+
+    assertThat(actual, is(new BooksPageResponse(Arrays.asList(book, second), "NTY3OA")));
+    verify(booksRepository).findPage(Optional.empty(), 3);
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFindLastPageAfterCursor() {
+    when(booksRepository.findPage(Optional.of("1234"), 3))
+        .thenReturn(Collections.singletonList(book));
+
+    BooksPageResponse actual = booksService.findPage("MTIzNA", 2);
+
+    assertThat(actual, is(new BooksPageResponse(Collections.singletonList(book), null)));
+    verify(booksRepository).findPage(Optional.of("1234"), 3);
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFailToFindPageIfLimitExceedsMaxPageSize() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksService.findPage(null, 3)
+    ).getMessage();
+
+    assertThat(message, is("'Query parameter limit' must be between 1 and 2"));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFailToFindPageIfCursorIsMalformed() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksService.findPage("not a cursor", 2)
+    ).getMessage();
+
+    assertThat(message, is("Query parameter after 'not a cursor' is not a valid cursor"));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
   @Test
   void shouldNotFindByBarcode() {
     when(booksRepository.findByBarcode(book.barcode())).thenReturn(Optional.empty());
@@ -55,30 +200,171 @@ class BooksServiceTest {
   }
 
   @Test
-  void shouldGetTotalPrice() {
-    BigDecimal actual = booksService.getTotalPrice(book.barcode());
+  void shouldNotQueryDatabaseForBarcodeMissingFromFilter() {
+    when(barcodeFilter.mightContain(book.barcode())).thenReturn(false);
+
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> booksService.findByBarcode(book.barcode())
+    );
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> booksService.findVersion(book.barcode())
+    );
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFindVersionWithoutLoadingBook() {
+    when(booksRepository.findVersion(book.barcode())).thenReturn(Optional.of(4L));
+
+    long actual = booksService.findVersion(book.barcode());
+
+    assertThat(actual, is(4L));
+    verify(booksRepository).findVersion(book.barcode());
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFindVersionOfCachedBook() {
+    booksService.findByBarcode(book.barcode());
 
-    assertThat(actual, is(book.totalPrice()));
+    long actual = booksService.findVersion(book.barcode());
+
+    assertThat(actual, is(1L));
     verify(booksRepository).findByBarcode(book.barcode());
     verifyNoMoreInteractions(booksRepository);
   }
 
+  @Test
+  void shouldNotFindVersionIfBarcodeDoesNotExist() {
+    when(booksRepository.findVersion(book.barcode())).thenReturn(Optional.empty());
+
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> booksService.findVersion(book.barcode())
+    );
+  }
+
+  @Test
+  void shouldFindBooksByBarcodesInRequestedOrder() {
+    Book other = Fixture.book().barcode("5678").build();
+    when(booksRepository.findByBarcodes(Arrays.asList("5678", "1234")))
+        .thenReturn(Arrays.asList(book, other));
+
+    BooksLookupResponse actual = booksService.findByBarcodes(Arrays.asList("5678", "1234"));
+
+    assertThat(actual, is(new BooksLookupResponse(Arrays.asList(other, book), new ArrayList<>())));
+    verify(booksRepository).findByBarcodes(Arrays.asList("5678", "1234"));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFindCachedBooksAndListMissingBarcodes() {
+    booksCache.put(book);
+    when(booksRepository.findByBarcodes(Collections.singletonList("5678")))
+        .thenReturn(Collections.emptyList());
+
+    BooksLookupResponse actual =
+        booksService.findByBarcodes(Arrays.asList("1234", "5678", "1234"));
+
+    assertThat(actual, is(new BooksLookupResponse(
+        Collections.singletonList(book), Collections.singletonList("5678")
+    )));
+    verify(booksRepository).findByBarcodes(Collections.singletonList("5678"));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldListBarcodesMissingFromFilterWithoutQueryingThem() {
+    when(barcodeFilter.mightContain("5678")).thenReturn(false);
+    when(booksRepository.findByBarcodes(Collections.singletonList("1234")))
+        .thenReturn(Collections.singletonList(book));
+
+    BooksLookupResponse actual = booksService.findByBarcodes(Arrays.asList("1234", "5678"));
+
+    assertThat(actual, is(new BooksLookupResponse(
+        Collections.singletonList(book), Collections.singletonList("5678")
+    )));
+    verify(booksRepository).findByBarcodes(Collections.singletonList("1234"));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldNotQueryDatabaseIfAllBooksAreCached() {
+    booksCache.put(book);
+
+    BooksLookupResponse actual = booksService.findByBarcodes(Collections.singletonList("1234"));
+
+    assertThat(actual.books(), is(Collections.singletonList(book)));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFailToFindBooksByTooManyBarcodes() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksService.findByBarcodes(Arrays.asList("1234", "5678", "9012"))
+    ).getMessage();
+
+    assertThat(message, is("'Number of barcodes' must be between 1 and 2"));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFailToFindBooksByInvalidBarcode() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksService.findByBarcodes(Arrays.asList("1234", "1"))
+    ).getMessage();
+
+    assertThat(message, is("'barcode' length must be between 2 and 255"));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldGetTotalPricesByBarcodes() {
+    when(booksRepository.findByBarcodes(Arrays.asList("1234", "5678")))
+        .thenReturn(Collections.singletonList(book));
+
+    TotalPricesLookupResponse actual =
+        booksService.getTotalPrices(Arrays.asList("1234", "5678"));
+
+    assertThat(actual, is(new TotalPricesLookupResponse(
+        Collections.singletonMap("1234", pricingEngine.totalPrice(book)),
+        Collections.singletonList("5678")
+    )));
+  }
+
+  @Test
+  void shouldGetTotalPriceOfFilteredBooks() {
+    BooksFilter filter = new BooksFilter("Book Author", null, null, null);
+    int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+    when(booksRepository.totalPrice(filter, currentYear)).thenReturn(new BigDecimal("12.345"));
+
+    BigDecimal actual = booksService.getTotalPrice(filter);
+
+    assertThat(actual, is(new BigDecimal("12.345")));
+    verify(booksRepository).totalPrice(filter, currentYear);
+    verifyNoMoreInteractions(booksRepository);
+  }
+
   @Test
   void shouldCreateBook() {
-    when(booksRepository.findByBarcode(book.barcode())).thenReturn(Optional.empty());
-    when(booksRepository.create(book)).thenReturn(book);
+    when(booksRepository.create(book)).thenReturn(Optional.of(book));
 
     Book actual = booksService.create(book);
 
     assertThat(actual, is(book));
     verify(booksRepository).create(book);
-    verify(booksRepository).findByBarcode(book.barcode());
-    verifyNoMoreInteractions(booksRepository);
+    verify(summaryRepository).add(Collections.singletonList(pricingEngine.summary(book)));
+    verify(barcodeFilter).add(book.barcode());
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
   }
 
   @Test
   void shouldFailToCreateBookIfBarcodeAlreadyExists() {
-    when(booksRepository.create(book)).thenReturn(book);
+    when(booksRepository.create(book)).thenReturn(Optional.empty());
 
     String message = assertThrows(
         UniqueIdentifierException.class,
@@ -87,31 +373,400 @@ class BooksServiceTest {
 
     String expectedMessage = String.format("Book with barcode '%s' already exists", book.barcode());
     assertThat(message, is(expectedMessage));
-    verify(booksRepository).findByBarcode(book.barcode());
+    verify(booksRepository).create(book);
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+  }
+
+  @Test
+  void shouldCreateAllBooksReportingEachItemInRequestOrder() {
+    BookRequest invalid = Fixture.bookRequest().barcode("b2").name("a").build();
+    BookRequest existing = Fixture.bookRequest().barcode("b3").build();
+    BookRequest created = Fixture.bookRequest().barcode("b4").build();
+    BookRequest raced = Fixture.bookRequest().barcode("b5").build();
+    BookRequest duplicate = Fixture.bookRequest().barcode("b4").build();
+    List<BookRequest> requests = Arrays.asList(invalid, existing, created, raced, duplicate);
+    List<Book> inserted = Arrays.asList(existing.toDomain(), created.toDomain(), raced.toDomain());
+    when(booksRepository.createAll(inserted))
+        .thenReturn(Collections.singletonList(created.toDomain()));
+
+    List<BatchItemResponse> actual = booksService.createAll(requests);
+
+    List<BatchItemResponse> expected = Arrays.asList(
+        BatchItemResponse.rejected(
+            "b2", HttpStatus.BAD_REQUEST, "'name' length must be between 2 and 255"),
+        BatchItemResponse.rejected(
+            "b3", HttpStatus.CONFLICT, "Book with barcode 'b3' already exists"),
+        BatchItemResponse.created("b4"),
+        BatchItemResponse.rejected(
+            "b5", HttpStatus.CONFLICT, "Book with barcode 'b5' already exists"),
+        BatchItemResponse.rejected(
+            "b4", HttpStatus.CONFLICT, "Book with barcode 'b4' already exists")
+    );
+    assertThat(actual, is(expected));
+    verify(booksRepository).createAll(inserted);
+    verify(summaryRepository)
+        .add(Collections.singletonList(pricingEngine.summary(created.toDomain())));
+    verify(barcodeFilter).add("b4");
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+  }
+
+  @Test
+  void shouldNotQueryDatabaseIfNoBatchItemIsValid() {
+    List<BookRequest> requests = Arrays.asList(null, Fixture.bookRequest().price(null).build());
+
+    List<BatchItemResponse> actual = booksService.createAll(requests);
+
+    List<BatchItemResponse> expected = Arrays.asList(
+        BatchItemResponse.rejected(null, HttpStatus.BAD_REQUEST, "Book cannot be null"),
+        BatchItemResponse.rejected(book.barcode(), HttpStatus.BAD_REQUEST, "'price' cannot be null")
+    );
+    assertThat(actual, is(expected));
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldRejectBatchItemsThatWereNotInserted() {
+    when(booksRepository.createAll(Collections.singletonList(book)))
+        .thenReturn(Collections.emptyList());
+
+    List<BatchItemResponse> actual =
+        booksService.createAll(Collections.singletonList(Fixture.bookRequest().build()));
+
+    String expectedMessage = String.format("Book with barcode '%s' already exists", book.barcode());
+    List<BatchItemResponse> expected = Collections.singletonList(
+        BatchItemResponse.rejected(book.barcode(), HttpStatus.CONFLICT, expectedMessage)
+    );
+    assertThat(actual, is(expected));
+    verify(booksRepository).createAll(Collections.singletonList(book));
     verifyNoMoreInteractions(booksRepository);
   }
 
   @Test
   void shouldUpdateBook() {
-    when(booksRepository.update(book)).thenReturn(book);
+    Book updated = Fixture.book().quantity(5).scienceIndex(3).build();
+    when(booksRepository.update(updated, Optional.of(1L)))
+        .thenReturn(Optional.of(new BookChange(book, updated)));
 
-    Book actual = booksService.update(book);
+    Book actual = booksService.update(updated, Optional.of(1L));
 
-    assertThat(actual, is(book));
-    verify(booksRepository).findByBarcode(book.barcode());
-    verify(booksRepository).update(book);
+    assertThat(actual, is(updated));
+    verify(booksRepository).update(updated, Optional.of(1L));
+    verify(summaryRepository).add(Arrays.asList(
+        pricingEngine.summary(book).negate(),
+        pricingEngine.summary(updated)
+    ));
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+  }
+
+  @Test
+  void shouldFailToUpdateBookIfBarcodeDoesNotExist() {
+    when(booksRepository.update(book, Optional.empty())).thenReturn(Optional.empty());
+
+    String message = assertThrows(
+        ResourceNotFoundException.class,
+        () -> booksService.update(book)
+    ).getMessage();
+
+    String expectedMessage = String.format("Book with barcode '%s' was not found", book.barcode());
+    assertThat(message, is(expectedMessage));
+    verify(booksRepository).update(book, Optional.empty());
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+  }
+
+  @Test
+  void shouldFailToUpdateBookIfVersionDoesNotMatch() {
+    when(booksRepository.update(book, Optional.of(4L)))
+        .thenReturn(Optional.of(new BookChange(book, null)));
+
+    String message = assertThrows(
+        PreconditionFailedException.class,
+        () -> booksService.update(book, Optional.of(4L))
+    ).getMessage();
+
+    assertThat(message, is("Book with barcode '1234' has changed since version 4"));
+    verify(booksRepository).update(book, Optional.of(4L));
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+  }
+
+  @Test
+  void shouldUpdateBookFieldsInOneStatement() {
+    BookPatch patch = new BookPatch("New Name", null, null, null, null, null);
+    Book updated = Fixture.book().name("New Name").version(2).build();
+    when(booksRepository.patch(book.barcode(), patch, Optional.empty()))
+        .thenReturn(Optional.of(new BookChange(book, updated)));
+
+    Book actual = booksService.updateFields(
+        book.barcode(), Collections.singletonMap("name", "New Name"), Optional.empty()
+    );
+
+    assertThat(actual, is(updated));
+    assertThat(actual.version(), is(2L));
+    verify(booksRepository).patch(book.barcode(), patch, Optional.empty());
+    verify(summaryRepository).add(Arrays.asList(
+        pricingEngine.summary(book).negate(),
+        pricingEngine.summary(updated)
+    ));
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+  }
+
+  @Test
+  void shouldFailToUpdateBookFieldsOfChangedVersion() {
+    BookPatch patch = new BookPatch("New Name", null, null, null, null, null);
+    when(booksRepository.patch(book.barcode(), patch, Optional.of(5L)))
+        .thenReturn(Optional.of(new BookChange(book, null)));
+
+    String message = assertThrows(
+        PreconditionFailedException.class,
+        () -> booksService.updateFields(
+            book.barcode(), Collections.singletonMap("name", "New Name"), Optional.of(5L)
+        )
+    ).getMessage();
+
+    assertThat(message, is("Book with barcode '1234' has changed since version 5"));
+    verify(booksRepository).patch(book.barcode(), patch, Optional.of(5L));
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+  }
+
+  @Test
+  void shouldFailToMakeAntiqueBookScienceJournal() {
+    Book antique = Fixture.book().antiqueReleaseYear(1800).build();
+    BookPatch patch = new BookPatch(null, null, null, null, null, 5);
+    when(booksRepository.patch(book.barcode(), patch, Optional.of(1L)))
+        .thenReturn(Optional.of(new BookChange(antique, null)));
+
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksService.updateFields(
+            book.barcode(), Collections.singletonMap("scienceIndex", 5), Optional.of(1L)
+        )
+    ).getMessage();
+
+    assertThat(message, is("Book cannot be both antique and science journal"));
+  }
+
+  @Test
+  void shouldFailToUpdateBookFieldsIfBarcodeDoesNotExist() {
+    when(booksRepository.patch(eq(book.barcode()), any(BookPatch.class), eq(Optional.empty())))
+        .thenReturn(Optional.empty());
+
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> booksService.updateFields(
+            book.barcode(), Collections.singletonMap("name", "New Name"), Optional.empty()
+        )
+    );
+  }
+
+  @Test
+  void shouldNotUpdateBookFieldsIfRequestIsInvalid() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksService.updateFields(
+            book.barcode(), Collections.singletonMap("name", "a"), Optional.empty()
+        )
+    ).getMessage();
+
+    assertThat(message, is("'name' length must be between 2 and 255"));
     verifyNoMoreInteractions(booksRepository);
   }
 
   @Test
-  void shouldUpdateBookFields() {
-    when(booksRepository.update(book)).thenReturn(book);
-    HashMap<String, Object> updates = new HashMap<String, Object>() {};
+  void shouldFailToUpdateBookFieldsIfBarcodeModificationRequested() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksService.updateFields(
+            book.barcode(), Collections.singletonMap("barcode", "5678"), Optional.empty()
+        )
+    ).getMessage();
 
-    BookRequest actual = booksService.updateRequest(book.barcode(), updates);
+    assertThat(message, is("Barcode can not be updated"));
+  }
 
-    assertThat(actual, is(Fixture.bookRequest().build()));
-    verify(booksRepository).findByBarcode(book.barcode());
+  @Test
+  void shouldAdjustQuantity() {
+    Book adjusted = Fixture.book().quantity(5).version(2).build();
+    when(booksRepository.adjustQuantity(book.barcode(), 3)).thenReturn(Optional.of(adjusted));
+
+    Book actual = booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), 3));
+
+    assertThat(actual, is(adjusted));
+    verify(booksRepository).adjustQuantity(book.barcode(), 3);
+    verify(summaryRepository).add(Arrays.asList(
+        pricingEngine.summary(book).negate(),
+        pricingEngine.summary(adjusted)
+    ));
+    verify(quantitySlots).recordAdjustment(book.barcode());
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+    assertThat(booksService.findByBarcode(book.barcode()), is(adjusted));
+  }
+
+  @Test
+  void shouldAdjustQuantityInSlotOfSlottedBook() {
+    Book adjusted = Fixture.book().quantity(5).version(9).build();
+    when(booksRepository.adjustSlot(book.barcode(), 3)).thenReturn(Optional.of(adjusted));
+
+    Book actual = booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), 3));
+
+    assertThat(actual, is(adjusted));
+    InOrder inOrder = inOrder(booksRepository);
+    inOrder.verify(booksRepository).adjustQuantity(book.barcode(), 3);
+    inOrder.verify(booksRepository).adjustSlot(book.barcode(), 3);
+    verify(summaryRepository).add(Arrays.asList(
+        pricingEngine.summary(book).negate(),
+        pricingEngine.summary(adjusted)
+    ));
+    verifyNoMoreInteractions(booksRepository, summaryRepository, quantitySlots);
+    assertThat(booksService.findByBarcode(book.barcode()), is(book));
+  }
+
+  @Test
+  void shouldSpreadQuantityIfNoSlotCanTakeAdjustment() {
+    Book adjusted = Fixture.book().quantity(1).version(9).build();
+    when(booksRepository.spreadQuantity(book.barcode(), Optional.empty(), -1))
+        .thenReturn(Optional.of(adjusted));
+
+    Book actual = booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), -1));
+
+    assertThat(actual, is(adjusted));
+    InOrder inOrder = inOrder(booksRepository);
+    inOrder.verify(booksRepository).adjustQuantity(book.barcode(), -1);
+    inOrder.verify(booksRepository).adjustSlot(book.barcode(), -1);
+    inOrder.verify(booksRepository).spreadQuantity(book.barcode(), Optional.empty(), -1);
+    verify(summaryRepository).add(Arrays.asList(
+        pricingEngine.summary(book).negate(),
+        pricingEngine.summary(adjusted)
+    ));
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+    assertThat(booksService.findByBarcode(book.barcode()), is(adjusted));
+  }
+
+  @Test
+  void shouldFailToAdjustQuantityBelowZero() {
+    when(booksRepository.adjustQuantity(book.barcode(), -3)).thenReturn(Optional.empty());
+    when(booksRepository.findVersion(book.barcode())).thenReturn(Optional.of(1L));
+
+    String message = assertThrows(
+        InsufficientQuantityException.class,
+        () -> booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), -3))
+    ).getMessage();
+
+    assertThat(message, is("Quantity of books with barcodes [1234] cannot go below zero"));
+    verifyNoMoreInteractions(summaryRepository);
+  }
+
+  @Test
+  void shouldFailToAdjustQuantityIfBarcodeDoesNotExist() {
+    when(booksRepository.adjustQuantity(book.barcode(), -3)).thenReturn(Optional.empty());
+    when(booksRepository.findVersion(book.barcode())).thenReturn(Optional.empty());
+
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> booksService.adjustQuantity(new QuantityAdjustment(book.barcode(), -3))
+    );
+    verifyNoMoreInteractions(summaryRepository);
+  }
+
+  @Test
+  void shouldAdjustQuantitiesInBarcodeOrder() {
+    Map<String, Long> deltas = new TreeMap<>();
+    deltas.put("b1", -1L);
+    deltas.put("b2", 5L);
+    when(booksRepository.lockAll(deltas.keySet())).thenReturn(new HashSet<>(deltas.keySet()));
+    Book first = Fixture.book().barcode("b1").quantity(1).build();
+    Book second = Fixture.book().barcode("b2").quantity(7).build();
+    when(booksRepository.adjustQuantities(deltas))
+        .thenReturn(new ArrayList<>(Arrays.asList(second, first)));
+
+    List<Book> actual = booksService.adjustQuantities(Arrays.asList(
+        new QuantityAdjustment("b2", 2),
+        new QuantityAdjustment("b1", -1),
+        new QuantityAdjustment("b2", 3)
+    ));
+
+    assertThat(actual, is(Arrays.asList(first, second)));
+    InOrder inOrder = inOrder(booksRepository);
+    inOrder.verify(booksRepository).lockAll(deltas.keySet());
+    inOrder.verify(booksRepository).adjustQuantities(deltas);
+    verify(summaryRepository).add(Arrays.asList(
+        pricingEngine.summary(first.withQuantity(2)).negate(),
+        pricingEngine.summary(first),
+        pricingEngine.summary(second.withQuantity(2)).negate(),
+        pricingEngine.summary(second)
+    ));
+  }
+
+  @Test
+  void shouldNotAdjustQuantitiesIfAnyBarcodeDoesNotExist() {
+    when(booksRepository.lockAll(anyCollection())).thenReturn(Collections.singleton("b1"));
+
+    String message = assertThrows(
+        ResourceNotFoundException.class,
+        () -> booksService.adjustQuantities(Arrays.asList(
+            new QuantityAdjustment("b1", 1),
+            new QuantityAdjustment("b2", 1)
+        ))
+    ).getMessage();
+
+    assertThat(message, is("Book with barcode 'b2' was not found"));
+    verify(booksRepository).lockAll(anyCollection());
+    verifyNoMoreInteractions(booksRepository, summaryRepository);
+  }
+
+  @Test
+  void shouldNotAdjustQuantitiesIfAnyGoesBelowZero() {
+    when(booksRepository.lockAll(anyCollection()))
+        .thenReturn(new HashSet<>(Arrays.asList("b1", "b2")));
+    when(booksRepository.adjustQuantities(anyMap()))
+        .thenReturn(Collections.singletonList(Fixture.book().barcode("b1").build()));
+
+    String message = assertThrows(
+        InsufficientQuantityException.class,
+        () -> booksService.adjustQuantities(Arrays.asList(
+            new QuantityAdjustment("b1", 1),
+            new QuantityAdjustment("b2", -10)
+        ))
+    ).getMessage();
+
+    assertThat(message, is("Quantity of books with barcodes [b2] cannot go below zero"));
+    verify(booksRepository).adjustSlot("b2", -10);
+    verify(booksRepository).spreadQuantity("b2", Optional.empty(), -10);
+    verifyNoMoreInteractions(summaryRepository);
+  }
+
+  @Test
+  void shouldAdjustSlottedQuantitiesAfterOthers() {
+    when(booksRepository.lockAll(anyCollection()))
+        .thenReturn(new HashSet<>(Arrays.asList("b1", "b2")));
+    Book first = Fixture.book().barcode("b1").quantity(3).build();
+    Book second = Fixture.book().barcode("b2").quantity(4).build();
+    when(booksRepository.adjustQuantities(anyMap())).thenReturn(Collections.singletonList(second));
+    when(booksRepository.adjustSlot("b1", 1)).thenReturn(Optional.of(first));
+
+    List<Book> actual = booksService.adjustQuantities(Arrays.asList(
+        new QuantityAdjustment("b2", 2),
+        new QuantityAdjustment("b1", 1)
+    ));
+
+    assertThat(actual, is(Arrays.asList(first, second)));
+    verify(booksRepository).adjustSlot("b1", 1);
+    verify(summaryRepository).add(Arrays.asList(
+        pricingEngine.summary(first.withQuantity(2)).negate(),
+        pricingEngine.summary(first),
+        pricingEngine.summary(second.withQuantity(2)).negate(),
+        pricingEngine.summary(second)
+    ));
+  }
+
+  @Test
+  void shouldFailToAdjustQuantitiesIfAdjustmentIsInvalid() {
+    String message = assertThrows(
+        ValidationException.class,
+        () -> booksService.adjustQuantities(Collections.singletonList(
+            new QuantityAdjustment("b1", null)
+        ))
+    ).getMessage();
+
+    assertThat(message, is("'delta' cannot be null"));
     verifyNoMoreInteractions(booksRepository);
   }
 }
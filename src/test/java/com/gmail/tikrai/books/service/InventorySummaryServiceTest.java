@@ -0,0 +1,84 @@
+package com.gmail.tikrai.books.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.gmail.tikrai.books.database.ReplicaReads;
+import com.gmail.tikrai.books.domain.BookType;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
+import com.gmail.tikrai.books.response.InventorySummaryResponse;
+import java.time.Duration;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class InventorySummaryServiceTest {
+
+  private final InventorySummaryRepository summaryRepository =
+      mock(InventorySummaryRepository.class);
+  private final ReplicaReads replicaReads =
+      new ReplicaReads(mock(PlatformTransactionManager.class), Duration.ZERO);
+  private final PricingEngine pricingEngine = Fixture.pricingEngine();
+  private final PlatformTransactionManager transactionManager =
+      mock(PlatformTransactionManager.class);
+  private final InventorySummaryService summaryService = new InventorySummaryService(
+      summaryRepository, replicaReads, pricingEngine, transactionManager
+  );
+
+  @Test
+  void shouldGetSummaryValuedInCurrentYear() {
+    Map<BookType, CategorySummary> summaries = new EnumMap<>(BookType.class);
+    for (BookType type : BookType.values()) {
+      summaries.put(type, CategorySummary.empty(type));
+    }
+    summaries.put(BookType.ANTIQUE, pricingEngine.summary(
+        Fixture.book().antiqueReleaseYear(1900).build()
+    ));
+    when(summaryRepository.findAll()).thenReturn(summaries);
+
+    InventorySummaryResponse actual = summaryService.getSummary();
+
+    int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+    assertThat(actual, is(InventorySummaryResponse.of(summaries, currentYear)));
+    verify(summaryRepository).findAll();
+    verifyNoMoreInteractions(summaryRepository);
+  }
+
+  @Test
+  void shouldAddDriftOfSummary() {
+    List<CategorySummary> drift = Collections.singletonList(
+        pricingEngine.summary(Fixture.book().scienceIndex(2).build())
+    );
+    when(summaryRepository.findDrift()).thenReturn(drift);
+
+    summaryService.reconcile();
+
+    verify(summaryRepository).findDrift();
+    verify(summaryRepository).add(drift);
+    verifyNoMoreInteractions(summaryRepository);
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  void shouldNotAddWithoutDrift() {
+    when(summaryRepository.findDrift()).thenReturn(Collections.emptyList());
+
+    summaryService.reconcile();
+
+    verify(summaryRepository).findDrift();
+    verifyNoMoreInteractions(summaryRepository);
+  }
+}
@@ -0,0 +1,109 @@
+package com.gmail.tikrai.books.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.gmail.tikrai.books.cache.BooksCache;
+import com.gmail.tikrai.books.database.ReplicaReads;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.exception.ResourceNotFoundException;
+import com.gmail.tikrai.books.exception.ValidationException;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.request.QuantitySlots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class QuantitySlotsServiceTest {
+
+  private final BooksRepository booksRepository = mock(BooksRepository.class);
+  private final BooksCache booksCache =
+      new BooksCache(true, 100, Duration.ZERO, new SimpleMeterRegistry());
+  private final ReplicaReads replicaReads =
+      new ReplicaReads(mock(PlatformTransactionManager.class), Duration.ZERO);
+  private final QuantitySlotsService quantitySlots =
+      new QuantitySlotsService(booksRepository, booksCache, replicaReads, 3, 4);
+  private final Book book = Fixture.book().build();
+
+  @Test
+  void shouldConfigureQuantitySlots() {
+    when(booksRepository.spreadQuantity(book.barcode(), Optional.of(8), 0))
+        .thenReturn(Optional.of(book));
+
+    Book actual = quantitySlots.configure(book.barcode(), new QuantitySlots(8));
+
+    assertThat(actual, is(book));
+    assertThat(booksCache.getIfPresent(book.barcode()), is(Optional.of(book)));
+    verify(booksRepository).spreadQuantity(book.barcode(), Optional.of(8), 0);
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldFailToConfigureQuantitySlotsIfBarcodeDoesNotExist() {
+    String message = assertThrows(
+        ResourceNotFoundException.class,
+        () -> quantitySlots.configure(book.barcode(), new QuantitySlots(8))
+    ).getMessage();
+
+    assertThat(message, is("Book with barcode '1234' was not found"));
+  }
+
+  @Test
+  void shouldNotConfigureInvalidQuantitySlots() {
+    assertThrows(
+        ValidationException.class,
+        () -> quantitySlots.configure(book.barcode(), new QuantitySlots(-1))
+    );
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldSpreadQuantityOfHotBooksAndRebalanceUnevenSlots() {
+    for (int i = 0; i < 3; i++) {
+      quantitySlots.recordAdjustment("hot");
+    }
+    quantitySlots.recordAdjustment("cold");
+    when(booksRepository.findUnbalancedSlots()).thenReturn(Collections.singletonList("uneven"));
+
+    quantitySlots.rebalance();
+
+    verify(booksRepository).spreadQuantity("hot", Optional.of(4), 0);
+    verify(booksRepository).findUnbalancedSlots();
+    verify(booksRepository).spreadQuantity("uneven", Optional.empty(), 0);
+    verifyNoMoreInteractions(booksRepository);
+  }
+
+  @Test
+  void shouldCountAdjustmentsOnlyUntilRebalance() {
+    for (int i = 0; i < 3; i++) {
+      quantitySlots.recordAdjustment("hot");
+    }
+    quantitySlots.rebalance();
+    quantitySlots.recordAdjustment("hot");
+
+    quantitySlots.rebalance();
+
+    verify(booksRepository).spreadQuantity("hot", Optional.of(4), 0);
+  }
+
+  @Test
+  void shouldNotCountAdjustmentsIfAutomaticSlotsAreDisabled() {
+    QuantitySlotsService manual =
+        new QuantitySlotsService(booksRepository, booksCache, replicaReads, 0, 4);
+    manual.recordAdjustment("hot");
+
+    manual.rebalance();
+
+    verify(booksRepository).findUnbalancedSlots();
+    verifyNoMoreInteractions(booksRepository);
+  }
+}
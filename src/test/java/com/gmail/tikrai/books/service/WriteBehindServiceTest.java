@@ -0,0 +1,273 @@
+package com.gmail.tikrai.books.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gmail.tikrai.books.cache.BarcodeFilter;
+import com.gmail.tikrai.books.cache.BooksCache;
+import com.gmail.tikrai.books.database.ReplicaReads;
+import com.gmail.tikrai.books.domain.Book;
+import com.gmail.tikrai.books.domain.BookChange;
+import com.gmail.tikrai.books.domain.CategorySummary;
+import com.gmail.tikrai.books.exception.ResourceNotFoundException;
+import com.gmail.tikrai.books.exception.TooManyRequestsException;
+import com.gmail.tikrai.books.exception.UniqueIdentifierException;
+import com.gmail.tikrai.books.fixture.Fixture;
+import com.gmail.tikrai.books.pricing.PricingEngine;
+import com.gmail.tikrai.books.repository.BooksRepository;
+import com.gmail.tikrai.books.repository.InventorySummaryRepository;
+import com.gmail.tikrai.books.service.WriteBehindService.Durability;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class WriteBehindServiceTest {
+
+  private final BooksRepository booksRepository = mock(BooksRepository.class);
+  private final InventorySummaryRepository summaryRepository =
+      mock(InventorySummaryRepository.class);
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final BooksCache booksCache = new BooksCache(true, 100, Duration.ZERO, registry);
+  private final BarcodeFilter barcodeFilter = mock(BarcodeFilter.class);
+  private final PlatformTransactionManager transactionManager =
+      mock(PlatformTransactionManager.class);
+  private final ReplicaReads replicaReads = new ReplicaReads(transactionManager, Duration.ZERO);
+  private final PricingEngine pricingEngine = Fixture.pricingEngine();
+  private final Book book = Fixture.book().build();
+  private final Book other = Fixture.book().barcode("5678").build();
+  private WriteBehindService writeBehind;
+
+  @AfterEach
+  void stop() {
+    writeBehind.stop();
+  }
+
+  @Test
+  void shouldFlushLatestWritesOfEachBookInOneTransaction() {
+    Book latest = Fixture.book().quantity(5).build();
+    Book previous = Fixture.book().version(2).build();
+    Book stored = Fixture.book().quantity(5).version(3).build();
+    when(booksRepository.updateAll(Collections.singletonList(latest)))
+        .thenReturn(Collections.singletonList(new BookChange(previous, stored)));
+    when(booksRepository.createAbsent(Collections.singletonList(other)))
+        .thenReturn(Collections.singletonList(other));
+    writeBehind = writeBehind(Durability.QUEUED, 10, Duration.ofMillis(200));
+    writeBehind.start();
+
+    assertThat(writeBehind.update(book), is(Optional.empty()));
+    assertThat(writeBehind.update(latest), is(Optional.empty()));
+    assertThat(writeBehind.create(other), is(Optional.empty()));
+    writeBehind.stop();
+
+    verify(booksRepository).commitAsynchronously();
+    verify(booksRepository).updateAll(Collections.singletonList(latest));
+    verify(booksRepository).createAbsent(Collections.singletonList(other));
+    verify(summaryRepository).add(Arrays.asList(
+        pricingEngine.summary(previous).negate(),
+        pricingEngine.summary(stored),
+        pricingEngine.summary(other)
+    ));
+    verify(transactionManager).commit(any());
+    assertThat(booksCache.getIfPresent(book.barcode()), is(Optional.of(stored)));
+    assertThat(booksCache.getIfPresent(other.barcode()), is(Optional.of(other)));
+    verify(barcodeFilter).add(book.barcode());
+    verify(barcodeFilter).add(other.barcode());
+    assertThat(registry.get("books.write.behind.queue.depth").gauge().value(), is(0.0));
+    assertThat(registry.get("books.write.behind.flush.latency").timer().count(), is(1L));
+    assertThat(registry.get("books.write.behind.flush.books").summary().totalAmount(), is(2.0));
+  }
+
+  @Test
+  void shouldReturnStoredBookAfterCommit() {
+    when(booksRepository.createAbsent(Collections.singletonList(book)))
+        .thenReturn(Collections.singletonList(book));
+    writeBehind = writeBehind(Durability.COMMIT, 10, Duration.ofMillis(1));
+    writeBehind.start();
+
+    Optional<Book> actual = writeBehind.create(book);
+
+    assertThat(actual, is(Optional.of(book)));
+    verify(booksRepository, never()).commitAsynchronously();
+    verify(booksRepository, never()).updateAll(anyList());
+    verify(summaryRepository).add(Collections.singletonList(pricingEngine.summary(book)));
+    verify(transactionManager).commit(any());
+  }
+
+  @Test
+  void shouldFailToCreateExistingBook() {
+    when(booksRepository.createAbsent(Collections.singletonList(book)))
+        .thenReturn(Collections.emptyList());
+    writeBehind = writeBehind(Durability.ASYNC_COMMIT, 10, Duration.ofMillis(1));
+    writeBehind.start();
+
+    UniqueIdentifierException exception =
+        assertThrows(UniqueIdentifierException.class, () -> writeBehind.create(book));
+
+    assertThat(exception.getMessage(), is("Book with barcode '1234' already exists"));
+    verify(booksRepository, never()).updateAll(anyList());
+    verify(transactionManager).commit(any());
+  }
+
+  @Test
+  void shouldFailToUpdateMissingBook() {
+    when(booksRepository.updateAll(Collections.singletonList(book)))
+        .thenReturn(Collections.emptyList());
+    writeBehind = writeBehind(Durability.ASYNC_COMMIT, 10, Duration.ofMillis(1));
+    writeBehind.start();
+
+    ResourceNotFoundException exception =
+        assertThrows(ResourceNotFoundException.class, () -> writeBehind.update(book));
+
+    assertThat(exception.getMessage(), is("Book with barcode '1234' was not found"));
+    verify(booksRepository, never()).createAbsent(anyList());
+  }
+
+  @Test
+  void shouldStoreCreateAndUpdateOfBookInQueuedOrder() {
+    Book latest = Fixture.book().quantity(5).build();
+    Book stored = Fixture.book().quantity(5).version(2).build();
+    when(booksRepository.createAbsent(Collections.singletonList(book)))
+        .thenReturn(Collections.singletonList(book));
+    when(booksRepository.updateAll(Collections.singletonList(latest)))
+        .thenReturn(Collections.singletonList(new BookChange(book, stored)));
+    writeBehind = writeBehind(Durability.QUEUED, 10, Duration.ofMillis(200));
+    writeBehind.start();
+
+    writeBehind.create(book);
+    writeBehind.update(latest);
+    writeBehind.stop();
+
+    InOrder inOrder = inOrder(booksRepository);
+    inOrder.verify(booksRepository).createAbsent(Collections.singletonList(book));
+    inOrder.verify(booksRepository).updateAll(Collections.singletonList(latest));
+    verify(transactionManager).commit(any());
+    assertThat(booksCache.getIfPresent(book.barcode()), is(Optional.of(stored)));
+  }
+
+  @Test
+  void shouldFailWritesOfBatchThatWasNotStored() {
+    QueryTimeoutException failure = new QueryTimeoutException("Query timed out");
+    when(booksRepository.updateAll(anyList())).thenThrow(failure);
+    booksCache.put(book);
+    writeBehind = writeBehind(Durability.COMMIT, 10, Duration.ofMillis(1));
+    writeBehind.start();
+
+    QueryTimeoutException actual =
+        assertThrows(QueryTimeoutException.class, () -> writeBehind.update(book));
+
+    assertThat(actual, is(failure));
+    assertThat(booksCache.getIfPresent(book.barcode()), is(Optional.empty()));
+    verify(transactionManager).rollback(any());
+  }
+
+  @Test
+  void shouldFailOnlyWritesThatCouldNotBeStored() {
+    Book overflowing = Fixture.book().barcode("9012").build();
+    DataIntegrityViolationException failure =
+        new DataIntegrityViolationException("Numeric field overflow");
+    when(booksRepository.createAbsent(anyList())).thenAnswer(invocation -> {
+      List<Book> creates = invocation.getArgument(0);
+      if (creates.contains(overflowing)) {
+        throw failure;
+      }
+      return creates;
+    });
+    writeBehind = writeBehind(Durability.QUEUED, 10, Duration.ofMillis(200));
+    writeBehind.start();
+
+    writeBehind.create(book);
+    writeBehind.create(overflowing);
+    writeBehind.create(other);
+    writeBehind.stop();
+
+    assertThat(booksCache.getIfPresent(book.barcode()), is(Optional.of(book)));
+    assertThat(booksCache.getIfPresent(other.barcode()), is(Optional.of(other)));
+    assertThat(booksCache.getIfPresent(overflowing.barcode()), is(Optional.empty()));
+    verify(transactionManager, times(2)).commit(any());
+    verify(transactionManager, times(3)).rollback(any());
+    assertThat(registry.get("books.write.behind.failed").counter().count(), is(1.0));
+    assertThat(registry.get("books.write.behind.lost").counter().count(), is(1.0));
+    assertThat(registry.get("books.write.behind.flush.books").summary().totalAmount(), is(3.0));
+  }
+
+  @Test
+  void shouldRejectWritesWhenQueueIsFull() throws InterruptedException {
+    CountDownLatch flushing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(booksRepository.createAbsent(anyList())).thenAnswer(invocation -> {
+      flushing.countDown();
+      release.await(1, TimeUnit.SECONDS);
+      return invocation.getArgument(0);
+    });
+    writeBehind = writeBehind(Durability.QUEUED, 1, Duration.ofMillis(1));
+    writeBehind.start();
+    writeBehind.create(book);
+    assertThat(flushing.await(1, TimeUnit.SECONDS), is(true));
+    writeBehind.create(other);
+
+    String message = assertThrows(
+        TooManyRequestsException.class,
+        () -> writeBehind.create(Fixture.book().barcode("9012").build())
+    ).getMessage();
+    release.countDown();
+
+    assertThat(message, is("Write-behind queue is full, retry later"));
+    assertThat(registry.get("books.write.behind.rejected").counter().count(), is(1.0));
+  }
+
+  @Test
+  void shouldRejectWritesWhenNotRunning() {
+    writeBehind = writeBehind(Durability.COMMIT, 10, Duration.ofMillis(1));
+
+    String message = assertThrows(
+        TooManyRequestsException.class,
+        () -> writeBehind.create(book)
+    ).getMessage();
+
+    assertThat(message, is("Write-behind queue is not accepting writes"));
+  }
+
+  private WriteBehindService writeBehind(
+      Durability durability,
+      int queueCapacity,
+      Duration flushInterval
+  ) {
+    return new WriteBehindService(
+        booksRepository,
+        summaryRepository,
+        booksCache,
+        barcodeFilter,
+        replicaReads,
+        pricingEngine,
+        transactionManager,
+        registry,
+        true,
+        durability,
+        queueCapacity,
+        flushInterval,
+        100,
+        Duration.ofSeconds(5)
+    );
+  }
+}